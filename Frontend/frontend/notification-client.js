@@ -3,6 +3,9 @@ import { Stomp } from '@stomp/stompjs';
 
 window.stompClient = null;
 
+// auction price subscriptions of the open views, made again after every (re)connect
+const auctionWatchers = [];
+
 window.connectWebSocket = function (userId) {
     console.log("Connecting to WebSocket with userId: " + userId);
     const socket = new SockJS('http://localhost:8080/ws-notifications?userId=' + userId); // or whatever port your backend runs on
@@ -19,6 +22,8 @@ window.connectWebSocket = function (userId) {
 
         stompClient.send("/app/register", {}, userId);
 
+        auctionWatchers.forEach(subscribeAuction);
+
     }, function (error) {
         console.error('STOMP error: ' + error);
     });
@@ -68,3 +73,80 @@ window.disconnectWebSocket = function () {
         });
     }
 };
+
+const subscribeAuction = (watcher) => {
+    if (!watcher.element.isConnected) {
+        auctionWatchers.splice(auctionWatchers.indexOf(watcher), 1);
+        return;
+    }
+    watcher.subscription = window.stompClient.subscribe("/topic/auctions/" + watcher.auctionId, function (message) {
+        if (!watcher.element.isConnected) {
+            watcher.subscription.unsubscribe();
+            auctionWatchers.splice(auctionWatchers.indexOf(watcher), 1);
+            return;
+        }
+        const update = JSON.parse(message.body);
+        if (update.seq < watcher.seq || (update.seq === watcher.seq && !update.ended)) {
+            return; // older than what is shown
+        }
+        watcher.seq = update.seq;
+        watcher.onUpdate(update);
+    });
+};
+
+/**
+ * Calls onUpdate with every price frame of the auction (highestBid, highestBidderId, seq,
+ * millisLeft, ended) until element leaves the page. Frames come from the backend's
+ * /topic/auctions/{id}, at most a few per second however fast the auction is bid on.
+ */
+window.watchAuction = function (auctionId, element, onUpdate) {
+    const watcher = { auctionId: auctionId, element: element, onUpdate: onUpdate, seq: 0, subscription: null };
+    auctionWatchers.push(watcher);
+    if (window.stompClient && window.stompClient.connected) {
+        subscribeAuction(watcher);
+    }
+};
+
+/**
+ * Shows the auction's highest bid in priceElement as it changes, without asking the server.
+ */
+window.watchAuctionPrice = function (auctionId, priceElement) {
+    window.watchAuction(auctionId, priceElement, (update) => {
+        priceElement.textContent = update.highestBid;
+    });
+};
+
+/**
+ * Counts the time left down in element once a second, in the browser. Price frames of
+ * the auction bring the time left again, so a skewed clock does not drift.
+ */
+window.countDownAuction = function (auctionId, element, millisLeft) {
+    let end = Date.now() + millisLeft;
+    const pad = (n) => String(n).padStart(2, "0");
+    const show = () => {
+        const left = Math.max(0, end - Date.now());
+        if (left === 0) {
+            element.textContent = "Ended";
+            return;
+        }
+        const seconds = Math.floor(left / 1000);
+        element.textContent = pad(Math.floor(seconds / 3600)) + ":" + pad(Math.floor(seconds / 60) % 60)
+            + ":" + pad(seconds % 60);
+    };
+    show();
+    const timer = setInterval(() => {
+        if (!element.isConnected) {
+            clearInterval(timer);
+            return;
+        }
+        show();
+    }, 1000);
+    window.watchAuction(auctionId, element, (update) => {
+        if (update.ended) {
+            end = Date.now();
+        } else if (update.millisLeft !== null) {
+            end = Date.now() + update.millisLeft;
+        }
+        show();
+    });
+};
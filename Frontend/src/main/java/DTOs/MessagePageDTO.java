@@ -0,0 +1,18 @@
+package DTOs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MessagePageDTO {
+    private List<MessageDTO> items = new ArrayList<>();
+    private Integer nextBeforeId;
+
+    // Required no-arg constructor for Jackson
+    public MessagePageDTO() {}
+
+    public List<MessageDTO> getItems() { return items; }
+    public void setItems(List<MessageDTO> items) { this.items = items; }
+
+    public Integer getNextBeforeId() { return nextBeforeId; }
+    public void setNextBeforeId(Integer nextBeforeId) { this.nextBeforeId = nextBeforeId; }
+}
@@ -7,8 +7,10 @@ import org.springframework.http.*;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.vaadin.flow.component.ClientCallable;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.dependency.JsModule;
 import com.vaadin.flow.component.formlayout.FormLayout;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
@@ -26,11 +28,13 @@ import DTOs.BidRecieptDTO;
 
 @Route(value = "auction/:auctionId", layout = AppLayoutBasic.class)
 @AnonymousAllowed
+@JsModule("./notification-client.js")
 public class AuctionDetailView extends BaseView implements BeforeEnterObserver {
 
     private String auctionIdStr;        // raw path param
     private int auctionId;              // parsed
     private BidRecieptDTO bid;          // loaded DTO
+    private boolean watching;           // subscribed to the auction's price topic
 
     private final RestTemplate rest = new RestTemplate();
     private final String apiBase;
@@ -143,6 +147,14 @@ public class AuctionDetailView extends BaseView implements BeforeEnterObserver {
 
             placeBidButton.addClickListener(e -> onPlaceBid());
             card.add(newBidAmount, placeBidButton);
+
+            // the highest bid follows the auction's price topic instead of reloading the auction
+            if (!watching) {
+                watching = true;
+                getElement().executeJs(
+                    "window.watchAuction($0, this, u => this.$server.onAuctionUpdate(u.highestBid, u.ended))",
+                    auctionId);
+            }
         }
 
         // ─── finish layout ───────────────────────────────────────────────
@@ -183,6 +195,21 @@ public class AuctionDetailView extends BaseView implements BeforeEnterObserver {
         }
     }
 
+    @ClientCallable
+    public void onAuctionUpdate(int highestBid, boolean ended) {
+        if (bid == null) {
+            return;
+        }
+        bid.setHighestBid(highestBid);
+        highestBidField.setValue(String.valueOf(highestBid));
+        if (ended) {
+            bid.setCompleted(true);
+            completedField.setValue("Yes");
+            newBidAmount.setReadOnly(true);
+            placeBidButton.setEnabled(false);
+        }
+    }
+
     // ─── helper methods copied unchanged from your original ───────────
     private String getShopName(int shopId) {
         String token = (String) VaadinSession.getCurrent().getAttribute("authToken");
@@ -88,9 +88,15 @@ public class AuctionListView extends BaseView {
                    .setHeader("Initial Price")
                    .setAutoWidth(true);
 
-        auctionGrid.addColumn(BidRecieptDTO::getHighestBid)
-                   .setHeader("Highest Bid")
-                   .setAutoWidth(true);
+        // “Highest Bid” follows the auction's price topic
+        auctionGrid.addColumn(new ComponentRenderer<>(dto -> {
+            Span price = new Span(String.valueOf(dto.getHighestBid()));
+            if (!dto.isCompleted()) {
+                price.getElement().executeJs("window.watchAuctionPrice($0, this)", dto.getPurchaseId());
+            }
+            return price;
+        })).setHeader("Highest Bid")
+          .setAutoWidth(true);
 
         auctionGrid.addColumn(dto -> dto.isCompleted() ? "Yes" : "No")
                    .setHeader("Completed")
@@ -116,30 +122,19 @@ public class AuctionListView extends BaseView {
         .setAutoWidth(true);
         
 
-        // “Time Left” column with 1s polling
+        // “Time Left” column, counted down in the browser
         auctionGrid.addColumn(new ComponentRenderer<>(dto -> {
             Span timer = new Span();
-            Runnable update = () -> {
-                LocalDateTime now = LocalDateTime.now();
-                LocalDateTime end = dto.getEndTime();
-                if (end == null) {
-                    timer.setText("—");
-                } else if (end.isBefore(now)) {
-                    timer.setText("Ended");
-                } else {
-                    Duration d = Duration.between(now, end);
-                    timer.setText(String.format(
-                        "%02d:%02d:%02d",
-                        d.toHours(), 
-                        d.toMinutesPart(), 
-                        d.toSecondsPart()
-                    ));
-                }
-            };
-            update.run();
-            UI ui = UI.getCurrent();
-            ui.setPollInterval(1000);
-            ui.addPollListener(e -> update.run());
+            LocalDateTime end = dto.getEndTime();
+            if (end == null) {
+                timer.setText("—");
+            } else if (dto.isCompleted() || end.isBefore(LocalDateTime.now())) {
+                timer.setText("Ended");
+            } else {
+                long millisLeft = Duration.between(LocalDateTime.now(), end).toMillis();
+                timer.getElement().executeJs("window.countDownAuction($0, this, $1)",
+                    dto.getPurchaseId(), (double) millisLeft);
+            }
             return timer;
         })).setHeader("Time Left")
           .setAutoWidth(true);
@@ -2,10 +2,7 @@ package UI;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -34,17 +31,19 @@ import com.vaadin.flow.server.VaadinSession;
 
 import DTOs.MemberDTO;
 import DTOs.MessageDTO;
+import DTOs.MessagePageDTO;
 import DTOs.rolesDTO;
 
 @Route(value = "messages", layout = AppLayoutBasic.class)
 
 public class MessageView extends VerticalLayout implements BeforeEnterObserver {
 
+    private static final int THREAD_PAGE_SIZE = 30;
+
     private final String BASE_URL;
     private final String MSG_BASE_URL;
     private final String NOTIFICATIONS_URL;
     private final String PENDING_ROLES_URL;
-    private final String GET_USER_MESSAGES;
     private final String ROLES_URL;
 
     private final RestTemplate rest = new RestTemplate();
@@ -55,8 +54,10 @@ public class MessageView extends VerticalLayout implements BeforeEnterObserver {
     // Mock directory; replace with real user lookup if available
     private final Map<Integer, String> userDirectory;
     private final Map<String, Integer> usernameToId;
-    private List<MessageDTO> allmessages;
     private int currentChatUserId;
+    // cursor of the older part of the open thread, null when it is all shown
+    private Integer olderBeforeId;
+    private final Button olderButton = new Button("Load earlier messages");
 
     private final int thisUserId = Integer.parseInt(VaadinSession.getCurrent().getAttribute("userId").toString());
 
@@ -68,18 +69,12 @@ public class MessageView extends VerticalLayout implements BeforeEnterObserver {
         this.NOTIFICATIONS_URL = BASE_URL + "/users/notifications";
         this.PENDING_ROLES_URL = BASE_URL + "/users/getPendingRoles";
         this.ROLES_URL = BASE_URL + "/users/roles/";
-        this.GET_USER_MESSAGES = this.MSG_BASE_URL + "/conversations?token=";
         this.currentChatUserId = getUserId();
 
         this.token = getToken();
         ResponseEntity<MemberDTO[]> allmem = rest.getForEntity(
                 BASE_URL + "/users/allmembers?token=" + token, MemberDTO[].class);
 
-        ResponseEntity<MessageDTO[]> allmessagesRe = rest.getForEntity(
-                GET_USER_MESSAGES + token,
-                MessageDTO[].class);
-        this.allmessages = Arrays.asList(allmessagesRe.getBody());
-
         userDirectory = allmem.getBody() != null ? Stream.of(allmem.getBody())
                 .collect(Collectors.toMap(MemberDTO::getMemberId, MemberDTO::getUsername)) : new HashMap<>();
 
@@ -105,6 +100,8 @@ public class MessageView extends VerticalLayout implements BeforeEnterObserver {
             currentChatUserId = usernameToId.get(e.getValue());
             loadAndDisplayConversation(currentChatUserId);
         });
+        olderButton.setVisible(false);
+        olderButton.addClickListener(e -> loadOlderMessages(currentChatUserId));
 
         threadContainer.setWidth("100%");
         threadContainer.getStyle()
@@ -129,7 +126,7 @@ public class MessageView extends VerticalLayout implements BeforeEnterObserver {
             sendButton.setVisible(false);
         }
 
-        leftPanel.add(userSelector, threadContainer, messageArea, sendButton);
+        leftPanel.add(userSelector, olderButton, threadContainer, messageArea, sendButton);
         page.add(leftPanel);
 
         // Middle panel: Notifications
@@ -179,37 +176,68 @@ public class MessageView extends VerticalLayout implements BeforeEnterObserver {
         return null; // Return null if userId is not available
     }
 
+    // shows the newest page of the thread with the given user
     private void loadAndDisplayConversation(int fromId) {
         threadContainer.removeAll();
+        lastMessageId = -1;
+        olderBeforeId = null;
+        olderButton.setVisible(false);
+        if (fromId == getUserId()) {
+            return;
+        }
         try {
-            List<MessageDTO> conversation = new LinkedList<>();
-            if (currentChatUserId != getUserId()) {
-                conversation = allmessages.stream()
-                        .filter(msg -> (msg.getSenderId() == fromId || msg.getReceiverId() == fromId) &&
-                                (msg.getSenderId() == getUserId() || msg.getReceiverId() == getUserId()))
-                        .collect(Collectors.toList());
+            MessagePageDTO page = fetchThreadPage(fromId, null);
+            List<MessageDTO> newestFirst = page.getItems();
+            if (!newestFirst.isEmpty()) {
+                lastMessageId = newestFirst.get(0).getMessageId();
             }
-
-            conversation.sort(Comparator.comparing(MessageDTO::getTimestamp));
-
-            for (MessageDTO msg : conversation) {
-                HorizontalLayout line = new HorizontalLayout();
-                line.setWidthFull();
-                String whoStr = msg.getSenderId() == fromId ? userDirectory.get(msg.getSenderId()) + ":" : "You:";
-                Span who = new Span(whoStr);
-                Span text = new Span(msg.getContent());
-                Span time = new Span("🕓 " + msg.getTimestamp().toString());
-                time.getStyle().set("margin-left", "auto").set("font-size", "smaller");
-                line.add(who, text, time);
-                threadContainer.add(line);
-                lastMessageId = msg.getMessageId();
+            for (MessageDTO msg : newestFirst) {
+                threadContainer.addComponentAsFirst(messageLine(msg, fromId));
             }
+            olderBeforeId = page.getNextBeforeId();
+            olderButton.setVisible(olderBeforeId != null);
+        } catch (Exception ex) {
+            Notification.show("Error loading messages", 3000, Notification.Position.MIDDLE);
+        }
+    }
 
+    // prepends the page of the thread before the oldest message shown
+    private void loadOlderMessages(int fromId) {
+        if (olderBeforeId == null) {
+            return;
+        }
+        try {
+            MessagePageDTO page = fetchThreadPage(fromId, olderBeforeId);
+            for (MessageDTO msg : page.getItems()) {
+                threadContainer.addComponentAsFirst(messageLine(msg, fromId));
+            }
+            olderBeforeId = page.getNextBeforeId();
+            olderButton.setVisible(olderBeforeId != null);
         } catch (Exception ex) {
             Notification.show("Error loading messages", 3000, Notification.Position.MIDDLE);
         }
     }
 
+    private MessagePageDTO fetchThreadPage(int otherUserId, Integer beforeId) {
+        String url = MSG_BASE_URL + "/users/" + otherUserId + "/thread?authToken=" + token
+                + "&limit=" + THREAD_PAGE_SIZE
+                + (beforeId != null ? "&before=" + beforeId : "");
+        MessagePageDTO page = rest.getForObject(url, MessagePageDTO.class);
+        return page != null ? page : new MessagePageDTO();
+    }
+
+    private HorizontalLayout messageLine(MessageDTO msg, int fromId) {
+        HorizontalLayout line = new HorizontalLayout();
+        line.setWidthFull();
+        String whoStr = msg.getSenderId() == fromId ? userDirectory.get(msg.getSenderId()) + ":" : "You:";
+        Span who = new Span(whoStr);
+        Span text = new Span(msg.getContent());
+        Span time = new Span("🕓 " + msg.getTimestamp());
+        time.getStyle().set("margin-left", "auto").set("font-size", "smaller");
+        line.add(who, text, time);
+        return line;
+    }
+
     // Helper method to get current user id as int
 
     private void sendMessageToUser(int receiverId, String content, int previousId) {
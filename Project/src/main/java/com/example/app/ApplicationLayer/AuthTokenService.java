@@ -1,7 +1,10 @@
 package com.example.app.ApplicationLayer;
 
 import java.util.Date;
-import java.util.function.Function;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.crypto.SecretKey;
 
@@ -14,6 +17,7 @@ import com.example.app.DomainLayer.IAuthTokenRepository;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -23,10 +27,26 @@ public class AuthTokenService {
     @Value("${jwt.secret}")
     private String secret;
     private static final long EXPIRATION_TIME = 86400000;
+    private static final int CLAIMS_CACHE_MAX_SIZE = 100_000;
     private SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
 
     private IAuthTokenRepository authTokenRepository;
 
+    // token string -> claims of a token whose signature was already verified
+    private final Map<String, VerifiedClaims> claimsCache = new ConcurrentHashMap<>();
+    private final AtomicLong claimsCacheHits = new AtomicLong();
+    private final AtomicLong claimsCacheMisses = new AtomicLong();
+
+    /**
+     * The claims of a token whose signature has been verified.
+     */
+    public record VerifiedClaims(String subject, Date issuedAt, Date expiration) {
+        public boolean isExpired(long now) {
+            return expiration != null && expiration.getTime() < now;
+        }
+    }
+
     public AuthTokenService(IAuthTokenRepository authTokenRepository) {
         this.authTokenRepository = authTokenRepository;
     }
@@ -73,6 +93,8 @@ public class AuthTokenService {
         if (ValidateToken(token) != null) {
             int userId = authTokenRepository.getUserIdByToken(token);
             authTokenRepository.removeAuthToken(userId);
+            claimsCache.remove(token);
+            RequestPrincipal.forget();
             LoggerService.logMethodExecutionEndVoid("Logout");
         } else {
             throw new Exception("Token not found in repository");
@@ -113,20 +135,24 @@ public class AuthTokenService {
         if (token == null || token.isEmpty()) {
             throw new OurArg("Token cannot be null or empty");
         }
+        Integer known = RequestPrincipal.userIdOf(token);
+        if (known != null) {
+            LoggerService.logMethodExecutionEnd("ValidateToken", known);
+            return known;
+        }
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-            if (extractUsername(token) == null || extractUsername(token).isEmpty()) {
+            VerifiedClaims claims = verifyToken(token);
+            if (claims.subject() == null || claims.subject().isEmpty()) {
                 throw new JwtException("Invalid token");
             }
             int userId = authTokenRepository.getUserIdByToken(token);
             if (userId != -1) {
-                if (extractExpiration(token).before(new Date())) {
-                    authTokenRepository.removeAuthToken(authTokenRepository.getUserIdByToken(token));
+                if (claims.isExpired(System.currentTimeMillis())) {
+                    claimsCache.remove(token);
+                    authTokenRepository.removeAuthToken(userId);
                     throw new ExpiredJwtException(null, null, "Token expired");
                 }
+                RequestPrincipal.rememberUserId(token, userId);
                 LoggerService.logMethodExecutionEnd("ValidateToken", userId);
                 return userId;
             } else {
@@ -156,7 +182,7 @@ public class AuthTokenService {
         if (token == null || token.isEmpty()) {
             throw new OurArg("Token cannot be null or empty");
         }
-        String username = extractClaim(token, Claims::getSubject);
+        String username = verifyToken(token).subject();
         LoggerService.logMethodExecutionEnd("extractUsername", username);
         return username;
     }
@@ -166,32 +192,62 @@ public class AuthTokenService {
         if (token == null || token.isEmpty()) {
             throw new OurArg("Token cannot be null or empty");
         }
-        Date expiration = extractClaim(token, Claims::getExpiration);
+        Date expiration = verifyToken(token).expiration();
         LoggerService.logMethodExecutionEnd("extractExpiration", expiration);
         return expiration;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        LoggerService.logMethodExecution("extractClaim", token);
+    /**
+     * Verifies the token signature and returns its claims. Tokens that were
+     * already verified are answered from the claims cache without any crypto.
+     *
+     * @throws ExpiredJwtException if the token is expired.
+     * @throws JwtException        if the token is malformed or its signature is
+     *                             invalid.
+     */
+    public VerifiedClaims verifyToken(String token) {
         if (token == null || token.isEmpty()) {
             throw new OurArg("Token cannot be null or empty");
         }
-        T claim = claimsResolver.apply(extractAllClaims(token));
-        LoggerService.logMethodExecutionEnd("extractClaim", claim);
-        return claim;
+        long now = System.currentTimeMillis();
+        VerifiedClaims cached = claimsCache.get(token);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                claimsCacheHits.incrementAndGet();
+                return cached;
+            }
+            claimsCache.remove(token);
+        }
+        claimsCacheMisses.incrementAndGet();
+        Claims body = parser.parseClaimsJws(token).getBody();
+        VerifiedClaims claims = new VerifiedClaims(body.getSubject(), body.getIssuedAt(), body.getExpiration());
+        if (claimsCache.size() >= CLAIMS_CACHE_MAX_SIZE) {
+            evictClaims(now);
+        }
+        claimsCache.put(token, claims);
+        return claims;
     }
 
-    private Claims extractAllClaims(String token) {
-        LoggerService.logMethodExecution("extractAllClaims", token);
-        if (token == null || token.isEmpty()) {
-            throw new OurArg("Token cannot be null or empty");
+    // drops expired entries, then arbitrary ones until the cache is back under a
+    // quarter of its capacity below the limit
+    private void evictClaims(long now) {
+        claimsCache.values().removeIf(c -> c.isExpired(now));
+        Iterator<String> it = claimsCache.keySet().iterator();
+        while (claimsCache.size() > CLAIMS_CACHE_MAX_SIZE * 3 / 4 && it.hasNext()) {
+            it.next();
+            it.remove();
         }
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        LoggerService.logMethodExecutionEnd("extractAllClaims", claims);
-        return claims;
+    }
+
+    public long getClaimsCacheHits() {
+        return claimsCacheHits.get();
+    }
+
+    public long getClaimsCacheMisses() {
+        return claimsCacheMisses.get();
+    }
+
+    public int getClaimsCacheSize() {
+        return claimsCache.size();
     }
 }
@@ -0,0 +1,13 @@
+package com.example.app.ApplicationLayer;
+
+/**
+ * Who a request acts for: the user its token belongs to and what the checks
+ * along the request need to know about them, resolved once per request by
+ * {@link com.example.app.ApplicationLayer.User.UserService#authenticate}.
+ */
+public record AuthenticatedPrincipal(String token, int userId, boolean guest, boolean suspended, boolean admin) {
+
+    public boolean isMember() {
+        return !guest;
+    }
+}
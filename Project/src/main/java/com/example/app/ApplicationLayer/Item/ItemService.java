@@ -4,12 +4,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.app.ApplicationLayer.AuthTokenService;
 import com.example.app.ApplicationLayer.LoggerService;
 import com.example.app.ApplicationLayer.OurArg;
 import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.ApplicationLayer.Shop.ItemSearchIndex;
 import com.example.app.ApplicationLayer.User.UserService;
 import com.example.app.DomainLayer.Item.IItemRepository;
 import com.example.app.DomainLayer.Item.Item;
@@ -26,14 +28,18 @@ public class ItemService {
     private final IItemRepository itemRepository;
     private final AuthTokenService authTokenService;
     private final UserService     userService;
+    private final ItemSearchIndex searchIndex;
 
     // ===== constructor DI =====
+    @Autowired
     public ItemService(IItemRepository itemRepository,
                        AuthTokenService authTokenService,
-                       UserService userService) {
+                       UserService userService,
+                       ItemSearchIndex searchIndex) {
         this.itemRepository   = itemRepository;
         this.authTokenService = authTokenService;
         this.userService      = userService;
+        this.searchIndex      = searchIndex;
     }
 
     /**
@@ -182,6 +188,11 @@ public class ItemService {
             }
             authTokenService.ValidateToken(token);
             itemRepository.addReviewToItem(itemId, rating, reviewText);
+            synchronized (searchIndex) {
+                if (searchIndex.isLoaded()) {
+                    searchIndex.updateItem(itemRepository.getItem(itemId));
+                }
+            }
             LoggerService.logMethodExecutionEndVoid("addReviewToItem");
             
         } catch (OurArg e) {
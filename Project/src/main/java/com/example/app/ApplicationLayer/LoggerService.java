@@ -1,38 +1,142 @@
 package com.example.app.ApplicationLayer;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Logging facade used by every service method.
+ *
+ * Nothing is rendered unless the target level is enabled: each call checks the
+ * level first and hands SLF4J a parameterized message whose arguments are only
+ * turned into strings by the appender. The fixed-arity overloads avoid the
+ * varargs array for the common short argument lists. Methods on hot paths can
+ * additionally be sampled so only every n-th execution is logged, see
+ * {@link #setSampleRate(String, int)}. Errors are never sampled.
+ */
 public class LoggerService {
     private static final Logger logger = LoggerFactory.getLogger(LoggerService.class);
 
+    // methodName -> log every n-th execution; methods not in the map are always logged
+    private static final Map<String, Integer> sampleRates = new ConcurrentHashMap<>();
+    // start and end records are counted apart so an even rate still logs both halves of a call
+    private static final Map<String, AtomicLong> startCounters = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> endCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Renders an argument array only when the log line is actually formatted.
+     */
+    private static final class LazyArgs {
+        private final Object[] args;
+
+        LazyArgs(Object[] args) {
+            this.args = args;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(args);
+        }
+    }
+
+    /**
+     * Logs only every {@code everyN}-th start/end record of the given method.
+     * A rate of 1 or less removes the sampling.
+     */
+    public static void setSampleRate(String methodName, int everyN) {
+        if (everyN <= 1) {
+            sampleRates.remove(methodName);
+            startCounters.remove(methodName);
+            endCounters.remove(methodName);
+        } else {
+            sampleRates.put(methodName, everyN);
+        }
+    }
+
+    public static void clearSampleRates() {
+        sampleRates.clear();
+        startCounters.clear();
+        endCounters.clear();
+    }
+
+    private static boolean shouldLogInfo(String methodName, Map<String, AtomicLong> counters) {
+        if (!logger.isInfoEnabled()) {
+            return false;
+        }
+        if (sampleRates.isEmpty()) {
+            return true;
+        }
+        Integer rate = sampleRates.get(methodName);
+        if (rate == null) {
+            return true;
+        }
+        long n = counters.computeIfAbsent(methodName, k -> new AtomicLong()).getAndIncrement();
+        return n % rate == 0;
+    }
+
+    public static void logMethodExecution(String methodName) {
+        if (shouldLogInfo(methodName, startCounters)) {
+            logger.info("Executing method: {} with arguments: []", methodName);
+        }
+    }
+
+    public static void logMethodExecution(String methodName, Object arg) {
+        if (shouldLogInfo(methodName, startCounters)) {
+            logger.info("Executing method: {} with arguments: [{}]", methodName, arg);
+        }
+    }
+
+    public static void logMethodExecution(String methodName, Object arg1, Object arg2) {
+        if (shouldLogInfo(methodName, startCounters)) {
+            logger.info("Executing method: {} with arguments: [{}, {}]", methodName, arg1, arg2);
+        }
+    }
+
+    public static void logMethodExecution(String methodName, Object arg1, Object arg2, Object arg3) {
+        if (shouldLogInfo(methodName, startCounters)) {
+            logger.info("Executing method: {} with arguments: [{}, {}, {}]", methodName, arg1, arg2, arg3);
+        }
+    }
 
     public static void logMethodExecution(String methodName, Object... args) {
-        String argString = Arrays.toString(args);
-        logger.info("Executing method: " + methodName + " with arguments: " + argString);
+        if (shouldLogInfo(methodName, startCounters)) {
+            logger.info("Executing method: {} with arguments: {}", methodName, new LazyArgs(args));
+        }
     }
-    
-    public static void logError(String methodName, Exception e,  Object... args) {
-        String argString = Arrays.toString(args);
-        logger.error("Error in method: " + methodName + " - " +" with arguments: " + argString + e.getMessage(), e);
+
+    public static void logError(String methodName, Exception e, Object... args) {
+        if (logger.isErrorEnabled()) {
+            logger.error("Error in method: {} -  with arguments: {}{}", methodName, new LazyArgs(args),
+                    e.getMessage(), e);
+        }
     }
 
     public static void logMethodExecutionEnd(String methodName, Object returnValue) {
-        logger.info("Method: " + methodName + " executed successfully. Return value: " + returnValue);
+        if (shouldLogInfo(methodName, endCounters)) {
+            logger.info("Method: {} executed successfully. Return value: {}", methodName, returnValue);
+        }
     }
 
     public static void logMethodExecutionEndVoid(String methodName) {
-        logger.info("Method: " + methodName + " executed successfully.");
-    }    
+        if (shouldLogInfo(methodName, endCounters)) {
+            logger.info("Method: {} executed successfully.", methodName);
+        }
+    }
 
-    public static void logDebug(String methodName, OurRuntime e){
-        logger.debug("Debugging method: " + methodName + " - Exception: " + e.getMessage(), e);
+    public static void logDebug(String methodName, OurRuntime e) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Debugging method: {} - Exception: {}", methodName, e.getMessage(), e);
+        }
     }
 
-    public static void logDebug(String methodName, OurArg e){
-        logger.debug("Debugging method: " + methodName + " - Exception: " + e.getMessage(), e);
+    public static void logDebug(String methodName, OurArg e) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Debugging method: {} - Exception: {}", methodName, e.getMessage(), e);
+        }
     }
 
 }
@@ -13,7 +13,9 @@ import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Shop.ShopService;
 import com.example.app.ApplicationLayer.User.UserService;
 import com.example.app.DomainLayer.IMessageRepository;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Message;
+import com.example.app.DomainLayer.Roles.PermissionsEnum;
 import com.example.app.DomainLayer.Shop.Shop;
 
 @Service
@@ -243,4 +245,116 @@ public class MessageService {
             throw new OurRuntime("internal server error");
         }
     }
+
+    /**
+     * A page of the conversation between the caller and another user, newest
+     * first; pass the page's {@code nextBeforeId} as {@code beforeId} to get
+     * the next one.
+     */
+    public KeysetPage<Message> getConversationWithUser(String token, int otherUserId, Integer beforeId, int limit) {
+        try {
+            LoggerService.logMethodExecution("getConversationWithUser", token, otherUserId, beforeId, limit);
+            KeysetPage.validateLimit(limit);
+            int userId = authTokenService.ValidateToken(token);
+            KeysetPage<Message> page = messageRepository.getConversation(Message.userConversationId(userId, otherUserId),
+                    beforeId, limit);
+            LoggerService.logMethodExecutionEnd("getConversationWithUser", page);
+            return page;
+        } catch (OurArg e) {
+            LoggerService.logDebug("getConversationWithUser", e);
+            throw new OurArg("getConversationWithUser: " + e.getMessage(), e);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("getConversationWithUser", e);
+            throw new OurRuntime("getConversationWithUser: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("getConversationWithUser", e, token, otherUserId, beforeId, limit);
+            throw new OurRuntime("Error getting conversation: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A page of the conversation between a user and a shop, newest first. The
+     * user is the caller, unless {@code userId} names another user, which
+     * takes the permission to handle the shop's messages.
+     */
+    public KeysetPage<Message> getConversationWithShop(String token, int shopId, Integer userId, Integer beforeId,
+            int limit) {
+        try {
+            LoggerService.logMethodExecution("getConversationWithShop", token, shopId, userId, beforeId, limit);
+            KeysetPage.validateLimit(limit);
+            int callerId = authTokenService.ValidateToken(token);
+            int customerId = userId == null ? callerId : userId;
+            if (customerId != callerId) {
+                validateShopMessages(callerId, shopId);
+            }
+            KeysetPage<Message> page = messageRepository.getConversation(Message.shopConversationId(shopId, customerId),
+                    beforeId, limit);
+            LoggerService.logMethodExecutionEnd("getConversationWithShop", page);
+            return page;
+        } catch (OurArg e) {
+            LoggerService.logDebug("getConversationWithShop", e);
+            throw new OurArg("getConversationWithShop: " + e.getMessage(), e);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("getConversationWithShop", e);
+            throw new OurRuntime("getConversationWithShop: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("getConversationWithShop", e, token, shopId, userId, beforeId, limit);
+            throw new OurRuntime("Error getting conversation: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A page of the caller's inbox: the latest message of each conversation,
+     * most recent conversation first.
+     */
+    public KeysetPage<Message> getInbox(String token, Integer beforeId, int limit) {
+        try {
+            LoggerService.logMethodExecution("getInbox", token, beforeId, limit);
+            KeysetPage.validateLimit(limit);
+            int userId = authTokenService.ValidateToken(token);
+            KeysetPage<Message> page = messageRepository.getUserInbox(userId, beforeId, limit);
+            LoggerService.logMethodExecutionEnd("getInbox", page);
+            return page;
+        } catch (OurArg e) {
+            LoggerService.logDebug("getInbox", e);
+            throw new OurArg("getInbox: " + e.getMessage(), e);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("getInbox", e);
+            throw new OurRuntime("getInbox: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("getInbox", e, token, beforeId, limit);
+            throw new OurRuntime("Error getting inbox: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A page of a shop's inbox, like {@link #getInbox}; takes the permission to
+     * handle the shop's messages.
+     */
+    public KeysetPage<Message> getShopInbox(String token, int shopId, Integer beforeId, int limit) {
+        try {
+            LoggerService.logMethodExecution("getShopInbox", token, shopId, beforeId, limit);
+            KeysetPage.validateLimit(limit);
+            int userId = authTokenService.ValidateToken(token);
+            validateShopMessages(userId, shopId);
+            KeysetPage<Message> page = messageRepository.getShopInbox(shopId, beforeId, limit);
+            LoggerService.logMethodExecutionEnd("getShopInbox", page);
+            return page;
+        } catch (OurArg e) {
+            LoggerService.logDebug("getShopInbox", e);
+            throw new OurArg("getShopInbox: " + e.getMessage(), e);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("getShopInbox", e);
+            throw new OurRuntime("getShopInbox: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("getShopInbox", e, token, shopId, beforeId, limit);
+            throw new OurRuntime("Error getting shop inbox: " + e.getMessage(), e);
+        }
+    }
+
+    private void validateShopMessages(int userId, int shopId) {
+        if (!userService.hasPermission(userId, PermissionsEnum.handleMessages, shopId)) {
+            throw new OurRuntime("User " + userId + " can't handle the messages of shop " + shopId + ".");
+        }
+    }
 }
@@ -0,0 +1,345 @@
+package com.example.app.ApplicationLayer;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers, gauges and counters of this node, rendered in the Prometheus text
+ * format.
+ *
+ * A timer counts calls and failures and sorts each call's duration into fixed
+ * buckets from 100µs to 10s, which is enough for a Prometheus histogram and for
+ * percentile estimates. Recording is a few {@link LongAdder} increments and
+ * allocates nothing once the timer exists. Gauges and counters are read only
+ * when scraped; a counter only grows and is exported with the {@code _total}
+ * suffix. A stats source exposes every numeric or boolean component of the
+ * record its supplier returns, e.g. {@code hitRate} of the shop cache's stats
+ * as the gauge {@code app_shop_cache_hit_rate} and its {@code hits} as the
+ * counter {@code app_shop_cache_hits_total}.
+ */
+@Component
+public class MetricsRegistry {
+
+    static final double[] BUCKETS_SECONDS = { 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05,
+            0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+    private static final long[] BUCKETS_NANOS = new long[BUCKETS_SECONDS.length];
+    private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+
+    static {
+        for (int i = 0; i < BUCKETS_SECONDS.length; i++) {
+            BUCKETS_NANOS[i] = (long) (BUCKETS_SECONDS[i] * 1_000_000_000L);
+        }
+    }
+
+    /**
+     * A timer's counters since startup; the percentiles are estimated from its
+     * buckets.
+     */
+    public record TimerStats(long count, long errors, double avgMillis, double maxMillis, double p50Millis,
+            double p95Millis, double p99Millis) {
+    }
+
+    public static final class Timer {
+        private final String family;
+        private final String labels;
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        // the last one counts what is above the largest bound
+        private final LongAdder[] buckets = new LongAdder[BUCKETS_NANOS.length + 1];
+
+        private Timer(String family, String labels) {
+            this.family = family;
+            this.labels = labels;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos, boolean failed) {
+            if (failed) {
+                errors.increment();
+            }
+            totalNanos.add(nanos);
+            if (nanos > maxNanos.get()) {
+                maxNanos.accumulateAndGet(nanos, Math::max);
+            }
+            int bucket = 0;
+            while (bucket < BUCKETS_NANOS.length && nanos > BUCKETS_NANOS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+        }
+
+        public TimerStats snapshot() {
+            long[] counts = bucketCounts();
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            double max = maxNanos.get() / 1_000_000.0;
+            double avg = total == 0 ? 0 : totalNanos.sum() / (double) total / 1_000_000;
+            return new TimerStats(total, errors.sum(), avg, max, quantile(counts, total, 0.5, max),
+                    quantile(counts, total, 0.95, max), quantile(counts, total, 0.99, max));
+        }
+
+        private long[] bucketCounts() {
+            long[] counts = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+            }
+            return counts;
+        }
+
+        // interpolates inside the bucket holding the q-th call, in milliseconds
+        private static double quantile(long[] counts, long total, double q, double maxMillis) {
+            if (total == 0) {
+                return 0;
+            }
+            double rank = q * total;
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0 && seen + counts[i] >= rank) {
+                    if (i == BUCKETS_SECONDS.length) {
+                        return maxMillis;
+                    }
+                    double lower = i == 0 ? 0 : BUCKETS_SECONDS[i - 1] * 1000;
+                    double upper = BUCKETS_SECONDS[i] * 1000;
+                    double estimate = lower + (upper - lower) * (rank - seen) / counts[i];
+                    return Math.min(estimate, maxMillis);
+                }
+                seen += counts[i];
+            }
+            return maxMillis;
+        }
+    }
+
+    private record StatsSource(Supplier<?> stats, Set<String> counters) {
+    }
+
+    private final boolean enabled;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, DoubleSupplier> counters = new ConcurrentHashMap<>();
+    private final Map<String, StatsSource> statsSources = new ConcurrentHashMap<>();
+
+    public MetricsRegistry(@Value("${app.metrics.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The timer of the family with these labels, given as name, value, name,
+     * value, ...; the same family and labels always give the same timer.
+     */
+    public Timer timer(String family, String... labelPairs) {
+        if (labelPairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name/value pairs.");
+        }
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i < labelPairs.length; i += 2) {
+            if (i > 0) {
+                labels.append(',');
+            }
+            labels.append(sanitize(labelPairs[i])).append("=\"").append(escape(labelPairs[i + 1])).append('"');
+        }
+        String name = sanitize(family);
+        return timers.computeIfAbsent(name + '{' + labels + '}', key -> new Timer(name, labels.toString()));
+    }
+
+    /**
+     * Exposes {@code value} as the gauge {@code app_<name>}; NaN leaves it out
+     * of the scrape.
+     */
+    public void registerGauge(String name, DoubleSupplier value) {
+        gauges.put(sanitize(name), value);
+    }
+
+    /**
+     * Exposes {@code value}, which only grows, as the counter
+     * {@code app_<name>_total}; NaN leaves it out of the scrape.
+     */
+    public void registerCounter(String name, DoubleSupplier value) {
+        counters.put(sanitize(name), value);
+    }
+
+    /**
+     * Exposes the numeric and boolean components of the record {@code stats}
+     * returns as gauges named {@code app_<name>_<component>}, and the
+     * components named in {@code counters} as counters named
+     * {@code app_<name>_<component>_total}. The supplier may return null when
+     * there is nothing to report.
+     */
+    public void registerStats(String name, Supplier<? extends Record> stats, String... counters) {
+        statsSources.put(sanitize(name), new StatsSource(stats, Set.of(counters)));
+    }
+
+    public Map<String, TimerStats> timerSnapshot() {
+        Map<String, TimerStats> result = new TreeMap<>();
+        timers.forEach((key, timer) -> result.put(key, timer.snapshot()));
+        return result;
+    }
+
+    /**
+     * Everything registered, in the Prometheus text exposition format.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        Map<String, List<Timer>> families = new TreeMap<>();
+        for (Timer timer : new TreeMap<>(timers).values()) {
+            families.computeIfAbsent(timer.family, f -> new ArrayList<>()).add(timer);
+        }
+        families.forEach((family, members) -> writeTimers(out, family, members));
+
+        Map<String, Double> gaugeValues = new TreeMap<>();
+        Map<String, Double> counterValues = new TreeMap<>();
+        gauges.forEach((name, supplier) -> collect(gaugeValues, "app_" + name, supplier));
+        counters.forEach((name, supplier) -> collect(counterValues, "app_" + name + "_total", supplier));
+        statsSources.forEach((name, source) -> collectStats(gaugeValues, counterValues, name, source));
+        write(out, gaugeValues, "gauge");
+        write(out, counterValues, "counter");
+        return out.toString();
+    }
+
+    private static void collect(Map<String, Double> values, String name, DoubleSupplier supplier) {
+        try {
+            double value = supplier.getAsDouble();
+            if (!Double.isNaN(value)) {
+                values.put(name, value);
+            }
+        } catch (RuntimeException e) {
+            LoggerService.logError("scrapeMetric", e, name);
+        }
+    }
+
+    private static void write(StringBuilder out, Map<String, Double> values, String type) {
+        values.forEach((name, value) -> {
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            out.append(name).append(' ').append(format(value)).append('\n');
+        });
+    }
+
+    private static void writeTimers(StringBuilder out, String family, List<Timer> members) {
+        String seconds = family + "_seconds";
+        out.append("# TYPE ").append(seconds).append(" histogram\n");
+        for (Timer timer : members) {
+            long[] counts = timer.bucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS_SECONDS.length; i++) {
+                cumulative += counts[i];
+                out.append(seconds).append("_bucket{").append(timer.labels).append(",le=\"")
+                        .append(format(BUCKETS_SECONDS[i])).append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += counts[BUCKETS_SECONDS.length];
+            out.append(seconds).append("_bucket{").append(timer.labels).append(",le=\"+Inf\"} ")
+                    .append(cumulative).append('\n');
+            out.append(seconds).append("_sum{").append(timer.labels).append("} ")
+                    .append(format(timer.totalNanos.sum() / 1e9)).append('\n');
+            out.append(seconds).append("_count{").append(timer.labels).append("} ").append(cumulative).append('\n');
+        }
+        out.append("# TYPE ").append(seconds).append("_max gauge\n");
+        for (Timer timer : members) {
+            out.append(seconds).append("_max{").append(timer.labels).append("} ")
+                    .append(format(TimeUnit.NANOSECONDS.toMicros(timer.maxNanos.get()) / 1e6)).append('\n');
+        }
+        out.append("# TYPE ").append(seconds).append("_quantile gauge\n");
+        for (Timer timer : members) {
+            TimerStats stats = timer.snapshot();
+            double[] millis = { stats.p50Millis(), stats.p95Millis(), stats.p99Millis() };
+            for (int i = 0; i < QUANTILES.length; i++) {
+                out.append(seconds).append("_quantile{").append(timer.labels).append(",quantile=\"")
+                        .append(format(QUANTILES[i])).append("\"} ").append(format(millis[i] / 1000)).append('\n');
+            }
+        }
+        out.append("# TYPE ").append(family).append("_errors_total counter\n");
+        for (Timer timer : members) {
+            out.append(family).append("_errors_total{").append(timer.labels).append("} ")
+                    .append(timer.errors.sum()).append('\n');
+        }
+    }
+
+    private static void collectStats(Map<String, Double> gaugeValues, Map<String, Double> counterValues,
+            String name, StatsSource source) {
+        Object stats;
+        try {
+            stats = source.stats().get();
+        } catch (RuntimeException e) {
+            LoggerService.logError("scrapeStats", e, name);
+            return;
+        }
+        if (stats == null || !stats.getClass().isRecord()) {
+            return;
+        }
+        for (RecordComponent component : stats.getClass().getRecordComponents()) {
+            Method accessor = component.getAccessor();
+            Object value;
+            try {
+                accessor.trySetAccessible();
+                value = accessor.invoke(stats);
+            } catch (ReflectiveOperationException e) {
+                continue;
+            }
+            String metric = "app_" + name + "_" + snakeCase(component.getName());
+            if (source.counters().contains(component.getName())) {
+                if (value instanceof Number number) {
+                    counterValues.put(metric + "_total", number.doubleValue());
+                }
+            } else if (value instanceof Number number) {
+                gaugeValues.put(metric, number.doubleValue());
+            } else if (value instanceof Boolean flag) {
+                gaugeValues.put(metric, flag ? 1.0 : 0.0);
+            }
+        }
+    }
+
+    static String snakeCase(String camel) {
+        StringBuilder out = new StringBuilder(camel.length() + 4);
+        for (int i = 0; i < camel.length(); i++) {
+            char c = camel.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    out.append('_');
+                }
+                out.append(Character.toLowerCase(c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == (long) value) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
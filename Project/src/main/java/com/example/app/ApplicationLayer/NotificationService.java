@@ -1,6 +1,7 @@
 package com.example.app.ApplicationLayer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -9,13 +10,38 @@ import org.springframework.stereotype.Service;
 
 import com.example.app.ApplicationLayer.User.UserService;
 import com.example.app.DomainLayer.Member;
+import com.example.app.DomainLayer.Notification;
 import com.example.app.WebSocket.*;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Delivers notifications to users: over STOMP to every session of a connected
+ * member, or stored on the member for later when they are offline.
+ *
+ * Once started (as a Spring bean), {@link #sendToUser} only enqueues on a
+ * bounded queue and returns. A single dispatcher thread collects everything
+ * that arrives within a short window, merges the messages of each recipient
+ * into one digest frame and stores offline notifications in one write per
+ * recipient. When the queue is full the caller waits briefly, after which the
+ * notification is dropped and counted. A service that was not started
+ * delivers inline.
+ */
 @Service
 public class NotificationService {
 
+    private static final int MAX_BATCH = 1000;
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
@@ -24,6 +50,36 @@ public class NotificationService {
 
     private UserService userService;
 
+    @Value("${app.notifications.queue-capacity:10000}")
+    private int queueCapacity = 10_000;
+
+    @Value("${app.notifications.batch-window-ms:100}")
+    private long batchWindowMs = 100;
+
+    @Value("${app.notifications.offer-timeout-ms:50}")
+    private long offerTimeoutMs = 50;
+
+    private record Pending(Integer userId, String title, String message) {
+    }
+
+    /**
+     * Counters since startup.
+     */
+    public record Stats(long enqueued, long dropped, long framesSent, long coalesced, long storedOffline,
+            long failed, int queued) {
+    }
+
+    private volatile BlockingQueue<Pending> queue;
+    private volatile Thread dispatcher;
+    private volatile boolean running;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder storedOffline = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
     public NotificationService(SimpMessagingTemplate messagingTemplate) {
         this.messagingTemplate = messagingTemplate;
     }
@@ -32,19 +88,142 @@ public class NotificationService {
         this.userService = us;
     }
 
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Stops the dispatcher and delivers whatever is still queued.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        deliver(rest);
+    }
+
     public void sendToUser(Integer userId, String title, String message) {
+        BlockingQueue<Pending> q = queue;
+        if (!running || q == null) {
+            deliverNow(userId, List.of(new Pending(userId, title, message)));
+            return;
+        }
+        try {
+            if (q.offer(new Pending(userId, title, message), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                enqueued.increment();
+            } else {
+                dropped.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        }
+    }
+
+    public Stats getStats() {
+        BlockingQueue<Pending> q = queue;
+        return new Stats(enqueued.sum(), dropped.sum(), framesSent.sum(), coalesced.sum(), storedOffline.sum(),
+                failed.sum(), q == null ? 0 : q.size());
+    }
+
+    private void dispatchLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+                while (batch.size() < MAX_BATCH) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stopping: deliver what is held and queued together, stop() picks up stragglers
+                queue.drainTo(batch);
+                deliver(batch);
+                return;
+            }
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<Pending> batch) {
+        Map<Integer, List<Pending>> byUser = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            byUser.computeIfAbsent(pending.userId(), k -> new ArrayList<>()).add(pending);
+        }
+        for (Map.Entry<Integer, List<Pending>> entry : byUser.entrySet()) {
+            try {
+                deliverNow(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                failed.add(entry.getValue().size());
+                LoggerService.logError("sendToUser", e, entry.getKey(), entry.getValue().size());
+            }
+        }
+    }
+
+    // everything in pending is for userId
+    private void deliverNow(Integer userId, List<Pending> pending) {
         List<String> sessionIds = registry.getSessionsForUser(userId);
         if (!((Member) userService.getUserById(userId)).isConnected()) {
-            userService.addNotification(userId, title, message);
+            if (pending.size() == 1) {
+                userService.addNotification(userId, pending.get(0).title(), pending.get(0).message());
+            } else {
+                List<Notification> notifications = new ArrayList<>(pending.size());
+                for (Pending p : pending) {
+                    notifications.add(new Notification(p.title(), p.message()));
+                }
+                userService.addNotifications(userId, notifications);
+            }
+            storedOffline.add(pending.size());
             return;
         }
+        String frame = frameOf(pending);
         for (String sessionId : sessionIds) {
             messagingTemplate.convertAndSendToUser(
                     userId.toString(),
                     "/notifications",
-                    title + '\n' + message,
+                    frame,
                     createHeaders(sessionId));
         }
+        framesSent.increment();
+        coalesced.add(pending.size() - 1);
+    }
+
+    private static String frameOf(List<Pending> pending) {
+        if (pending.size() == 1) {
+            return pending.get(0).title() + '\n' + pending.get(0).message();
+        }
+        StringBuilder sb = new StringBuilder().append(pending.size()).append(" new notifications");
+        for (Pending p : pending) {
+            sb.append("\n\n").append(p.title()).append('\n').append(p.message());
+        }
+        return sb.toString();
     }
 
     private MessageHeaders createHeaders(String sessionId) {
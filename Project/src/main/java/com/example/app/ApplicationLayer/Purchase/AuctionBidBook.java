@@ -0,0 +1,303 @@
+package com.example.app.ApplicationLayer.Purchase;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.example.app.ApplicationLayer.LoggerService;
+import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.DomainLayer.Purchase.Bid;
+import com.example.app.DomainLayer.Purchase.BidReciept;
+import com.example.app.DomainLayer.Purchase.IPurchaseRepository;
+import com.example.app.DomainLayer.Purchase.Purchase;
+
+/**
+ * Takes the bids of running auctions.
+ *
+ * Every auction has one lane, loaded from the repository on its first bid and
+ * kept in memory until the auction is completed, see {@link #forget(int)}. A bid is checked and applied to the lane's copy
+ * of the auction under the lane's lock, which orders the auction's bids and
+ * numbers the accepted ones 1, 2, 3, ... continuing from the number stored
+ * with the auction. Writing is a group commit: while one batch is being
+ * written, the bids that arrive are applied and wait, and the next writer
+ * stores all of them with one guarded update. A bid is acknowledged only after
+ * the batch holding it is stored, so an acknowledged bid survives a restart,
+ * and the guard keeps a late batch from overwriting a newer one. If a batch is
+ * not stored, its bids fail and the lane is dropped, so the next bid reloads
+ * the auction as it was stored. A listener is told the state of the auction
+ * after every stored batch and when its lane is closed.
+ */
+@Component
+public class AuctionBidBook {
+
+    /**
+     * The outcome of a bid. {@code accepted} is false when the bid did not
+     * beat the highest one; {@code seq} is then the number of the last
+     * accepted bid.
+     */
+    public record Ack(int auctionId, long seq, boolean accepted, int highestBid, int highestBidderId) {
+    }
+
+    /**
+     * The state of an auction after a stored batch, or when it stopped taking
+     * bids ({@code closed}).
+     */
+    public record Snapshot(int auctionId, long seq, int highestBid, int highestBidderId, LocalDateTime endTime,
+            boolean closed) {
+    }
+
+    /**
+     * Bids taken and batches written since startup.
+     */
+    public record Stats(int lanes, long accepted, long rejected, long batches, double avgBatchSize) {
+    }
+
+    private static final class Lane {
+        final int auctionId;
+        Bid auction;
+        long seq;
+        long storedSeq;
+        Set<Integer> newBidders = new HashSet<>();
+        boolean writing;
+        boolean closed;
+        boolean broken;
+
+        Lane(int auctionId, Bid auction) {
+            this.auctionId = auctionId;
+            this.auction = auction;
+            this.seq = auction.getBidSeq();
+            this.storedSeq = seq;
+        }
+
+        // the lane of an auction closed before its first bid
+        Lane(int auctionId) {
+            this.auctionId = auctionId;
+            this.closed = true;
+        }
+    }
+
+    private record Batch(int highestBid, int highestBidderId, long seq, Set<Integer> newBidders,
+            LocalDateTime endTime) {
+    }
+
+    private final IPurchaseRepository purchaseRepository;
+    private final Map<Integer, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedBids = new LongAdder();
+
+    private volatile Consumer<Snapshot> listener = snapshot -> {
+    };
+
+    public AuctionBidBook(IPurchaseRepository purchaseRepository) {
+        this.purchaseRepository = purchaseRepository;
+    }
+
+    /**
+     * Sets the callback told about stored batches and closed auctions. It runs
+     * on the bidding thread, so it should only hand the snapshot off.
+     */
+    public void setListener(Consumer<Snapshot> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Places a bid and returns once it is stored.
+     */
+    public Ack submit(int auctionId, int userId, int bidPrice) {
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(auctionId, this::load);
+            Ack ack;
+            synchronized (lane) {
+                if (lane.broken) {
+                    // dropped by a failed batch; load it again
+                    continue;
+                }
+                if (lane.closed || lane.auction.isCompleted()) {
+                    if (!lane.closed) {
+                        // loaded after the auction was completed; keep no lane for it
+                        lanes.remove(auctionId, lane);
+                    }
+                    throw new OurRuntime("Auction " + auctionId + " has already ended");
+                }
+                Bid auction = lane.auction;
+                if (auction.getUserId() == userId) {
+                    throw new OurRuntime(
+                            "User " + userId + " is the owner of the bid " + auctionId + " and cannot bid on it");
+                }
+                if (bidPrice <= auction.getHighestBid()) {
+                    rejected.increment();
+                    return new Ack(auctionId, lane.seq, false, auction.getHighestBid(),
+                            auction.getHighestBidderId());
+                }
+                auction.addBidding(userId, bidPrice, false);
+                lane.seq++;
+                auction.setBidSeq(lane.seq);
+                lane.newBidders.add(userId);
+                ack = new Ack(auctionId, lane.seq, true, bidPrice, userId);
+            }
+            awaitStored(lane, ack.seq());
+            accepted.increment();
+            return ack;
+        }
+    }
+
+    /**
+     * Stops taking bids on the auction and returns once the bids it already
+     * took are stored. Later bids fail as on an ended auction, also when the
+     * auction had no lane yet. The listener is told the auction's last state,
+     * read from the repository when the lane does not hold it.
+     */
+    public void close(int auctionId) {
+        // a bid loading the lane right now either comes first and is waited for or finds it closed
+        Lane lane = lanes.computeIfAbsent(auctionId, Lane::new);
+        long seq;
+        synchronized (lane) {
+            lane.closed = true;
+            seq = lane.seq;
+        }
+        try {
+            awaitStored(lane, seq);
+        } catch (OurRuntime e) {
+            LoggerService.logError("closeAuction", e, auctionId);
+        }
+        Snapshot last = null;
+        synchronized (lane) {
+            if (lane.auction != null && !lane.broken) {
+                last = new Snapshot(auctionId, lane.storedSeq, lane.auction.getHighestBid(),
+                        lane.auction.getHighestBidderId(), lane.auction.getAuctionEndTime(), true);
+                // the closed lane stays until the auction is completed; the auction is not needed anymore
+                lane.auction = null;
+                lane.newBidders = Set.of();
+            }
+        }
+        if (last == null) {
+            // no bid was taken here since startup, or the last batch failed: the stored auction is the last state
+            last = storedSnapshot(auctionId);
+        }
+        if (last != null) {
+            tell(last);
+        }
+    }
+
+    /**
+     * Drops the lane of an auction once it is completed in the repository. A
+     * later bid loads the completed auction again and fails on it.
+     */
+    public void forget(int auctionId) {
+        lanes.remove(auctionId);
+    }
+
+    /**
+     * A receipt of the auction with the bids taken so far, or null when it has
+     * no open lane.
+     */
+    public BidReciept getReciept(int auctionId) {
+        Lane lane = lanes.get(auctionId);
+        if (lane == null) {
+            return null;
+        }
+        synchronized (lane) {
+            return lane.auction == null ? null : lane.auction.generateReciept();
+        }
+    }
+
+    public Stats getStats() {
+        long count = batches.sum();
+        return new Stats(lanes.size(), accepted.sum(), rejected.sum(), count,
+                count == 0 ? 0 : (double) batchedBids.sum() / count);
+    }
+
+    private Lane load(int auctionId) {
+        Purchase purchase = purchaseRepository.getPurchaseById(auctionId);
+        if (!(purchase instanceof Bid)) {
+            throw new OurRuntime("Purchase " + auctionId + " is not a bid");
+        }
+        return new Lane(auctionId, (Bid) purchase);
+    }
+
+    // the closed state of the auction as stored, or null when it cannot be read
+    private Snapshot storedSnapshot(int auctionId) {
+        try {
+            Purchase purchase = purchaseRepository.getPurchaseById(auctionId);
+            if (!(purchase instanceof Bid)) {
+                return null;
+            }
+            Bid auction = (Bid) purchase;
+            return new Snapshot(auctionId, auction.getBidSeq(), auction.getHighestBid(),
+                    auction.getHighestBidderId(), auction.getAuctionEndTime(), true);
+        } catch (RuntimeException e) {
+            LoggerService.logError("closeAuction", e, auctionId);
+            return null;
+        }
+    }
+
+    // returns once bid number seq is stored; whoever finds no batch being written writes the next one
+    private void awaitStored(Lane lane, long seq) {
+        while (true) {
+            Batch batch;
+            long from;
+            synchronized (lane) {
+                while (lane.writing && !lane.broken && lane.storedSeq < seq) {
+                    try {
+                        lane.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new OurRuntime("Interrupted while storing bid on auction " + lane.auctionId);
+                    }
+                }
+                if (lane.storedSeq >= seq) {
+                    return;
+                }
+                if (lane.broken) {
+                    throw new OurRuntime("Bid on auction " + lane.auctionId + " could not be stored");
+                }
+                lane.writing = true;
+                from = lane.storedSeq;
+                batch = new Batch(lane.auction.getHighestBid(), lane.auction.getHighestBidderId(), lane.seq,
+                        lane.newBidders, lane.auction.getAuctionEndTime());
+                lane.newBidders = new HashSet<>();
+            }
+            boolean stored = false;
+            try {
+                stored = purchaseRepository.saveAuctionBids(lane.auctionId, batch.highestBid(),
+                        batch.highestBidderId(), batch.seq(), batch.newBidders());
+            } catch (RuntimeException e) {
+                LoggerService.logError("saveAuctionBids", e, lane.auctionId, batch.seq());
+            } finally {
+                synchronized (lane) {
+                    lane.writing = false;
+                    if (stored) {
+                        lane.storedSeq = batch.seq();
+                        batches.increment();
+                        batchedBids.add(batch.seq() - from);
+                    } else {
+                        lane.broken = true;
+                        lanes.remove(lane.auctionId, lane);
+                    }
+                    lane.notifyAll();
+                }
+            }
+            if (stored) {
+                tell(new Snapshot(lane.auctionId, batch.seq(), batch.highestBid(), batch.highestBidderId(),
+                        batch.endTime(), false));
+            }
+        }
+    }
+
+    private void tell(Snapshot snapshot) {
+        try {
+            listener.accept(snapshot);
+        } catch (RuntimeException e) {
+            LoggerService.logError("auctionBidListener", e, snapshot.auctionId());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.app.ApplicationLayer.Purchase;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.app.ApplicationLayer.LoggerService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Publishes the price of running auctions on {@code /topic/auctions/{id}}.
+ *
+ * The {@link AuctionBidBook} reports every stored batch of bids and every
+ * closed auction here. Reports are conflated per auction: a sender thread
+ * wakes every {@code app.auctions.price-interval-ms} and sends only the newest
+ * state of each auction that changed since, however many bids it took in
+ * between. Every frame carries the time left, so subscribers count down
+ * locally instead of asking. A feed that was not started sends inline.
+ */
+@Component
+public class AuctionPriceFeed {
+
+    public static final String TOPIC_PREFIX = "/topic/auctions/";
+
+    /**
+     * One frame of an auction's topic. {@code seq} is the number of the last
+     * stored bid, so a subscriber can drop frames older than what it has.
+     */
+    public record PriceUpdate(int auctionId, long seq, int highestBid, int highestBidderId, Long endTimeMillis,
+            Long millisLeft, boolean ended) {
+    }
+
+    /**
+     * Counters since startup.
+     */
+    public record Stats(long published, long conflated, long framesSent, long failed) {
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long intervalMillis;
+
+    private final Map<Integer, AuctionBidBook.Snapshot> latest = new ConcurrentHashMap<>();
+    private volatile Thread sender;
+    private volatile boolean running;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public AuctionPriceFeed(SimpMessagingTemplate messagingTemplate, AuctionBidBook auctionBidBook,
+            @Value("${app.auctions.price-interval-ms:250}") long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive");
+        }
+        this.messagingTemplate = messagingTemplate;
+        this.intervalMillis = intervalMillis;
+        auctionBidBook.setListener(this::publish);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        sender = new Thread(this::run, "auction-price-feed");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Stops the sender and sends whatever is still waiting.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        sender.interrupt();
+        try {
+            sender.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public void publish(AuctionBidBook.Snapshot snapshot) {
+        published.increment();
+        if (!running) {
+            send(snapshot);
+            return;
+        }
+        latest.compute(snapshot.auctionId(), (id, waiting) -> {
+            if (waiting == null) {
+                return snapshot;
+            }
+            conflated.increment();
+            return newer(waiting, snapshot);
+        });
+    }
+
+    /**
+     * Sends the newest waiting state of every auction. The sender thread calls
+     * this every interval; it is public so the feed can be driven by hand.
+     */
+    public void flush() {
+        List<AuctionBidBook.Snapshot> due = new ArrayList<>(latest.size());
+        for (Integer auctionId : new ArrayList<>(latest.keySet())) {
+            AuctionBidBook.Snapshot snapshot = latest.remove(auctionId);
+            if (snapshot != null) {
+                due.add(snapshot);
+            }
+        }
+        due.forEach(this::send);
+    }
+
+    public Stats getStats() {
+        return new Stats(published.sum(), conflated.sum(), framesSent.sum(), failed.sum());
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            flush();
+        }
+    }
+
+    private void send(AuctionBidBook.Snapshot snapshot) {
+        try {
+            messagingTemplate.convertAndSend(TOPIC_PREFIX + snapshot.auctionId(), toUpdate(snapshot));
+            framesSent.increment();
+        } catch (Exception e) {
+            failed.increment();
+            LoggerService.logError("publishAuctionPrice", e, snapshot.auctionId());
+        }
+    }
+
+    private static PriceUpdate toUpdate(AuctionBidBook.Snapshot snapshot) {
+        LocalDateTime end = snapshot.endTime();
+        Long endMillis = end == null ? null : end.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Long millisLeft = end == null ? null
+                : Math.max(0, Duration.between(LocalDateTime.now(), end).toMillis());
+        return new PriceUpdate(snapshot.auctionId(), snapshot.seq(), snapshot.highestBid(),
+                snapshot.highestBidderId(), endMillis, millisLeft, snapshot.closed());
+    }
+
+    // a closed auction's last state wins over any batch reported with the same number
+    private static AuctionBidBook.Snapshot newer(AuctionBidBook.Snapshot a, AuctionBidBook.Snapshot b) {
+        if (a.seq() != b.seq()) {
+            return a.seq() > b.seq() ? a : b;
+        }
+        return b.closed() ? b : a;
+    }
+}
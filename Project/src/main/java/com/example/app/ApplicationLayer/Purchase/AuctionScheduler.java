@@ -0,0 +1,277 @@
+package com.example.app.ApplicationLayer.Purchase;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.app.ApplicationLayer.LoggerService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fires auction deadlines on a hierarchical timing wheel.
+ *
+ * Time is cut into ticks of {@code app.auctions.tick-ms}. Each of the
+ * {@value #LEVELS} wheels has {@value #SLOTS} slots, a slot on level n spanning
+ * 64^n ticks, so scheduling is constant time and a tick only touches the slots
+ * that turn over, however many auctions are open. Deadlines further out than
+ * the top wheel wait in an overflow list until the top wheel turns over. A
+ * single timer thread advances the wheel and hands every auction that expired
+ * in the same tick to the finalizer in one batch; deadlines already in the past
+ * expire on the next tick.
+ */
+@Component
+public class AuctionScheduler {
+
+    private static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 4;
+
+    /**
+     * Queue depth and finalize lag (how late an auction was handed to the
+     * finalizer after its end time) since startup.
+     */
+    public record Stats(int queueDepth, long expired, long batches, double avgLagMillis, long maxLagMillis) {
+    }
+
+    private static final class Entry {
+        final int auctionId;
+        final long deadlineMillis;
+        final long deadlineTick;
+        List<Entry> bucket;
+
+        Entry(int auctionId, long deadlineMillis, long deadlineTick) {
+            this.auctionId = auctionId;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final Object lock = new Object();
+
+    // guarded by lock
+    private final List<Entry>[][] wheels;
+    private final List<Entry> overflow = new ArrayList<>();
+    private final List<Entry> due = new ArrayList<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    private volatile Consumer<List<Integer>> finalizer = ids -> {
+    };
+    private volatile Thread timer;
+    private volatile boolean running;
+
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder totalLagMillis = new LongAdder();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public AuctionScheduler(@Value("${app.auctions.tick-ms:1000}") long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.wheels = new List[LEVELS][SLOTS];
+        for (List<Entry>[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheel[i] = new ArrayList<>();
+            }
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * Sets the callback that receives the ids of every batch of expired
+     * auctions. It runs on the timer thread.
+     */
+    public void setFinalizer(Consumer<List<Integer>> finalizer) {
+        this.finalizer = finalizer;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        timer = new Thread(this::run, "auction-timer");
+        timer.setDaemon(true);
+        timer.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        timer.interrupt();
+        try {
+            timer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Schedules (or reschedules) the auction to expire at its end time.
+     */
+    public void schedule(int auctionId, LocalDateTime endTime) {
+        schedule(auctionId, endTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    public void schedule(int auctionId, long endMillis) {
+        // round up so an auction never expires before its end time
+        Entry entry = new Entry(auctionId, endMillis, Math.floorDiv(endMillis + tickMillis - 1, tickMillis));
+        synchronized (lock) {
+            unlink(entries.put(auctionId, entry));
+            place(entry);
+        }
+    }
+
+    /**
+     * @return whether the auction was still waiting to expire.
+     */
+    public boolean cancel(int auctionId) {
+        synchronized (lock) {
+            Entry entry = entries.remove(auctionId);
+            unlink(entry);
+            return entry != null;
+        }
+    }
+
+    /**
+     * Turns the wheel up to {@code nowMillis} and returns the auctions that
+     * expired on the way, oldest deadline first. The timer thread calls this
+     * every tick; it is public so the wheel can be driven by hand.
+     */
+    public List<Integer> advance(long nowMillis) {
+        List<Entry> expiredEntries;
+        synchronized (lock) {
+            long target = nowMillis / tickMillis;
+            while (currentTick < target) {
+                currentTick++;
+                cascade();
+                List<Entry> slot = wheels[0][(int) (currentTick & (SLOTS - 1))];
+                for (Entry entry : slot) {
+                    entry.bucket = due;
+                }
+                due.addAll(slot);
+                slot.clear();
+            }
+            if (due.isEmpty()) {
+                return Collections.emptyList();
+            }
+            expiredEntries = new ArrayList<>(due);
+            due.clear();
+            for (Entry entry : expiredEntries) {
+                entries.remove(entry.auctionId);
+                entry.bucket = null;
+            }
+        }
+        expiredEntries.sort((a, b) -> Long.compare(a.deadlineMillis, b.deadlineMillis));
+        List<Integer> ids = new ArrayList<>(expiredEntries.size());
+        for (Entry entry : expiredEntries) {
+            long lag = Math.max(0, nowMillis - entry.deadlineMillis);
+            totalLagMillis.add(lag);
+            maxLagMillis.accumulateAndGet(lag, Math::max);
+            ids.add(entry.auctionId);
+        }
+        expired.add(ids.size());
+        batches.increment();
+        return ids;
+    }
+
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public Stats getStats() {
+        long count = expired.sum();
+        return new Stats(getQueueDepth(), count, batches.sum(),
+                count == 0 ? 0 : (double) totalLagMillis.sum() / count, maxLagMillis.get());
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                Thread.sleep(tickMillis - now % tickMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Integer> ids = advance(System.currentTimeMillis());
+            if (ids.isEmpty()) {
+                continue;
+            }
+            try {
+                finalizer.accept(ids);
+            } catch (Exception e) {
+                LoggerService.logError("finalizeAuctions", e, ids);
+            }
+        }
+    }
+
+    // must hold lock; on the first tick of a higher slot, pushes its entries down
+    private void cascade() {
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            if (level == LEVELS - 1 && (currentTick & ((1L << (shift + SLOT_BITS)) - 1)) == 0) {
+                List<Entry> waiting = new ArrayList<>(overflow);
+                overflow.clear();
+                waiting.forEach(this::place);
+            }
+            List<Entry> slot = wheels[level][(int) ((currentTick >>> shift) & (SLOTS - 1))];
+            List<Entry> moving = new ArrayList<>(slot);
+            slot.clear();
+            moving.forEach(this::place);
+        }
+    }
+
+    // must hold lock
+    private void place(Entry entry) {
+        long delta = entry.deadlineTick - currentTick;
+        List<Entry> bucket;
+        if (delta <= 0) {
+            bucket = due;
+        } else {
+            bucket = overflow;
+            for (int level = 0; level < LEVELS; level++) {
+                int shift = SLOT_BITS * level;
+                if (delta < (1L << (shift + SLOT_BITS))) {
+                    bucket = wheels[level][(int) ((entry.deadlineTick >>> shift) & (SLOTS - 1))];
+                    break;
+                }
+            }
+        }
+        bucket.add(entry);
+        entry.bucket = bucket;
+    }
+
+    // must hold lock
+    private static void unlink(Entry entry) {
+        if (entry != null && entry.bucket != null) {
+            entry.bucket.remove(entry);
+            entry.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.app.ApplicationLayer.Purchase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.example.app.DomainLayer.KeysetPage;
+import com.example.app.DomainLayer.Purchase.BidReciept;
+
+/**
+ * Read model behind the bids and auctions screens.
+ *
+ * Holds the latest receipt of every bid, indexed by the user who opened it,
+ * by shop, by completion and by kind (a plain bid, or an auction when it has
+ * an end time), together with what the screens filter on per shop: its
+ * owner, whether it is closed and which items it still lists. A bid is shown
+ * only while its shop is open and lists every item of the bid.
+ *
+ * {@link PurchaseService} fills it from the repository on first use, resolves
+ * the state of each shop the first time a bid of it shows up, and keeps it up
+ * to date as bids are opened, raised and completed; {@link
+ * com.example.app.ApplicationLayer.Shop.ShopService} reports closed and
+ * reopened shops and added and removed items. Pages are newest first, by bid id.
+ */
+@Component
+public class BidReadModel {
+
+    private static final class ShopState {
+        final int ownerId;
+        boolean closed;
+        final Set<Integer> itemIds;
+
+        ShopState(int ownerId, boolean closed, Collection<Integer> itemIds) {
+            this.ownerId = ownerId;
+            this.closed = closed;
+            this.itemIds = new HashSet<>(itemIds);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded = false;
+
+    private final Map<Integer, BidReciept> bids = new HashMap<>();
+    private final Map<Integer, NavigableSet<Integer>> byUser = new HashMap<>();
+    private final Map<Integer, NavigableSet<Integer>> byShop = new HashMap<>();
+    private final NavigableSet<Integer> plainBids = new TreeSet<>();
+    private final NavigableSet<Integer> auctions = new TreeSet<>();
+    private final Set<Integer> completed = new HashSet<>();
+
+    private final Map<Integer, ShopState> shops = new HashMap<>();
+    private final Map<Integer, Set<Integer>> shopsByOwner = new HashMap<>();
+    // shops with bids whose state has not been resolved yet
+    private final Set<Integer> unresolvedShops = new HashSet<>();
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            bids.clear();
+            byUser.clear();
+            byShop.clear();
+            plainBids.clear();
+            auctions.clear();
+            completed.clear();
+            shops.clear();
+            shopsByOwner.clear();
+            unresolvedShops.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the bid, or replaces the previous receipt of it.
+     */
+    public void put(BidReciept bid) {
+        lock.writeLock().lock();
+        try {
+            int bidId = bid.getPurchaseId();
+            BidReciept previous = bids.put(bidId, bid);
+            if (previous != null) {
+                unindex(bidId, previous);
+            }
+            byUser.computeIfAbsent(bid.getUserId(), id -> new TreeSet<>()).add(bidId);
+            byShop.computeIfAbsent(bid.getShopId(), id -> new TreeSet<>()).add(bidId);
+            (bid.getEndTime() == null ? plainBids : auctions).add(bidId);
+            if (bid.isCompleted()) {
+                completed.add(bidId);
+            }
+            if (!shops.containsKey(bid.getShopId())) {
+                unresolvedShops.add(bid.getShopId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Set<Integer> getUnresolvedShops() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(unresolvedShops);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the state of a shop as the bid screens see it.
+     */
+    public void putShop(int shopId, int ownerId, boolean closed, Collection<Integer> itemIds) {
+        lock.writeLock().lock();
+        try {
+            dropShop(shopId);
+            shops.put(shopId, new ShopState(ownerId, closed, itemIds));
+            shopsByOwner.computeIfAbsent(ownerId, id -> new HashSet<>()).add(shopId);
+            unresolvedShops.remove(shopId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void closeShop(int shopId) {
+        lock.writeLock().lock();
+        try {
+            ShopState shop = shops.get(shopId);
+            if (shop != null) {
+                shop.closed = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forgets the shop's state; it is resolved again before its bids are shown.
+     */
+    public void reOpenShop(int shopId) {
+        lock.writeLock().lock();
+        try {
+            if (dropShop(shopId) && byShop.containsKey(shopId)) {
+                unresolvedShops.add(shopId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addItem(int shopId, int itemId) {
+        lock.writeLock().lock();
+        try {
+            ShopState shop = shops.get(shopId);
+            if (shop != null) {
+                shop.itemIds.add(itemId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeItem(int shopId, int itemId) {
+        lock.writeLock().lock();
+        try {
+            ShopState shop = shops.get(shopId);
+            if (shop != null) {
+                shop.itemIds.remove(itemId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The plain bids the user opened or that were opened in shops the user
+     * owns.
+     */
+    public KeysetPage<BidReciept> getBidsOf(int userId, Integer beforeId, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Integer> candidates = new TreeSet<>(byUser.getOrDefault(userId, new TreeSet<>()));
+            for (int shopId : shopsByOwner.getOrDefault(userId, Set.of())) {
+                candidates.addAll(byShop.getOrDefault(shopId, new TreeSet<>()));
+            }
+            candidates.retainAll(plainBids);
+            return page(candidates, beforeId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public KeysetPage<BidReciept> getAuctions(Integer beforeId, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(auctions, beforeId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The completed plain bids the user opened.
+     */
+    public List<BidReciept> getFinishedBidsOf(int userId) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Integer> candidates = new TreeSet<>(byUser.getOrDefault(userId, new TreeSet<>()));
+            candidates.retainAll(plainBids);
+            candidates.retainAll(completed);
+            return page(candidates, null, Integer.MAX_VALUE).items();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // must hold a lock
+    private KeysetPage<BidReciept> page(NavigableSet<Integer> ids, Integer beforeId, int limit) {
+        NavigableSet<Integer> range = beforeId == null ? ids : ids.headSet(beforeId, false);
+        List<BidReciept> page = new ArrayList<>();
+        Iterator<Integer> it = range.descendingIterator();
+        while (it.hasNext() && page.size() < limit) {
+            BidReciept bid = bids.get(it.next());
+            if (isShown(bid)) {
+                page.add(bid);
+            }
+        }
+        boolean more = false;
+        while (it.hasNext() && !more) {
+            more = isShown(bids.get(it.next()));
+        }
+        return new KeysetPage<>(page, more ? page.get(page.size() - 1).getPurchaseId() : null);
+    }
+
+    // must hold a lock
+    private boolean isShown(BidReciept bid) {
+        ShopState shop = shops.get(bid.getShopId());
+        return shop != null && !shop.closed && shop.itemIds.containsAll(bid.getItems().keySet());
+    }
+
+    // must hold the write lock
+    private void unindex(int bidId, BidReciept bid) {
+        NavigableSet<Integer> ofUser = byUser.get(bid.getUserId());
+        if (ofUser != null && ofUser.remove(bidId) && ofUser.isEmpty()) {
+            byUser.remove(bid.getUserId());
+        }
+        NavigableSet<Integer> ofShop = byShop.get(bid.getShopId());
+        if (ofShop != null && ofShop.remove(bidId) && ofShop.isEmpty()) {
+            byShop.remove(bid.getShopId());
+        }
+        plainBids.remove(bidId);
+        auctions.remove(bidId);
+        completed.remove(bidId);
+    }
+
+    // must hold the write lock
+    private boolean dropShop(int shopId) {
+        ShopState shop = shops.remove(shopId);
+        if (shop == null) {
+            return false;
+        }
+        Set<Integer> owned = shopsByOwner.get(shop.ownerId);
+        if (owned != null && owned.remove(shopId) && owned.isEmpty()) {
+            shopsByOwner.remove(shop.ownerId);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.app.ApplicationLayer.Purchase;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency of every stage of the checkout pipeline, see
+ * {@link PurchaseService#checkoutCart}. Fan-out stages (payment, shipping) are
+ * measured as the wall time of the whole stage, which is what the buyer waits.
+ */
+public class CheckoutMetrics {
+
+    public enum Stage {
+        RESERVE, PAY, PERSIST, SHIP, RECEIPTS, TOTAL
+    }
+
+    public record StageStats(long count, double avgMillis, double maxMillis) {
+    }
+
+    private static final class Counter {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+
+    private final Map<Stage, Counter> counters = new EnumMap<>(Stage.class);
+    private final LongAdder failures = new LongAdder();
+
+    public CheckoutMetrics() {
+        for (Stage stage : Stage.values()) {
+            counters.put(stage, new Counter());
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        Counter counter = counters.get(stage);
+        counter.count.increment();
+        counter.totalNanos.add(nanos);
+        counter.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public Map<Stage, StageStats> snapshot() {
+        Map<Stage, StageStats> result = new EnumMap<>(Stage.class);
+        for (Map.Entry<Stage, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            long count = counter.count.sum();
+            double avg = count == 0 ? 0 : counter.totalNanos.sum() / (double) count / 1_000_000;
+            result.put(entry.getKey(), new StageStats(count, avg, counter.maxNanos.get() / 1_000_000.0));
+        }
+        return result;
+    }
+}
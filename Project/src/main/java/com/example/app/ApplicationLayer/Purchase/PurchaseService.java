@@ -1,20 +1,29 @@
 package com.example.app.ApplicationLayer.Purchase;
 
-import java.sql.Date;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.time.ZoneId;
 
-import org.springframework.scheduling.TaskScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.ApplicationLayer.AuthenticatedPrincipal;
 import com.example.app.ApplicationLayer.Item.ItemService;
 import com.example.app.ApplicationLayer.LoggerService;
 import com.example.app.ApplicationLayer.NotificationService;
@@ -23,6 +32,7 @@ import com.example.app.ApplicationLayer.OurArg;
 import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Shop.ShopService;
 import com.example.app.ApplicationLayer.User.UserService;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Member;
 import com.example.app.DomainLayer.Item.Item;
 import com.example.app.DomainLayer.Purchase.Address;
@@ -33,6 +43,7 @@ import com.example.app.DomainLayer.Purchase.Purchase;
 import com.example.app.DomainLayer.Purchase.Reciept;
 import com.example.app.DomainLayer.Roles.PermissionsEnum;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.constraints.Min;
 import java.util.HashSet;
 
@@ -47,8 +58,16 @@ public class PurchaseService {
     private MessageService messageService;
     private NotificationService notificationService;
     // private NotificationService notificationService;
-    private TaskScheduler taskscheduler;
+    private AuctionScheduler auctionScheduler;
+    private final BidReadModel bidReadModel;
+    private final AuctionBidBook auctionBidBook;
 
+    // payment and shipping are blocking calls to external systems; every shop of a
+    // checkout gets its own virtual thread for them
+    private final ExecutorService checkoutExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CheckoutMetrics checkoutMetrics = new CheckoutMetrics();
+
+    @Autowired
     public PurchaseService(IPurchaseRepository purchaseRepository,
             AuthTokenService authTokenService,
             UserService userService,
@@ -56,7 +75,9 @@ public class PurchaseService {
             ItemService itemService,
             MessageService messageService,
             NotificationService notificationService,
-            TaskScheduler taskscheduler) {
+            AuctionScheduler auctionScheduler,
+            BidReadModel bidReadModel,
+            AuctionBidBook auctionBidBook) {
         this.purchaseRepository = purchaseRepository;
         this.authTokenService = authTokenService;
         this.userService = userService;
@@ -64,7 +85,28 @@ public class PurchaseService {
         this.itemService = itemService;
         this.messageService = messageService;
         this.notificationService = notificationService;
-        this.taskscheduler = taskscheduler;
+        this.auctionScheduler = auctionScheduler;
+        this.bidReadModel = bidReadModel;
+        this.auctionBidBook = auctionBidBook;
+        auctionScheduler.setFinalizer(this::finalizeAuctions);
+    }
+
+    /**
+     * Puts every open auction back on the timer after a restart; auctions that
+     * ended while the server was down are finalized on the next tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverAuctions() {
+        LoggerService.logMethodExecution("recoverAuctions");
+        try {
+            List<Bid> open = purchaseRepository.getOpenAuctions();
+            for (Bid bid : open) {
+                auctionScheduler.schedule(bid.getPurchaseId(), bid.getAuctionEndTime());
+            }
+            LoggerService.logMethodExecutionEnd("recoverAuctions", open.size());
+        } catch (Exception e) {
+            LoggerService.logError("recoverAuctions", e);
+        }
     }
 
     public void setServices(AuthTokenService authTokenService, UserService userService, ItemService itemService,
@@ -79,69 +121,38 @@ public class PurchaseService {
     public List<Integer> checkoutCart(String authToken, Address shippingAddress, String currency, String cardNumber,
             String expirationDateMonth, String expirationDateYear, String cardHolderName, String cvv, String id) {
         LoggerService.logMethodExecution("checkoutCart", authToken, shippingAddress);
-        HashMap<Integer, HashMap<Integer, Integer>> aqcuired = new HashMap<>();
+        long start = System.nanoTime();
+        CheckoutState state = new CheckoutState();
         HashMap<Integer, HashMap<Integer, Integer>> cartBackup = null;
-        HashMap<Integer, Double> totalPrices = new HashMap<>();
-        HashMap<Integer, Integer> purchaseIds = new HashMap<>();
-        List<Integer> paymentIds = new ArrayList<>();
         int userId = -1;
+        AuthenticatedPrincipal buyer = null;
         try {
-            userId = authTokenService.ValidateToken(authToken);
+            // the token is resolved once here; every step below acts for this principal
+            buyer = userService.authenticate(authToken);
+            userId = buyer.userId();
             HashMap<Integer, HashMap<Integer, Integer>> cart = userService.getUserShoppingCartItems(userId);
             cartBackup = cart;
-            for (Integer shopId : cart.keySet()) {
-                double totalPrice = shopService.purchaseItems(cart.get(shopId), shopId, authToken);
-                totalPrices.put(shopId, totalPrice);
-                aqcuired.put(shopId, cart.get(shopId));
-
-                int payid = userService.pay(authToken, shopId, totalPrice, currency, cardNumber,
-                        expirationDateMonth, expirationDateYear, cardHolderName, cvv, id);
-                paymentIds.add(payid);
-                int pid = purchaseRepository.addPurchase(userId, shopId, aqcuired.get(shopId), totalPrice,
-                        shippingAddress);
-                purchaseIds.put(pid, shopId);
-            }
-            userService.clearUserShoppingCart(userId);
-            for (Integer purchaseId : purchaseIds.keySet()) {
-                shopService.shipPurchase(authToken, purchaseId, purchaseIds.get(purchaseId),
-                        shippingAddress.getCountry(),
-                        shippingAddress.getCity(), shippingAddress.getStreet(), shippingAddress.getZipCode());
-            }
-            // genrate reciept for each purchase
-            for (Integer purchaseId : purchaseIds.keySet()) {
-                Purchase purchase = purchaseRepository.getPurchaseById(purchaseId);
-                if (purchase != null) {
-                    Reciept reciept = purchase.generateReciept();
-                    purchaseRepository.addReciept(reciept);
-                }
-            }
-            LoggerService.logMethodExecutionEnd("checkoutCart", purchaseIds);
+            int buyerId = userId;
+            runCheckout(buyer, cart, shippingAddress, new PaymentDetails(currency, cardNumber,
+                    expirationDateMonth, expirationDateYear, cardHolderName, cvv, id), state,
+                    () -> userService.clearUserShoppingCart(buyerId));
+            LoggerService.logMethodExecutionEnd("checkoutCart", state.purchaseIds);
             userService.purchaseNotification(cart);
-            return purchaseIds.keySet().stream().toList();
-            // } catch (OurArg e) {
-            // LoggerService.logDebug("checkoutCart", e);
-            // throw new OurArg("checkoutCart: " + e.getMessage(), e);
-            // } catch (OurRuntime e) {
-            // for (Integer shopId : aqcuired.keySet()) {
-            // shopService.rollBackPurchase(aqcuired.get(shopId), shopId);
-            // }
-            // if (cartBackup != null) {
-            // userService.restoreUserShoppingCart(userId, cartBackup);
-            // }
-            // for (Integer pid : paymentIds) {
-            // userService.refundPaymentAuto(authToken, pid);
-            // }
-            // LoggerService.logError("checkoutCart", e, authToken, shippingAddress);
-            // throw new OurRuntime("checkoutCart: " + e.getMessage(), e);
+            checkoutMetrics.record(CheckoutMetrics.Stage.TOTAL, System.nanoTime() - start);
+            return state.purchaseIds.keySet().stream().toList();
         } catch (Exception e) {
-            for (Integer shopId : aqcuired.keySet()) {
-                shopService.rollBackPurchase(aqcuired.get(shopId), shopId);
+            for (Integer shopId : state.acquired.keySet()) {
+                shopService.rollBackPurchase(state.acquired.get(shopId), shopId);
             }
             if (cartBackup != null) {
                 userService.restoreUserShoppingCart(userId, cartBackup);
             }
-            for (Integer pid : paymentIds) {
-                userService.refundPaymentAuto(authToken, pid);
+            for (Integer pid : state.paymentIds) {
+                userService.refundPaymentAuto(buyer, pid);
+            }
+            checkoutMetrics.recordFailure();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
             }
             LoggerService.logError("checkoutCart", e, authToken, shippingAddress);
             throw new OurRuntime("checkoutCart: " + e.getMessage(), e);
@@ -152,84 +163,241 @@ public class PurchaseService {
             String cardNumber, String expirationDateMonth, String expirationDateYear, String cardHolderName, String cvv,
             String id, int shopIdToBuy) {
         LoggerService.logMethodExecution("partialCheckoutCart", authToken, shippingAddress);
-        HashMap<Integer, HashMap<Integer, Integer>> aqcuired = new HashMap<>();
+        long start = System.nanoTime();
+        CheckoutState state = new CheckoutState();
         HashMap<Integer, HashMap<Integer, Integer>> cartBackup = null;
-        HashMap<Integer, Double> totalPrices = new HashMap<>();
-        HashMap<Integer, Integer> purchaseIds = new HashMap<>();
-        List<Integer> paymentIds = new ArrayList<>();
+        Map<Integer, HashMap<Integer, Integer>> baskets = new HashMap<>();
         int userId = -1;
+        AuthenticatedPrincipal buyer = null;
         try {
-            userId = authTokenService.ValidateToken(authToken);
+            // the token is resolved once here; every step below acts for this principal
+            buyer = userService.authenticate(authToken);
+            userId = buyer.userId();
             HashMap<Integer, HashMap<Integer, Integer>> cart = userService.getUserShoppingCartItems(userId);
             cartBackup = cart;
-            for (Integer shopId : cart.keySet()) {
-                if (shopId != shopIdToBuy) {
-                    continue; // Skip shops that are not the one we want to buy from
-                }
-                aqcuired.put(shopId, cart.get(shopId));
-                double totalPrice = shopService.purchaseItems(cart.get(shopId), shopId, authToken);
-                totalPrices.put(shopId, totalPrice);
-
-                int payid = userService.pay(authToken, shopId, totalPrice, currency, cardNumber,
-                        expirationDateMonth, expirationDateYear, cardHolderName, cvv, id);
-                paymentIds.add(payid);
-                int pid = purchaseRepository.addPurchase(userId, shopId, aqcuired.get(shopId), totalPrice,
-                        shippingAddress);
-                purchaseIds.put(pid, shopId);
-            }
-            userService.clearUserShoppingCartByShopId(userId, shopIdToBuy);
-            for (Integer purchaseId : purchaseIds.keySet()) {
-                shopService.shipPurchase(authToken, purchaseId, purchaseIds.get(purchaseId),
-                        shippingAddress.getCountry(),
-                        shippingAddress.getCity(), shippingAddress.getStreet(), shippingAddress.getZipCode());
-            }
-            // genrate reciept for each purchase
-            for (Integer purchaseId : purchaseIds.keySet()) {
-                Purchase purchase = purchaseRepository.getPurchaseById(purchaseId);
-                if (purchase != null) {
-                    Reciept reciept = purchase.generateReciept();
-                    purchaseRepository.addReciept(reciept);
-                }
-            }
-            LoggerService.logMethodExecutionEnd("partialCheckoutCart", purchaseIds);
+            if (cart.containsKey(shopIdToBuy)) {
+                baskets.put(shopIdToBuy, cart.get(shopIdToBuy));
+            }
+            int buyerId = userId;
+            runCheckout(buyer, baskets, shippingAddress, new PaymentDetails(currency, cardNumber,
+                    expirationDateMonth, expirationDateYear, cardHolderName, cvv, id), state,
+                    () -> userService.clearUserShoppingCartByShopId(buyerId, shopIdToBuy));
+            LoggerService.logMethodExecutionEnd("partialCheckoutCart", state.purchaseIds);
             userService.purchaseNotification(cart);
-            return purchaseIds.keySet().stream().toList();
-            // } catch (OurArg e) {
-            // LoggerService.logDebug("checkoutCart", e);
-            // throw new OurArg("checkoutCart: " + e.getMessage(), e);
-            // } catch (OurRuntime e) {
-            // for (Integer shopId : aqcuired.keySet()) {
-            // shopService.rollBackPurchase(aqcuired.get(shopId), shopId);
-            // }
-            // if (cartBackup != null) {
-            // userService.restoreUserShoppingCart(userId, cartBackup);
-            // }
-            // for (Integer pid : paymentIds) {
-            // userService.refundPaymentAuto(authToken, pid);
-            // }
-            // LoggerService.logError("checkoutCart", e, authToken, shippingAddress);
-            // throw new OurRuntime("checkoutCart: " + e.getMessage(), e);
+            checkoutMetrics.record(CheckoutMetrics.Stage.TOTAL, System.nanoTime() - start);
+            return state.purchaseIds.keySet().stream().toList();
         } catch (Exception e) {
-            for (Integer shopId : aqcuired.keySet()) {
-                shopService.rollBackPurchase(aqcuired.get(shopId), shopId);
+            // a reservation that failed has already given its stock back
+            for (Integer shopId : state.acquired.keySet()) {
+                shopService.rollBackPurchase(state.acquired.get(shopId), shopId);
             }
             if (cartBackup != null) {
                 userService.restoreUserShoppingCartByShopId(userId, cartBackup, shopIdToBuy);
             }
-            for (Integer pid : paymentIds) {
-                userService.refundPaymentAuto(authToken, pid);
+            for (Integer pid : state.paymentIds) {
+                userService.refundPaymentAuto(buyer, pid);
+            }
+            checkoutMetrics.recordFailure();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
             }
             LoggerService.logError("partialCheckoutCart", e, authToken, shippingAddress);
             throw new OurRuntime("partialCheckoutCart: " + e.getMessage(), e);
         }
     }
 
+    private record PaymentDetails(String currency, String cardNumber, String expirationDateMonth,
+            String expirationDateYear, String cardHolderName, String cvv, String id) {
+    }
+
+    // what a checkout has done so far, i.e. what has to be compensated if it fails
+    private static final class CheckoutState {
+        final Map<Integer, HashMap<Integer, Integer>> acquired = new HashMap<>();
+        final Map<Integer, Double> totalPrices = new HashMap<>();
+        final List<Integer> paymentIds = new CopyOnWriteArrayList<>();
+        final Map<Integer, Integer> purchaseIds = new HashMap<>(); // purchaseId -> shopId
+    }
+
+    /**
+     * Checks out the given baskets in stages: reserve the stock of every basket,
+     * pay every shop concurrently, persist the purchases, clear the cart, then
+     * ship every purchase concurrently and store the receipts. No money moves
+     * unless every basket could be reserved. On failure the state tells the
+     * caller what to roll back and refund.
+     */
+    private void runCheckout(AuthenticatedPrincipal buyer, Map<Integer, HashMap<Integer, Integer>> baskets,
+            Address shippingAddress, PaymentDetails payment, CheckoutState state, Runnable clearCart)
+            throws Exception {
+        int userId = buyer.userId();
+        long stageStart = System.nanoTime();
+        for (Map.Entry<Integer, HashMap<Integer, Integer>> basket : baskets.entrySet()) {
+            double totalPrice = shopService.purchaseItems(basket.getValue(), basket.getKey(), buyer);
+            state.totalPrices.put(basket.getKey(), totalPrice);
+            state.acquired.put(basket.getKey(), basket.getValue());
+        }
+        stageStart = recordStage(CheckoutMetrics.Stage.RESERVE, stageStart);
+
+        fanOut(state.acquired.keySet(), shopId -> state.paymentIds.add(userService.pay(buyer, shopId,
+                state.totalPrices.get(shopId), payment.currency(), payment.cardNumber(),
+                payment.expirationDateMonth(), payment.expirationDateYear(), payment.cardHolderName(),
+                payment.cvv(), payment.id())));
+        stageStart = recordStage(CheckoutMetrics.Stage.PAY, stageStart);
+
+        for (Integer shopId : state.acquired.keySet()) {
+            int pid = purchaseRepository.addPurchase(userId, shopId, state.acquired.get(shopId),
+                    state.totalPrices.get(shopId), shippingAddress);
+            state.purchaseIds.put(pid, shopId);
+        }
+        clearCart.run();
+        stageStart = recordStage(CheckoutMetrics.Stage.PERSIST, stageStart);
+
+        fanOut(state.purchaseIds.keySet(), purchaseId -> shopService.shipPurchase(buyer, purchaseId,
+                state.purchaseIds.get(purchaseId), shippingAddress.getCountry(), shippingAddress.getCity(),
+                shippingAddress.getStreet(), shippingAddress.getZipCode()));
+        stageStart = recordStage(CheckoutMetrics.Stage.SHIP, stageStart);
+
+        // genrate reciept for each purchase
+        for (Integer purchaseId : state.purchaseIds.keySet()) {
+            Purchase purchase = purchaseRepository.getPurchaseById(purchaseId);
+            if (purchase != null) {
+                Reciept reciept = purchase.generateReciept();
+                purchaseRepository.addReciept(reciept);
+            }
+        }
+        recordStage(CheckoutMetrics.Stage.RECEIPTS, stageStart);
+    }
+
+    private long recordStage(CheckoutMetrics.Stage stage, long stageStart) {
+        long now = System.nanoTime();
+        checkoutMetrics.record(stage, now - stageStart);
+        return now;
+    }
+
+    /**
+     * Runs the action for every key, concurrently when there is more than one.
+     * Waits for all of them so the caller knows every side effect that happened,
+     * then rethrows the first failure. An interrupt does not cut the wait short,
+     * since a payment still running could not be refunded; it is rethrown as an
+     * {@link InterruptedException} once every action is done, and the caller
+     * restores the flag after compensating, so its refunds are not interrupted.
+     */
+    private void fanOut(Collection<Integer> keys, Consumer<Integer> action) throws Exception {
+        if (keys.size() <= 1) {
+            keys.forEach(action);
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(keys.size());
+        for (Integer key : keys) {
+            futures.add(checkoutExecutor.submit(() -> action.accept(key)));
+        }
+        Exception failure = null;
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause()
+                                : new OurRuntime(e.getCause().getMessage(), e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            InterruptedException stop = new InterruptedException("Interrupted while a checkout stage was running");
+            if (failure != null) {
+                stop.addSuppressed(failure);
+            }
+            throw stop;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Lets the payments and shipments in flight finish before the node stops.
+     */
+    @PreDestroy
+    public void stop() {
+        checkoutExecutor.shutdown();
+        try {
+            if (!checkoutExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                checkoutExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            checkoutExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Per-stage checkout latencies; admins only.
+     */
+    public Map<CheckoutMetrics.Stage, CheckoutMetrics.StageStats> getCheckoutMetrics(String authToken) {
+        LoggerService.logMethodExecution("getCheckoutMetrics", authToken);
+        try {
+            int userId = authTokenService.ValidateToken(authToken);
+            if (!userService.isAdmin(userId)) {
+                throw new OurRuntime("Only admins can view checkout metrics");
+            }
+            Map<CheckoutMetrics.Stage, CheckoutMetrics.StageStats> metrics = checkoutMetrics.snapshot();
+            LoggerService.logMethodExecutionEnd("getCheckoutMetrics", metrics);
+            return metrics;
+        } catch (OurArg e) {
+            LoggerService.logDebug("getCheckoutMetrics", e);
+            throw new OurArg("getCheckoutMetrics: " + e.getMessage(), e);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("getCheckoutMetrics", e);
+            throw new OurRuntime("getCheckoutMetrics: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("getCheckoutMetrics", e, authToken);
+            throw new OurRuntime("getCheckoutMetrics: " + e.getMessage(), e);
+        }
+    }
+
+    public CheckoutMetrics getCheckoutMetrics() {
+        return checkoutMetrics;
+    }
+
+    /**
+     * Open auctions on the timer and how late ended auctions were finalized;
+     * admins only.
+     */
+    public AuctionScheduler.Stats getAuctionSchedulerStats(String authToken) {
+        LoggerService.logMethodExecution("getAuctionSchedulerStats", authToken);
+        try {
+            int userId = authTokenService.ValidateToken(authToken);
+            if (!userService.isAdmin(userId)) {
+                throw new OurRuntime("Only admins can view auction scheduler metrics");
+            }
+            AuctionScheduler.Stats stats = auctionScheduler.getStats();
+            LoggerService.logMethodExecutionEnd("getAuctionSchedulerStats", stats);
+            return stats;
+        } catch (OurArg e) {
+            LoggerService.logDebug("getAuctionSchedulerStats", e);
+            throw new OurArg("getAuctionSchedulerStats: " + e.getMessage(), e);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("getAuctionSchedulerStats", e);
+            throw new OurRuntime("getAuctionSchedulerStats: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("getAuctionSchedulerStats", e, authToken);
+            throw new OurRuntime("getAuctionSchedulerStats: " + e.getMessage(), e);
+        }
+    }
+
     public int createBid(String authToken, int storeId, Map<Integer, Integer> items, int initialPrice) {
         LoggerService.logMethodExecution("createBid", authToken, storeId, items);
         try {
             int userId = authTokenService.ValidateToken(authToken);
             shopService.purchaseItems(items, storeId, authToken);
             int purchaseId = purchaseRepository.addBid(userId, storeId, items, initialPrice);
+            updateBidReadModel(model -> model.put(bidReciept(purchaseId)));
             LoggerService.logMethodExecutionEnd("createBid", purchaseId);
             return purchaseId;
         } catch (OurArg e) {
@@ -277,6 +445,7 @@ public class PurchaseService {
             }
 
             purchaseRepository.postBidding((Bid) purchase, userId, bidPrice);
+            updateBidReadModel(model -> model.put(((Bid) purchase).generateReciept()));
             LoggerService.logMethodExecutionEndVoid("postBidding");
         } catch (OurArg e) {
             LoggerService.logDebug("postBidding", e);
@@ -330,6 +499,7 @@ public class PurchaseService {
                     + ".\nIt has been added to your bids list.\n\n";
             notificationService.sendToUser(initiatingUserId, "The bid is over ", msg);
             purchase.completePurchase();
+            updateBidReadModel(model -> model.put(((Bid) purchase).generateReciept()));
             userService.addBidToUserShoppingCart(initiatingUserId, shopId, items);
             // generate reciept for the bid
             Reciept reciept = purchase.generateReciept();
@@ -439,119 +609,74 @@ public class PurchaseService {
         }
     }
 
-    public List<BidReciept> getAllBids(String authToken, boolean fromBid) {
+    /**
+     * A page of the user's purchase history, newest first; pass the page's
+     * {@code nextBeforeId} as {@code beforeId} to get the next one.
+     */
+    public KeysetPage<Reciept> getUserPurchasesPage(String authToken, int userId, Integer beforeId, int limit) {
         try {
-            LoggerService.logMethodExecution("getAllBids", authToken);
-            int userId = authTokenService.ValidateToken(authToken);
-            // 1. fetch everything...
-            List<BidReciept> bids = new ArrayList<>(purchaseRepository.getAllBids());
-
-            if (fromBid) {
-                // find shop owner of each bid - for owner only has to see all bids of his shops
-                for (BidReciept bid : bids) {
-                    int shopId = bid.getShopId();
-                    int shopOwnerId = userService.getShopOwner(shopId);
-                    if (shopOwnerId != userId) { // if the shop is closed the shopOwnerId = -1
-                        // 2. filter out other users’ bids
-                        bids = bids.stream().filter(b -> b.getUserId() == userId).collect(Collectors.toList());
-
-                        // 3.Distinguish between the bids of the user to auctions he has participated in
-                        // - present only the bids he has made
-                        bids = bids.stream().filter(b -> b.getUserId() == userId && b.getEndTime() == null).collect(Collectors.toList());
-
-                        LoggerService.logMethodExecutionEnd("getAllBids", bids);
-                    } else {
-                        // 3.Distinguish between the bids of the user to auctions he has participated in
-                        // - present only the bids he has made
-                        bids = bids.stream().filter(b -> b.getEndTime() == null).collect(Collectors.toList());
-                    }
-                }
-            } else {
-                bids = bids.stream().filter(b -> b.getEndTime() != null).collect(Collectors.toList());
-
-                LoggerService.logMethodExecutionEnd("getAllBids", bids);
+            LoggerService.logMethodExecution("getUserPurchasesPage", authToken, userId, beforeId, limit);
+            KeysetPage.validateLimit(limit);
+            if (authTokenService.ValidateToken(authToken) != userId) {
+                throw new OurRuntime("Token does not match user ID.");
             }
-            // Sort the list finishedBids so it will return only the bids that the shop is
-            // not close
-            List<Integer> closedShopsIds = shopService.getclosedShops(authToken);
-            bids.removeIf(b -> closedShopsIds.contains(b.getShopId()));
-
-            // drop bids whose item no longer exists
-            Set<Integer> validItemIds = bids.stream()
-            // for each bid, fetch that shop’s items
-            .flatMap(bid -> shopService.searchItemsInShop(bid.getShopId(),null,null, Collections.emptyList(),
-                    null, null, null,authToken).stream()
-                .map(Item::getId)
-            )
-            .collect(Collectors.toSet());
-            bids.removeIf(b -> b.getItems().keySet().stream()
-                    .anyMatch(itemId -> !validItemIds.contains(itemId)));
-            return bids;
+            KeysetPage<Reciept> page = purchaseRepository.getUserPurchases(userId, beforeId, limit);
+            LoggerService.logMethodExecutionEnd("getUserPurchasesPage", page);
+            return page;
         } catch (OurArg e) {
-            LoggerService.logDebug("getAllBids", e);
-            throw new OurArg("getAllBids: " + e.getMessage(), e);
+            LoggerService.logDebug("getUserPurchasesPage", e);
+            throw new OurArg("getUserPurchasesPage: " + e.getMessage(), e);
         } catch (OurRuntime e) {
-            LoggerService.logDebug("getAllBids", e);
-            throw new OurRuntime("getAllBids: " + e.getMessage(), e);
+            LoggerService.logDebug("getUserPurchasesPage", e);
+            throw new OurRuntime("getUserPurchasesPage: " + e.getMessage(), e);
         } catch (Exception e) {
-            LoggerService.logError("getAllBids", e, authToken);
-            throw new OurRuntime("Error retrieving all bids: " + e.getMessage(), e);
+            LoggerService.logError("getUserPurchasesPage", e, authToken, userId, beforeId, limit);
+            throw new OurRuntime("Error retrieving user purchases: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A page of the store's purchase history, newest first; pass the page's
+     * {@code nextBeforeId} as {@code beforeId} to get the next one.
+     */
+    public KeysetPage<Reciept> getStorePurchasesPage(String authToken, int shopId, Integer beforeId, int limit) {
+        try {
+            LoggerService.logMethodExecution("getStorePurchasesPage", authToken, shopId, beforeId, limit);
+            KeysetPage.validateLimit(limit);
+            authTokenService.ValidateToken(authToken);
+            userService.getPermitionsByShop(authToken, shopId);
+            KeysetPage<Reciept> page = purchaseRepository.getStorePurchases(shopId, beforeId, limit);
+            LoggerService.logMethodExecutionEnd("getStorePurchasesPage", page);
+            return page;
+        } catch (OurArg e) {
+            LoggerService.logDebug("getStorePurchasesPage", e);
+            throw new OurArg("getStorePurchasesPage: " + e.getMessage(), e);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("getStorePurchasesPage", e);
+            throw new OurRuntime("getStorePurchasesPage: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("getStorePurchasesPage", e, authToken, shopId, beforeId, limit);
+            throw new OurRuntime("Error retrieving store purchases: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Same as {@link #getAllBidsNew(String, boolean)}.
+     */
+    public List<BidReciept> getAllBids(String authToken, boolean fromBid) {
+        return getAllBidsNew(authToken, fromBid);
+    }
 
+    /**
+     * With {@code fromBid}, the open and finished bids the user opened or that
+     * were opened in shops the user owns; otherwise all auctions. Bids of
+     * closed shops, or with items their shop no longer lists, are left out.
+     */
     public List<BidReciept> getAllBidsNew(String authToken, boolean fromBid) {
         try {
-            LoggerService.logMethodExecution("getAllBidsNew", authToken);
-            int userId = authTokenService.ValidateToken(authToken);
-            // 1. fetch everything...
-            List<BidReciept> bids = new ArrayList<>(purchaseRepository.getAllBids());
-            
-            List<BidReciept> returnBids = new ArrayList<>();
-
-            if (fromBid) 
-            {
-                // find shop owner of each bid - for owner only has to see all bids of his shops
-                for (BidReciept bid : bids) 
-                {
-                    int shopId = bid.getShopId();
-                    int shopOwnerId = userService.getShopOwner(shopId);
-                    if ((shopOwnerId == userId) || (bid.getUserId() == userId)) { // if the shop is closed the shopOwnerId = -1
-                        // 3.Distinguish between the bids of the user to auctions he has participated in
-                        // - present only the bids he has made
-                        if (bid.getEndTime() == null) {
-                            returnBids.add(bid); 
-                        }
-                    }
-                }
-                bids = returnBids;       
-            } 
-            else 
-            {
-                bids = bids.stream().filter(b -> b.getEndTime() != null).collect(Collectors.toList());
-
-            }
-            
+            LoggerService.logMethodExecution("getAllBidsNew", authToken, fromBid);
+            List<BidReciept> bids = new ArrayList<>(queryBids(authToken, fromBid, null, Integer.MAX_VALUE).items());
             LoggerService.logMethodExecutionEnd("getAllBidsNew", bids);
-
-            // Sort the list finishedBids so it will return only the bids that the shop is
-            // not close
-            List<Integer> closedShopsIds = shopService.getclosedShops(authToken);
-            bids.removeIf(b -> closedShopsIds.contains(b.getShopId()));
-
-            // drop bids whose item no longer exists
-            Set<Integer> validItemIds = bids.stream()
-            // for each bid, fetch that shop’s items
-            .flatMap(bid -> shopService.searchItemsInShop(bid.getShopId(),null,null, Collections.emptyList(),
-                    null, null, null,authToken).stream()
-                .map(Item::getId)
-            )
-            .collect(Collectors.toSet());
-            // print for debugging validItemIds
-            System.out.println("Valid item IDs: " +
-                validItemIds.stream().map(String::valueOf).collect(Collectors.joining(", ")));
-            bids.removeIf(b -> b.getItems().keySet().stream()
-                    .anyMatch(itemId -> !validItemIds.contains(itemId)));
             return bids;
         } catch (OurArg e) {
             LoggerService.logDebug("getAllBidsNew", e);
@@ -565,6 +690,84 @@ public class PurchaseService {
         }
     }
 
+    /**
+     * A page of {@link #getAllBidsNew(String, boolean)}, newest first; pass the
+     * page's {@code nextBeforeId} as {@code beforeId} to get the next one.
+     */
+    public KeysetPage<BidReciept> getBidsPage(String authToken, boolean fromBid, Integer beforeId, int limit) {
+        try {
+            LoggerService.logMethodExecution("getBidsPage", authToken, fromBid, beforeId, limit);
+            KeysetPage.validateLimit(limit);
+            KeysetPage<BidReciept> page = queryBids(authToken, fromBid, beforeId, limit);
+            LoggerService.logMethodExecutionEnd("getBidsPage", page);
+            return page;
+        } catch (OurArg e) {
+            LoggerService.logDebug("getBidsPage", e);
+            throw new OurArg("getBidsPage: " + e.getMessage(), e);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("getBidsPage", e);
+            throw new OurRuntime("getBidsPage: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("getBidsPage", e, authToken, fromBid, beforeId, limit);
+            throw new OurRuntime("Error retrieving bids: " + e.getMessage(), e);
+        }
+    }
+
+    private KeysetPage<BidReciept> queryBids(String authToken, boolean fromBid, Integer beforeId, int limit)
+            throws Exception {
+        int userId = authTokenService.ValidateToken(authToken);
+        prepareBidReadModel(authToken);
+        return fromBid ? bidReadModel.getBidsOf(userId, beforeId, limit) : bidReadModel.getAuctions(beforeId, limit);
+    }
+
+    // fills the read model on first use and resolves the shops it has not seen yet
+    private void prepareBidReadModel(String authToken) {
+        if (bidReadModel.isLoaded() && bidReadModel.getUnresolvedShops().isEmpty()) {
+            return;
+        }
+        synchronized (bidReadModel) {
+            if (!bidReadModel.isLoaded()) {
+                bidReadModel.clear();
+                for (BidReciept bid : purchaseRepository.getAllBids()) {
+                    bidReadModel.put(bid);
+                }
+                bidReadModel.markLoaded();
+            }
+            Set<Integer> unresolved = bidReadModel.getUnresolvedShops();
+            if (unresolved.isEmpty()) {
+                return;
+            }
+            List<Integer> closedShopsIds = shopService.getclosedShops(authToken);
+            for (int shopId : unresolved) {
+                if (closedShopsIds.contains(shopId)) {
+                    bidReadModel.putShop(shopId, -1, true, List.of());
+                    continue;
+                }
+                List<Integer> itemIds = shopService.searchItemsInShop(shopId, null, null, Collections.emptyList(),
+                        null, null, null, authToken).stream().map(Item::getId).toList();
+                bidReadModel.putShop(shopId, userService.getShopOwner(shopId), false, itemIds);
+            }
+        }
+    }
+
+    private void updateBidReadModel(Consumer<BidReadModel> update) {
+        synchronized (bidReadModel) {
+            if (!bidReadModel.isLoaded()) {
+                return;
+            }
+            try {
+                update.accept(bidReadModel);
+            } catch (RuntimeException e) {
+                LoggerService.logError("updateBidReadModel", e);
+                bidReadModel.clear();
+            }
+        }
+    }
+
+    private BidReciept bidReciept(int bidId) {
+        return ((Bid) purchaseRepository.getPurchaseById(bidId)).generateReciept();
+    }
+
     public List<BidReciept> getShopBids(String authToken, int shopId) {
         try {
             LoggerService.logMethodExecution("getShopBids", authToken, shopId);
@@ -584,7 +787,6 @@ public class PurchaseService {
         }
     }
 
-    @SuppressWarnings("deprecation")
     public int startAuction(String authToken, int storeId, Map<Integer, Integer> items, int initialPrice,
             LocalDateTime auctionEndTime) {
         LoggerService.logMethodExecution("startAuction", authToken, storeId, items, initialPrice, auctionEndTime);
@@ -593,9 +795,8 @@ public class PurchaseService {
             shopService.purchaseItems(items, storeId, authToken);
             int auctionId = purchaseRepository.addBid(userId, storeId, items, initialPrice, LocalDateTime.now(),
                     auctionEndTime);
-            taskscheduler.schedule(
-                    () -> finalizeAuction(auctionId),
-                    Date.from(auctionEndTime.atZone(ZoneId.systemDefault()).toInstant()));
+            auctionScheduler.schedule(auctionId, auctionEndTime);
+            updateBidReadModel(model -> model.put(bidReciept(auctionId)));
             LoggerService.logMethodExecutionEnd("startAuction", auctionId);
             return auctionId;
         } catch (OurArg e) {
@@ -611,20 +812,25 @@ public class PurchaseService {
         }
     }
 
-    public void postBiddingAuction(String authToken, int auctionId, int bidPrice) {
+    /**
+     * Places a bid on an auction through the {@link AuctionBidBook}; returns
+     * once the bid is stored, with its sequence number in the auction.
+     */
+    public AuctionBidBook.Ack postBiddingAuction(String authToken, int auctionId, int bidPrice) {
         LoggerService.logMethodExecution("postBiddingAuction", authToken, auctionId);
         try {
             int userId = authTokenService.ValidateToken(authToken);
-            Purchase purchase = purchaseRepository.getPurchaseById(auctionId);
-            if (!(purchase instanceof Bid)) {
-                throw new OurRuntime("Purchase " + auctionId + " is not a bid");
-            }
-            if (purchase.getUserId() == userId) {
-                throw new OurRuntime(
-                        "User " + userId + " is the owner of the bid " + auctionId + " and cannot bid on it");
+            AuctionBidBook.Ack ack = auctionBidBook.submit(auctionId, userId, bidPrice);
+            if (ack.accepted()) {
+                updateBidReadModel(model -> {
+                    BidReciept reciept = auctionBidBook.getReciept(auctionId);
+                    if (reciept != null) {
+                        model.put(reciept);
+                    }
+                });
             }
-            purchaseRepository.postBiddingAuction((Bid) purchase, userId, bidPrice);
-            LoggerService.logMethodExecutionEndVoid("postBiddingAuction");
+            LoggerService.logMethodExecutionEnd("postBiddingAuction", ack);
+            return ack;
         } catch (OurArg e) {
             LoggerService.logDebug("postBiddingAuction", e);
             throw new OurArg("postBiddingAuction: " + e.getMessage(), e);
@@ -637,18 +843,38 @@ public class PurchaseService {
         }
     }
 
+    // auctions that ended in the same tick; one failing does not hold up the rest
+    private void finalizeAuctions(List<Integer> auctionIds) {
+        for (int auctionId : auctionIds) {
+            try {
+                finalizeAuction(auctionId);
+            } catch (Exception e) {
+                LoggerService.logError("finalizeAuction", e, auctionId);
+            }
+        }
+    }
+
     private void finalizeAuction(int auctionId) {
         int winnerId = -1;
         int finalPrice = -1;
         int shopId = -1;
         try {
             LoggerService.logMethodExecution("finalizeAuction", auctionId);
+            // the bids taken until now are stored before the auction is completed
+            auctionBidBook.close(auctionId);
+            // completed before anything else so a restart never finalizes it twice
+            if (!purchaseRepository.completeAuction(auctionId)) {
+                throw new OurRuntime("Auction " + auctionId + " is not an open auction");
+            }
+            // late bids now load the completed auction and fail on it
+            auctionBidBook.forget(auctionId);
+            // the winner is read from the stored auction
             Purchase purchase = purchaseRepository.getPurchaseById(auctionId);
             if (!(purchase instanceof Bid)) {
                 throw new OurRuntime("Purchase " + auctionId + " is not a bid");
             }
             Bid bid = (Bid) purchase;
-            bid.completePurchase();
+            updateBidReadModel(model -> model.put(bid.generateReciept()));
             winnerId = bid.getHighestBidderId();
             finalPrice = bid.getMaxBidding();
             shopId = bid.getStoreId();
@@ -712,22 +938,23 @@ public class PurchaseService {
     }
 
     public List<BidReciept> getFinishedBidsList(String authToken) {
-        List<BidReciept> allBidsOfUser = getAllBidsNew(authToken, true);
-        int userId;
         try {
-            userId = authTokenService.ValidateToken(authToken);
+            LoggerService.logMethodExecution("getFinishedBidsList", authToken);
+            int userId = authTokenService.ValidateToken(authToken);
+            prepareBidReadModel(authToken);
+            List<BidReciept> finishedBids = new ArrayList<>(bidReadModel.getFinishedBidsOf(userId));
+            LoggerService.logMethodExecutionEnd("getFinishedBidsList", finishedBids);
+            return finishedBids;
+        } catch (OurArg e) {
+            LoggerService.logDebug("getFinishedBidsList", e);
+            throw new OurArg("getFinishedBidsList: " + e.getMessage(), e);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("getFinishedBidsList", e);
+            throw new OurRuntime("getFinishedBidsList: " + e.getMessage(), e);
         } catch (Exception e) {
             LoggerService.logError("getFinishedBidsList", e, authToken);
             throw new OurRuntime("getFinishedBidsList: " + e.getMessage(), e);
         }
-        // Sort the list so it will return only the bids that were finished
-        List<BidReciept> finishedBids = new ArrayList<>();
-        for (BidReciept bid : allBidsOfUser) {
-            if (bid.isCompleted() == true && bid.getUserId() == userId) {
-                finishedBids.add(bid);
-            }
-        }
-        return finishedBids;
     }
 
     public List<BidReciept> getAuctionsWinList(String authToken) {
@@ -0,0 +1,103 @@
+package com.example.app.ApplicationLayer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The principal of the HTTP request being served on this thread.
+ *
+ * A request's token is checked once: {@link AuthTokenService#ValidateToken}
+ * remembers whose it is, and later validations of the same token in the same
+ * request are answered from here without verifying or looking it up again.
+ * {@link com.example.app.ApplicationLayer.User.UserService#authenticate}
+ * completes it into an {@link AuthenticatedPrincipal}. The scope is opened and
+ * closed around every request by {@code RequestPrincipalConfig}; outside of a
+ * request nothing is remembered.
+ */
+public final class RequestPrincipal {
+
+    private static final class Scope {
+        String token;
+        int userId;
+        AuthenticatedPrincipal principal;
+    }
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final LongAdder reused = new LongAdder();
+
+    private RequestPrincipal() {
+    }
+
+    public static void open() {
+        CURRENT.set(new Scope());
+    }
+
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    /**
+     * The id of the user the token was validated for earlier in this request,
+     * or null.
+     */
+    public static Integer userIdOf(String token) {
+        Scope scope = CURRENT.get();
+        if (scope == null || token == null || !token.equals(scope.token)) {
+            return null;
+        }
+        reused.increment();
+        return scope.userId;
+    }
+
+    /**
+     * The principal resolved for the token earlier in this request, or null.
+     */
+    public static AuthenticatedPrincipal principalOf(String token) {
+        Scope scope = CURRENT.get();
+        if (scope == null || scope.principal == null || !scope.principal.token().equals(token)) {
+            return null;
+        }
+        reused.increment();
+        return scope.principal;
+    }
+
+    public static void rememberUserId(String token, int userId) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        if (!token.equals(scope.token) || scope.userId != userId) {
+            scope.principal = null;
+        }
+        scope.token = token;
+        scope.userId = userId;
+    }
+
+    public static void remember(AuthenticatedPrincipal principal) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        scope.token = principal.token();
+        scope.userId = principal.userId();
+        scope.principal = principal;
+    }
+
+    /**
+     * Forgets what this request resolved, e.g. after a logout or a change to a
+     * user's suspension or admin rights.
+     */
+    public static void forget() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.token = null;
+            scope.principal = null;
+        }
+    }
+
+    /**
+     * Validations answered from a request's principal since startup.
+     */
+    public static long getReusedCount() {
+        return reused.sum();
+    }
+}
@@ -0,0 +1,423 @@
+package com.example.app.ApplicationLayer.Shop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.example.app.DomainLayer.Item.Item;
+import com.example.app.DomainLayer.Item.ItemCategory;
+
+/**
+ * In-memory search index over the items listed in shops.
+ *
+ * Every (shop, item) pair is a listing holding the item's lower-cased name and
+ * description, category, price in that shop, and the item and shop ratings.
+ * Name and description are indexed by character trigrams so substring queries
+ * (the semantics of the original scan) only verify the listings that contain
+ * every trigram of the query. Category and price have their own postings.
+ *
+ * The index is kept up to date incrementally by {@link ShopService} and
+ * {@link com.example.app.ApplicationLayer.Item.ItemService}; it is filled from
+ * the repositories the first time it is queried.
+ */
+@Component
+public class ItemSearchIndex {
+
+    private static final int GRAM = 3;
+
+    /**
+     * Search filters; every null field is ignored.
+     */
+    public record Query(String name, ItemCategory category, List<String> keywords, Integer minPrice,
+            Integer maxPrice, Double minProductRating, Double minShopRating) {
+    }
+
+    private static final class Listing {
+        final long key;
+        final int shopId;
+        Item item;
+        final String name;
+        final String description;
+        final ItemCategory category;
+        int price;
+        double itemRating;
+
+        Listing(int shopId, Item item, int price, double itemRating) {
+            this.key = key(shopId, item.getId());
+            this.shopId = shopId;
+            this.item = item;
+            this.name = lower(item.getName());
+            this.description = lower(item.getDescription());
+            this.category = item.getCategory();
+            this.price = price;
+            this.itemRating = itemRating;
+        }
+    }
+
+    private record Hit(Listing listing, int score, double shopRating) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded = false;
+
+    private final Map<Long, Listing> listings = new HashMap<>();
+    private final Map<Integer, Set<Long>> listingsByItem = new HashMap<>();
+    private final Map<Long, Set<Long>> grams = new HashMap<>();
+    private final Map<ItemCategory, Set<Long>> byCategory = new EnumMap<>(ItemCategory.class);
+    private final NavigableMap<Integer, Set<Long>> byPrice = new TreeMap<>();
+    private final Map<Integer, Double> shopRatings = new HashMap<>();
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return listings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            listings.clear();
+            listingsByItem.clear();
+            grams.clear();
+            byCategory.clear();
+            byPrice.clear();
+            shopRatings.clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ───────────────────────── updates ─────────────────────────
+
+    public void putShop(int shopId, double averageRating) {
+        lock.writeLock().lock();
+        try {
+            shopRatings.put(shopId, averageRating);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the item to the shop's listings, replacing an existing listing of the
+     * same item in that shop.
+     */
+    public void putListing(int shopId, Item item, int price) {
+        if (item == null) {
+            return;
+        }
+        Listing listing = new Listing(shopId, item, price, item.getAverageRating());
+        lock.writeLock().lock();
+        try {
+            unindex(listings.remove(listing.key));
+            listings.put(listing.key, listing);
+            listingsByItem.computeIfAbsent(item.getId(), k -> new HashSet<>()).add(listing.key);
+            for (long gram : gramsOf(listing.name, listing.description)) {
+                grams.computeIfAbsent(gram, k -> new HashSet<>()).add(listing.key);
+            }
+            byCategory.computeIfAbsent(listing.category, k -> new HashSet<>()).add(listing.key);
+            byPrice.computeIfAbsent(price, k -> new HashSet<>()).add(listing.key);
+            shopRatings.putIfAbsent(shopId, 0.0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updatePrice(int shopId, int itemId, int price) {
+        lock.writeLock().lock();
+        try {
+            Listing listing = listings.get(key(shopId, itemId));
+            if (listing == null || listing.price == price) {
+                return;
+            }
+            removeFrom(byPrice, listing.price, listing.key);
+            listing.price = price;
+            byPrice.computeIfAbsent(price, k -> new HashSet<>()).add(listing.key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Refreshes the item (and so its rating) in every shop listing it.
+     */
+    public void updateItem(Item item) {
+        if (item == null) {
+            return;
+        }
+        double rating = item.getAverageRating();
+        lock.writeLock().lock();
+        try {
+            for (long key : listingsByItem.getOrDefault(item.getId(), Collections.emptySet())) {
+                Listing listing = listings.get(key);
+                listing.item = item;
+                listing.itemRating = rating;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeListing(int shopId, int itemId) {
+        lock.writeLock().lock();
+        try {
+            unindex(listings.remove(key(shopId, itemId)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every listing of the shop, e.g. when it is closed.
+     */
+    public void removeShop(int shopId) {
+        lock.writeLock().lock();
+        try {
+            List<Long> keys = new ArrayList<>();
+            for (Listing listing : listings.values()) {
+                if (listing.shopId == shopId) {
+                    keys.add(listing.key);
+                }
+            }
+            for (long key : keys) {
+                unindex(listings.remove(key));
+            }
+            shopRatings.remove(shopId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // must hold the write lock
+    private void unindex(Listing listing) {
+        if (listing == null) {
+            return;
+        }
+        removeFrom(listingsByItem, listing.item.getId(), listing.key);
+        for (long gram : gramsOf(listing.name, listing.description)) {
+            removeFrom(grams, gram, listing.key);
+        }
+        removeFrom(byCategory, listing.category, listing.key);
+        removeFrom(byPrice, listing.price, listing.key);
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Long>> postings, K k, long key) {
+        Set<Long> set = postings.get(k);
+        if (set != null) {
+            set.remove(key);
+            if (set.isEmpty()) {
+                postings.remove(k);
+            }
+        }
+    }
+
+    // ───────────────────────── queries ─────────────────────────
+
+    /**
+     * Returns every matching item, ranked.
+     */
+    public List<Item> search(Query query) {
+        return search(query, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns one page of the ranked matches. Listings whose name contains the
+     * name filter or a keyword rank first, then higher rated items, higher rated
+     * shops and lower prices.
+     *
+     * @param page     zero based page number.
+     * @param pageSize maximum number of items on the page.
+     */
+    public List<Item> search(Query query, int page, int pageSize) {
+        if (page < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("page must be >= 0 and pageSize > 0");
+        }
+        String name = query.name() == null ? null : lower(query.name());
+        List<String> keywords = new ArrayList<>();
+        if (query.keywords() != null) {
+            for (String kw : query.keywords()) {
+                if (kw != null) {
+                    keywords.add(lower(kw));
+                }
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Hit> hits = new ArrayList<>();
+            for (Listing listing : candidates(query, name, keywords)) {
+                Hit hit = match(listing, query, name, keywords);
+                if (hit != null) {
+                    hits.add(hit);
+                }
+            }
+            hits.sort(Comparator.comparingInt((Hit h) -> -h.score())
+                    .thenComparingDouble(h -> -h.listing().itemRating)
+                    .thenComparingDouble(h -> -h.shopRating())
+                    .thenComparingInt(h -> h.listing().price)
+                    .thenComparingInt(h -> h.listing().shopId)
+                    .thenComparingInt(h -> h.listing().item.getId()));
+
+            long from = (long) page * pageSize;
+            if (from >= hits.size()) {
+                return Collections.emptyList();
+            }
+            int to = (int) Math.min(hits.size(), from + pageSize);
+            List<Item> result = new ArrayList<>(to - (int) from);
+            for (Hit hit : hits.subList((int) from, to)) {
+                result.add(hit.listing().item);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // must hold the read lock; picks the most selective posting available
+    private Collection<Listing> candidates(Query query, String name, List<String> keywords) {
+        Set<Long> best = null;
+        if (name != null && name.length() >= GRAM) {
+            best = intersectGrams(name);
+        }
+        if (!keywords.isEmpty() && keywords.stream().allMatch(kw -> kw.length() >= GRAM)) {
+            Set<Long> union = new HashSet<>();
+            for (String kw : keywords) {
+                union.addAll(intersectGrams(kw));
+            }
+            best = smaller(best, union);
+        }
+        if (query.category() != null) {
+            best = smaller(best, byCategory.getOrDefault(query.category(), Collections.emptySet()));
+        }
+        if (best == null && (query.minPrice() != null || query.maxPrice() != null)) {
+            int lo = query.minPrice() == null ? Integer.MIN_VALUE : query.minPrice();
+            int hi = query.maxPrice() == null ? Integer.MAX_VALUE : query.maxPrice();
+            if (lo > hi) {
+                return Collections.emptyList();
+            }
+            best = new HashSet<>();
+            for (Set<Long> keys : byPrice.subMap(lo, true, hi, true).values()) {
+                best.addAll(keys);
+            }
+        }
+        if (best == null) {
+            return listings.values();
+        }
+        List<Listing> result = new ArrayList<>(best.size());
+        for (long key : best) {
+            result.add(listings.get(key));
+        }
+        return result;
+    }
+
+    private Set<Long> intersectGrams(String text) {
+        List<Set<Long>> postings = new ArrayList<>();
+        for (long gram : gramsOf(text, null)) {
+            Set<Long> posting = grams.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    private static Set<Long> smaller(Set<Long> a, Set<Long> b) {
+        if (a == null) {
+            return b;
+        }
+        return b.size() < a.size() ? b : a;
+    }
+
+    // must hold the read lock; returns null when the listing does not match
+    private Hit match(Listing listing, Query query, String name, List<String> keywords) {
+        int score = 0;
+        if (name != null) {
+            if (!listing.name.contains(name))
+                return null;
+            score += 2;
+        }
+        if (query.category() != null && listing.category != query.category())
+            return null;
+        if (!keywords.isEmpty()) {
+            boolean any = false;
+            for (String kw : keywords) {
+                if (listing.name.contains(kw)) {
+                    score += 2;
+                    any = true;
+                } else if (listing.description.contains(kw)) {
+                    score += 1;
+                    any = true;
+                }
+            }
+            if (!any)
+                return null;
+        }
+        if (query.minPrice() != null && listing.price < query.minPrice())
+            return null;
+        if (query.maxPrice() != null && listing.price > query.maxPrice())
+            return null;
+        if (query.minProductRating() != null && listing.itemRating < query.minProductRating())
+            return null;
+        double shopRating = shopRatings.getOrDefault(listing.shopId, 0.0);
+        if (query.minShopRating() != null && shopRating < query.minShopRating())
+            return null;
+        return new Hit(listing, score, shopRating);
+    }
+
+    // ───────────────────────── helpers ─────────────────────────
+
+    private static long key(int shopId, int itemId) {
+        return ((long) shopId << 32) | (itemId & 0xffffffffL);
+    }
+
+    private static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> gramsOf(String first, String second) {
+        Set<Long> result = new HashSet<>();
+        addGrams(first, result);
+        addGrams(second, result);
+        return result;
+    }
+
+    private static void addGrams(String s, Set<Long> out) {
+        if (s == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM <= s.length(); i++) {
+            out.add(((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2));
+        }
+    }
+}
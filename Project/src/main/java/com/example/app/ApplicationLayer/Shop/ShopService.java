@@ -5,14 +5,18 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.ApplicationLayer.AuthenticatedPrincipal;
 import com.example.app.ApplicationLayer.Item.ItemService;
 import com.example.app.ApplicationLayer.LoggerService;
 import com.example.app.ApplicationLayer.OurArg;
 import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.ApplicationLayer.Purchase.BidReadModel;
 import com.example.app.ApplicationLayer.Purchase.ShippingMethod;
 import com.example.app.ApplicationLayer.User.UserService;
 import com.example.app.DomainLayer.Item.Item;
@@ -44,15 +48,22 @@ public class ShopService {
     private final AuthTokenService authTokenService;
     private final UserService userService;
     private final ItemService itemService;
+    private final ItemSearchIndex searchIndex;
+    private final BidReadModel bidReadModel;
 
+    @Autowired
     public ShopService(IShopRepository shopRepository,
             AuthTokenService authTokenService,
             UserService userService,
-            ItemService itemService) {
+            ItemService itemService,
+            ItemSearchIndex searchIndex,
+            BidReadModel bidReadModel) {
         this.shopRepository = shopRepository;
         this.authTokenService = authTokenService;
         this.userService = userService;
         this.itemService = itemService;
+        this.searchIndex = searchIndex;
+        this.bidReadModel = bidReadModel;
     }
 
     public Shop createShop(String name, PurchasePolicy purchasePolicy, ShippingMethod shippingMethod, String token) {
@@ -64,6 +75,7 @@ public class ShopService {
             Role founderRole = new Role(userId, returnShop.getId(), null);
             founderRole.setFoundersPermissions();
             userService.addFounderRole(userId, founderRole, returnShop.getId());
+            updateSearchIndex(index -> index.putShop(returnShop.getId(), returnShop.getAverageRating()));
             LoggerService.logMethodExecutionEnd("createShop", returnShop);
             return returnShop;
         } catch (OurArg e) {
@@ -338,6 +350,7 @@ public class ShopService {
                 throw e;
             }
             shopRepository.addReviewToShop(shopId, userId, rating, reviewText);
+            updateSearchIndex(index -> index.putShop(shopId, shopRepository.getShopAverageRating(shopId)));
             LoggerService.logMethodExecutionEndVoid("addReviewToShop");
         } catch (OurArg e) {
             LoggerService.logDebug("addReviewToShop", e);
@@ -382,6 +395,8 @@ public class ShopService {
             }
             Integer itemId = itemService.createItem(shopId, name, description, category, token);
             shopRepository.addItemToShop(shopId, itemId, quantity, price);
+            updateSearchIndex(index -> index.putListing(shopId, itemService.getItem(itemId, token), price));
+            updateBidReadModel(model -> model.addItem(shopId, itemId));
             LoggerService.logMethodExecutionEndVoid("addItemToShop");
         } catch (OurArg e) {
             LoggerService.logDebug("addItemToShop", e);
@@ -431,6 +446,7 @@ public class ShopService {
                 throw e;
             }
             shopRepository.updateItemPriceInShop(shopId, itemId, price);
+            updateSearchIndex(index -> index.updatePrice(shopId, itemId, price));
             LoggerService.logMethodExecutionEndVoid("updateItemPriceInShop");
         } catch (OurArg e) {
             LoggerService.logDebug("updateItemPriceInShop", e);
@@ -456,6 +472,8 @@ public class ShopService {
                 throw e;
             }
             shopRepository.removeItemFromShop(shopId, itemId);
+            updateSearchIndex(index -> index.removeListing(shopId, itemId));
+            updateBidReadModel(model -> model.removeItem(shopId, itemId));
             LoggerService.logMethodExecutionEndVoid("removeItemFromShop");
         } catch (OurArg e) {
             LoggerService.logDebug("removeItemFromShop", e);
@@ -500,12 +518,14 @@ public class ShopService {
                 throw e;
             }
             shopRepository.closeShop(shopId);
+            updateSearchIndex(index -> index.removeShop(shopId));
+            updateBidReadModel(model -> model.closeShop(shopId));
             userService.closeShopNotification(shopId);
             List<Item> itemsToRemove = searchItemsInShop(shopId,null, null, Collections.emptyList(), null, null, null, token);
             for(Item itemToRemove : itemsToRemove){
                 removeItemFromShop(shopId, itemToRemove.getId(), token);
-            LoggerService.logMethodExecutionEndVoid("closeShop");
             }
+            LoggerService.logMethodExecutionEndVoid("closeShop");
         } catch (OurArg e) {
             LoggerService.logDebug("closeShop", e);
             throw new OurArg("closeShop" + e.getMessage());
@@ -529,6 +549,14 @@ public class ShopService {
                 throw e;
             }
             shopRepository.reOpenShop(shopId);
+            updateSearchIndex(index -> {
+                Shop shop = shopRepository.getShop(shopId);
+                index.putShop(shopId, shop.getAverageRating());
+                for (Item item : getItemsByShop(shopId, token)) {
+                    index.putListing(shopId, item, shop.getItemPrice(item.getId()));
+                }
+            });
+            updateBidReadModel(model -> model.reOpenShop(shopId));
             userService.reOpenShopNotification(shopId);
         
             LoggerService.logMethodExecutionEndVoid("reOpenShop");
@@ -573,8 +601,7 @@ public class ShopService {
                 LoggerService.logDebug("purchaseItems", e);
                 throw e;
             }
-            Map<Integer, ItemCategory> itemsCategory = itemService.getItemdId2Cat(purchaseLists);
-            double totalPrice = shopRepository.purchaseItems(purchaseLists, itemsCategory, shopId);
+            double totalPrice = reserveItems(purchaseLists, shopId);
             LoggerService.logMethodExecutionEnd("purchaseItems", totalPrice);
             return totalPrice;
         } catch (OurArg e) {
@@ -591,6 +618,37 @@ public class ShopService {
         }
     }
 
+    /**
+     * Reserves the items for the principal without validating its token again.
+     */
+    public double purchaseItems(Map<Integer, Integer> purchaseLists, Integer shopId, AuthenticatedPrincipal buyer) {
+        try {
+            LoggerService.logMethodExecution("purchaseItems", purchaseLists, shopId);
+            if (buyer.suspended()) {
+                OurRuntime e = new OurRuntime("User is suspended and cannot purchase items.");
+                LoggerService.logDebug("purchaseItems", e);
+                throw e;
+            }
+            double totalPrice = reserveItems(purchaseLists, shopId);
+            LoggerService.logMethodExecutionEnd("purchaseItems", totalPrice);
+            return totalPrice;
+        } catch (OurArg e) {
+            LoggerService.logDebug("purchaseItems", e);
+            throw new OurArg("purchaseItems" + e.getMessage());
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("purchaseItems", e);
+            throw new OurRuntime("purchaseItems" + e.getMessage());
+        } catch (Exception e) {
+            LoggerService.logError("purchaseItems", e, purchaseLists, shopId);
+            throw new OurRuntime("Error purchasing items from shop " + shopId + ": " + e.getMessage(), e);
+        }
+    }
+
+    private double reserveItems(Map<Integer, Integer> purchaseLists, Integer shopId) {
+        Map<Integer, ItemCategory> itemsCategory = itemService.getItemdId2Cat(purchaseLists);
+        return shopRepository.purchaseItems(purchaseLists, itemsCategory, shopId);
+    }
+
     public void rollBackPurchase(Map<Integer, Integer> purchaseLists, Integer shopId) {
         try {
             LoggerService.logMethodExecution("rollBackPurchase", purchaseLists, shopId);
@@ -740,13 +798,9 @@ public class ShopService {
             LoggerService.logMethodExecution("searchItems", name, category, keywords, minPrice, maxPrice,
                     minProductRating, minShopRating);
             authTokenService.ValidateToken(token);
-            List<Item> results = new ArrayList<>();
-            for (Shop shop : getAllShops(token)) {
-                if (minShopRating != null && shop.getAverageRating() < minShopRating)
-                    continue;
-                results.addAll(
-                        filterItemsInShop(shop, name, category, keywords, minPrice, maxPrice, minProductRating, token));
-            }
+            loadSearchIndex(token);
+            List<Item> results = searchIndex.search(new ItemSearchIndex.Query(name, category, keywords, minPrice,
+                    maxPrice, minProductRating, minShopRating));
             LoggerService.logMethodExecutionEnd("searchItems", results);
             return results;
         } catch (OurArg e) {
@@ -762,6 +816,81 @@ public class ShopService {
         }
     }
 
+    /**
+     * Paged variant of {@link #searchItems}; returns page {@code page} (zero
+     * based) of the ranked results, at most {@code pageSize} items.
+     */
+    public List<Item> searchItems(String name, ItemCategory category, List<String> keywords, Integer minPrice,
+            Integer maxPrice, Double minProductRating, Double minShopRating, int page, int pageSize,
+            String token) {
+        try {
+            LoggerService.logMethodExecution("searchItems", name, category, keywords, minPrice, maxPrice,
+                    minProductRating, minShopRating, page, pageSize);
+            if (page < 0 || pageSize <= 0) {
+                throw new OurArg("page must be non-negative and page size positive");
+            }
+            authTokenService.ValidateToken(token);
+            loadSearchIndex(token);
+            List<Item> results = searchIndex.search(new ItemSearchIndex.Query(name, category, keywords, minPrice,
+                    maxPrice, minProductRating, minShopRating), page, pageSize);
+            LoggerService.logMethodExecutionEnd("searchItems", results);
+            return results;
+        } catch (OurArg e) {
+            LoggerService.logDebug("searchItems", e);
+            throw new OurArg("searchItems" + e.getMessage());
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("searchItems", e);
+            throw new OurRuntime("searchItems" + e.getMessage());
+        } catch (Exception e) {
+            LoggerService.logError("searchItems", e, name, category, keywords, minPrice, maxPrice, minProductRating,
+                    minShopRating, page, pageSize);
+            throw new OurRuntime("Error searching items: " + e.getMessage(), e);
+        }
+    }
+
+    // fills the search index from the repositories on first use
+    private void loadSearchIndex(String token) {
+        if (searchIndex.isLoaded()) {
+            return;
+        }
+        synchronized (searchIndex) {
+            if (searchIndex.isLoaded()) {
+                return;
+            }
+            for (Shop shop : getAllShops(token)) {
+                searchIndex.putShop(shop.getId(), shop.getAverageRating());
+                for (Item item : getItemsByShop(shop.getId(), token)) {
+                    searchIndex.putListing(shop.getId(), item, shop.getItemPrice(item.getId()));
+                }
+            }
+            searchIndex.markLoaded();
+        }
+    }
+
+    // applies a change to the search index once it is loaded; until then the
+    // change is picked up by loadSearchIndex from the repositories. If the
+    // update fails the index is dropped and rebuilt on the next search.
+    private void updateSearchIndex(Consumer<ItemSearchIndex> update) {
+        synchronized (searchIndex) {
+            if (!searchIndex.isLoaded()) {
+                return;
+            }
+            try {
+                update.accept(searchIndex);
+            } catch (RuntimeException e) {
+                LoggerService.logError("updateSearchIndex", e);
+                searchIndex.clear();
+            }
+        }
+    }
+
+    // same monitor PurchaseService holds while it resolves a shop for the bid read model
+    private void updateBidReadModel(Consumer<BidReadModel> update) {
+        synchronized (bidReadModel) {
+            update.accept(bidReadModel);
+        }
+    }
+
     public List<Item> searchItemsInShop(Integer shopId, String name, ItemCategory category, List<String> keywords,
             Integer minPrice, Integer maxPrice, Double minProductRating, String token) {
         try {
@@ -832,19 +961,28 @@ public class ShopService {
         try {
             LoggerService.logMethodExecution("shipPurchase", purchaseId, country, city, street, postalCode);
             Integer userId = authTokenService.ValidateToken(token);
-            User user = userService.getUserById(userId);
-            String userName;
-            if (user instanceof Member) {
-                userName = ((Member) user).getUsername();
-            } else {
-                userName = "guest";
-            }
-            boolean b = shopRepository.shipPurchase(userName, shopId, country, city, street, postalCode);
-            if (!b) {
-                OurRuntime e = new OurRuntime("Failed to ship purchase " + purchaseId + " from shop " + shopId);
-                LoggerService.logDebug("shipPurchase", e);
-                throw e;
-            }
+            ship(userId, purchaseId, shopId, country, city, street, postalCode);
+            LoggerService.logMethodExecutionEndVoid("shipPurchase");
+        } catch (OurArg e) {
+            LoggerService.logDebug("shipPurchase", e);
+            throw new OurArg("shipPurchase" + e.getMessage());
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("shipPurchase", e);
+            throw new OurRuntime("shipPurchase" + e.getMessage());
+        } catch (Exception e) {
+            LoggerService.logError("shipPurchase", e, purchaseId, country, city, street, postalCode);
+            throw new OurRuntime("Error shipping purchase " + purchaseId + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ships the principal's purchase without validating its token again.
+     */
+    public void shipPurchase(AuthenticatedPrincipal buyer, int purchaseId, int shopId, String country, String city,
+            String street, String postalCode) {
+        try {
+            LoggerService.logMethodExecution("shipPurchase", purchaseId, country, city, street, postalCode);
+            ship(buyer.userId(), purchaseId, shopId, country, city, street, postalCode);
             LoggerService.logMethodExecutionEndVoid("shipPurchase");
         } catch (OurArg e) {
             LoggerService.logDebug("shipPurchase", e);
@@ -858,6 +996,23 @@ public class ShopService {
         }
     }
 
+    private void ship(int userId, int purchaseId, int shopId, String country, String city, String street,
+            String postalCode) {
+        User user = userService.getUserById(userId);
+        String userName;
+        if (user instanceof Member) {
+            userName = ((Member) user).getUsername();
+        } else {
+            userName = "guest";
+        }
+        boolean b = shopRepository.shipPurchase(userName, shopId, country, city, street, postalCode);
+        if (!b) {
+            OurRuntime e = new OurRuntime("Failed to ship purchase " + purchaseId + " from shop " + shopId);
+            LoggerService.logDebug("shipPurchase", e);
+            throw e;
+        }
+    }
+
     public List<Shop> getShopsByWorker(int workerId, String token) {
         try {
             LoggerService.logMethodExecution("getShopsByWorker", workerId);
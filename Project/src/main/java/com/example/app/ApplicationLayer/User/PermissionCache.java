@@ -0,0 +1,144 @@
+package com.example.app.ApplicationLayer.User;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.app.DomainLayer.Roles.PermissionsEnum;
+
+/**
+ * The permissions every member has in every shop, as bitmasks over
+ * {@link PermissionsEnum} ordinals, keyed by (member id, shop id) packed into
+ * one long, so a permission check is one map lookup and a bit test.
+ *
+ * {@link UserService} loads a mask from the member's roles on a miss and drops
+ * it whenever it changes that member's roles or permissions in that shop, or
+ * suspends, unsuspends or bans the member. A load that overlapped any
+ * invalidation does not install what it read. Entries expire after
+ * {@code app.permissions.cache.ttl-ms}, which bounds how long changes made by
+ * other nodes go unseen; when the cache holds more than
+ * {@code app.permissions.cache.max-size} masks it is emptied.
+ */
+@Component
+public class PermissionCache {
+
+    static {
+        if (PermissionsEnum.values().length > Long.SIZE) {
+            throw new IllegalStateException("Permission masks hold at most " + Long.SIZE + " permissions.");
+        }
+    }
+
+    /**
+     * Hit rate since startup.
+     */
+    public record Stats(int size, long hits, long misses, double hitRate, long invalidations) {
+    }
+
+    private record Entry(long mask, long loadedAt) {
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // bumped by every invalidation
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public PermissionCache(@Value("${app.permissions.cache.max-size:10000}") int maxSize,
+            @Value("${app.permissions.cache.ttl-ms:5000}") long ttlMillis) {
+        if (maxSize < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("Permission cache size and ttl must not be negative.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public static long maskOf(PermissionsEnum... permissions) {
+        long mask = 0;
+        if (permissions != null) {
+            for (PermissionsEnum permission : permissions) {
+                if (permission != null) {
+                    mask |= 1L << permission.ordinal();
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Whether the member has the permission in the shop; {@code loader}
+     * computes the member's mask in the shop on a miss.
+     */
+    public boolean has(int memberId, int shopId, PermissionsEnum permission, LongSupplier loader) {
+        return (mask(memberId, shopId, loader) & (1L << permission.ordinal())) != 0;
+    }
+
+    public long mask(int memberId, int shopId, LongSupplier loader) {
+        long key = key(memberId, shopId);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            hits.increment();
+            return entry.mask();
+        }
+        misses.increment();
+        long seen = generation.get();
+        long mask = loader.getAsLong();
+        if (maxSize > 0) {
+            synchronized (this) {
+                if (seen == generation.get()) {
+                    if (entries.size() >= maxSize) {
+                        entries.clear();
+                    }
+                    entries.put(key, new Entry(mask, now));
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Drops the member's mask in the shop.
+     */
+    public synchronized void invalidate(int memberId, int shopId) {
+        generation.incrementAndGet();
+        entries.remove(key(memberId, shopId));
+        invalidations.increment();
+    }
+
+    /**
+     * Drops the member's masks in every shop.
+     */
+    public synchronized void invalidateMember(int memberId) {
+        generation.incrementAndGet();
+        entries.keySet().removeIf(key -> (int) (key >>> 32) == memberId);
+        invalidations.increment();
+    }
+
+    public synchronized void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new Stats(entries.size(), hitCount, missCount, total == 0 ? 0 : (double) hitCount / total,
+                invalidations.sum());
+    }
+
+    private static long key(int memberId, int shopId) {
+        return ((long) memberId << 32) | (shopId & 0xffffffffL);
+    }
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -13,13 +14,16 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.ApplicationLayer.AuthenticatedPrincipal;
 import com.example.app.ApplicationLayer.LoggerService;
 import com.example.app.ApplicationLayer.NotificationService;
 import com.example.app.ApplicationLayer.OurArg;
 import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Purchase.PaymentMethod;
+import com.example.app.ApplicationLayer.RequestPrincipal;
 import com.example.app.DomainLayer.IUserRepository;
 import com.example.app.DomainLayer.Member;
+import com.example.app.DomainLayer.Notification;
 import com.example.app.DomainLayer.Purchase.Address;
 import com.example.app.DomainLayer.Purchase.Bid;
 import com.example.app.DomainLayer.Purchase.BidReciept;
@@ -41,12 +45,22 @@ public class UserService {
 
     private PasswordEncoderUtil passwordEncoder;
 
+    private final PermissionCache permissionCache;
+
     public UserService(IUserRepository userRepository,
             AuthTokenService authTokenService, NotificationService notificationService) {
+        this(userRepository, authTokenService, notificationService, new PermissionCache(10000, 5000));
+    }
+
+    @Autowired
+    public UserService(IUserRepository userRepository,
+            AuthTokenService authTokenService, NotificationService notificationService,
+            PermissionCache permissionCache) {
         this.passwordEncoder = new PasswordEncoderUtil();
         this.userRepository = userRepository;
         this.authTokenService = authTokenService;
         this.notificationService = notificationService;
+        this.permissionCache = permissionCache;
         this.notificationService.setService(this);
     }
 
@@ -67,9 +81,10 @@ public class UserService {
                 throw new OurRuntime("the user is suspended");
             }
             if (isAdmin(userId)) {
-                if (id >= 0)
+                if (id >= 0) {
                     userRepository.addAdmin(id);
-                else
+                    RequestPrincipal.forget();
+                } else
                     throw new OurArg("the id of the user to make admin is illegal");
             } else
                 throw new OurRuntime("only admins can make admins");
@@ -97,6 +112,7 @@ public class UserService {
             if (isAdmin(userId)) {
                 if (id >= 0) {
                     userRepository.removeAdmin(id);
+                    RequestPrincipal.forget();
                     removedAppointment(id, "Admin", null);
                 } else {
                     LoggerService.logDebug("removeAdmin", new OurArg("the id of the user to make admin is illegal"));
@@ -380,6 +396,35 @@ public class UserService {
         }
     }
 
+    /**
+     * Resolves the token into the principal the rest of the request acts for.
+     * Within one HTTP request this happens once; later calls with the same
+     * token return the same principal.
+     */
+    public AuthenticatedPrincipal authenticate(String token) {
+        try {
+            LoggerService.logMethodExecution("authenticate", token);
+            AuthenticatedPrincipal principal = RequestPrincipal.principalOf(token);
+            if (principal == null) {
+                int userId = authTokenService.ValidateToken(token);
+                principal = new AuthenticatedPrincipal(token, userId, userRepository.isGuestById(userId),
+                        userRepository.isSuspended(userId), userRepository.isAdmin(userId));
+                RequestPrincipal.remember(principal);
+            }
+            LoggerService.logMethodExecutionEnd("authenticate", principal.userId());
+            return principal;
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("authenticate", e);
+            throw new OurRuntime("authenticate: " + e.getMessage(), e);
+        } catch (OurArg e) {
+            LoggerService.logDebug("authenticate", e);
+            throw new OurArg("authenticate: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("authenticate", e, token);
+            throw new OurRuntime("authenticate: " + e.getMessage(), e);
+        }
+    }
+
     public String loginAsMember(String username, String password, String token_if_guest) {
         LoggerService.logMethodExecution("loginAsMember", username, "****", token_if_guest);
         String token = null;
@@ -536,6 +581,7 @@ public class UserService {
                         }
                     }
                     userRepository.setPermissions(memberId, shopId, role, permissions);
+                    permissionCache.invalidate(memberId, shopId);
                     LoggerService.logMethodExecutionEndVoid("changePermissions");
                     return;
                 }
@@ -624,6 +670,7 @@ public class UserService {
                         + " in shop ID " + shopId);
             }
             userRepository.removeRole(managerId, shopId);
+            permissionCache.invalidate(managerId, shopId);
             removedAppointment(managerId, "Manager", shopId);
             LoggerService.logMethodExecutionEndVoid("removeManagerOfStore");
         } catch (OurRuntime e) {
@@ -668,6 +715,7 @@ public class UserService {
                         + " in shop ID " + shopId);
             }
             userRepository.removeRole(memberId, shopId);
+            permissionCache.invalidate(memberId, shopId);
             removeAllAssigned(memberId, shopId); // Remove all assigned roles for the member
             removedAppointment(memberId, "Owner", shopId);
             LoggerService.logMethodExecutionEndVoid("removeOwnerFromStore");
@@ -705,6 +753,7 @@ public class UserService {
                         + " in shop ID " + shopId);
             }
             userRepository.removeRole(memberId, shopId);
+            permissionCache.invalidate(memberId, shopId);
             removeAllAssigned(memberId, shopId); // Remove all assigned roles for the member
             removedAppointment(memberId, "Owner", shopId);
             LoggerService.logMethodExecutionEndVoid("removeOwnerFromStoreAsAdmin");
@@ -726,6 +775,7 @@ public class UserService {
                 for (Role role : member.getRoles()) {
                     if (role.getShopId() == shopId && role.getAssigneeId() == assignee) {
                         userRepository.removeRole(member.getMemberId(), shopId); // Remove the role from the member
+                        permissionCache.invalidate(member.getMemberId(), shopId);
                         if (role.isOwner()) {
                             removeAllAssigned(assignee, shopId);
                         }
@@ -811,6 +861,7 @@ public class UserService {
                 throw new OurRuntime("Member ID " + memberId + " has no pending role for shop ID " + shopId);
             }
             userRepository.acceptRole(memberId, role); // Accept the role for the member
+            permissionCache.invalidate(memberId, role.getShopId());
             LoggerService.logMethodExecutionEndVoid("acceptRole");
         } catch (OurRuntime e) {
             LoggerService.logDebug("acceptRole", e);
@@ -905,6 +956,7 @@ public class UserService {
             }
             member.addRole(role); // Add the role to the member
             userRepository.updateUserInDB(member);
+            permissionCache.invalidate(memberId, role.getShopId());
             LoggerService.logMethodExecutionEnd("addFounderRole", true);
             return true;
         } catch (OurRuntime e) {
@@ -957,6 +1009,7 @@ public class UserService {
             int shopId = role.getShopId();
             String notification = role.toNotification();
             userRepository.removeRole(id, shopId); // Remove the role from the member
+            permissionCache.invalidate(id, shopId);
             removedAppointment(id, notification, shopId);
             LoggerService.logMethodExecutionEnd("removeRole", true);
             return true;
@@ -1060,6 +1113,7 @@ public class UserService {
                         + " in shop ID " + shopId);
             }
             userRepository.addPermission(id, permission, shopId); // Add the permission to the member
+            permissionCache.invalidate(id, shopId);
             LoggerService.logMethodExecutionEnd("addPermission", true);
             return true; // Permission added successfully
         } catch (OurRuntime e) {
@@ -1113,6 +1167,7 @@ public class UserService {
                         + " in shop ID " + shopId);
             }
             userRepository.removePermission(id, permission, shopId); // Add the permission to the member
+            permissionCache.invalidate(id, shopId);
             removedAppointment(id, permission.toString(), shopId);
             LoggerService.logMethodExecutionEnd("removePermission", true);
             return true; // Permission added successfully
@@ -1129,26 +1184,14 @@ public class UserService {
         }
     }
 
+    /**
+     * Whether the member has the permission in the shop. Answered from the
+     * {@link PermissionCache}; the member's roles are only read on a miss.
+     */
     public boolean hasPermission(int id, PermissionsEnum permission, int shopId) {
         try {
             LoggerService.logMethodExecution("hasPermission", id, permission, shopId);
-            if (userRepository.getUserMapping().containsKey(id)) {
-                User user = userRepository.getUserById(id);
-                // if (userRepository.isSuspended(id)) {
-                // LoggerService.logMethodExecutionEnd("hasPermission", false);
-                // return false; // User is suspended, no permissions granted
-                // }
-                validateMemberId(id);
-                // if (isSuspended(id)) {
-                // LoggerService.logMethodExecutionEnd("hasPermission", false);
-                // return false; // User is suspended, no permissions granted
-                // }
-                return ((Member) user).hasPermission(permission, shopId); // Check if the user has the specified
-                                                                          // permission
-            } else {
-                LoggerService.logDebug("hasPermission", new OurRuntime("User with ID " + id + " doesn't exist."));
-                return false; // User doesn't exist
-            }
+            return permissionCache.has(id, shopId, permission, () -> loadPermissionMask(id, shopId));
         } catch (OurRuntime e) {
             LoggerService.logDebug("hasPermission", e);
             return false; // Rethrow the custom exception
@@ -1158,6 +1201,33 @@ public class UserService {
         }
     }
 
+    // the member's permissions in the shop; none for guests and unknown ids
+    private long loadPermissionMask(int id, int shopId) {
+        if (id <= 0) {
+            return 0;
+        }
+        User user;
+        try {
+            user = userRepository.getUserById(id);
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("hasPermission", new OurRuntime("User with ID " + id + " doesn't exist."));
+            return 0; // User doesn't exist
+        }
+        if (!(user instanceof Member)) {
+            return 0;
+        }
+        // if (isSuspended(id)) {
+        // return 0; // User is suspended, no permissions granted
+        // }
+        long mask = 0;
+        for (Role role : ((Member) user).getRoles()) {
+            if (role.getShopId() == shopId) {
+                mask |= PermissionCache.maskOf(role.getPermissions());
+            }
+        }
+        return mask;
+    }
+
     /**
      * Retrieves the shopping cart items for a user by their ID.
      * 
@@ -1670,6 +1740,54 @@ public class UserService {
         }
     }
 
+    /**
+     * Pays for the principal's purchase in the shop without validating its
+     * token again.
+     */
+    public int pay(AuthenticatedPrincipal payer, int shopId, double amount, String currency, String cardNumber,
+            String expirationDateMonth, String expirationDateYear, String cardHolderName, String cvv, String id) {
+        try {
+            LoggerService.logMethodExecution("pay", payer.userId(), shopId, amount, currency, cardNumber,
+                    expirationDateMonth, expirationDateYear, cardHolderName, cvv, id);
+            if (payer.suspended()) {
+                throw new OurRuntime("the user is suspended");
+            }
+            int pid = userRepository.pay(payer.userId(), amount, currency, cardNumber, expirationDateMonth,
+                    expirationDateYear, cardHolderName, cvv, id);
+            LoggerService.logMethodExecutionEnd("pay", true);
+            return pid;
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("pay", e);
+            throw new OurRuntime("pay: " + e.getMessage(), e);
+        } catch (OurArg e) {
+            LoggerService.logDebug("pay", e);
+            throw new OurArg("pay: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("pay", e, payer.userId(), shopId, amount, currency, cardNumber,
+                    expirationDateMonth, expirationDateYear, cardHolderName, cvv, id);
+            throw new OurRuntime("pay: " + e.getMessage(), e);
+        }
+    }
+
+    // NO API ENDPOINT!
+    public boolean refundPaymentAuto(AuthenticatedPrincipal payer, int paymnetID) {
+        try {
+            LoggerService.logMethodExecution("refundPayment", payer.userId(), paymnetID);
+            userRepository.refund(payer.userId(), paymnetID);
+            LoggerService.logMethodExecutionEnd("refundPayment", true);
+            return true;
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("refundPayment", e);
+            throw new OurRuntime("refundPayment: " + e.getMessage(), e);
+        } catch (OurArg e) {
+            LoggerService.logDebug("refundPayment", e);
+            throw new OurArg("refundPayment: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("refundPayment", e, payer.userId(), paymnetID);
+            throw new OurRuntime("refundPayment: " + e.getMessage(), e);
+        }
+    }
+
     // NO API ENDPOINT!
     public boolean refundPaymentAuto(String token, int paymnetID) {
         try {
@@ -1895,6 +2013,8 @@ public class UserService {
         try {
             LoggerService.logMethodExecution("setSuspended", userId, suspended);
             userRepository.setSuspended(userId, suspended);
+            permissionCache.invalidateMember(userId);
+            RequestPrincipal.forget();
             LoggerService.logMethodExecutionEndVoid("setSuspended");
         } catch (OurRuntime e) {
             LoggerService.logDebug("setSuspended", e);
@@ -1915,6 +2035,8 @@ public class UserService {
             }
             LoggerService.logMethodExecution("setUnSuspended", userId);
             userRepository.setUnSuspended(userId);
+            permissionCache.invalidateMember(userId);
+            RequestPrincipal.forget();
             LoggerService.logMethodExecutionEndVoid("setSuspended");
         } catch (OurRuntime e) {
             LoggerService.logDebug("setSuspended", e);
@@ -1969,6 +2091,8 @@ public class UserService {
         try {
             LoggerService.logMethodExecution("banUser", userId);
             userRepository.banUser(userId);
+            permissionCache.invalidateMember(userId);
+            RequestPrincipal.forget();
             LoggerService.logMethodExecutionEndVoid("banUser");
         } catch (OurRuntime e) {
             LoggerService.logDebug("banUser", e);
@@ -2073,6 +2197,23 @@ public class UserService {
         }
     }
 
+    public void addNotifications(int userId, List<Notification> notifications) {
+        try {
+            LoggerService.logMethodExecution("addNotifications", userId, notifications.size());
+            userRepository.addNotifications(userId, notifications);
+            LoggerService.logMethodExecutionEndVoid("addNotifications");
+        } catch (OurRuntime e) {
+            LoggerService.logDebug("addNotifications", e);
+            throw new OurRuntime("addNotifications: " + e.getMessage(), e);
+        } catch (OurArg e) {
+            LoggerService.logDebug("addNotifications", e);
+            throw new OurArg("addNotifications: " + e.getMessage(), e);
+        } catch (Exception e) {
+            LoggerService.logError("addNotifications", e, userId, notifications);
+            throw new OurRuntime("addNotifications: " + e.getMessage(), e);
+        }
+    }
+
     public void updateShoppingCartItemQuantity(int userId, int shopID, int itemID, boolean b) {
         try {
             LoggerService.logMethodExecution("updateShoppingCartItemQuantity", userId, shopID, itemID, b);
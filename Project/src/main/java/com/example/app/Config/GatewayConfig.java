@@ -0,0 +1,62 @@
+package com.example.app.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.app.InfrastructureLayer.WSEPGateway;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Applies the {@code app.gateway.*} settings to the {@link WSEPGateway} shared
+ * by the WSEP payment and shipping methods.
+ */
+@Configuration
+public class GatewayConfig {
+
+    @Value("${app.gateway.url:" + WSEPGateway.DEFAULT_URL + "}")
+    private String url;
+
+    @Value("${app.gateway.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${app.gateway.timeout.handshake-ms:2000}")
+    private long handshakeTimeoutMs;
+
+    @Value("${app.gateway.timeout.pay-ms:10000}")
+    private long payTimeoutMs;
+
+    @Value("${app.gateway.timeout.supply-ms:10000}")
+    private long supplyTimeoutMs;
+
+    @Value("${app.gateway.timeout.cancel-ms:5000}")
+    private long cancelTimeoutMs;
+
+    @Value("${app.gateway.bulkhead.max-concurrent:32}")
+    private int maxConcurrent;
+
+    @Value("${app.gateway.bulkhead.wait-ms:100}")
+    private long acquireTimeoutMs;
+
+    @Value("${app.gateway.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.gateway.retry.backoff-ms:200}")
+    private long backoffMs;
+
+    @Value("${app.gateway.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.gateway.circuit.open-ms:30000}")
+    private long openMs;
+
+    @Value("${app.gateway.health.interval-ms:15000}")
+    private long healthIntervalMs;
+
+    @PostConstruct
+    public void applySettings() {
+        WSEPGateway.configureShared(new WSEPGateway.Settings(url, connectTimeoutMs, handshakeTimeoutMs,
+                payTimeoutMs, supplyTimeoutMs, cancelTimeoutMs, maxConcurrent, acquireTimeoutMs, maxAttempts,
+                backoffMs, failureThreshold, openMs, healthIntervalMs));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.app.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.app.ApplicationLayer.LoggerService;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Applies per-method log sampling to {@link LoggerService}.
+ *
+ * Configured with {@code app.logging.sample-rates}, a comma separated list of
+ * {@code methodName:n} pairs, e.g. {@code searchItems:100,checkoutCart:10},
+ * which logs only every n-th execution of those methods.
+ */
+@Configuration
+public class LoggingConfig {
+
+    @Value("${app.logging.sample-rates:}")
+    private String sampleRates;
+
+    @PostConstruct
+    public void applySampleRates() {
+        if (sampleRates == null || sampleRates.isBlank()) {
+            return;
+        }
+        for (String entry : sampleRates.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid log sample rate entry: " + entry);
+            }
+            LoggerService.setSampleRate(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.app.Config;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import com.example.app.ApplicationLayer.MetricsRegistry;
+
+/**
+ * Times every public call into a service or repository of the app as
+ * {@code app_method_seconds{layer, class, method}}; a call that throws counts
+ * as an error. Calls a bean makes on itself are not proxied and so not timed.
+ */
+@Aspect
+@Component
+public class MethodMetricsAspect {
+
+    private final MetricsRegistry metrics;
+    private final Map<Method, MetricsRegistry.Timer> timers = new ConcurrentHashMap<>();
+
+    public MethodMetricsAspect(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Around("within(com.example.app..*) && @within(org.springframework.stereotype.Service)")
+    public Object timeService(ProceedingJoinPoint call) throws Throwable {
+        return time(call, "service");
+    }
+
+    @Around("within(com.example.app..*) && @within(org.springframework.stereotype.Repository)")
+    public Object timeRepository(ProceedingJoinPoint call) throws Throwable {
+        return time(call, "repository");
+    }
+
+    private Object time(ProceedingJoinPoint call, String layer) throws Throwable {
+        if (!metrics.isEnabled()) {
+            return call.proceed();
+        }
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = call.proceed();
+            failed = false;
+            return result;
+        } finally {
+            timerOf(call, layer).record(System.nanoTime() - started, failed);
+        }
+    }
+
+    private MetricsRegistry.Timer timerOf(ProceedingJoinPoint call, String layer) {
+        Method method = ((MethodSignature) call.getSignature()).getMethod();
+        MetricsRegistry.Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, m -> metrics.timer("app_method", "layer", layer, "class",
+                    call.getTarget().getClass().getSimpleName(), "method", m.getName()));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.app.Config;
+
+import java.util.Locale;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.ApplicationLayer.MetricsRegistry;
+import com.example.app.ApplicationLayer.NotificationService;
+import com.example.app.ApplicationLayer.RequestPrincipal;
+import com.example.app.ApplicationLayer.Purchase.AuctionBidBook;
+import com.example.app.ApplicationLayer.Purchase.AuctionPriceFeed;
+import com.example.app.ApplicationLayer.Purchase.AuctionScheduler;
+import com.example.app.ApplicationLayer.Purchase.BidReadModel;
+import com.example.app.ApplicationLayer.Purchase.CheckoutMetrics;
+import com.example.app.ApplicationLayer.Purchase.PurchaseService;
+import com.example.app.ApplicationLayer.User.PermissionCache;
+import com.example.app.DBLayer.Shop.ShopCache;
+import com.example.app.InfrastructureLayer.WSEPGateway;
+import com.example.app.WebSocket.SessionUserRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Times every HTTP request as
+ * {@code app_http_server_requests_seconds{method, uri, status}}, where uri is
+ * the matched mapping pattern, and registers the stats of the caches, queues,
+ * WebSocket sessions and the WSEP gateway as gauges, and what they count since
+ * startup as counters. The beans behind them are looked up when scraped, so
+ * none of them is created early and profiles without one (e.g. no shop cache)
+ * simply leave its metrics out.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    /**
+     * Records the duration of each request under the pattern of the mapping
+     * that handled it, so /api/items/1 and /api/items/2 share one timer.
+     */
+    public static class RequestMetricsInterceptor implements HandlerInterceptor {
+
+        private static final String STARTED = RequestMetricsInterceptor.class.getName() + ".started";
+
+        private final MetricsRegistry metrics;
+
+        public RequestMetricsInterceptor(MetricsRegistry metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            request.setAttribute(STARTED, System.nanoTime());
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                Exception ex) {
+            if (!(request.getAttribute(STARTED) instanceof Long started)) {
+                return;
+            }
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            int status = response.getStatus();
+            metrics.timer("app_http_server_requests", "method", request.getMethod(), "uri",
+                    pattern == null ? "UNMATCHED" : pattern.toString(), "status", Integer.toString(status))
+                    .record(System.nanoTime() - started, ex != null || status >= 500);
+        }
+    }
+
+    private final MetricsRegistry metrics;
+    private final ObjectProvider<ShopCache> shopCache;
+    private final ObjectProvider<PermissionCache> permissionCache;
+    private final ObjectProvider<AuthTokenService> authTokenService;
+    private final ObjectProvider<NotificationService> notificationService;
+    private final ObjectProvider<PurchaseService> purchaseService;
+    private final ObjectProvider<AuctionScheduler> auctionScheduler;
+    private final ObjectProvider<AuctionBidBook> auctionBidBook;
+    private final ObjectProvider<AuctionPriceFeed> auctionPriceFeed;
+    private final ObjectProvider<BidReadModel> bidReadModel;
+    private final ObjectProvider<SessionUserRegistry> sessions;
+
+    public MetricsConfig(MetricsRegistry metrics, ObjectProvider<ShopCache> shopCache,
+            ObjectProvider<PermissionCache> permissionCache, ObjectProvider<AuthTokenService> authTokenService,
+            ObjectProvider<NotificationService> notificationService, ObjectProvider<PurchaseService> purchaseService,
+            ObjectProvider<AuctionScheduler> auctionScheduler, ObjectProvider<AuctionBidBook> auctionBidBook,
+            ObjectProvider<AuctionPriceFeed> auctionPriceFeed, ObjectProvider<BidReadModel> bidReadModel,
+            ObjectProvider<SessionUserRegistry> sessions) {
+        this.metrics = metrics;
+        this.shopCache = shopCache;
+        this.permissionCache = permissionCache;
+        this.authTokenService = authTokenService;
+        this.notificationService = notificationService;
+        this.purchaseService = purchaseService;
+        this.auctionScheduler = auctionScheduler;
+        this.auctionBidBook = auctionBidBook;
+        this.auctionPriceFeed = auctionPriceFeed;
+        this.bidReadModel = bidReadModel;
+        this.sessions = sessions;
+    }
+
+    @PostConstruct
+    public void registerGauges() {
+        stats("shop_cache", shopCache, ShopCache::getStats, "hits", "misses", "loads", "evictions", "invalidations");
+        stats("permission_cache", permissionCache, PermissionCache::getStats, "hits", "misses", "invalidations");
+        stats("notifications", notificationService, NotificationService::getStats, "enqueued", "dropped",
+                "framesSent", "coalesced", "storedOffline", "failed");
+        stats("auction_scheduler", auctionScheduler, AuctionScheduler::getStats, "expired", "batches");
+        stats("auction_bid_book", auctionBidBook, AuctionBidBook::getStats, "accepted", "rejected", "batches");
+        stats("auction_price_feed", auctionPriceFeed, AuctionPriceFeed::getStats, "published", "conflated",
+                "framesSent", "failed");
+        metrics.registerStats("wsep_gateway", () -> WSEPGateway.shared().getStats(), "calls", "failures", "retries",
+                "timeouts", "rejectedOpen", "rejectedBusy", "circuitOpened");
+
+        gauge("bid_read_model_size", bidReadModel, BidReadModel::size);
+        gauge("claims_cache_size", authTokenService, AuthTokenService::getClaimsCacheSize);
+        counter("claims_cache_hits", authTokenService, AuthTokenService::getClaimsCacheHits);
+        counter("claims_cache_misses", authTokenService, AuthTokenService::getClaimsCacheMisses);
+        metrics.registerCounter("request_principal_reused", RequestPrincipal::getReusedCount);
+        gauge("websocket_sessions", sessions, SessionUserRegistry::getSessionCount);
+        gauge("websocket_users", sessions, SessionUserRegistry::getConnectedUserCount);
+
+        for (CheckoutMetrics.Stage stage : CheckoutMetrics.Stage.values()) {
+            stats("checkout_" + stage.name().toLowerCase(Locale.ROOT), purchaseService,
+                    service -> service.getCheckoutMetrics().snapshot().get(stage), "count");
+        }
+        counter("checkout_failures", purchaseService, service -> service.getCheckoutMetrics().getFailures());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        registry.addInterceptor(new RequestMetricsInterceptor(metrics));
+    }
+
+    private <T> void stats(String name, ObjectProvider<T> bean, Function<T, ? extends Record> read,
+            String... counters) {
+        metrics.registerStats(name, () -> {
+            T target = bean.getIfAvailable();
+            return target == null ? null : read.apply(target);
+        }, counters);
+    }
+
+    private <T> void gauge(String name, ObjectProvider<T> bean, Function<T, ? extends Number> read) {
+        metrics.registerGauge(name, value(bean, read));
+    }
+
+    private <T> void counter(String name, ObjectProvider<T> bean, Function<T, ? extends Number> read) {
+        metrics.registerCounter(name, value(bean, read));
+    }
+
+    private static <T> DoubleSupplier value(ObjectProvider<T> bean, Function<T, ? extends Number> read) {
+        return () -> {
+            T target = bean.getIfAvailable();
+            return target == null ? Double.NaN : read.apply(target).doubleValue();
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.app.DBLayer.Id;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.DomainLayer.IIdAllocator;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Hands out ids from database sequences, one per {@link IIdAllocator.Sequence}.
+ *
+ * Each sequence increments by the block size, so a single {@code nextval}
+ * reserves a whole block of ids for this node, which are then handed out from
+ * memory (pooled hi/lo). Several nodes can share the database without ever
+ * allocating the same id. A sequence is created on first use, starting after
+ * the largest id already stored in its table.
+ */
+@Component
+@Profile("!no-db & !test")
+public class IdAllocatorDBImpl implements IIdAllocator {
+
+    private static final Map<Sequence, String> MAX_ID_QUERIES = new EnumMap<>(Map.of(
+            Sequence.USERS, "select coalesce(max(m.memberId), 0) from Member m",
+            Sequence.SHOPS, "select coalesce(max(s.id), 0) from Shop s",
+            Sequence.ITEMS, "select coalesce(max(i.id), 0) from Item i",
+            Sequence.PURCHASES, "select coalesce(max(p.purchaseId), 0) from Purchase p"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Dialect dialect;
+
+    // the ids of the block this node currently owns, per sequence
+    private static final class Block {
+        long next;
+        long limit;
+        boolean created;
+    }
+
+    private final Map<Sequence, Block> blocks = new EnumMap<>(Sequence.class);
+
+    public IdAllocatorDBImpl(JdbcTemplate jdbcTemplate, @Value("${app.ids.block-size:50}") int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Id block size must be positive.");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+        for (Sequence sequence : Sequence.values()) {
+            blocks.put(sequence, new Block());
+        }
+    }
+
+    @Override
+    public int nextId(Sequence sequence) {
+        Block block = blocks.get(sequence);
+        synchronized (block) {
+            if (block.next >= block.limit) {
+                if (!block.created) {
+                    createSequence(sequence);
+                    block.created = true;
+                }
+                long start = jdbcTemplate.queryForObject(
+                        dialect().getSequenceSupport().getSequenceNextValString(sequenceName(sequence)), Long.class);
+                block.next = start;
+                block.limit = start + blockSize;
+            }
+            long id = block.next++;
+            if (id > Integer.MAX_VALUE) {
+                throw new OurRuntime("Id sequence " + sequence + " is exhausted.");
+            }
+            return (int) id;
+        }
+    }
+
+    // creates the sequence unless another node (or an earlier run) already did;
+    // IF NOT EXISTS (H2 and PostgreSQL) never fails the caller's transaction on
+    // that race, and any other failure propagates
+    private void createSequence(Sequence sequence) {
+        Number currentMax = (Number) entityManager.createQuery(MAX_ID_QUERIES.get(sequence)).getSingleResult();
+        jdbcTemplate.execute("create sequence if not exists " + sequenceName(sequence)
+                + " start with " + (currentMax.longValue() + 1) + " increment by " + blockSize);
+    }
+
+    private Dialect dialect() {
+        if (dialect == null) {
+            dialect = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect();
+        }
+        return dialect;
+    }
+
+    private static String sequenceName(Sequence sequence) {
+        return "id_alloc_" + sequence.name().toLowerCase();
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.DomainLayer.IIdAllocator;
 import com.example.app.DomainLayer.Item.IItemRepository;
 import com.example.app.DomainLayer.Item.Item;
 import com.example.app.DomainLayer.Item.ItemCategory;
@@ -26,21 +27,20 @@ public class ItemRepositoryDBImpl implements IItemRepository {
 
     private final ItemRepositoryDB jpaRepo;
 
+    private final IIdAllocator idAllocator;
+
     @PersistenceContext
     private EntityManager entityManager;
 
 
-    public ItemRepositoryDBImpl(@Lazy @Autowired ItemRepositoryDB jpaRepo) {
+    public ItemRepositoryDBImpl(@Lazy @Autowired ItemRepositoryDB jpaRepo, IIdAllocator idAllocator) {
         this.jpaRepo = jpaRepo;
+        this.idAllocator = idAllocator;
     }
 
     @Override
     public Integer createItem(String name, String description, Integer category) {
-        int highestId = jpaRepo.findAll().stream()
-            .mapToInt(Item::getId)
-            .max()
-            .orElse(0) + 1;
-        Item item = new Item(highestId, name, description, category);
+        Item item = new Item(idAllocator.nextId(IIdAllocator.Sequence.ITEMS), name, description, category);
         Item saved = jpaRepo.save(item);
         if (saved == null) {
             throw new OurRuntime("Failed to save item: " + item);
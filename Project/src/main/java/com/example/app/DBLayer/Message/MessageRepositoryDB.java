@@ -2,7 +2,10 @@ package com.example.app.DBLayer.Message;
 
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.app.DomainLayer.Message;
 
@@ -12,4 +15,26 @@ public interface MessageRepositoryDB extends JpaRepository<Message, Integer> {
     List<Message> findBySenderId(int senderId);
 
     List<Message> findByReceiverId(int receiverId);
+
+    @Query("select m from Message m where m.conversationId = :conversationId and m.messageId < :beforeId"
+            + " order by m.messageId desc")
+    List<Message> findConversation(@Param("conversationId") String conversationId, @Param("beforeId") int beforeId,
+            Limit limit);
+
+    /**
+     * The messages of a conversation up to the given one, oldest first.
+     */
+    @Query("select m from Message m where m.conversationId = :conversationId and m.messageId <= :messageId"
+            + " order by m.messageId")
+    List<Message> findConversationUpTo(@Param("conversationId") String conversationId,
+            @Param("messageId") int messageId);
+
+    /**
+     * The latest message of each conversation in an inbox, most recent first.
+     */
+    @Query("select m from InboxEntry e join Message m on m.messageId = e.lastMessageId"
+            + " where e.shopInbox = :shopInbox and e.ownerId = :ownerId and e.lastMessageId < :beforeId"
+            + " order by e.lastMessageId desc")
+    List<Message> findInbox(@Param("shopInbox") boolean shopInbox, @Param("ownerId") int ownerId,
+            @Param("beforeId") int beforeId, Limit limit);
 }
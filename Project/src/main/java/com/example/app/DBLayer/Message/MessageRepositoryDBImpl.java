@@ -1,16 +1,21 @@
 package com.example.app.DBLayer.Message;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 import com.example.app.DomainLayer.IMessageRepository;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Message;
 
 import jakarta.persistence.EntityManager;
@@ -20,22 +25,41 @@ import jakarta.transaction.Transactional;
 /**
  * JPA-backed implementation of IMessageRepository.
  * Manages message IDs via an internal counter initialized from the database.
+ * Every message is stored with its conversation id, and the inbox of each
+ * participant (user or shop) keeps the latest message id per conversation, so
+ * threads and inboxes are read a page at a time by index.
  */
 @Repository
 @Profile("!no-db & !test")
 public class MessageRepositoryDBImpl implements IMessageRepository {
 
+    private static final String RAISE_INBOX_SQL =
+            "UPDATE message_inbox SET last_message_id = ?"
+                    + " WHERE shop_inbox = ? AND owner_id = ? AND conversation_id = ? AND last_message_id < ?";
+    private static final String ADD_TO_INBOX_SQL =
+            "INSERT INTO message_inbox (shop_inbox, owner_id, conversation_id, last_message_id) SELECT ?, ?, ?, ?"
+                    + " WHERE NOT EXISTS (SELECT 1 FROM message_inbox"
+                    + " WHERE shop_inbox = ? AND owner_id = ? AND conversation_id = ?)";
+    private static final String REPLACE_LATEST_SQL =
+            "UPDATE message_inbox SET last_message_id = (SELECT MAX(message_id) FROM messages WHERE conversation_id = ?)"
+                    + " WHERE shop_inbox = ? AND owner_id = ? AND conversation_id = ? AND last_message_id = ?";
+    private static final String REMOVE_FROM_INBOX_SQL =
+            "DELETE FROM message_inbox WHERE shop_inbox = ? AND owner_id = ? AND conversation_id = ?";
+
     private final MessageRepositoryDB jpaRepo;
+    private final JdbcTemplate jdbcTemplate;
     // private final AtomicInteger idCounter = new AtomicInteger(0);
 
     @PersistenceContext
     private EntityManager entityManager;
 
-    public MessageRepositoryDBImpl(@Lazy @Autowired MessageRepositoryDB jpaRepo) {
+    public MessageRepositoryDBImpl(@Lazy @Autowired MessageRepositoryDB jpaRepo, JdbcTemplate jdbcTemplate) {
         this.jpaRepo = jpaRepo;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
+    @Transactional
     public void addMessage(int senderId,
             int receiverId,
             String content,
@@ -45,7 +69,17 @@ public class MessageRepositoryDBImpl implements IMessageRepository {
 
         Message message = new Message(senderId, receiverId, content, timestamp, userToUser,
                 previousMessageId);
-        jpaRepo.save(message);
+        message = jpaRepo.save(message);
+        String conversationId = message.getConversationId();
+        int messageId = message.getMessageId();
+        for (Object[] inbox : inboxesOf(message)) {
+            int raised = jdbcTemplate.update(RAISE_INBOX_SQL, messageId, inbox[0], inbox[1], conversationId,
+                    messageId);
+            if (raised == 0) {
+                jdbcTemplate.update(ADD_TO_INBOX_SQL, inbox[0], inbox[1], conversationId, messageId,
+                        inbox[0], inbox[1], conversationId);
+            }
+        }
     }
 
     @Override
@@ -82,13 +116,23 @@ public class MessageRepositoryDBImpl implements IMessageRepository {
     public List<Message> getFullConversation(int messageId) {
         List<Message> conversation = new ArrayList<>();
         Message current = getMessageById(messageId);
+        if (current == null) {
+            return conversation;
+        }
+        // the chain stays within one conversation: load it in one query and walk it in memory
+        Map<Integer, Message> thread = new HashMap<>();
+        if (current.getConversationId() != null) {
+            for (Message message : jpaRepo.findConversationUpTo(current.getConversationId(), messageId)) {
+                thread.put(message.getMessageId(), message);
+            }
+        }
         while (current != null) {
             conversation.add(0, current);
             int prevId = current.getPreviousMessageId();
             if (prevId < 0) {
                 break;
             }
-            current = getMessageById(prevId);
+            current = thread.containsKey(prevId) ? thread.get(prevId) : getMessageById(prevId);
         }
         return conversation;
     }
@@ -124,12 +168,25 @@ public class MessageRepositoryDBImpl implements IMessageRepository {
     }
 
     @Override
+    @Transactional
     public void deleteMessage(int messageId, int userId) {
         Message message = getMessageById(messageId);
         if (message != null &&
                 (message.getSenderId() == userId || message.getReceiverId() == userId)) {
 
             jpaRepo.deleteById(messageId); // use primary-key delete to avoid detached entity issues
+            entityManager.flush();
+            String conversationId = message.getConversationId();
+            boolean emptied = conversationId == null
+                    || jpaRepo.findConversation(conversationId, Integer.MAX_VALUE, Limit.of(1)).isEmpty();
+            for (Object[] inbox : inboxesOf(message)) {
+                if (emptied) {
+                    jdbcTemplate.update(REMOVE_FROM_INBOX_SQL, inbox[0], inbox[1], conversationId);
+                } else {
+                    jdbcTemplate.update(REPLACE_LATEST_SQL, conversationId, inbox[0], inbox[1], conversationId,
+                            messageId);
+                }
+            }
         }
     }
 
@@ -140,4 +197,28 @@ public class MessageRepositoryDBImpl implements IMessageRepository {
         return output;
     }
 
+    @Override
+    public KeysetPage<Message> getConversation(String conversationId, Integer beforeId, int limit) {
+        int before = beforeId == null ? Integer.MAX_VALUE : beforeId;
+        return KeysetPage.of(jpaRepo.findConversation(conversationId, before, Limit.of(limit)), limit, Message::getMessageId);
+    }
+
+    @Override
+    public KeysetPage<Message> getUserInbox(int userId, Integer beforeId, int limit) {
+        int before = beforeId == null ? Integer.MAX_VALUE : beforeId;
+        return KeysetPage.of(jpaRepo.findInbox(false, userId, before, Limit.of(limit)), limit, Message::getMessageId);
+    }
+
+    @Override
+    public KeysetPage<Message> getShopInbox(int shopId, Integer beforeId, int limit) {
+        int before = beforeId == null ? Integer.MAX_VALUE : beforeId;
+        return KeysetPage.of(jpaRepo.findInbox(true, shopId, before, Limit.of(limit)), limit, Message::getMessageId);
+    }
+
+    // (shop inbox, owner id) of the inboxes a message shows up in: both users', or the user's and the shop's
+    private static List<Object[]> inboxesOf(Message message) {
+        return List.of(new Object[] { false, message.getSenderId() },
+                new Object[] { !message.isUserToUser(), message.getReceiverId() });
+    }
+
 }
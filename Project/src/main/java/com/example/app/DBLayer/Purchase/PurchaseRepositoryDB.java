@@ -1,9 +1,48 @@
 package com.example.app.DBLayer.Purchase;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.app.DomainLayer.Purchase.Bid;
 import com.example.app.DomainLayer.Purchase.Purchase;
 
 public interface PurchaseRepositoryDB extends JpaRepository<Purchase, Integer> {
 
+    /**
+     * The columns a receipt is built from, see
+     * {@link PurchaseRepositoryDBImpl}; the bid columns are null for regular
+     * purchases. History queries select these instead of loading purchases.
+     */
+    String RECIEPT_COLUMNS = "select p.purchaseId, p.userId, p.storeId, p.shippingAddress, p.isCompleted,"
+            + " p.timeOfCompletion, p.price, type(p), treat(p as Bid).initialPrice, treat(p as Bid).highestBid,"
+            + " treat(p as Bid).highestBidderId, treat(p as Bid).auctionEndTime from Purchase p ";
+
+    @Query("select b from Bid b where b.isCompleted = false and b.auctionEndTime is not null")
+    List<Bid> findOpenAuctions();
+
+    @Query(RECIEPT_COLUMNS + "where p.userId = :userId and p.purchaseId < :beforeId order by p.purchaseId desc")
+    List<Object[]> findUserReciepts(@Param("userId") int userId, @Param("beforeId") int beforeId, Limit limit);
+
+    @Query(RECIEPT_COLUMNS + "where p.storeId = :storeId and p.purchaseId < :beforeId order by p.purchaseId desc")
+    List<Object[]> findStoreReciepts(@Param("storeId") int storeId, @Param("beforeId") int beforeId, Limit limit);
+
+    @Query(RECIEPT_COLUMNS + "where p.userId = :userId and p.storeId = :storeId order by p.purchaseId desc")
+    List<Object[]> findUserStoreReciepts(@Param("userId") int userId, @Param("storeId") int storeId);
+
+    @Query(RECIEPT_COLUMNS + "where type(p) = Bid order by p.purchaseId desc")
+    List<Object[]> findBidReciepts();
+
+    @Query(RECIEPT_COLUMNS + "where type(p) = Bid and p.storeId = :storeId order by p.purchaseId desc")
+    List<Object[]> findStoreBidReciepts(@Param("storeId") int storeId);
+
+    /**
+     * (purchaseId, itemId, quantity) of every item of the given purchases.
+     */
+    @Query("select p.purchaseId, key(i), value(i) from Purchase p join p.persistedItems i where p.purchaseId in :purchaseIds")
+    List<Object[]> findItemsOf(@Param("purchaseIds") Collection<Integer> purchaseIds);
 }
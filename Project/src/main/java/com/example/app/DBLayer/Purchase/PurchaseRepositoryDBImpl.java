@@ -1,17 +1,23 @@
 package com.example.app.DBLayer.Purchase;
 
 import java.time.LocalDateTime;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.DomainLayer.IIdAllocator;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Purchase.Address;
 import com.example.app.DomainLayer.Purchase.Bid;
 import com.example.app.DomainLayer.Purchase.BidReciept;
@@ -26,22 +32,38 @@ import jakarta.persistence.PersistenceContext;
 @Repository
 public class PurchaseRepositoryDBImpl implements IPurchaseRepository {
 
+    // a batch of auction bids is one guarded row update, so a batch that lost a race
+    // to a newer one or to the auction's completion changes nothing
+    private static final String SAVE_AUCTION_BIDS_SQL =
+            "UPDATE purchases SET highest_bid = ?, highest_bidder_id = ?, bid_seq = ?"
+                    + " WHERE purchase_id = ? AND is_completed = FALSE AND (bid_seq IS NULL OR bid_seq < ?)";
+    private static final String COMPLETE_AUCTION_SQL =
+            "UPDATE purchases SET is_completed = TRUE, time_of_completion = ?"
+                    + " WHERE purchase_id = ? AND purchase_type = 'bid' AND is_completed = FALSE";
+    private static final String ADD_BIDDER_SQL =
+            "INSERT INTO bid_ids (purchase_id, member_id, quantity) SELECT ?, ?, TRUE"
+                    + " WHERE NOT EXISTS (SELECT 1 FROM bid_ids WHERE purchase_id = ? AND member_id = ?)";
+
     private PurchaseRepositoryDB jpaRepo;
 
+    private final IIdAllocator idAllocator;
+
+    private final JdbcTemplate jdbcTemplate;
+
     @PersistenceContext
     private EntityManager entityManager;
 
-    public PurchaseRepositoryDBImpl(@Lazy @Autowired PurchaseRepositoryDB jpaRepo) {
+    public PurchaseRepositoryDBImpl(@Lazy @Autowired PurchaseRepositoryDB jpaRepo, IIdAllocator idAllocator,
+            JdbcTemplate jdbcTemplate) {
         this.jpaRepo = jpaRepo;
+        this.idAllocator = idAllocator;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
     public int addPurchase(int userId, int storeId, Map<Integer, Integer> items, double price,
             Address shippingAddresse) {
-        int id = jpaRepo.findAll().stream()
-                .mapToInt(Purchase::getPurchaseId)
-                .max()
-                .orElse(0) + 1;
+        int id = idAllocator.nextId(IIdAllocator.Sequence.PURCHASES);
         Purchase purchase = new Purchase(id, userId, storeId, items, price, shippingAddresse);
         try {
             jpaRepo.save(purchase);
@@ -53,10 +75,7 @@ public class PurchaseRepositoryDBImpl implements IPurchaseRepository {
 
     @Override
     public int addBid(int userId, int storeId, Map<Integer, Integer> items, int initialPrice) {
-        int id = jpaRepo.findAll().stream()
-                .mapToInt(Purchase::getPurchaseId)
-                .max()
-                .orElse(0) + 1;
+        int id = idAllocator.nextId(IIdAllocator.Sequence.PURCHASES);
         Bid bid = new Bid(id, userId, storeId, items, initialPrice);
         try {
             jpaRepo.save(bid);
@@ -70,10 +89,7 @@ public class PurchaseRepositoryDBImpl implements IPurchaseRepository {
     @Override
     public int addBid(int userId, int storeId, Map<Integer, Integer> items, int initialPrice,
             LocalDateTime auctionStart, LocalDateTime auctionEnd) {
-        int id = jpaRepo.findAll().stream()
-                .mapToInt(Purchase::getPurchaseId)
-                .max()
-                .orElse(0) + 1;
+        int id = idAllocator.nextId(IIdAllocator.Sequence.PURCHASES);
         Bid bid = new Bid(id, userId, storeId, items, initialPrice, auctionStart, auctionEnd);
         try {
 
@@ -101,54 +117,120 @@ public class PurchaseRepositoryDBImpl implements IPurchaseRepository {
 
     @Override
     public List<Reciept> getUserPurchases(int userId) {
-        return jpaRepo.findAll().stream().filter(purchase -> purchase.getUserId() == userId)
-                .map(Purchase::generateReciept).toList();
+        return toReciepts(jpaRepo.findUserReciepts(userId, Integer.MAX_VALUE, Limit.unlimited()));
     }
 
     @Override
     public List<Reciept> getStorePurchases(int storeId) {
-        return jpaRepo.findAll().stream().filter(purchase -> purchase.getStoreId() == storeId)
-                .map(Purchase::generateReciept).toList();
+        return toReciepts(jpaRepo.findStoreReciepts(storeId, Integer.MAX_VALUE, Limit.unlimited()));
+    }
+
+    @Override
+    public KeysetPage<Reciept> getUserPurchases(int userId, Integer beforeId, int limit) {
+        return KeysetPage.of(toReciepts(jpaRepo.findUserReciepts(userId,
+                beforeId == null ? Integer.MAX_VALUE : beforeId, Limit.of(limit))), limit,
+                Reciept::getPurchaseId);
+    }
+
+    @Override
+    public KeysetPage<Reciept> getStorePurchases(int storeId, Integer beforeId, int limit) {
+        return KeysetPage.of(toReciepts(jpaRepo.findStoreReciepts(storeId,
+                beforeId == null ? Integer.MAX_VALUE : beforeId, Limit.of(limit))), limit,
+                Reciept::getPurchaseId);
     }
 
     @Override
     public List<Reciept> getUserStorePurchases(int userId, int storeId) {
-        return jpaRepo.findAll().stream().filter(purchase -> purchase.getUserId() == userId)
-                .filter(purchase -> purchase.getStoreId() == storeId)
-                .map(Purchase::generateReciept).toList();
+        return toReciepts(jpaRepo.findUserStoreReciepts(userId, storeId));
     }
 
     @Override
     public List<BidReciept> getAllBids() {
-        List<Purchase> bids = jpaRepo.findAll().stream().filter(purchase -> purchase instanceof Bid).toList();
-        List<BidReciept> reciepts = new LinkedList<>();
-        for (Purchase bid : bids) {
-            if (bid instanceof Bid) {
-                reciepts.add(((Bid) bid).generateReciept());
-            }
-        }
-        return reciepts;
+        return toBidReciepts(jpaRepo.findBidReciepts());
     }
 
     @Override
     public List<BidReciept> getShopBids(int shopId) {
-        List<Purchase> bids = jpaRepo.findAll().stream().filter(purchase -> purchase instanceof Bid)
-                .filter(purchase -> purchase.getStoreId() == shopId).toList();
-        List<BidReciept> reciepts = new LinkedList<>();
-        for (Purchase bid : bids) {
-            if (bid instanceof Bid)
-                reciepts.add(((Bid) bid).generateReciept());
+        return toBidReciepts(jpaRepo.findStoreBidReciepts(shopId));
+    }
+
+    private List<BidReciept> toBidReciepts(List<Object[]> rows) {
+        List<BidReciept> reciepts = new ArrayList<>(rows.size());
+        for (Reciept reciept : toReciepts(rows)) {
+            reciepts.add((BidReciept) reciept);
         }
         return reciepts;
     }
 
-    private void updateBid(Bid bid) {
+    /**
+     * Builds the receipts from rows of {@link PurchaseRepositoryDB#RECIEPT_COLUMNS}
+     * the same way {@link Purchase#generateReciept()} does, fetching the items
+     * of all of them in one query instead of loading each purchase.
+     */
+    private List<Reciept> toReciepts(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Map<Integer, Integer>> items = new HashMap<>();
+        for (Object[] row : rows) {
+            items.put((Integer) row[0], new HashMap<>());
+        }
+        for (Object[] item : jpaRepo.findItemsOf(items.keySet())) {
+            items.get((Integer) item[0]).put((Integer) item[1], (Integer) item[2]);
+        }
+
+        List<Reciept> reciepts = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            reciepts.add(toReciept(row, items.get((Integer) row[0])));
+        }
+        return reciepts;
+    }
+
+    private static Reciept toReciept(Object[] row, Map<Integer, Integer> items) {
+        int purchaseId = (Integer) row[0];
+        int userId = (Integer) row[1];
+        int storeId = (Integer) row[2];
+        Address address = (Address) row[3];
+        boolean completed = (Boolean) row[4];
+        LocalDateTime timeOfCompletion = (LocalDateTime) row[5];
+        double price = (Double) row[6];
+        if (row[7] == Bid.class) {
+            int initialPrice = (Integer) row[8];
+            int highestBid = (Integer) row[9];
+            int highestBidderId = (Integer) row[10];
+            return new BidReciept(purchaseId, userId, storeId, items, address, initialPrice, highestBidderId,
+                    initialPrice, highestBid, highestBidderId, completed, (LocalDateTime) row[11]);
+        }
+        return new Reciept(purchaseId, userId, storeId, items, address, completed ? timeOfCompletion : null, price);
+    }
+
+    @Override
+    public List<Bid> getOpenAuctions() {
+        return jpaRepo.findOpenAuctions();
+    }
+
+    @Override
+    public boolean completeAuction(int auctionId) {
         try {
-            bid.prePersist();
-            jpaRepo.save(bid);
+            return jdbcTemplate.update(COMPLETE_AUCTION_SQL, LocalDateTime.now(), auctionId) == 1;
         } catch (Exception e) {
-            throw new OurRuntime("Error when updating bid.");
+            throw new OurRuntime("Error when completing auction.");
+        }
+    }
+
+    @Override
+    @Transactional
+    public boolean saveAuctionBids(int auctionId, int highestBid, int highestBidderId, long bidSeq,
+            Collection<Integer> newBidders) {
+        if (jdbcTemplate.update(SAVE_AUCTION_BIDS_SQL, highestBid, highestBidderId, bidSeq, auctionId, bidSeq) == 0) {
+            return false;
+        }
+        List<Object[]> rows = new ArrayList<>(newBidders.size());
+        for (int bidderId : newBidders) {
+            rows.add(new Object[] { auctionId, bidderId, auctionId, bidderId });
         }
+        jdbcTemplate.batchUpdate(ADD_BIDDER_SQL, rows);
+        return true;
     }
 
     public void postBiddingAuction(Bid bid, int userId, int bidPrice) {
@@ -0,0 +1,186 @@
+package com.example.app.DBLayer.Shop;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.example.app.DomainLayer.Shop.Shop;
+
+/**
+ * Node-local cache of fully loaded shop aggregates for the DB profile.
+ *
+ * The repository serves reads from here and loads a shop on a miss; writes
+ * go to the database and then invalidate the entry, or, for stock changes,
+ * update it in place. Every shop carries a version that each write bumps,
+ * and an entry only counts while its version is the current one, so a load
+ * that overlapped a write never installs what it read. Entries expire after
+ * {@code app.shops.cache.ttl-ms}, which bounds how long writes made by other
+ * nodes go unseen and also ages out hit counts.
+ *
+ * When full, the entry with the fewest hits is evicted, the least recently
+ * used one among equals. Reads are lock free; installs, writes and evictions
+ * take the cache lock.
+ */
+@Component
+@Profile("!no-db & !test")
+public class ShopCache {
+
+    /**
+     * Hit rate and load cost since startup.
+     */
+    public record Stats(int size, long hits, long misses, double hitRate, long loads, double avgLoadMillis,
+            long evictions, long invalidations) {
+    }
+
+    private static final class Entry {
+        final Shop shop;
+        final long version;
+        final long loadedAt;
+        // approximate, updated without synchronization by readers
+        int hits;
+        long lastAccess;
+
+        Entry(Shop shop, long version, long loadedAt) {
+            this.shop = shop;
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    // read anywhere, changed only while holding this
+    private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ShopCache(@Value("${app.shops.cache.max-size:1000}") int maxSize,
+            @Value("${app.shops.cache.ttl-ms:30000}") long ttlMillis) {
+        if (maxSize < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("Shop cache size and ttl must not be negative.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Returns the cached shop, or loads it with {@code loader} and caches it.
+     * Exceptions of the loader propagate and nothing is cached.
+     */
+    public Shop get(int shopId, IntFunction<Shop> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(shopId);
+        if (entry != null && isCurrent(shopId, entry, now)) {
+            entry.hits++;
+            entry.lastAccess = now;
+            hits.increment();
+            return entry.shop;
+        }
+        misses.increment();
+
+        long version = versionOf(shopId);
+        Shop shop = loader.apply(shopId);
+        long loaded = System.nanoTime();
+        loads.increment();
+        loadNanos.add(loaded - now);
+
+        synchronized (this) {
+            if (maxSize > 0 && version == versionOf(shopId)) {
+                entries.put(shopId, new Entry(shop, version, loaded));
+                while (entries.size() > maxSize) {
+                    evictOne(shopId);
+                }
+            }
+        }
+        return shop;
+    }
+
+    /**
+     * Drops the shop; loads that are still running will not install theirs.
+     */
+    public synchronized void invalidate(int shopId) {
+        versions.merge(shopId, 1L, Long::sum);
+        entries.remove(shopId);
+        invalidations.increment();
+    }
+
+    /**
+     * Applies a change that is already durable to the cached shop, if there is
+     * a current one. Loads that are still running will not install theirs, as
+     * they may have read the database before the change.
+     */
+    public synchronized void update(int shopId, Consumer<Shop> change) {
+        long version = versionOf(shopId) + 1;
+        versions.put(shopId, version);
+        Entry entry = entries.remove(shopId);
+        if (entry != null && entry.version == version - 1 && System.nanoTime() - entry.loadedAt < ttlNanos) {
+            change.accept(entry.shop);
+            Entry updated = new Entry(entry.shop, version, entry.loadedAt);
+            updated.hits = entry.hits;
+            updated.lastAccess = entry.lastAccess;
+            entries.put(shopId, updated);
+        }
+    }
+
+    public synchronized void clear() {
+        for (Integer shopId : entries.keySet()) {
+            versions.merge(shopId, 1L, Long::sum);
+        }
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long loadCount = loads.sum();
+        long lookups = hitCount + missCount;
+        return new Stats(entries.size(), hitCount, missCount, lookups == 0 ? 0 : (double) hitCount / lookups,
+                loadCount, loadCount == 0 ? 0 : loadNanos.sum() / 1e6 / loadCount, evictions.sum(),
+                invalidations.sum());
+    }
+
+    private boolean isCurrent(int shopId, Entry entry, long now) {
+        return now - entry.loadedAt < ttlNanos && entry.version == versionOf(shopId);
+    }
+
+    private long versionOf(int shopId) {
+        return versions.getOrDefault(shopId, 0L);
+    }
+
+    // must hold this; fewest hits first, least recently used among equals, never the shop just loaded
+    private void evictOne(int keep) {
+        Integer victim = null;
+        Entry worst = null;
+        for (Map.Entry<Integer, Entry> candidate : entries.entrySet()) {
+            Entry e = candidate.getValue();
+            if (candidate.getKey() == keep) {
+                continue;
+            }
+            if (worst == null || e.hits < worst.hits || (e.hits == worst.hits && e.lastAccess < worst.lastAccess)) {
+                victim = candidate.getKey();
+                worst = e;
+            }
+        }
+        entries.remove(victim);
+        evictions.increment();
+    }
+}
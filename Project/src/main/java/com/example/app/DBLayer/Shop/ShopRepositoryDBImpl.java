@@ -1,5 +1,7 @@
 package com.example.app.DBLayer.Shop;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -10,11 +12,17 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Purchase.ShippingMethod;
+import com.example.app.DomainLayer.IIdAllocator;
 import com.example.app.DomainLayer.Item.ItemCategory;
 import com.example.app.DomainLayer.Shop.Discount.Discount;
 import com.example.app.DomainLayer.Shop.Discount.Policy;
@@ -29,13 +37,34 @@ import jakarta.persistence.PersistenceContext;
 @Profile("!no-db & !test")
 public class ShopRepositoryDBImpl implements IShopRepository {
 
+    // stock is taken and given back with single-row statements guarded in the database,
+    // so a purchase touches only its basket's rows and concurrent nodes never overwrite each other
+    private static final String TAKE_STOCK_SQL =
+            "UPDATE shop_items SET quantity = quantity - ? WHERE shop_id = ? AND item_id = ? AND quantity >= ?";
+    private static final String RETURN_STOCK_SQL =
+            "UPDATE shop_items SET quantity = quantity + ? WHERE shop_id = ? AND item_id = ?";
+
     private ShopRepositoryDB jpaRepo;
 
+    private final IIdAllocator idAllocator;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ShopCache shopCache;
+
+    private final TransactionTemplate readTransaction;
+
     @PersistenceContext
     private EntityManager entityManager;
 
-    public ShopRepositoryDBImpl(@Lazy @Autowired ShopRepositoryDB jpaRepo) {
+    public ShopRepositoryDBImpl(@Lazy @Autowired ShopRepositoryDB jpaRepo, IIdAllocator idAllocator,
+            JdbcTemplate jdbcTemplate, ShopCache shopCache, PlatformTransactionManager transactionManager) {
         this.jpaRepo = jpaRepo;
+        this.idAllocator = idAllocator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shopCache = shopCache;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
     }
 
     @Override
@@ -47,12 +76,7 @@ public class ShopRepositoryDBImpl implements IShopRepository {
         }   
         
 
-        int highestShopId = jpaRepo.findAll().stream()
-            .mapToInt(Shop::getId)
-            .max()
-            .orElse(0) + 1;
-
-        Shop shop = new Shop(highestShopId, name, shippingMethod);
+        Shop shop = new Shop(idAllocator.nextId(IIdAllocator.Sequence.SHOPS), name, shippingMethod);
 
         try {
             Shop saved = jpaRepo.save(shop);
@@ -62,12 +86,39 @@ public class ShopRepositoryDBImpl implements IShopRepository {
         }
     }
 
+    /**
+     * Inside a transaction returns the managed shop, which the caller may
+     * change and save. Otherwise returns the shared cached copy, which must
+     * only be read.
+     */
     @Override
     public Shop getShop(int id) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return findShop(id);
+        }
+        return shopCache.get(id, this::loadDetached);
+    }
+
+    public ShopCache.Stats getCacheStats() {
+        return shopCache.getStats();
+    }
+
+    private Shop findShop(int id) {
         return jpaRepo.findById(id)
                 .orElseThrow(() -> new OurRuntime("Shop not found: " + id));
     }
 
+    // a copy of the shop with everything it is read for loaded, no longer attached to any session
+    private Shop loadDetached(int id) {
+        return readTransaction.execute(status -> {
+            Shop shop = findShop(id);
+            shop.getDiscounts().size();
+            shop.getReviews().size();
+            entityManager.detach(shop);
+            return shop;
+        });
+    }
+
     @Override
     public List<Shop> getAllShops() {
         return jpaRepo.findAll();
@@ -356,9 +407,45 @@ public class ShopRepositoryDBImpl implements IShopRepository {
             Integer shopdId) {
         try {
             Shop shop = getShop(shopdId);
-            double ret =shop.purchaseItems(purchaseLists, itemsCategory);
-            updateShop(shop);
-            return ret;
+            // the stock statements bypass the session, so pending changes go first
+            entityManager.flush();
+
+            // one batch per basket, in item id order so concurrent baskets lock rows in the same order
+            List<Map.Entry<Integer, Integer>> order = new ArrayList<>(purchaseLists.entrySet());
+            order.sort(Map.Entry.comparingByKey());
+            List<Object[]> rows = new ArrayList<>(order.size());
+            for (Map.Entry<Integer, Integer> entry : order) {
+                rows.add(new Object[] { entry.getValue(), shopdId, entry.getKey(), entry.getValue() });
+            }
+            int[] taken = jdbcTemplate.batchUpdate(TAKE_STOCK_SQL, rows);
+
+            for (int i = 0; i < taken.length; i++) {
+                if (taken[i] == 0) {
+                    // give back only what we took
+                    Map<Integer, Integer> giveBack = new HashMap<>();
+                    for (int j = 0; j < taken.length; j++) {
+                        if (taken[j] != 0) {
+                            giveBack.put(order.get(j).getKey(), order.get(j).getValue());
+                        }
+                    }
+                    returnStock(shopdId, giveBack);
+                    throw new IllegalArgumentException("Insufficient stock for item " + order.get(i).getKey());
+                }
+            }
+
+            shop.syncItemQuantities(readQuantities(shopdId, purchaseLists.keySet()));
+            double total;
+            try {
+                total = shop.applyDiscount(purchaseLists, itemsCategory);
+            } catch (RuntimeException e) {
+                returnStock(shopdId, purchaseLists);
+                shop.syncItemQuantities(readQuantities(shopdId, purchaseLists.keySet()));
+                throw e;
+            }
+            Map<Integer, Integer> deltas = new HashMap<>();
+            purchaseLists.forEach((itemId, qty) -> deltas.put(itemId, -qty));
+            adjustCachedStock(shopdId, deltas);
+            return total;
         } catch (RuntimeException e) {
             throw e;
         }
@@ -369,8 +456,10 @@ public class ShopRepositoryDBImpl implements IShopRepository {
     public void rollBackPurchase(Map<Integer, Integer> purchaseLists, Integer shopId) {
         try {
             Shop shop = getShop(shopId);
-            shop.rollBackPurchase(purchaseLists);
-            updateShop(shop);
+            entityManager.flush();
+            returnStock(shopId, purchaseLists);
+            shop.syncItemQuantities(readQuantities(shopId, purchaseLists.keySet()));
+            adjustCachedStock(shopId, purchaseLists);
         } catch (RuntimeException e) {
             throw e;
         }
@@ -381,9 +470,7 @@ public class ShopRepositoryDBImpl implements IShopRepository {
             String postalCode) {
         try {
             Shop shop = getShop(shopId);
-            boolean ret = shop.getShippingMethod().processShipping(name, street, city, country, postalCode) != -1;
-            updateShop(shop);
-            return ret;
+            return shop.getShippingMethod().processShipping(name, street, city, country, postalCode) != -1;
         } catch (RuntimeException e) {
             throw e;
         }
@@ -424,12 +511,44 @@ public class ShopRepositoryDBImpl implements IShopRepository {
 
     public void deleteAll() {
         try {
-            jpaRepo.deleteAll();
+            // jpaRepo.deleteAll() would resolve to this method, Spring Data takes this class as its fragment
+            jpaRepo.deleteAll(jpaRepo.findAll());
+            shopCache.clear();
         } catch (Exception e) {
             throw new OurRuntime("Failed to delete all shops", e);
         }
     }
 
+    private void returnStock(int shopId, Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Integer, Integer>> order = new ArrayList<>(quantities.entrySet());
+        order.sort(Map.Entry.comparingByKey());
+        List<Object[]> rows = new ArrayList<>(order.size());
+        for (Map.Entry<Integer, Integer> entry : order) {
+            rows.add(new Object[] { entry.getValue(), shopId, entry.getKey() });
+        }
+        jdbcTemplate.batchUpdate(RETURN_STOCK_SQL, rows);
+    }
+
+    // the current stock rows of the given items
+    private Map<Integer, Integer> readQuantities(int shopId, Collection<Integer> itemIds) {
+        Map<Integer, Integer> quantities = new HashMap<>();
+        if (itemIds.isEmpty()) {
+            return quantities;
+        }
+        List<Object> args = new ArrayList<>(itemIds.size() + 1);
+        args.add(shopId);
+        args.addAll(itemIds);
+        String in = String.join(", ", Collections.nCopies(itemIds.size(), "?"));
+        jdbcTemplate.query("SELECT item_id, quantity FROM shop_items WHERE shop_id = ? AND item_id IN (" + in + ")",
+                rs -> {
+                    quantities.put(rs.getInt(1), rs.getInt(2));
+                }, args.toArray());
+        return quantities;
+    }
+
     private void updateShop(Shop updatedShop) {
         if (updatedShop == null) {
             throw new IllegalArgumentException("Shop cannot be null.");
@@ -437,8 +556,35 @@ public class ShopRepositoryDBImpl implements IShopRepository {
 
         updatedShop.prePersist();
         jpaRepo.save(updatedShop);
-        
+        invalidateCached(updatedShop.getId());
+    }
+
+    // drops the cached shop now and again when the transaction ends, so a copy
+    // read while it was still open does not outlive it
+    private void invalidateCached(int shopId) {
+        shopCache.invalidate(shopId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    shopCache.invalidate(shopId);
+                }
+            });
+        }
+    }
 
+    // once committed, applies the stock change to the cached shop instead of reloading it
+    private void adjustCachedStock(int shopId, Map<Integer, Integer> deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            shopCache.update(shopId, shop -> shop.adjustItemQuantities(deltas));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                shopCache.update(shopId, shop -> shop.adjustItemQuantities(deltas));
+            }
+        });
     }
 
     @Override
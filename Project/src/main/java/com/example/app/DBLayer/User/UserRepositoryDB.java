@@ -1,9 +1,30 @@
 package com.example.app.DBLayer.User;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.app.DomainLayer.Member;
 
 public interface UserRepositoryDB extends JpaRepository<Member, Integer> {
+    // Targeted lookups so callers never have to scan the whole members table.
+    // Each is backed by an index declared on Member.
+
+    List<Member> findByUsernameOrderByMemberId(String username);
+
+    boolean existsByUsername(String username);
+
+    @Query("select m.memberId from Member m where m.isAdmin = true order by m.memberId")
+    List<Integer> findAdminIds();
+
+    @Query("select m.memberId from Member m where m.suspended > :now order by m.memberId")
+    List<Integer> findSuspendedIds(@Param("now") LocalDateTime now);
 
+    // members holding any role in the shop; owner/founder are permissions inside
+    // the role, so callers narrow this (small) set down in memory
+    @Query("select distinct m from Member m join m.roles r where r.shopId = :shopId order by m.memberId")
+    List<Member> findByRoleShopId(@Param("shopId") int shopId);
 }
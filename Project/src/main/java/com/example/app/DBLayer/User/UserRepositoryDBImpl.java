@@ -5,7 +5,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +16,7 @@ import org.springframework.stereotype.Repository;
 import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Purchase.PaymentMethod;
 import com.example.app.DomainLayer.Guest;
+import com.example.app.DomainLayer.IIdAllocator;
 import com.example.app.DomainLayer.IUserRepository;
 import com.example.app.DomainLayer.Member;
 import com.example.app.DomainLayer.Notification;
@@ -42,7 +42,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
 
     PasswordEncoderUtil passwordEncoderUtil = new PasswordEncoderUtil(); // Use the password encoder utility
 
-    private AtomicInteger idCounter = new AtomicInteger(0);
+    private final IIdAllocator idAllocator;
 
     private final String adminUsername;
     private final String adminPlainPassword;
@@ -55,12 +55,17 @@ public class UserRepositoryDBImpl implements IUserRepository {
 
     private final ConcurrentHashMap<Integer, Guest> guests;
 
+    // username -> memberId; verified against the loaded member on every hit, so a
+    // stale entry (rename on another node) only costs a fallback query
+    private final ConcurrentHashMap<String, Integer> memberIdByUsername = new ConcurrentHashMap<>();
+
     public UserRepositoryDBImpl(@Value("${admin.username:admin}") String adminUsername,
             @Value("${admin.password:admin}") String adminPlainPassword,
             @Value("${admin.email:admin@mail.com}") String adminEmail,
             @Value("${admin.phoneNumber:0}") String adminPhoneNumber,
             @Value("${admin.address:admin st.}") String adminAddress,
-            @Lazy @Autowired UserRepositoryDB jpaRepo) {
+            @Lazy @Autowired UserRepositoryDB jpaRepo,
+            IIdAllocator idAllocator) {
 
         if (adminUsername == null || adminUsername.isEmpty()) {
             throw new IllegalArgumentException("Admin username cannot be null or empty.");
@@ -84,6 +89,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
         this.adminPhoneNumber = adminPhoneNumber;
         this.adminAddress = adminAddress;
         this.jpaRepo = jpaRepo;
+        this.idAllocator = idAllocator;
         this.guests = new ConcurrentHashMap<>();
     }
 
@@ -95,20 +101,13 @@ public class UserRepositoryDBImpl implements IUserRepository {
                 if (!adminInitialized) {
                     try {
                         // Check if admin already exists first
-                        List<Member> existingMembers = jpaRepo.findAll();
-                        boolean adminExists = existingMembers.stream()
-                                .anyMatch(member -> "admin".equals(member.getUsername()));
-
-                        if (!adminExists) {
-                            // Create admin using the default constructor to let ID be auto-generated
-                            Member admin = new Member();
-                            admin.setUsername(adminUsername);
-                            admin.setPassword(passwordEncoderUtil.encode(adminPlainPassword));
-                            admin.setEmail(adminEmail);
-                            admin.setPhoneNumber(adminPhoneNumber);
+                        if (!jpaRepo.existsByUsername("admin")) {
+                            Member admin = new Member(idAllocator.nextId(IIdAllocator.Sequence.USERS),
+                                    adminUsername, passwordEncoderUtil.encode(adminPlainPassword), adminEmail,
+                                    adminPhoneNumber, adminAddress);
                             admin.setAdmin(true);
 
-                            admin = jpaRepo.save(admin); // Save and get the admin with generated ID
+                            admin = jpaRepo.save(admin);
                         }
                         adminInitialized = true;
                     } catch (Exception e) {
@@ -122,11 +121,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
             // Even if flag is set, verify admin still exists in database (for transaction
             // rollback scenarios)
             try {
-                List<Member> existingMembers = jpaRepo.findAll();
-                boolean adminExists = existingMembers.stream()
-                        .anyMatch(member -> "admin".equals(member.getUsername()));
-
-                if (!adminExists) {
+                if (!jpaRepo.existsByUsername("admin")) {
                     // Reset flag and re-create admin
                     adminInitialized = false;
                     ensureAdminExists(); // Recursive call to create admin
@@ -234,27 +229,13 @@ public class UserRepositoryDBImpl implements IUserRepository {
 
     @Override
     public List<Integer> getAllAdmins() {
-        return jpaRepo.findAll().stream()
-                .filter(user -> user instanceof Member && ((Member) user).isAdmin())
-                .map(user -> ((Member) user).getMemberId())
-                .collect(Collectors.toList());
+        return jpaRepo.findAdminIds();
     }
 
     @Override
     public int addGuest() {
-        int dbId = jpaRepo.findAll().stream()
-                .mapToInt(Member::getMemberId)
-                .max()
-                .orElse(0) + 1;
-
-        int highestGuestId = guests.keySet().stream()
-                .mapToInt(Integer::intValue)
-                .max()
-                .orElse(0) + 1;
-
-        int id = Math.max(dbId, highestGuestId);
-
-        idCounter.set(id);
+        // guests share the id space of members, so they take ids from the same sequence
+        int id = idAllocator.nextId(IIdAllocator.Sequence.USERS);
 
         Guest guest = new Guest(id);
         guests.put(id, guest);
@@ -272,19 +253,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
             throw new IllegalArgumentException("Invalid email format: " + email);
         }
 
-        int dbId = jpaRepo.findAll().stream()
-                .mapToInt(Member::getMemberId)
-                .max()
-                .orElse(0) + 1;
-
-        int highestGuestId = guests.keySet().stream()
-                .mapToInt(Integer::intValue)
-                .max()
-                .orElse(0) + 1;
-
-        int id = Math.max(dbId, highestGuestId);
-
-        idCounter.set(id);
+        int id = idAllocator.nextId(IIdAllocator.Sequence.USERS);
 
         Member member = new Member(id, username, password, email, phoneNumber, address);
         member.setConnected(true);
@@ -295,6 +264,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
     @Override
     public void updateMemberUsername(int id, String username) {
         Member member = getMemberById(id);
+        memberIdByUsername.remove(member.getUsername(), id);
         member.setUsername(username);
         jpaRepo.save(member);
     }
@@ -335,30 +305,44 @@ public class UserRepositoryDBImpl implements IUserRepository {
     @Override
     public int isUsernameAndPasswordValid(String username, String password) {
         ensureAdminExists();
-        List<Member> members = jpaRepo.findAll();
-
-        for (Member member : members) {
-
-            boolean usernameMatch = member.getUsername().equals(username);
-            boolean passwordMatch = passwordEncoderUtil.matches(password, member.getPassword());
+        Member member = findMemberByUsername(username);
+        if (member != null && passwordEncoderUtil.verify(password, member.getPassword())) {
+            return member.getMemberId();
+        }
+        return -1; // Invalid credentials
+    }
 
-            if (usernameMatch && passwordMatch) {
-                return member.getMemberId();
+    private Member findMemberByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        Integer id = memberIdByUsername.get(username);
+        if (id != null) {
+            Member member = jpaRepo.findById(id).orElse(null);
+            if (member != null && username.equals(member.getUsername())) {
+                return member;
             }
+            memberIdByUsername.remove(username, id);
         }
-        return -1; // Invalid credentials
+        List<Member> members = jpaRepo.findByUsernameOrderByMemberId(username);
+        if (members.isEmpty()) {
+            return null;
+        }
+        Member member = members.get(0);
+        memberIdByUsername.put(username, member.getMemberId());
+        return member;
     }
 
     @Override
     public boolean isUsernameTaken(String username) {
-        return jpaRepo.findAll().stream()
-                .anyMatch(member -> member.getUsername().equals(username));
+        return jpaRepo.existsByUsername(username);
     }
 
     @Override
     public void removeUserById(int id) {
         User user = getUserById(id);
         if (user instanceof Member) {
+            memberIdByUsername.remove(((Member) user).getUsername(), id);
             jpaRepo.delete((Member) user);
         } else {
             guests.remove(id);
@@ -369,16 +353,13 @@ public class UserRepositoryDBImpl implements IUserRepository {
     public void clear() {
         jpaRepo.deleteAll();
         guests.clear();
-        idCounter.set(0); // Reset the ID counter
+        memberIdByUsername.clear();
     }
 
     @Override
     public List<User> getUsersList() {
-        List<Member> lst = jpaRepo.findAll().stream()
-                .collect(Collectors.toList());
-
         List<User> users = new LinkedList<>();
-        users.addAll(lst);
+        users.addAll(jpaRepo.findAll());
         users.addAll(guests.values());
 
         return users;
@@ -400,10 +381,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
 
     @Override
     public List<Member> getMembersList() {
-        return jpaRepo.findAll().stream()
-                .filter(user -> user instanceof Member)
-                .map(user -> (Member) user)
-                .collect(Collectors.toList());
+        return jpaRepo.findAll();
     }
 
     @Override
@@ -602,12 +580,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
 
     @Override
     public List<Member> getShopMembers(int shopId) {
-        return jpaRepo.findAll().stream()
-                .filter(user -> user instanceof Member)
-                .map(user -> (Member) user)
-                .filter(member -> member.getRoles().stream()
-                        .anyMatch(role -> role.getShopId() == shopId))
-                .collect(Collectors.toList());
+        return jpaRepo.findByRoleShopId(shopId);
     }
 
     @Override
@@ -625,6 +598,15 @@ public class UserRepositoryDBImpl implements IUserRepository {
         }
     }
 
+    @Override
+    public void addNotifications(int userId, List<Notification> notifications) {
+        Member member = getMemberById(userId);
+        for (Notification notification : notifications) {
+            member.addNotification(notification);
+        }
+        jpaRepo.save(member); // one write for the whole batch
+    }
+
     @Override
     public List<String> getNotificationsAndClear(int userId) {
         User user = getUserById(userId);
@@ -642,9 +624,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
 
     @Override
     public List<Member> getOwners(int shopId) {
-        return jpaRepo.findAll().stream()
-                .filter(user -> user instanceof Member)
-                .map(user -> (Member) user)
+        return jpaRepo.findByRoleShopId(shopId).stream()
                 .filter(member -> member.getRoles().stream()
                         .anyMatch(role -> role.getShopId() == shopId && role.isOwner()))
                 .collect(Collectors.toList());
@@ -684,10 +664,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
 
     @Override
     public List<Integer> getSuspendedUsers() {
-        return jpaRepo.findAll().stream()
-                .filter(user -> user instanceof Member && ((Member) user).isSuspended())
-                .map(user -> ((Member) user).getMemberId())
-                .collect(Collectors.toList());
+        return jpaRepo.findSuspendedIds(LocalDateTime.now());
     }
 
     @Override
@@ -714,10 +691,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
 
     @Override
     public List<Member> getAllMembers() {
-        return jpaRepo.findAll().stream()
-                .filter(user -> user instanceof Member)
-                .map(user -> (Member) user)
-                .collect(Collectors.toList());
+        return jpaRepo.findAll();
     }
 
     @Override
@@ -959,12 +933,7 @@ public class UserRepositoryDBImpl implements IUserRepository {
 
     @Override
     public int getShopOwner(int shopId) {
-        List<Member> members = jpaRepo.findAll().stream()
-                .filter(user -> user instanceof Member)
-                .map(user -> (Member) user)
-                .filter(member -> member.getRoles().stream()
-                        .anyMatch(role -> role.getShopId() == shopId && role.isOwner()))
-                .collect(Collectors.toList());
+        List<Member> members = getOwners(shopId);
 
         if (members.isEmpty()) {
             return -1;
@@ -0,0 +1,52 @@
+package com.example.app.DomainLayer;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+/**
+ * A (shop, product) line of a shopping cart, as stored in the cart tables.
+ */
+@Embeddable
+public class CartKey {
+    @Column(name = "shop_id", nullable = false)
+    private int shopId;
+
+    @Column(name = "product_id", nullable = false)
+    private int productId;
+
+    public CartKey() {
+    }
+
+    public CartKey(int shopId, int productId) {
+        this.shopId = shopId;
+        this.productId = productId;
+    }
+
+    public int getShopId() {
+        return shopId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof CartKey))
+            return false;
+        CartKey other = (CartKey) obj;
+        return shopId == other.shopId && productId == other.productId;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * shopId + productId;
+    }
+
+    @Override
+    public String toString() {
+        return shopId + "-" + productId;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.app.DomainLayer;
+
+public interface IIdAllocator {
+
+    /**
+     * The id spaces handed out by an allocator. Members and guests share
+     * {@link #USERS}.
+     */
+    enum Sequence {
+        USERS,
+        SHOPS,
+        ITEMS,
+        PURCHASES
+    }
+
+    /**
+     * Returns a new id from the given sequence. Ids are unique within a
+     * sequence and increasing per node, but not necessarily contiguous: ids
+     * reserved by a node that shuts down are never reused.
+     *
+     * @param sequence The id space to allocate from.
+     * @return A positive id that was never returned before for this sequence.
+     */
+    int nextId(Sequence sequence);
+}
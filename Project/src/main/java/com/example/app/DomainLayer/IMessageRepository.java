@@ -88,4 +88,35 @@ public interface IMessageRepository {
     boolean isMessagePrevious(int previousMessageId, int senderId, int receiverId);
 
     List<Message> getUserConversations(int userId);
-}
\ No newline at end of file
+
+    /**
+     * Retrieves a page of a conversation, newest first.
+     *
+     * @param conversationId The conversation, see {@link Message#conversationIdOf}.
+     * @param beforeId Only messages with a smaller ID are returned; null for the first page.
+     * @param limit The maximum number of messages on the page.
+     * @return The page, with the cursor of the next one.
+     */
+    KeysetPage<Message> getConversation(String conversationId, Integer beforeId, int limit);
+
+    /**
+     * Retrieves a page of a user's inbox: the latest message of each of the
+     * user's conversations, most recent conversation first.
+     *
+     * @param userId The ID of the user.
+     * @param beforeId Only conversations whose latest message has a smaller ID are returned; null for the first page.
+     * @param limit The maximum number of conversations on the page.
+     * @return The page, with the cursor of the next one.
+     */
+    KeysetPage<Message> getUserInbox(int userId, Integer beforeId, int limit);
+
+    /**
+     * Retrieves a page of a shop's inbox, like {@link #getUserInbox}.
+     *
+     * @param shopId The ID of the shop.
+     * @param beforeId Only conversations whose latest message has a smaller ID are returned; null for the first page.
+     * @param limit The maximum number of conversations on the page.
+     * @return The page, with the cursor of the next one.
+     */
+    KeysetPage<Message> getShopInbox(int shopId, Integer beforeId, int limit);
+}
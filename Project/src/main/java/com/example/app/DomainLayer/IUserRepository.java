@@ -131,6 +131,8 @@ public interface IUserRepository {
 
         void addNotification(int userId, String title, String message);
 
+        void addNotifications(int userId, List<Notification> notifications); // Stores several at once
+
         List<String> getNotificationsAndClear(int userId);
 
         public List<Member> getOwners(int shopId);
@@ -0,0 +1,94 @@
+package com.example.app.DomainLayer;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A conversation in the inbox of a user or a shop, with the id of its latest
+ * message. Inboxes are listed by that id, newest first, so opening one reads
+ * a page of these instead of every message of the owner.
+ */
+@Entity
+@IdClass(InboxEntry.Key.class)
+@Table(name = "message_inbox", indexes = {
+        @Index(name = "idx_message_inbox_latest", columnList = "shopInbox, ownerId, lastMessageId") })
+public class InboxEntry {
+
+    @Id
+    private boolean shopInbox;
+
+    @Id
+    private int ownerId;
+
+    @Id
+    @Column(length = 32)
+    private String conversationId;
+
+    private int lastMessageId;
+
+    protected InboxEntry() {
+    }
+
+    public InboxEntry(boolean shopInbox, int ownerId, String conversationId, int lastMessageId) {
+        this.shopInbox = shopInbox;
+        this.ownerId = ownerId;
+        this.conversationId = conversationId;
+        this.lastMessageId = lastMessageId;
+    }
+
+    public boolean isShopInbox() {
+        return shopInbox;
+    }
+
+    public int getOwnerId() {
+        return ownerId;
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    public int getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public static class Key implements Serializable {
+        private boolean shopInbox;
+        private int ownerId;
+        private String conversationId;
+
+        public Key() {
+        }
+
+        public Key(boolean shopInbox, int ownerId, String conversationId) {
+            this.shopInbox = shopInbox;
+            this.ownerId = ownerId;
+            this.conversationId = conversationId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return shopInbox == other.shopInbox && ownerId == other.ownerId
+                    && Objects.equals(conversationId, other.conversationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shopInbox, ownerId, conversationId);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.app.DomainLayer;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import com.example.app.ApplicationLayer.OurArg;
+
+/**
+ * One page of a list read newest first by id, such as a message thread, an
+ * inbox, a purchase history or the bids screen. The next page holds the items
+ * with an id below {@code nextBeforeId}.
+ *
+ * @param items        the items of the page.
+ * @param nextBeforeId the cursor of the next page, or {@code null} if this is
+ *                     the last one.
+ */
+public record KeysetPage<T>(List<T> items, Integer nextBeforeId) {
+
+    // largest page one call returns
+    public static final int MAX_LIMIT = 100;
+
+    /**
+     * Builds the page of items fetched with the given limit; a full page may
+     * have more after it.
+     */
+    public static <T> KeysetPage<T> of(List<T> items, int limit, ToIntFunction<? super T> idOf) {
+        Integer next = items.size() == limit && !items.isEmpty()
+                ? idOf.applyAsInt(items.get(items.size() - 1))
+                : null;
+        return new KeysetPage<>(items, next);
+    }
+
+    /**
+     * @throws OurArg if the limit is not between 1 and {@link #MAX_LIMIT}.
+     */
+    public static void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new OurArg("Page limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+    }
+}
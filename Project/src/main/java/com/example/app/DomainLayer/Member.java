@@ -16,21 +16,21 @@ import com.example.app.DomainLayer.Roles.PermissionsEnum;
 import com.example.app.DomainLayer.Roles.Role;
 
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Table;
 import jakarta.persistence.Id;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Index;
 import jakarta.persistence.Transient;
 
 @Entity
-@Table(name = "members")
+@Table(name = "members", indexes = {
+        @Index(name = "idx_members_username", columnList = "username"),
+        @Index(name = "idx_members_suspended", columnList = "suspended") })
 public class Member extends User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int memberId;
 
     private volatile String username; // Username of the user
@@ -46,7 +46,8 @@ public class Member extends User {
     private volatile boolean isAdmin; // Admin status of the user
 
     @ElementCollection
-    @CollectionTable(name = "member_roles", joinColumns = @JoinColumn(name = "member_id"))
+    @CollectionTable(name = "member_roles", joinColumns = @JoinColumn(name = "member_id"),
+            indexes = @Index(name = "idx_member_roles_shop_id", columnList = "shop_id"))
     private final List<Role> roles; // List of roles associated with the user
 
     @ElementCollection
@@ -77,7 +78,7 @@ public class Member extends User {
 
     public Member() {
         super(); // Call the User class constructor
-        // memberId will be generated by JPA - don't assign it manually
+        // memberId is assigned by the repository's id allocator
         this.username = ""; // Default username
         this.password = ""; // Default password
         this.email = ""; // Default email address
@@ -95,8 +96,6 @@ public class Member extends User {
     public Member(int memberId, String username, String password, String email, String phoneNumber,
             String addressToRemove) {
         super(memberId); // Call the User class constructor
-        // Note: For JPA, we shouldn't manually assign memberId - let it be generated
-        // This constructor might be used for non-JPA scenarios
         this.memberId = memberId; // Initialize member ID
         this.username = username; // Initialize username
         this.password = password; // Initialize password
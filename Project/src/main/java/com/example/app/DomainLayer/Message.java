@@ -5,10 +5,14 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_conversation", columnList = "conversationId, messageId"),
+        @Index(name = "idx_messages_sender", columnList = "senderId, messageId"),
+        @Index(name = "idx_messages_receiver", columnList = "receiverId, messageId") })
 public class Message {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,6 +30,10 @@ public class Message {
 
     private final int previousMessageId;
 
+    // derived from the participants, see conversationIdOf
+    @Column(length = 32)
+    private String conversationId;
+
     private boolean isDeleted; // Flag to indicate if the message is deleted
 
     // JPA requires a no-arg constructor
@@ -36,6 +44,7 @@ public class Message {
         this.timestamp = "null";
         this.userToUser = false;
         this.previousMessageId = -1;
+        this.conversationId = null;
         this.isDeleted = false;
     }
 
@@ -48,6 +57,7 @@ public class Message {
         this.timestamp = timestamp;
         this.userToUser = userToUser;
         this.previousMessageId = previousMessageId;
+        this.conversationId = conversationIdOf(senderId, receiverId, userToUser);
         this.isDeleted = false;
     }
 
@@ -59,6 +69,7 @@ public class Message {
         this.timestamp = timestamp;
         this.userToUser = userToUser;
         this.previousMessageId = previousMessageId;
+        this.conversationId = conversationIdOf(senderId, receiverId, userToUser);
         this.isDeleted = false;
     }
 
@@ -90,6 +101,29 @@ public class Message {
         return previousMessageId;
     }
 
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    /**
+     * The conversation a message belongs to: the same for both directions
+     * between two users, and per user for messages to a shop.
+     */
+    public static String conversationIdOf(int senderId, int receiverId, boolean userToUser) {
+        if (userToUser) {
+            return userConversationId(senderId, receiverId);
+        }
+        return shopConversationId(receiverId, senderId);
+    }
+
+    public static String userConversationId(int userId, int otherUserId) {
+        return "u" + Math.min(userId, otherUserId) + "-" + Math.max(userId, otherUserId);
+    }
+
+    public static String shopConversationId(int shopId, int userId) {
+        return "s" + shopId + "-" + userId;
+    }
+
     public synchronized boolean isDeleted() {
         return isDeleted;
     }
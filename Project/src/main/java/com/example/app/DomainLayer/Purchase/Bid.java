@@ -37,6 +37,7 @@ public class Bid extends Purchase {
     private Integer highestBidderId; // -1 if no Bidder
     private LocalDateTime auctionStartTime;
     private LocalDateTime auctionEndTime;
+    private Long bidSeq; // sequence number of the last accepted auction bid, null if none
 
     /**
      * Constructs a new {@code Bid} with the specified user ID, store ID, and items.
@@ -180,6 +181,14 @@ public class Bid extends Purchase {
         return auctionEndTime;
     }
 
+    public long getBidSeq() {
+        return bidSeq == null ? 0 : bidSeq;
+    }
+
+    public void setBidSeq(long bidSeq) {
+        this.bidSeq = bidSeq;
+    }
+
     public void setAuctionStartTime(LocalDateTime minusMinutes) {
         this.auctionStartTime = minusMinutes;
     }
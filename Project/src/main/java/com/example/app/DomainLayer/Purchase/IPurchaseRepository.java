@@ -1,9 +1,12 @@
 package com.example.app.DomainLayer.Purchase;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import com.example.app.DomainLayer.KeysetPage;
+
 public interface IPurchaseRepository {
 
     /**
@@ -84,6 +87,26 @@ public interface IPurchaseRepository {
      */
     List<Reciept> getUserStorePurchases(int userId, int storeId);
 
+    /**
+     * Retrieves a page of the purchases made by a specific user, newest first.
+     *
+     * @param userId The ID of the user whose purchases to retrieve.
+     * @param beforeId Only purchases with a smaller ID are returned; null for the first page.
+     * @param limit The maximum number of purchases on the page.
+     * @return The page, with the cursor of the next one.
+     */
+    KeysetPage<Reciept> getUserPurchases(int userId, Integer beforeId, int limit);
+
+    /**
+     * Retrieves a page of the purchases made in a specific store, newest first.
+     *
+     * @param storeId The ID of the store whose purchases to retrieve.
+     * @param beforeId Only purchases with a smaller ID are returned; null for the first page.
+     * @param limit The maximum number of purchases on the page.
+     * @return The page, with the cursor of the next one.
+     */
+    KeysetPage<Reciept> getStorePurchases(int storeId, Integer beforeId, int limit);
+
     /**
      * Retrieves all bids.
      *
@@ -105,4 +128,33 @@ public interface IPurchaseRepository {
 
     public void addReciept(Reciept reciept);
 
+    /**
+     * Retrieves the auctions that have an end time and are not completed yet.
+     *
+     * @return the open auctions.
+     */
+    List<Bid> getOpenAuctions();
+
+    /**
+     * Marks the auction completed. Only the completion is written, so the bids
+     * stored with it are kept as they are.
+     *
+     * @param auctionId The auction to complete.
+     * @return whether this call completed it; false when it is not an open
+     *         auction.
+     */
+    boolean completeAuction(int auctionId);
+
+    /**
+     * Persists a batch of accepted auction bids: the highest bid and bidder
+     * after the batch, the sequence number of its last bid and the bidders
+     * that joined in it. Applied only while the auction is not completed and
+     * {@code bidSeq} is newer than the stored one, so a late batch never
+     * overwrites a newer one.
+     *
+     * @return whether the batch was applied.
+     */
+    boolean saveAuctionBids(int auctionId, int highestBid, int highestBidderId, long bidSeq,
+            Collection<Integer> newBidders);
+
 }
\ No newline at end of file
@@ -15,9 +15,8 @@ import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
 import jakarta.persistence.JoinColumn;
@@ -29,14 +28,16 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 
 @Entity
-@Table(name = "purchases")
+@Table(name = "purchases", indexes = {
+        @Index(name = "idx_purchases_user", columnList = "userId, purchaseId"),
+        @Index(name = "idx_purchases_store", columnList = "storeId, purchaseId"),
+        @Index(name = "idx_purchases_type_store", columnList = "purchase_type, storeId") })
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "purchase_type")
 @DiscriminatorValue("regular")
 public class Purchase {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     protected int purchaseId; // purchase ID
     protected int userId; // initiating user ID
     protected int storeId; // store ID
@@ -0,0 +1,322 @@
+package com.example.app.DomainLayer.Shop.Discount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.app.DomainLayer.Item.ItemCategory;
+import com.example.app.DomainLayer.Shop.Operator;
+
+/**
+ * The discounts of a shop compiled into an immutable evaluation plan.
+ *
+ * Pricing a basket with the plan gives exactly the result of running
+ * {@link Discount#applyDiscounts} over the discount list (stacking discounts
+ * first, then the rest, each group in list order), but the basket is loaded
+ * once into primitive arrays: quantities and categories per basket slot, the
+ * quantity of every item a policy looks at and the quantity per category.
+ * Policy trees become small predicate nodes over those aggregates, and the
+ * basket value policies compare against is only summed again after a price
+ * changed.
+ *
+ * Discounts or policies of a type the plan does not know are not compiled;
+ * {@link #isCompiled()} is false and the caller evaluates the list itself.
+ */
+public final class DiscountPlan {
+
+    private static final int NO_CATEGORY = ItemCategory.values().length;
+
+    private enum Kind {
+        GLOBAL, ITEM, CATEGORY
+    }
+
+    private record Step(Kind kind, boolean isDouble, int keepPercent, int itemId, int category, Node policy) {
+    }
+
+    private interface Node {
+        boolean test(Basket basket);
+    }
+
+    private static final Node ALWAYS = basket -> true;
+
+    private record ItemThreshold(int watched, int threshold) implements Node {
+        public boolean test(Basket basket) {
+            return basket.watchedQty[watched] >= threshold;
+        }
+    }
+
+    private record CategoryThreshold(int category, int threshold) implements Node {
+        public boolean test(Basket basket) {
+            return basket.categoryQty[category] >= threshold;
+        }
+    }
+
+    private record MinBasketValue(double value) implements Node {
+        public boolean test(Basket basket) {
+            return basket.value() >= value;
+        }
+    }
+
+    private record Composite(Node left, Node right, Operator operator) implements Node {
+        public boolean test(Basket basket) {
+            switch (operator) {
+                case AND:
+                    return left.test(basket) && right.test(basket);
+                case OR:
+                    return left.test(basket) || right.test(basket);
+                default:
+                    return left.test(basket) ^ right.test(basket);
+            }
+        }
+    }
+
+    /**
+     * One basket being priced; slots follow the iteration order of the basket
+     * map so sums come out exactly as in the list evaluation.
+     */
+    private static final class Basket {
+        final int size;
+        final int[] itemIds;
+        final int[] quantities;
+        final int[] categories;
+        final double[] fullPrices;
+        final double[] prices;
+        final double[] lineTotals;
+        final int[] watchedQty;
+        final int[] categoryQty = new int[NO_CATEGORY + 1];
+        double value;
+        boolean valueStale = true;
+
+        Basket(int size, int watched) {
+            this.size = size;
+            this.itemIds = new int[size];
+            this.quantities = new int[size];
+            this.categories = new int[size];
+            this.fullPrices = new double[size];
+            this.prices = new double[size];
+            this.lineTotals = new double[size];
+            this.watchedQty = new int[watched];
+        }
+
+        int slotOf(int itemId) {
+            for (int i = 0; i < size; i++) {
+                if (itemIds[i] == itemId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // DoubleStream.sum compensates rounding, as the basket value policy of
+        // the list evaluation does, so thresholds compare the very same value
+        double value() {
+            if (valueStale) {
+                for (int i = 0; i < size; i++) {
+                    lineTotals[i] = prices[i] * quantities[i];
+                }
+                value = Arrays.stream(lineTotals).sum();
+                valueStale = false;
+            }
+            return value;
+        }
+
+        // the price Shop charges, summed left to right as it always was
+        double total() {
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                total += prices[i] * quantities[i];
+            }
+            return total;
+        }
+    }
+
+    private final long version;
+    private final Step[] steps;
+    private final int[] watchedItems;
+
+    private DiscountPlan(long version, Step[] steps, int[] watchedItems) {
+        this.version = version;
+        this.steps = steps;
+        this.watchedItems = watchedItems;
+    }
+
+    /**
+     * @param discounts the shop's discounts, in the order they were added.
+     * @param version   the shop's discount version the plan is built from.
+     */
+    public static DiscountPlan compile(List<Discount> discounts, long version) {
+        TreeSet<Integer> watched = new TreeSet<>();
+        List<Discount> ordered = new ArrayList<>(discounts.size());
+        for (Discount discount : discounts) {
+            if (discount.isDouble()) {
+                ordered.add(discount);
+            }
+        }
+        for (Discount discount : discounts) {
+            if (!discount.isDouble()) {
+                ordered.add(discount);
+            }
+        }
+        for (Discount discount : ordered) {
+            if (!collectWatched(discount.getPolicy(), watched)) {
+                return new DiscountPlan(version, null, null);
+            }
+        }
+        int[] watchedItems = watched.stream().mapToInt(Integer::intValue).toArray();
+
+        List<Step> steps = new ArrayList<>(ordered.size());
+        for (Discount discount : ordered) {
+            Node policy = compile(discount.getPolicy(), watchedItems);
+            int keep = 100 - discount.getPercentage();
+            if (discount.getClass() == GlobalDiscount.class) {
+                steps.add(new Step(Kind.GLOBAL, discount.isDouble(), keep, 0, 0, policy));
+            } else if (discount.getClass() == SingleDiscount.class) {
+                // an item discount without an item never matches
+                if (discount.getItemId() != null) {
+                    steps.add(new Step(Kind.ITEM, discount.isDouble(), keep, discount.getItemId(), 0, policy));
+                }
+            } else if (discount.getClass() == CategoryDiscount.class) {
+                steps.add(new Step(Kind.CATEGORY, discount.isDouble(), keep, 0,
+                        categorySlot(discount.getItemCategory()), policy));
+            } else {
+                return new DiscountPlan(version, null, null);
+            }
+        }
+        return new DiscountPlan(version, steps.toArray(new Step[0]), watchedItems);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isCompiled() {
+        return steps != null;
+    }
+
+    /**
+     * Prices the basket after discounts.
+     *
+     * @param items     item id to quantity.
+     * @param prices    the shop's item prices.
+     * @param itemsCat  item id to category, may be missing entries.
+     */
+    public double apply(Map<Integer, Integer> items, Map<Integer, AtomicInteger> prices,
+            Map<Integer, ItemCategory> itemsCat) {
+        Basket basket = new Basket(items.size(), watchedItems.length);
+        int slot = 0;
+        for (Map.Entry<Integer, Integer> entry : items.entrySet()) {
+            int itemId = entry.getKey();
+            int qty = entry.getValue();
+            int category = categorySlot(itemsCat == null ? null : itemsCat.get(itemId));
+            basket.itemIds[slot] = itemId;
+            basket.quantities[slot] = qty;
+            basket.categories[slot] = category;
+            basket.fullPrices[slot] = prices.get(itemId).get();
+            basket.prices[slot] = basket.fullPrices[slot];
+            basket.categoryQty[category] += qty;
+            int watched = Arrays.binarySearch(watchedItems, itemId);
+            if (watched >= 0) {
+                basket.watchedQty[watched] = qty;
+            }
+            slot++;
+        }
+
+        for (Step step : steps) {
+            switch (step.kind()) {
+                case GLOBAL:
+                    if (step.policy().test(basket)) {
+                        for (int i = 0; i < basket.size; i++) {
+                            if (basket.quantities[i] > 0) {
+                                discount(basket, i, step);
+                            }
+                        }
+                    }
+                    break;
+                case CATEGORY:
+                    if (step.policy().test(basket)) {
+                        for (int i = 0; i < basket.size; i++) {
+                            if (basket.quantities[i] > 0 && basket.categories[i] == step.category()) {
+                                discount(basket, i, step);
+                            }
+                        }
+                    }
+                    break;
+                case ITEM:
+                    int i = basket.slotOf(step.itemId());
+                    if (i >= 0 && basket.quantities[i] > 0 && step.policy().test(basket)) {
+                        discount(basket, i, step);
+                    }
+                    break;
+            }
+        }
+        return basket.total();
+    }
+
+    private static void discount(Basket basket, int slot, Step step) {
+        if (step.isDouble()) {
+            basket.prices[slot] = basket.prices[slot] * step.keepPercent() / 100;
+        } else {
+            basket.prices[slot] = Math.min(basket.prices[slot], basket.fullPrices[slot] * step.keepPercent() / 100);
+        }
+        basket.valueStale = true;
+    }
+
+    private static int categorySlot(ItemCategory category) {
+        return category == null ? NO_CATEGORY : category.ordinal();
+    }
+
+    // false when the tree holds a policy type the plan cannot compile
+    private static boolean collectWatched(Policy policy, TreeSet<Integer> watched) {
+        if (policy == null) {
+            return true;
+        }
+        if (policy.getClass() == PolicyLeaf.class) {
+            PolicyLeaf leaf = (PolicyLeaf) policy;
+            if (leaf.getThreshold() != null && leaf.getItemId() != null) {
+                watched.add(leaf.getItemId());
+            }
+            return true;
+        }
+        if (policy.getClass() == PolicyComposite.class) {
+            PolicyComposite composite = (PolicyComposite) policy;
+            if (composite.getPolicy1() != null && composite.getPolicy2() != null
+                    && composite.getOperator() == null) {
+                return false;
+            }
+            return collectWatched(composite.getPolicy1(), watched)
+                    && collectWatched(composite.getPolicy2(), watched);
+        }
+        return false;
+    }
+
+    // mirrors PolicyLeaf.test and PolicyComposite.test
+    private static Node compile(Policy policy, int[] watchedItems) {
+        if (policy == null) {
+            return ALWAYS;
+        }
+        if (policy instanceof PolicyLeaf leaf) {
+            if (leaf.getThreshold() != null && leaf.getItemId() != null) {
+                return new ItemThreshold(Arrays.binarySearch(watchedItems, leaf.getItemId()), leaf.getThreshold());
+            }
+            if (leaf.getThreshold() != null && leaf.getCategory() != null) {
+                return new CategoryThreshold(leaf.getCategory().ordinal(), leaf.getThreshold());
+            }
+            if (leaf.getBasketValue() != null) {
+                return new MinBasketValue(leaf.getBasketValue());
+            }
+            return ALWAYS;
+        }
+        PolicyComposite composite = (PolicyComposite) policy;
+        if (composite.getPolicy1() == null) {
+            return compile(composite.getPolicy2(), watchedItems);
+        }
+        if (composite.getPolicy2() == null) {
+            return compile(composite.getPolicy1(), watchedItems);
+        }
+        return new Composite(compile(composite.getPolicy1(), watchedItems),
+                compile(composite.getPolicy2(), watchedItems), composite.getOperator());
+    }
+}
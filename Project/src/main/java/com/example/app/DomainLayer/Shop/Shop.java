@@ -8,11 +8,13 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.example.app.ApplicationLayer.Purchase.ShippingMethod;
 import com.example.app.DomainLayer.Item.ItemCategory;
 import com.example.app.DomainLayer.Shop.Discount.CategoryDiscount;
 import com.example.app.DomainLayer.Shop.Discount.Discount;
+import com.example.app.DomainLayer.Shop.Discount.DiscountPlan;
 import com.example.app.DomainLayer.Shop.Discount.GlobalDiscount;
 import com.example.app.DomainLayer.Shop.Discount.Policy;
 import com.example.app.DomainLayer.Shop.Discount.PolicyComposite;
@@ -25,8 +27,6 @@ import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.MapKeyColumn;
@@ -49,7 +49,6 @@ public class Shop {
 
     // Immutable fields (set once at construction).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
     private String name;
 
@@ -82,10 +81,14 @@ public class Shop {
     private Map<Integer, AtomicInteger> itemsPrices;
 
     @Transient
-    private Map<Integer, Object> itemAcquireLocks;
+    private ShippingMethod shippingMethod;
 
+    // bumped on every change to the discounts; the plan is recompiled when it lags
     @Transient
-    private ShippingMethod shippingMethod;
+    private final AtomicLong discountsVersion = new AtomicLong();
+
+    @Transient
+    private volatile DiscountPlan discountPlan;
 
     private String shippingMethodName;
 
@@ -116,7 +119,6 @@ public class Shop {
         this.reviews = new CopyOnWriteArrayList<>();
         this.items = new ConcurrentHashMap<>();
         this.itemsPrices = new ConcurrentHashMap<>();
-        this.itemAcquireLocks = new ConcurrentHashMap<>();
         this.shippingMethod = shippingMethod;
         this.shippingMethodName = shippingMethod == null ? "" : shippingMethod.getClass().getSimpleName();
         this.policytemp = null;
@@ -133,7 +135,6 @@ public class Shop {
         this.reviews = new CopyOnWriteArrayList<>();
         this.items = new ConcurrentHashMap<>();
         this.itemsPrices = new ConcurrentHashMap<>();
-        this.itemAcquireLocks = new ConcurrentHashMap<>();
         this.shippingMethod = new WSEPShipping();
         this.shippingMethodName = "";
         this.policytemp = null;
@@ -236,42 +237,31 @@ public class Shop {
     }
 
     /**
-     * Completely removes an item (and its price) from the shop,
-     * using a per‐item lock to avoid races, and then
-     * removes that lock from the lock‐map.
+     * Completely removes an item (and its price) from the shop.
      *
      * @param itemId the item identifier to remove
      */
     public void removeItemFromShop(int itemId) {
-        // 1) Ensure item exists
-        if (!items.containsKey(itemId)) {
+        if (items.remove(itemId) == null) {
             throw new IllegalArgumentException("Item not found: " + itemId);
         }
-
-        // 2) Grab (or create) the per‐item lock object
-        Object lock = itemAcquireLocks.computeIfAbsent(itemId, k -> new Object());
-
-        // 3) Under that lock, remove both quantity and price
-        synchronized (lock) {
-            items.remove(itemId);
-            itemsPrices.remove(itemId);
-        }
-
-        // 4) Finally, drop the lock entry itself
-        itemAcquireLocks.remove(itemId);
+        itemsPrices.remove(itemId);
     }
 
+    /**
+     * Takes up to the given quantity off the stock; the item is removed once
+     * nothing is left.
+     */
     public void removeItemQuantity(int itemId, int quantity) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be positive");
         }
-        AtomicInteger currentQty = items.get(itemId);
-        if (currentQty != null) {
-            currentQty.addAndGet(-quantity);
-            if (currentQty.get() <= 0) {
-                items.remove(itemId);
-            }
-        } else {
+        boolean[] found = { false };
+        items.computeIfPresent(itemId, (id, qty) -> {
+            found[0] = true;
+            return qty.addAndGet(-quantity) <= 0 ? null : qty;
+        });
+        if (!found[0]) {
             throw new IllegalArgumentException("Item not found: " + itemId);
         }
     }
@@ -357,7 +347,16 @@ public class Shop {
         return total;
     }
 
+    /**
+     * Prices the basket after all discounts whose policies hold. Runs on the
+     * compiled {@link DiscountPlan}; the discount list is only walked directly
+     * when it holds types the plan cannot compile.
+     */
     public double applyDiscount(Map<Integer, Integer> items, Map<Integer, ItemCategory> itemsCat) {
+        DiscountPlan plan = discountPlan();
+        if (plan.isCompiled()) {
+            return plan.apply(items, itemsPrices, itemsCat);
+        }
         Map<Integer, Double> itemsDiscountedPrices = new HashMap<>();
         for (Map.Entry<Integer, Integer> entry : items.entrySet()) {
             int itemId = entry.getKey();
@@ -390,6 +389,16 @@ public class Shop {
         return totalPrice;
     }
 
+    private DiscountPlan discountPlan() {
+        long version = discountsVersion.get();
+        DiscountPlan plan = discountPlan;
+        if (plan == null || plan.getVersion() != version) {
+            plan = DiscountPlan.compile(discounts, version);
+            discountPlan = plan;
+        }
+        return plan;
+    }
+
     /**
      * Applies a global percentage discount to the total price of any purchase.
      *
@@ -407,6 +416,7 @@ public class Shop {
         // delete previous global discount - if exists
         removeGlobalDiscount();
         discounts.add(discount);
+        discountsVersion.incrementAndGet();
     }
 
     /**
@@ -420,6 +430,7 @@ public class Shop {
         for (int i = 0; i < discounts.size(); i++) {
             if (discounts.get(i) instanceof GlobalDiscount) {
                 discounts.remove(i);
+                discountsVersion.incrementAndGet();
                 return;
             }
         }
@@ -443,6 +454,7 @@ public class Shop {
         // delete previous discount for this item - if exists
         removeDiscountForItem(itemId);
         discounts.add(discount);
+        discountsVersion.incrementAndGet();
     }
 
     /**
@@ -455,6 +467,7 @@ public class Shop {
             if (discounts.get(i) instanceof SingleDiscount
                     && ((SingleDiscount) discounts.get(i)).getItemId() == itemId) {
                 discounts.remove(i);
+                discountsVersion.incrementAndGet();
                 return;
             }
         }
@@ -472,6 +485,7 @@ public class Shop {
         // delete previous discount for this category - if exists
         removeCategoryDiscount(category);
         discounts.add(discount);
+        discountsVersion.incrementAndGet();
     }
 
     public void removeCategoryDiscount(ItemCategory category) {
@@ -479,6 +493,7 @@ public class Shop {
             if (discounts.get(i) instanceof CategoryDiscount
                     && ((CategoryDiscount) discounts.get(i)).getCategory() == category) {
                 discounts.remove(i);
+                discountsVersion.incrementAndGet();
                 return;
             }
         }
@@ -489,9 +504,15 @@ public class Shop {
     /**
      * Processes a purchase of items:
      * 1) Checks purchase policies up front
-     * 2) Locks each item & deducts stock
+     * 2) Reserves the stock of every item, all or nothing
      * 3) Computes total, applies discounts, and returns the final amount
-     * If anything fails, rolls back any stock modifications.
+     * If anything fails, gives back the stock it reserved.
+     *
+     * Reservations are compare-and-set decrements in item id order, so buyers
+     * of different items never wait for each other and buyers of the same item
+     * only retry when they actually raced. Giving stock back adds it to
+     * whatever the counter holds by then, which keeps concurrent purchases and
+     * restocks intact.
      *
      * @param purchaseList map of itemId→quantity to purchase
      * @return the total price after discounts
@@ -502,25 +523,20 @@ public class Shop {
         // throw new IllegalStateException("Purchase policy violation");
         // }
 
-        // remember for rollback
-        Map<Integer, Integer> originalStock = new HashMap<>();
+        List<Map.Entry<Integer, Integer>> order = new ArrayList<>(purchaseList.entrySet());
+        order.sort(Map.Entry.comparingByKey());
+        AtomicInteger[] taken = new AtomicInteger[order.size()];
 
         try {
-            // 2) lock & deduct each item
-            for (Map.Entry<Integer, Integer> e : purchaseList.entrySet()) {
-                int itemId = e.getKey();
-                int qty = e.getValue();
-
-                Object lock = itemAcquireLocks.computeIfAbsent(itemId, k -> new Object());
-                synchronized (lock) {
-                    AtomicInteger availAtom = items.get(itemId);
-                    int avail = availAtom != null ? availAtom.get() : 0;
-                    if (avail < qty) {
-                        throw new IllegalArgumentException("Insufficient stock for item " + itemId);
-                    }
-                    originalStock.put(itemId, avail);
-                    availAtom.addAndGet(-qty);
+            // 2) reserve each item
+            for (int i = 0; i < order.size(); i++) {
+                int itemId = order.get(i).getKey();
+                int qty = order.get(i).getValue();
+                AtomicInteger stock = items.get(itemId);
+                if (stock == null || !reserve(stock, qty)) {
+                    throw new IllegalArgumentException("Insufficient stock for item " + itemId);
                 }
+                taken[i] = stock;
             }
 
             // 3) compute total + apply discounts
@@ -529,30 +545,31 @@ public class Shop {
             return finalTotal;
 
         } catch (RuntimeException ex) {
-            // rollback only those we already touched
-            for (Map.Entry<Integer, Integer> r : originalStock.entrySet()) {
-                int itemId = r.getKey();
-                int prevQty = r.getValue();
-                Object lock = itemAcquireLocks.get(itemId);
-                synchronized (lock) {
-                    items.get(itemId).set(prevQty);
-                }
+            // give back only what we took
+            for (int i = 0; i < taken.length && taken[i] != null; i++) {
+                taken[i].addAndGet(order.get(i).getValue());
             }
             throw ex;
         }
     }
 
+    private static boolean reserve(AtomicInteger stock, int qty) {
+        while (true) {
+            int avail = stock.get();
+            if (avail < qty) {
+                return false;
+            }
+            if (stock.compareAndSet(avail, avail - qty)) {
+                return true;
+            }
+        }
+    }
+
     public void rollBackPurchase(Map<Integer, Integer> purchaseList) {
         for (Map.Entry<Integer, Integer> e : purchaseList.entrySet()) {
-            int itemId = e.getKey();
-            int qty = e.getValue();
-
-            Object lock = itemAcquireLocks.computeIfAbsent(itemId, k -> new Object());
-            synchronized (lock) {
-                AtomicInteger availAtom = items.get(itemId);
-                if (availAtom != null) {
-                    availAtom.addAndGet(qty);
-                }
+            AtomicInteger stock = items.get(e.getKey());
+            if (stock != null) {
+                stock.addAndGet(e.getValue());
             }
         }
     }
@@ -624,6 +641,8 @@ public class Shop {
 
     @PostLoad
     private void postLoad() {
+        // discounts were (re)loaded
+        discountsVersion.incrementAndGet();
         // Sync persistedItems to items
         for (Map.Entry<Integer, Integer> entry : persistedItems.entrySet()) {
             items.put(entry.getKey(), new AtomicInteger(entry.getValue()));
@@ -634,18 +653,55 @@ public class Shop {
         }
     }
 
+    /**
+     * Takes over stock quantities the database already holds, after the
+     * repository changed those rows directly. The persisted copy is updated
+     * as well, so a later save of the shop never writes an older value back.
+     *
+     * @param quantities item id to its current quantity in the database.
+     */
+    public void syncItemQuantities(Map<Integer, Integer> quantities) {
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            AtomicInteger stock = items.get(entry.getKey());
+            if (stock != null) {
+                stock.set(entry.getValue());
+            } else {
+                items.put(entry.getKey(), new AtomicInteger(entry.getValue()));
+            }
+            persistedItems.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Adds the given amounts (negative to take) to the live stock counters
+     * only, for copies of the shop that mirror changes already saved.
+     *
+     * @param deltas item id to the change in its quantity.
+     */
+    public void adjustItemQuantities(Map<Integer, Integer> deltas) {
+        for (Map.Entry<Integer, Integer> entry : deltas.entrySet()) {
+            AtomicInteger stock = items.get(entry.getKey());
+            if (stock != null) {
+                stock.addAndGet(entry.getValue());
+            }
+        }
+    }
+
     @PrePersist
     @PreUpdate
     public void prePersist() {
-        // Sync items to persistedItems
-        persistedItems.clear();
-        for (Map.Entry<Integer, AtomicInteger> entry : items.entrySet()) {
-            persistedItems.put(entry.getKey(), entry.getValue().get());
-        }
-        // Sync itemsPrices to persistedPrices
-        persistedItemsPrices.clear();
-        for (Map.Entry<Integer, AtomicInteger> entry : itemsPrices.entrySet()) {
-            persistedItemsPrices.put(entry.getKey(), entry.getValue().get());
+        // copy only what changed, so unchanged item and price rows are not rewritten
+        syncPersisted(items, persistedItems);
+        syncPersisted(itemsPrices, persistedItemsPrices);
+    }
+
+    private static void syncPersisted(Map<Integer, AtomicInteger> live, Map<Integer, Integer> persisted) {
+        persisted.keySet().retainAll(live.keySet());
+        for (Map.Entry<Integer, AtomicInteger> entry : live.entrySet()) {
+            Integer value = entry.getValue().get();
+            if (!value.equals(persisted.get(entry.getKey()))) {
+                persisted.put(entry.getKey(), value);
+            }
         }
     }
 
@@ -1,7 +1,10 @@
 package com.example.app.DomainLayer;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.List;
@@ -17,17 +20,31 @@ import jakarta.persistence.PostLoad;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 
+/**
+ * A user's cart: baskets of products per shop, and the products the user won
+ * in bids.
+ *
+ * The runtime maps are what the cart works on. For persistence every cart line
+ * is one row keyed by (shop, product); mutations only mark the lines they
+ * touched, and syncing writes just those into the persistent collections, so
+ * Hibernate inserts, updates or deletes the changed rows and leaves the rest of
+ * the cart alone.
+ */
 @Embeddable
 public class ShoppingCart {
     // JPA-compatible collections for persistence
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "shopping_cart_items")
-    private List<CartItem> persistentItems = new ArrayList<>();
+    @Column(name = "quantity")
+    private Map<CartKey, Integer> persistentItems = new HashMap<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "shopping_cart_bids")
-    @Column(name = "bid_product_id")
-    private List<String> persistentBids = new ArrayList<>(); // Format: "shopId-productId"
+    private Set<CartKey> persistentBids = new HashSet<>();
+
+    // lines changed since the last sync
+    @Transient
+    private final Set<CartKey> dirty = ConcurrentHashMap.newKeySet();
 
     // Transient collections for runtime performance
     @Transient
@@ -40,8 +57,8 @@ public class ShoppingCart {
     public ShoppingCart() {
         this.items = new ConcurrentHashMap<>();
         this.bids = new ConcurrentHashMap<>();
-        this.persistentItems = new ArrayList<>();
-        this.persistentBids = new ArrayList<>();
+        this.persistentItems = new HashMap<>();
+        this.persistentBids = new HashSet<>();
         // Load from persistent collections if they exist
         loadFromPersistentCollections();
     }
@@ -50,54 +67,75 @@ public class ShoppingCart {
      * Load data from persistent collections into transient runtime collections
      */
     public void loadFromPersistentCollections() {
-        // Load items
-        for (CartItem item : persistentItems) {
-            items.putIfAbsent(item.getShopId(), new ConcurrentHashMap<>());
-            items.get(item.getShopId()).put(item.getProductId(), item.getQuantity());
+        // Load items; lines changed but not synced yet keep their runtime value
+        for (Map.Entry<CartKey, Integer> line : persistentItems.entrySet()) {
+            CartKey key = line.getKey();
+            if (!dirty.contains(key)) {
+                items.computeIfAbsent(key.getShopId(), id -> new ConcurrentHashMap<>())
+                        .put(key.getProductId(), line.getValue());
+            }
         }
 
         // Load bids
-        for (String bidKey : persistentBids) {
-            String[] parts = bidKey.split("-");
-            if (parts.length == 2) {
-                try {
-                    Integer shopId = Integer.valueOf(parts[0]);
-                    Integer productId = Integer.valueOf(parts[1]);
-                    bids.putIfAbsent(shopId, new CopyOnWriteArrayList<>());
-                    if (!bids.get(shopId).contains(productId)) {
-                        bids.get(shopId).add(productId);
-                    }
-                } catch (NumberFormatException e) {
-                    // Skip invalid entries
-                }
+        for (CartKey key : persistentBids) {
+            if (!dirty.contains(key)) {
+                CopyOnWriteArrayList<Integer> shopBids = bids.computeIfAbsent(key.getShopId(),
+                        id -> new CopyOnWriteArrayList<>());
+                shopBids.addIfAbsent(key.getProductId());
             }
         }
     }
 
     /**
-     * Sync transient collections to persistent collections for database storage
+     * Writes the lines changed since the last sync into the persistent
+     * collections; lines no longer in the cart are removed from them.
      */
-    public void syncToPersistentCollections() {
-        // Clear and rebuild persistent items
-        persistentItems.clear();
-        for (Map.Entry<Integer, ConcurrentHashMap<Integer, Integer>> shopEntry : items.entrySet()) {
-            Integer shopId = shopEntry.getKey();
-            for (Map.Entry<Integer, Integer> itemEntry : shopEntry.getValue().entrySet()) {
-                persistentItems.add(new CartItem(shopId, itemEntry.getKey(), itemEntry.getValue()));
+    public synchronized void syncToPersistentCollections() {
+        for (Iterator<CartKey> it = dirty.iterator(); it.hasNext();) {
+            CartKey key = it.next();
+            it.remove();
+
+            ConcurrentHashMap<Integer, Integer> basket = items.get(key.getShopId());
+            Integer quantity = basket == null ? null : basket.get(key.getProductId());
+            if (quantity == null) {
+                persistentItems.remove(key);
+            } else if (!quantity.equals(persistentItems.get(key))) {
+                persistentItems.put(key, quantity);
+            }
+
+            CopyOnWriteArrayList<Integer> shopBids = bids.get(key.getShopId());
+            if (shopBids != null && shopBids.contains(key.getProductId())) {
+                persistentBids.add(key);
+            } else {
+                persistentBids.remove(key);
             }
         }
+    }
 
-        // Clear and rebuild persistent bids
-        persistentBids.clear();
-        for (Map.Entry<Integer, CopyOnWriteArrayList<Integer>> bidEntry : bids.entrySet()) {
-            Integer shopId = bidEntry.getKey();
-            for (Integer productId : bidEntry.getValue()) {
-                persistentBids.add(shopId + "-" + productId);
+    private void markDirty(int shopId, int productId) {
+        dirty.add(new CartKey(shopId, productId));
+    }
+
+    // every line of the shop's basket and bids
+    private void markBasketDirty(int shopId) {
+        ConcurrentHashMap<Integer, Integer> basket = items.get(shopId);
+        if (basket != null) {
+            for (Integer productId : basket.keySet()) {
+                markDirty(shopId, productId);
+            }
+        }
+        CopyOnWriteArrayList<Integer> shopBids = bids.get(shopId);
+        if (shopBids != null) {
+            for (Integer productId : shopBids) {
+                markDirty(shopId, productId);
             }
         }
     }
 
     public void clearCart() {
+        for (Integer shopId : getShopIds()) {
+            markBasketDirty(shopId);
+        }
         items.clear();
         bids.clear();
         syncToPersistentCollections();
@@ -109,6 +147,7 @@ public class ShoppingCart {
     }
 
     public void removeBasket(int shopId) {
+        markBasketDirty(shopId);
         items.remove(shopId);
         bids.remove(shopId);
         syncToPersistentCollections();
@@ -121,6 +160,7 @@ public class ShoppingCart {
     public void addItem(int shopId, int productId, int quantity) {
         items.putIfAbsent(shopId, new ConcurrentHashMap<>());
         items.get(shopId).merge(productId, quantity, Integer::sum); // Thread-safe add/update
+        markDirty(shopId, productId);
         syncToPersistentCollections();
     }
 
@@ -136,12 +176,15 @@ public class ShoppingCart {
         if (shopBids != null) {
             shopBids.remove(Integer.valueOf(productId));
         }
+        markDirty(shopId, productId);
         syncToPersistentCollections();
     }
 
     public void setBasket(int shopId, HashMap<Integer, Integer> basket) {
         ConcurrentHashMap<Integer, Integer> concurrentBasket = new ConcurrentHashMap<>(basket);
+        markBasketDirty(shopId);
         items.put(shopId, concurrentBasket);
+        markBasketDirty(shopId);
         syncToPersistentCollections();
     }
 
@@ -157,6 +200,7 @@ public class ShoppingCart {
         if (shopItems != null) {
             shopItems.put(productId, quantity);
         }
+        markDirty(shopId, productId);
         syncToPersistentCollections();
     }
 
@@ -170,6 +214,7 @@ public class ShoppingCart {
             synchronized (currentBasket) { // Synchronize per basket for compound updates
                 for (Integer productId : otherBasket.keySet()) {
                     currentBasket.merge(productId, otherBasket.get(productId), Integer::sum);
+                    markDirty(shopId, productId);
                 }
             }
         }
@@ -209,6 +254,7 @@ public class ShoppingCart {
             synchronized (shopItems) {
                 for (Integer productId : newShopItems.keySet()) {
                     shopItems.merge(productId, newShopItems.get(productId), Integer::sum);
+                    markDirty(shopId, productId);
                 }
             }
         }
@@ -247,6 +293,7 @@ public class ShoppingCart {
                 Integer quantity = entry.getValue();
                 shopItems.merge(productId, quantity, Integer::sum); // Add to the basket
             }
+            markDirty(shopId, entry.getKey());
         }
         syncToPersistentCollections();
 
@@ -280,11 +327,13 @@ public class ShoppingCart {
             throw new OurRuntime("item or shop not in cart. ", shopID, itemID, addOrRemove);
         int quantity = items.get(shopID).get(itemID);
         items.get(shopID).put(itemID, quantity + addOrRemove);
+        markDirty(shopID, itemID);
         syncToPersistentCollections();
     }
 
     public void removeItemFromCart(int shopID, int itemID) {
         items.get(shopID).remove(itemID);
+        markDirty(shopID, itemID);
         syncToPersistentCollections();
     }
 
@@ -305,6 +354,7 @@ public class ShoppingCart {
                 if (shopItems != null) {
                     shopItems.remove(bidId);
                 }
+                markDirty(shopId, bidId);
             }
         }
         syncToPersistentCollections();
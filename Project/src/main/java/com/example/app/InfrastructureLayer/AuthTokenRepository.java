@@ -1,8 +1,13 @@
 package com.example.app.InfrastructureLayer;
 
 import java.util.Date;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
@@ -11,24 +16,72 @@ import com.example.app.ApplicationLayer.OurArg;
 import com.example.app.DomainLayer.AuthToken;
 import com.example.app.DomainLayer.IAuthTokenRepository;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 @Repository
 @Profile({ "no-db | test", "!no-db & !test" })
 public class AuthTokenRepository implements IAuthTokenRepository {
-    private Map<Integer, com.example.app.DomainLayer.AuthToken> authTokenMap; // Maps user IDs to their authentication
-                                                                              // tokens
+    private static final long SWEEP_INTERVAL_MS = 60_000;
+
+    // userId -> token, the primary index
+    private final Map<Integer, AuthToken> authTokenMap;
+    // token string -> userId, kept in step with authTokenMap under its per-key lock
+    private final Map<String, Integer> userIdByToken;
+    // tokens ordered by the expiration they had when stored, consumed by the sweeper
+    private final ConcurrentSkipListSet<ExpiryEntry> expiryQueue;
+
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Expiration snapshot of a stored token. Entries go stale when a token is
+     * replaced or removed; the sweeper simply drops those.
+     */
+    private record ExpiryEntry(long expiresAt, int userId, String token) implements Comparable<ExpiryEntry> {
+        @Override
+        public int compareTo(ExpiryEntry other) {
+            int cmp = Long.compare(expiresAt, other.expiresAt);
+            if (cmp != 0)
+                return cmp;
+            cmp = Integer.compare(userId, other.userId);
+            if (cmp != 0)
+                return cmp;
+            return token.compareTo(other.token);
+        }
+    }
 
     public AuthTokenRepository() {
         authTokenMap = new ConcurrentHashMap<>();
+        userIdByToken = new ConcurrentHashMap<>();
+        expiryQueue = new ConcurrentSkipListSet<>();
+    }
+
+    @PostConstruct
+    public void startSweeper() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "auth-token-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::purgeExpiredTokens, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
     }
 
     public AuthToken getAuthToken(int userId) {
         AuthToken token = authTokenMap.get(userId);
-        if (token == null) {
-            return null; // Token not found
-        }
-        if (token.isExpired()) {
-            removeAuthToken(userId);
-            return null;
+        if (token == null || token.isExpired()) {
+            return null; // Token not found, or expired and waiting for the sweeper
         }
         return token;
     }
@@ -40,26 +93,76 @@ public class AuthTokenRepository implements IAuthTokenRepository {
         if (userId <= 0) {
             throw new OurArg("User ID must be positive");
         }
-        if (token.getExpirationTime().after(new Date()))
-            authTokenMap.put(userId, token);
-        else
+        if (!token.getExpirationTime().after(new Date()))
             throw new OurArg("Token has expired");
+
+        authTokenMap.compute(userId, (id, previous) -> {
+            if (previous != null) {
+                unlink(id, previous);
+            }
+            userIdByToken.put(token.getToken(), id);
+            return token;
+        });
+        expiryQueue.add(new ExpiryEntry(token.getExpirationTime().getTime(), userId, token.getToken()));
     }
 
     public void removeAuthToken(int userId) {
-        authTokenMap.remove(userId);
+        authTokenMap.computeIfPresent(userId, (id, current) -> {
+            unlink(id, current);
+            return null;
+        });
+    }
+
+    // must be called while holding the authTokenMap entry for userId
+    private void unlink(int userId, AuthToken token) {
+        userIdByToken.remove(token.getToken(), userId);
+        // best effort, a stale entry left behind is dropped by the sweeper
+        expiryQueue.remove(new ExpiryEntry(token.getExpirationTime().getTime(), userId, token.getToken()));
     }
 
     public int getUserIdByToken(String token) {
         if (token == null || token.isEmpty()) {
             throw new OurArg("Token cannot be null");
         }
-        for (Map.Entry<Integer, AuthToken> entry : authTokenMap.entrySet()) {
-            if (entry.getValue().getToken().equals(token)) {
-                return entry.getKey();
+        Integer userId = userIdByToken.get(token);
+        return userId == null ? -1 : userId; // -1 when the token is not found
+    }
+
+    /**
+     * Removes every token whose expiration has passed. Runs periodically on the
+     * sweeper thread; walks only the expired prefix of the expiry queue.
+     *
+     * @return the number of tokens removed.
+     */
+    public int purgeExpiredTokens() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<ExpiryEntry> it = expiryQueue.iterator();
+        while (it.hasNext()) {
+            ExpiryEntry entry = it.next();
+            if (entry.expiresAt() > now) {
+                break;
+            }
+            it.remove();
+            boolean[] purged = { false };
+            authTokenMap.computeIfPresent(entry.userId(), (id, current) -> {
+                if (!current.getToken().equals(entry.token())) {
+                    return current; // stale entry, token was replaced
+                }
+                if (!current.isExpired()) {
+                    // expiration was extended after the token was stored
+                    expiryQueue.add(new ExpiryEntry(current.getExpirationTime().getTime(), id, current.getToken()));
+                    return current;
+                }
+                userIdByToken.remove(current.getToken(), id);
+                purged[0] = true;
+                return null;
+            });
+            if (purged[0]) {
+                removed++;
             }
         }
-        return -1; // Token not found
+        return removed;
     }
 
 }
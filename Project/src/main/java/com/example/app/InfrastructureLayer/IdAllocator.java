@@ -0,0 +1,38 @@
+package com.example.app.InfrastructureLayer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.DomainLayer.IIdAllocator;
+
+/**
+ * Hands out ids from one counter per {@link IIdAllocator.Sequence}, starting
+ * at 1. In memory there is a single node, so a lock-free increment per id is
+ * all the hi/lo blocks of the DB allocator amount to.
+ */
+@Component
+@Profile("no-db | test")
+public class IdAllocator implements IIdAllocator {
+
+    private final Map<Sequence, AtomicInteger> counters = new EnumMap<>(Sequence.class);
+
+    public IdAllocator() {
+        for (Sequence sequence : Sequence.values()) {
+            counters.put(sequence, new AtomicInteger());
+        }
+    }
+
+    @Override
+    public int nextId(Sequence sequence) {
+        int id = counters.get(sequence).incrementAndGet();
+        if (id <= 0) {
+            throw new OurRuntime("Id sequence " + sequence + " is exhausted.");
+        }
+        return id;
+    }
+}
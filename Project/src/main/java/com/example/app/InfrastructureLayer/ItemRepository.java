@@ -4,12 +4,12 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import com.example.app.DomainLayer.IIdAllocator;
 import com.example.app.DomainLayer.Item.IItemRepository;
 import com.example.app.DomainLayer.Item.Item;
 import com.example.app.DomainLayer.Item.ItemCategory;
@@ -22,12 +22,16 @@ public class ItemRepository implements IItemRepository {
     // Thread-safe map to store items by ID
     private final ConcurrentHashMap<Integer, Item> items = new ConcurrentHashMap<>();
 
-    // Atomic counter to allocate unique item IDs
-    private final AtomicInteger itemIdCounter = new AtomicInteger(1);
+    // Allocates unique item IDs
+    private final IIdAllocator idAllocator;
+
+    public ItemRepository(IIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
 
     @Override
     public Integer createItem(String name, String description, Integer category) {
-        int id = itemIdCounter.getAndIncrement();
+        int id = idAllocator.nextId(IIdAllocator.Sequence.ITEMS);
         Item item = new Item(id, name, description, category);
         Item previous = items.putIfAbsent(id, item);
         if (previous != null) {
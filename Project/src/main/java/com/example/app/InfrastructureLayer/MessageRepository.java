@@ -1,10 +1,16 @@
 package com.example.app.InfrastructureLayer;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.context.annotation.Profile;
@@ -12,6 +18,7 @@ import org.springframework.stereotype.Repository;
 
 import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.DomainLayer.IMessageRepository;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Message;
 
 @Repository
@@ -20,6 +27,50 @@ public class MessageRepository implements IMessageRepository {
     private Map<Integer, Message> messages; // Map to store messages with their IDs as keys
     private AtomicInteger nextId; // Counter for generating unique message IDs
 
+    // message ids by conversation, sender and receiver
+    private final Map<String, NavigableSet<Integer>> threads = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Integer>> bySender = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Integer>> byReceiver = new ConcurrentHashMap<>();
+    private final Map<InboxKey, Inbox> inboxes = new ConcurrentHashMap<>();
+
+    private record InboxKey(boolean shopInbox, int ownerId) {
+    }
+
+    // the latest message id of each conversation of one inbox, and the conversations by that id
+    private static final class Inbox {
+        private final Map<String, Integer> latest = new HashMap<>();
+        private final NavigableMap<Integer, String> byLatest = new TreeMap<>();
+
+        synchronized void put(String conversationId, int messageId) {
+            Integer old = latest.get(conversationId);
+            if (old != null) {
+                if (old >= messageId) {
+                    return;
+                }
+                byLatest.remove(old);
+            }
+            latest.put(conversationId, messageId);
+            byLatest.put(messageId, conversationId);
+        }
+
+        // the latest message was deleted: the one before it takes its place, if any
+        synchronized void replaceLatest(String conversationId, int deletedId, Integer previousId) {
+            Integer old = latest.get(conversationId);
+            if (old == null || old != deletedId) {
+                return;
+            }
+            byLatest.remove(old);
+            latest.remove(conversationId);
+            if (previousId != null) {
+                put(conversationId, previousId);
+            }
+        }
+
+        synchronized List<Integer> page(int beforeId, int limit) {
+            return byLatest.headMap(beforeId, false).descendingKeySet().stream().limit(limit).toList();
+        }
+    }
+
     public MessageRepository() {
         messages = new ConcurrentHashMap<>(); // Initialize the map
         nextId = new AtomicInteger(1); // Start ID counter at 1
@@ -34,6 +85,12 @@ public class MessageRepository implements IMessageRepository {
         int id = nextId.getAndIncrement(); // Get the next unique ID
         Message message = new Message(id, senderId, receiverId, content, timestamp, userToUser, previousMessageId);
         messages.put(id, message); // Add the message to the map with a unique ID
+        threads.computeIfAbsent(message.getConversationId(), k -> new ConcurrentSkipListSet<>()).add(id);
+        bySender.computeIfAbsent(senderId, k -> new ConcurrentSkipListSet<>()).add(id);
+        byReceiver.computeIfAbsent(receiverId, k -> new ConcurrentSkipListSet<>()).add(id);
+        for (InboxKey key : inboxesOf(message)) {
+            inboxes.computeIfAbsent(key, k -> new Inbox()).put(message.getConversationId(), id);
+        }
     }
 
     @Override
@@ -61,6 +118,13 @@ public class MessageRepository implements IMessageRepository {
                                                                                     // authorized to delete the message
         } else {
             message.delete(); // Mark the message as deleted
+            Integer previousId = latestBefore(message.getConversationId(), id);
+            for (InboxKey key : inboxesOf(message)) {
+                Inbox inbox = inboxes.get(key);
+                if (inbox != null) {
+                    inbox.replaceLatest(message.getConversationId(), id, previousId);
+                }
+            }
         }
     }
 
@@ -85,8 +149,8 @@ public class MessageRepository implements IMessageRepository {
     @Override
     public List<Message> getMessagesBySenderId(int senderId) {
         List<Message> result = new ArrayList<>(); // List to store messages sent by the specified user
-        for (Message message : messages.values()) {
-            if (message.getSenderId() == senderId && !message.isDeleted()) {
+        for (Message message : messagesOf(bySender.get(senderId))) {
+            if (!message.isDeleted()) {
                 result.add(message); // Add the message to the result list if it matches the sender ID
             }
         }
@@ -96,8 +160,8 @@ public class MessageRepository implements IMessageRepository {
     @Override
     public List<Message> getMessagesByReceiverId(int receiverId) {
         List<Message> result = new ArrayList<>(); // List to store messages received by the specified user
-        for (Message message : messages.values()) {
-            if (message.getReceiverId() == receiverId && !message.isDeleted()) {
+        for (Message message : messagesOf(byReceiver.get(receiverId))) {
+            if (!message.isDeleted()) {
                 result.add(message); // Add the message to the result list if it matches the receiver ID
             }
         }
@@ -165,12 +229,80 @@ public class MessageRepository implements IMessageRepository {
 
     @Override
     public List<Message> getUserConversations(int userId) {
-        List<Message> output = new LinkedList<>();
-        for (Message message : this.messages.values()) {
-            if (message.getReceiverId() == userId || message.getSenderId() == userId)
-                output.add(message);
+        NavigableSet<Integer> ids = new TreeSet<>(bySender.getOrDefault(userId, new TreeSet<>()));
+        ids.addAll(byReceiver.getOrDefault(userId, new TreeSet<>()));
+        return new LinkedList<>(messagesOf(ids));
+    }
+
+    @Override
+    public KeysetPage<Message> getConversation(String conversationId, Integer beforeId, int limit) {
+        NavigableSet<Integer> thread = threads.get(conversationId);
+        List<Message> page = new ArrayList<>();
+        if (thread != null) {
+            int before = beforeId == null ? Integer.MAX_VALUE : beforeId;
+            for (Integer id : thread.headSet(before, false).descendingSet()) {
+                Message message = messages.get(id);
+                if (message != null && !message.isDeleted()) {
+                    page.add(message);
+                    if (page.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return KeysetPage.of(page, limit, Message::getMessageId);
+    }
+
+    @Override
+    public KeysetPage<Message> getUserInbox(int userId, Integer beforeId, int limit) {
+        return inboxPage(new InboxKey(false, userId), beforeId, limit);
+    }
+
+    @Override
+    public KeysetPage<Message> getShopInbox(int shopId, Integer beforeId, int limit) {
+        return inboxPage(new InboxKey(true, shopId), beforeId, limit);
+    }
+
+    private KeysetPage<Message> inboxPage(InboxKey key, Integer beforeId, int limit) {
+        Inbox inbox = inboxes.get(key);
+        if (inbox == null) {
+            return KeysetPage.of(List.of(), limit, Message::getMessageId);
+        }
+        List<Integer> ids = inbox.page(beforeId == null ? Integer.MAX_VALUE : beforeId, limit);
+        return KeysetPage.of(messagesOf(ids), limit, Message::getMessageId);
+    }
+
+    // the inboxes a message shows up in: both users', or the user's and the shop's
+    private static List<InboxKey> inboxesOf(Message message) {
+        return List.of(new InboxKey(false, message.getSenderId()),
+                new InboxKey(!message.isUserToUser(), message.getReceiverId()));
+    }
+
+    private Integer latestBefore(String conversationId, int messageId) {
+        NavigableSet<Integer> thread = threads.get(conversationId);
+        if (thread == null) {
+            return null;
+        }
+        for (Integer id : thread.headSet(messageId, false).descendingSet()) {
+            Message message = messages.get(id);
+            if (message != null && !message.isDeleted()) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private List<Message> messagesOf(Iterable<Integer> ids) {
+        List<Message> result = new ArrayList<>();
+        if (ids != null) {
+            for (Integer id : ids) {
+                Message message = messages.get(id);
+                if (message != null) {
+                    result.add(message);
+                }
+            }
         }
-        return output;
+        return result;
     }
 
 }
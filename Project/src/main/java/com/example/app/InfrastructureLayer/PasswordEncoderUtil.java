@@ -1,10 +1,29 @@
 package com.example.app.InfrastructureLayer;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.example.app.ApplicationLayer.OurRuntime;
+
 public class PasswordEncoderUtil {
 
+    // BCrypt is deliberately slow; login checks run on this small pool so a burst
+    // of logins is bounded to a few cores instead of every request thread.
+    private static final int VERIFY_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int VERIFY_QUEUE_SIZE = 256;
+    private static final long VERIFY_TIMEOUT_MS = 10_000;
+
+    private static final ThreadPoolExecutor verifyPool = createVerifyPool();
+
     private boolean isTest;
 
     private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(); // Use BCrypt for password encoding
@@ -13,6 +32,18 @@ public class PasswordEncoderUtil {
         this.isTest = false; // Default to production mode
     }
 
+    private static ThreadPoolExecutor createVerifyPool() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(VERIFY_THREADS, VERIFY_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(VERIFY_QUEUE_SIZE), r -> {
+                    Thread t = new Thread(r, "password-verify-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
     public void setIsTest(boolean isTest) {
         this.isTest = isTest; // Set the mode to test or production
     }
@@ -37,5 +68,37 @@ public class PasswordEncoderUtil {
         return passwordEncoder.matches(rawPassword, encodedPassword);
     }
 
-    
+    /**
+     * Same as {@link #matches(String, String)} but the BCrypt check runs on the
+     * bounded verification pool. Used by login.
+     *
+     * @throws OurRuntime if the pool is saturated or the check times out.
+     */
+    public boolean verify(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        if (isTest && rawPassword.equals(encodedPassword)) {
+            return true;
+        }
+        Future<Boolean> result;
+        try {
+            result = verifyPool.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            throw new OurRuntime("Too many login attempts in progress, please try again later.");
+        }
+        try {
+            return result.get(VERIFY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OurRuntime("Password verification was interrupted.");
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new OurRuntime("Password verification timed out, please try again later.");
+        } catch (ExecutionException e) {
+            throw new OurRuntime("Password verification failed: " + e.getCause().getMessage());
+        }
+    }
+
 }
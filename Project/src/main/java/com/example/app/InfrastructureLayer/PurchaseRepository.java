@@ -1,14 +1,18 @@
 package com.example.app.InfrastructureLayer;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import com.example.app.DomainLayer.IIdAllocator;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Purchase.Address;
 import com.example.app.DomainLayer.Purchase.Bid;
 import com.example.app.DomainLayer.Purchase.BidReciept;
@@ -27,11 +31,12 @@ public class PurchaseRepository implements IPurchaseRepository {
 
     // purchase_id --> Purchase
     private final ConcurrentHashMap<Integer, Purchase> purchaseStorage;
-    // Counter for generating unique purchase IDs
-    private final AtomicInteger purchaseIdCounter = new AtomicInteger(1);
+    // Generates unique purchase IDs
+    private final IIdAllocator idAllocator;
 
-    public PurchaseRepository() {
+    public PurchaseRepository(IIdAllocator idAllocator) {
         this.purchaseStorage = new ConcurrentHashMap<>();
+        this.idAllocator = idAllocator;
     }
 
     /**
@@ -39,9 +44,8 @@ public class PurchaseRepository implements IPurchaseRepository {
      *
      * @return A new unique purchase ID.
      */
-    // no need to be synchronized, as AtomicInteger is thread-safe
     private int getNewPurchaseId() {
-        return purchaseIdCounter.getAndIncrement();
+        return idAllocator.nextId(IIdAllocator.Sequence.PURCHASES);
     }
 
     @Override
@@ -170,6 +174,28 @@ public class PurchaseRepository implements IPurchaseRepository {
                 .toList();
     }
 
+    @Override
+    public KeysetPage<Reciept> getUserPurchases(int userId, Integer beforeId, int limit) {
+        return page(purchase -> purchase.getUserId() == userId, beforeId, limit);
+    }
+
+    @Override
+    public KeysetPage<Reciept> getStorePurchases(int storeId, Integer beforeId, int limit) {
+        return page(purchase -> purchase.getStoreId() == storeId, beforeId, limit);
+    }
+
+    private KeysetPage<Reciept> page(Predicate<Purchase> filter, Integer beforeId, int limit) {
+        int before = beforeId == null ? Integer.MAX_VALUE : beforeId;
+        List<Reciept> reciepts = purchaseStorage.values().stream()
+                .filter(purchase -> purchase.getPurchaseId() < before)
+                .filter(filter)
+                .sorted(Comparator.comparingInt(Purchase::getPurchaseId).reversed())
+                .limit(limit)
+                .map(Purchase::generateReciept)
+                .toList();
+        return KeysetPage.of(reciepts, limit, Reciept::getPurchaseId);
+    }
+
     @Override
     /**
      * Retrieves all bids.
@@ -225,4 +251,38 @@ public class PurchaseRepository implements IPurchaseRepository {
     public void addReciept(Reciept reciept) {
     }
 
+    @Override
+    public List<Bid> getOpenAuctions() {
+        return purchaseStorage.values().stream()
+                .filter(purchase -> purchase instanceof Bid && !purchase.isCompleted())
+                .map(purchase -> (Bid) purchase)
+                .filter(bid -> bid.getAuctionEndTime() != null)
+                .toList();
+    }
+
+    @Override
+    public boolean completeAuction(int auctionId) {
+        if (!(purchaseStorage.get(auctionId) instanceof Bid bid)) {
+            return false;
+        }
+        synchronized (bid) {
+            if (bid.isCompleted()) {
+                return false;
+            }
+            bid.completePurchase();
+            return true;
+        }
+    }
+
+    /**
+     * Bids are stored by reference and the bid book changes them in place, so
+     * this only checks the auction is still open.
+     */
+    @Override
+    public boolean saveAuctionBids(int auctionId, int highestBid, int highestBidderId, long bidSeq,
+            Collection<Integer> newBidders) {
+        Purchase purchase = purchaseStorage.get(auctionId);
+        return purchase instanceof Bid && !purchase.isCompleted();
+    }
+
 }
\ No newline at end of file
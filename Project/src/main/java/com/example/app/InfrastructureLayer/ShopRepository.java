@@ -7,7 +7,6 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.springframework.context.annotation.Profile;
@@ -15,6 +14,7 @@ import org.springframework.stereotype.Repository;
 
 import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Purchase.ShippingMethod;
+import com.example.app.DomainLayer.IIdAllocator;
 import com.example.app.DomainLayer.Item.ItemCategory;
 import com.example.app.DomainLayer.Shop.Discount.Discount;
 import com.example.app.DomainLayer.Shop.Discount.Policy;
@@ -27,14 +27,18 @@ import com.example.app.DomainLayer.Shop.Shop;
 public class ShopRepository implements IShopRepository {
 
     private final ConcurrentHashMap<Integer, Shop> shops = new ConcurrentHashMap<>();
-    private final AtomicInteger shopIdCounter = new AtomicInteger(1);
+    private final IIdAllocator idAllocator;
     private final List<Shop> closedShops = new CopyOnWriteArrayList<>();
     private final Map<Integer, Shop> inMemory = new HashMap<>();
 
+    public ShopRepository(IIdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
     @Override
     public Shop createShop(String name, PurchasePolicy purchasePolicy, ShippingMethod shippingMethod) {
         try {
-            int id = shopIdCounter.getAndIncrement();
+            int id = idAllocator.nextId(IIdAllocator.Sequence.SHOPS);
             Shop shop = new Shop(id, name, shippingMethod);
             Shop previous = shops.putIfAbsent(id, shop);
             if (previous != null) {
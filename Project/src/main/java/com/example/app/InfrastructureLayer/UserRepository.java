@@ -7,7 +7,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
@@ -17,6 +16,7 @@ import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Purchase.PaymentMethod;
 import com.example.app.ApplicationLayer.Shop.ShopService;
 import com.example.app.DomainLayer.Guest;
+import com.example.app.DomainLayer.IIdAllocator;
 import com.example.app.DomainLayer.IUserRepository;
 import com.example.app.DomainLayer.Member;
 import com.example.app.DomainLayer.Notification;
@@ -37,9 +37,11 @@ import com.example.app.DomainLayer.User;
 public class UserRepository implements IUserRepository {
     // A map to store users with their IDs as keys
     private ConcurrentHashMap<Integer, com.example.app.DomainLayer.User> userMapping;
+    // username -> memberId, so login checks a single member's password
+    private ConcurrentHashMap<String, Integer> memberIdByUsername;
     private List<Integer> managers;
     private PasswordEncoderUtil passwordEncoderUtil;
-    AtomicInteger userIdCounter;
+    private final IIdAllocator idAllocator;
 
     private final String adminUsername;
     private final String adminPlainPassword;
@@ -51,7 +53,8 @@ public class UserRepository implements IUserRepository {
             @Value("${admin.password:admin}") String adminPlainPassword,
             @Value("${admin.email:admin@mail.com}") String adminEmail,
             @Value("${admin.phoneNumber:0}") String adminPhoneNumber,
-            @Value("${admin.address:admin st.}") String adminAddress) {
+            @Value("${admin.address:admin st.}") String adminAddress,
+            IIdAllocator idAllocator) {
 
         if (adminUsername == null || adminUsername.isEmpty()) {
             throw new IllegalArgumentException("Admin username cannot be null or empty.");
@@ -70,7 +73,8 @@ public class UserRepository implements IUserRepository {
         }
 
         this.userMapping = new ConcurrentHashMap<>();
-        this.userIdCounter = new AtomicInteger(0); // Initialize the user ID counter
+        this.memberIdByUsername = new ConcurrentHashMap<>();
+        this.idAllocator = idAllocator;
         this.managers = new CopyOnWriteArrayList<>(); // Initialize the managers list
         this.passwordEncoderUtil = new PasswordEncoderUtil();
 
@@ -138,7 +142,7 @@ public class UserRepository implements IUserRepository {
     }
 
     public int addGuest() {
-        int id = userIdCounter.incrementAndGet(); // Generate a new ID for the guest
+        int id = idAllocator.nextId(IIdAllocator.Sequence.USERS); // Generate a new ID for the guest
         Guest guest = new Guest(id); // Assuming Guest is a subclass of User
         userMapping.put(id, guest); // Add the guest to the mapping
         if (!userMapping.containsKey(id) || userMapping.get(id) == null) {
@@ -152,12 +156,13 @@ public class UserRepository implements IUserRepository {
             throw new OurRuntime("Invalid email address.");
         }
 
-        int id = userIdCounter.incrementAndGet(); // Generate a new ID for the member
+        int id = idAllocator.nextId(IIdAllocator.Sequence.USERS); // Generate a new ID for the member
         User member = new Member(id, username, password, email, phoneNumber, address); // Assuming User has a
                                                                                        // constructor with these
                                                                                        // parameters
         ((Member) member).setConnected(true);
         userMapping.put(id, member); // Add the member to the mapping
+        memberIdByUsername.putIfAbsent(username, id);
         return id; // Return the ID of the newly created member
     }
 
@@ -167,7 +172,9 @@ public class UserRepository implements IUserRepository {
         }
         User user = userMapping.get(id);
         if (user instanceof Member) {
+            unindexUsername((Member) user);
             ((Member) user).setUsername(username);
+            memberIdByUsername.putIfAbsent(username, id);
         } else {
             throw new OurRuntime("User with ID " + id + " is not a Member.");
         }
@@ -227,28 +234,36 @@ public class UserRepository implements IUserRepository {
     }
 
     public int isUsernameAndPasswordValid(String username, String password) {
-        for (User user : userMapping.values()) {
-            if (user instanceof Member) {
-                Member member = (Member) user;
-                if (member.getUsername().equals(username)
-                        && passwordEncoderUtil.matches(password, member.getPassword())) {
-                    return member.getMemberId(); // Return the ID of the member if username and password match
-                }
-            }
+        if (username == null) {
+            return -1;
+        }
+        Integer id = memberIdByUsername.get(username);
+        if (id == null || !(userMapping.get(id) instanceof Member member)) {
+            return -1; // Return -1 if no match is found
         }
-        return -1; // Return -1 if no match is found
+        if (passwordEncoderUtil.verify(password, member.getPassword())) {
+            return member.getMemberId(); // Return the ID of the member if username and password match
+        }
+        return -1;
     }
 
     public boolean isUsernameTaken(String username) {
+        return username != null && memberIdByUsername.containsKey(username);
+    }
+
+    // drops the member's username from the index, handing it to another member
+    // registered under the same name if there is one
+    private void unindexUsername(Member member) {
+        String username = member.getUsername();
+        if (username == null || !memberIdByUsername.remove(username, member.getMemberId())) {
+            return;
+        }
         for (User user : userMapping.values()) {
-            if (user instanceof Member) {
-                Member member = (Member) user;
-                if (member.getUsername().equals(username)) {
-                    return true;
-                }
+            if (user instanceof Member other && other != member && username.equals(other.getUsername())) {
+                memberIdByUsername.putIfAbsent(username, other.getMemberId());
+                return;
             }
         }
-        return false;
     }
 
     public boolean isGuestById(int id) {
@@ -263,7 +278,10 @@ public class UserRepository implements IUserRepository {
         if (!userMapping.containsKey(id)) {
             throw new OurRuntime("User with ID " + id + " doesn't exist.");
         }
-        userMapping.remove(id);
+        User removed = userMapping.remove(id);
+        if (removed instanceof Member) {
+            unindexUsername((Member) removed);
+        }
     }
 
     public Map<Integer, User> getUserMapping() {
@@ -301,6 +319,7 @@ public class UserRepository implements IUserRepository {
 
     public void clear() {
         userMapping.clear();
+        memberIdByUsername.clear();
     }
 
     public boolean isOwner(int id, int shopId) {
@@ -589,6 +608,14 @@ public class UserRepository implements IUserRepository {
         member.addNotification(new Notification(title, message)); // Assuming User has a method to add a notification
     }
 
+    @Override
+    public void addNotifications(int userId, List<Notification> notifications) {
+        Member member = getMemberById(userId);
+        for (Notification notification : notifications) {
+            member.addNotification(notification);
+        }
+    }
+
     @Override
     public List<String> getNotificationsAndClear(int userId) {
         Member member = getMemberById(userId);
@@ -0,0 +1,487 @@
+package com.example.app.InfrastructureLayer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.app.ApplicationLayer.LoggerService;
+import com.example.app.ApplicationLayer.OurRuntime;
+
+/**
+ * The client {@link WSEPPay} and {@link WSEPShipping} reach the WSEP gateway
+ * through.
+ *
+ * Every call posts a form over one pooled HTTP client that keeps connections
+ * alive, with a timeout of its own operation. At most
+ * {@code maxConcurrent} calls are in flight; a call that cannot get a slot
+ * within {@code acquireTimeoutMs} fails at once instead of queueing behind a
+ * slow gateway. I/O failures, timeouts and 5xx answers are failures: calls
+ * that are safe to repeat (handshakes and cancellations) are retried with
+ * jittered exponential backoff, payments and supplies are not. After
+ * {@code failureThreshold} failures in a row the circuit opens and calls fail
+ * fast for {@code openMs}; then one trial call decides whether it closes again.
+ *
+ * Whether the gateway is up is answered from the last handshake, which a
+ * background thread repeats every {@code healthIntervalMs} once availability
+ * was asked for. The WSEP classes share one gateway, configured at startup by
+ * {@code GatewayConfig}.
+ */
+public class WSEPGateway {
+
+    public static final String DEFAULT_URL = "https://damp-lynna-wsep-1984852e.koyeb.app/";
+
+    public enum Operation {
+        HANDSHAKE("handshake", true),
+        PAY("pay", false),
+        CANCEL_PAY("cancel_pay", true),
+        SUPPLY("supply", false),
+        CANCEL_SUPPLY("cancel_supply", true);
+
+        private final String actionType;
+        private final boolean idempotent;
+
+        Operation(String actionType, boolean idempotent) {
+            this.actionType = actionType;
+            this.idempotent = idempotent;
+        }
+
+        public String actionType() {
+            return actionType;
+        }
+
+        public boolean isIdempotent() {
+            return idempotent;
+        }
+    }
+
+    public record Settings(String url, long connectTimeoutMs, long handshakeTimeoutMs, long payTimeoutMs,
+            long supplyTimeoutMs, long cancelTimeoutMs, int maxConcurrent, long acquireTimeoutMs, int maxAttempts,
+            long backoffMs, int failureThreshold, long openMs, long healthIntervalMs) {
+
+        public Settings {
+            if (url == null || url.isBlank()) {
+                throw new IllegalArgumentException("Gateway url must be set.");
+            }
+            if (connectTimeoutMs <= 0 || handshakeTimeoutMs <= 0 || payTimeoutMs <= 0 || supplyTimeoutMs <= 0
+                    || cancelTimeoutMs <= 0) {
+                throw new IllegalArgumentException("Gateway timeouts must be positive.");
+            }
+            if (maxConcurrent <= 0 || maxAttempts <= 0 || failureThreshold <= 0) {
+                throw new IllegalArgumentException("Gateway concurrency, attempts and threshold must be positive.");
+            }
+            if (acquireTimeoutMs < 0 || backoffMs < 0 || openMs < 0 || healthIntervalMs < 0) {
+                throw new IllegalArgumentException("Gateway waits must not be negative.");
+            }
+        }
+
+        public static Settings defaults() {
+            return new Settings(DEFAULT_URL, 2000, 2000, 10000, 10000, 5000, 32, 100, 3, 200, 5, 30000, 15000);
+        }
+
+        /**
+         * The same settings without the background health probe; availability
+         * is then asked of the gateway every time.
+         */
+        public Settings withoutHealthProbe() {
+            return new Settings(url, connectTimeoutMs, handshakeTimeoutMs, payTimeoutMs, supplyTimeoutMs,
+                    cancelTimeoutMs, maxConcurrent, acquireTimeoutMs, maxAttempts, backoffMs, failureThreshold,
+                    openMs, 0);
+        }
+
+        long timeoutOf(Operation operation) {
+            return switch (operation) {
+                case HANDSHAKE -> handshakeTimeoutMs;
+                case PAY -> payTimeoutMs;
+                case SUPPLY -> supplyTimeoutMs;
+                case CANCEL_PAY, CANCEL_SUPPLY -> cancelTimeoutMs;
+            };
+        }
+    }
+
+    /**
+     * Posts one form to the gateway and returns the body of the answer. An
+     * {@link IOException} is a failure of the gateway; anything else is passed
+     * to the caller as is.
+     */
+    @FunctionalInterface
+    public interface Transport {
+        String post(Map<String, String> form, Duration timeout) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Counters since startup; the latencies are of single attempts.
+     * {@code available} is null until the first handshake.
+     */
+    public record Stats(long calls, long failures, long retries, long timeouts, long rejectedOpen,
+            long rejectedBusy, long circuitOpened, boolean circuitOpen, Boolean available, double avgLatencyMillis,
+            double maxLatencyMillis) {
+    }
+
+    private enum Circuit {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private record Health(boolean up, long checkedAt) {
+    }
+
+    private static volatile WSEPGateway shared;
+
+    private final Settings settings;
+    private final Transport transport;
+    private final Semaphore bulkhead;
+
+    private Circuit circuit = Circuit.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    private volatile Health health;
+    private volatile Thread prober;
+    private volatile boolean probing;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejectedOpen = new LongAdder();
+    private final LongAdder rejectedBusy = new LongAdder();
+    private final LongAdder circuitOpened = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public WSEPGateway(Settings settings) {
+        this(settings, httpTransport(settings));
+    }
+
+    public WSEPGateway(Settings settings, Transport transport) {
+        this.settings = settings;
+        this.transport = transport;
+        this.bulkhead = new Semaphore(settings.maxConcurrent());
+    }
+
+    /**
+     * A gateway posting through the given template, without the health probe.
+     */
+    public static WSEPGateway over(RestTemplate restTemplate) {
+        return new WSEPGateway(Settings.defaults().withoutHealthProbe(),
+                restTemplateTransport(restTemplate, DEFAULT_URL));
+    }
+
+    public static WSEPGateway shared() {
+        WSEPGateway gateway = shared;
+        if (gateway == null) {
+            synchronized (WSEPGateway.class) {
+                if (shared == null) {
+                    shared = new WSEPGateway(Settings.defaults());
+                }
+                gateway = shared;
+            }
+        }
+        return gateway;
+    }
+
+    /**
+     * Replaces the shared gateway; calls already running finish on the old one.
+     */
+    public static synchronized void configureShared(Settings settings) {
+        WSEPGateway old = shared;
+        shared = new WSEPGateway(settings);
+        if (old != null) {
+            old.stopHealthProbe();
+        }
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Posts {@code fields} as the given operation and returns the gateway's
+     * answer. Throws {@link OurRuntime} when the circuit is open, no slot is
+     * free, or the gateway failed on every attempt.
+     */
+    public String call(Operation operation, Map<String, String> fields) {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("action_type", operation.actionType());
+        form.putAll(fields);
+
+        if (!allowCall()) {
+            rejectedOpen.increment();
+            throw new OurRuntime("WSEP gateway circuit is open, " + operation.actionType() + " was not sent");
+        }
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(settings.acquireTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseTrial();
+            throw new OurRuntime("Interrupted while waiting for the WSEP gateway", e);
+        }
+        if (!acquired) {
+            rejectedBusy.increment();
+            releaseTrial();
+            throw new OurRuntime("WSEP gateway is busy, " + operation.actionType() + " was not sent");
+        }
+        try {
+            return callWithRetries(operation, form);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Sends a handshake and remembers whether the gateway answered OK. Returns
+     * the answer, which is null when the gateway sent none.
+     */
+    public String handshake() {
+        try {
+            String body = call(Operation.HANDSHAKE, Map.of());
+            health = new Health("OK".equals(body), System.nanoTime());
+            return body;
+        } catch (RuntimeException e) {
+            health = new Health(false, System.nanoTime());
+            throw e;
+        }
+    }
+
+    /**
+     * The result of the last handshake while it is fresh, or null when there
+     * is none yet or the health probe is off. Starts the probe on first use.
+     */
+    public Boolean cachedAvailability() {
+        if (settings.healthIntervalMs() == 0) {
+            return null;
+        }
+        startHealthProbe();
+        Health last = health;
+        // two intervals, so a probe that is running late still counts
+        if (last == null || System.nanoTime() - last.checkedAt() > TimeUnit.MILLISECONDS
+                .toNanos(2 * settings.healthIntervalMs())) {
+            return null;
+        }
+        return last.up();
+    }
+
+    public boolean isAvailable() {
+        Boolean cached = cachedAvailability();
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return "OK".equals(handshake());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    public synchronized void startHealthProbe() {
+        if (probing || settings.healthIntervalMs() == 0) {
+            return;
+        }
+        probing = true;
+        prober = new Thread(this::probe, "wsep-health");
+        prober.setDaemon(true);
+        prober.start();
+    }
+
+    public synchronized void stopHealthProbe() {
+        if (!probing) {
+            return;
+        }
+        probing = false;
+        prober.interrupt();
+    }
+
+    public Stats getStats() {
+        boolean open;
+        synchronized (this) {
+            open = circuit != Circuit.CLOSED;
+        }
+        Health last = health;
+        long attempts = calls.sum();
+        return new Stats(attempts, failures.sum(), retries.sum(), timeouts.sum(), rejectedOpen.sum(),
+                rejectedBusy.sum(), circuitOpened.sum(), open, last == null ? null : last.up(),
+                attempts == 0 ? 0 : latencyNanos.sum() / (double) attempts / 1_000_000,
+                maxLatencyNanos.get() / 1_000_000.0);
+    }
+
+    private String callWithRetries(Operation operation, Map<String, String> form) {
+        Duration timeout = Duration.ofMillis(settings.timeoutOf(operation));
+        IOException last = null;
+        for (int attempt = 1;; attempt++) {
+            calls.increment();
+            long started = System.nanoTime();
+            try {
+                String body = transport.post(form, timeout);
+                onSuccess();
+                return body;
+            } catch (IOException e) {
+                last = e;
+                failures.increment();
+                if (e instanceof HttpTimeoutException) {
+                    timeouts.increment();
+                }
+                onFailure();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                releaseTrial();
+                throw new OurRuntime("Interrupted while calling the WSEP gateway", e);
+            } catch (RuntimeException e) {
+                // the gateway answered, just not with something we take
+                onSuccess();
+                throw e;
+            } finally {
+                long took = System.nanoTime() - started;
+                latencyNanos.add(took);
+                maxLatencyNanos.accumulateAndGet(took, Math::max);
+            }
+            if (!operation.isIdempotent() || attempt >= settings.maxAttempts() || !backOff(attempt)
+                    || !allowCall()) {
+                break;
+            }
+            retries.increment();
+        }
+        LoggerService.logError("wsepGateway", last, operation.actionType());
+        throw new OurRuntime("WSEP gateway " + operation.actionType() + " failed", last);
+    }
+
+    // full jitter: a random wait up to backoffMs * 2^(attempt-1); false if interrupted
+    private boolean backOff(int attempt) {
+        long cap = settings.backoffMs() << Math.min(attempt - 1, 16);
+        if (cap <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized boolean allowCall() {
+        switch (circuit) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt >= TimeUnit.MILLISECONDS.toNanos(settings.openMs())) {
+                    circuit = Circuit.HALF_OPEN;
+                    return true;
+                }
+                return false;
+            default:
+                // the trial call is still out
+                return false;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        circuit = Circuit.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (circuit == Circuit.HALF_OPEN || (circuit == Circuit.CLOSED
+                && consecutiveFailures >= settings.failureThreshold())) {
+            circuit = Circuit.OPEN;
+            openedAt = System.nanoTime();
+            circuitOpened.increment();
+        }
+    }
+
+    // a trial call that never reached the gateway leaves the circuit as open as it was
+    private synchronized void releaseTrial() {
+        if (circuit == Circuit.HALF_OPEN) {
+            circuit = Circuit.OPEN;
+        }
+    }
+
+    private void probe() {
+        while (probing) {
+            boolean wasUp = health != null && health.up();
+            boolean up;
+            try {
+                up = "OK".equals(handshake());
+            } catch (RuntimeException e) {
+                up = false;
+            }
+            if (up != wasUp) {
+                LoggerService.logMethodExecution("wsepGatewayAvailability", up);
+            }
+            try {
+                Thread.sleep(settings.healthIntervalMs());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static Transport httpTransport(Settings settings) {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(settings.connectTimeoutMs()))
+                .build();
+        URI uri = URI.create(settings.url());
+        return (form, timeout) -> {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(timeout)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofString(encode(form)))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            if (status >= 500) {
+                throw new IOException("WSEP gateway answered " + status);
+            }
+            if (status >= 300) {
+                throw new OurRuntime("WSEP gateway rejected the request with " + status, response.body());
+            }
+            return response.body();
+        };
+    }
+
+    private static Transport restTemplateTransport(RestTemplate restTemplate, String url) {
+        return (form, timeout) -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+            MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
+            formData.setAll(form);
+            try {
+                return restTemplate.postForObject(url, new HttpEntity<>(formData, headers), String.class);
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        };
+    }
+
+    private static String encode(Map<String, String> form) {
+        StringJoiner body = new StringJoiner("&");
+        form.forEach((name, value) -> body.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + "="
+                + URLEncoder.encode(value, StandardCharsets.UTF_8)));
+        return body.toString();
+    }
+}
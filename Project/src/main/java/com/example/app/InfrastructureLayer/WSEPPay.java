@@ -2,41 +2,40 @@ package com.example.app.InfrastructureLayer;
 
 import java.util.Map;
 
-
-import org.springframework.http.HttpEntity;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+
 import com.example.app.ApplicationLayer.Purchase.PaymentMethod;
 
 
 public class WSEPPay implements PaymentMethod {
 
-    private static final String PAYMENT_URL = "https://damp-lynna-wsep-1984852e.koyeb.app/"; // Replace with actual URL
-    private final RestTemplate restTemplate;
+    // null: the shared gateway, looked up per call so its configuration applies
+    private final WSEPGateway gateway;
 
     public WSEPPay() {
-        this.restTemplate = new RestTemplate();
+        this.gateway = null;
     }
 
     // Constructor for testing with dependency injection
     public WSEPPay(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+        this.gateway = WSEPGateway.over(restTemplate);
+    }
+
+    public WSEPPay(WSEPGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    private WSEPGateway gateway() {
+        return gateway != null ? gateway : WSEPGateway.shared();
     }
 
     @Override
     public boolean isPaymentServiceAvailable() {
-        Map<String, String> postContent = Map.of(
-            "action_type", "handshake"
-        );
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
-        formData.setAll(postContent);
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(formData, headers);
-        String body = restTemplate.postForObject(PAYMENT_URL, request, String.class);
+        Boolean cached = gateway().cachedAvailability();
+        if (cached != null) {
+            return cached;
+        }
+        String body = gateway().handshake();
 
         if (body == null) {
             throw new RuntimeException("Payment service is not available");
@@ -52,10 +51,7 @@ public class WSEPPay implements PaymentMethod {
         }
         
         // Payment
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         Map<String, String> postContentPayment = Map.of(
-            "action_type", "pay",
             "amount", String.valueOf(amount),
             "currency", currency,
             "card_number", cardNumber,
@@ -65,10 +61,7 @@ public class WSEPPay implements PaymentMethod {
             "cvv", cvv,
             "id", id
         );
-        MultiValueMap<String, String> formDataPayment = new LinkedMultiValueMap<>();
-        formDataPayment.setAll(postContentPayment);
-        HttpEntity<MultiValueMap<String, String>> requestPayment = new HttpEntity<>(formDataPayment, headers);
-        String responseBody = restTemplate.postForObject(PAYMENT_URL, requestPayment, String.class);
+        String responseBody = gateway().call(WSEPGateway.Operation.PAY, postContentPayment);
 
         try {
             int paymentId = Integer.parseInt(responseBody);
@@ -84,19 +77,12 @@ public class WSEPPay implements PaymentMethod {
             throw new IllegalArgumentException("Payment ID must be a positive integer");
         }
         // Cancel payment
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         Map<String, String> postContentCancel = Map.of(
-            "action_type", "cancel_pay",
             "transaction_id", String.valueOf(paymentId)
         );
-        MultiValueMap<String, String> formDataCancel = new LinkedMultiValueMap<>();
-        formDataCancel.setAll(postContentCancel);
-        HttpEntity<MultiValueMap<String, String>> requestCancel = new HttpEntity<>(formDataCancel, headers);
-        String responseBody = restTemplate.postForObject(PAYMENT_URL, requestCancel, String.class);
+        String responseBody = gateway().call(WSEPGateway.Operation.CANCEL_PAY, postContentCancel);
 
         return "1".equals(responseBody);
     }
     
 }
-
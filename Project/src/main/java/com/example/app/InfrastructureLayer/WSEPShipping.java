@@ -2,40 +2,39 @@ package com.example.app.InfrastructureLayer;
 
 import java.util.Map;
 
-
-import org.springframework.http.HttpEntity;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+
 import com.example.app.ApplicationLayer.Purchase.ShippingMethod;
 
 public class WSEPShipping implements ShippingMethod {
 
-    private static final String PAYMENT_URL = "https://damp-lynna-wsep-1984852e.koyeb.app/"; // Replace with actual URL
-    private final RestTemplate restTemplate;
+    // null: the shared gateway, looked up per call so its configuration applies
+    private final WSEPGateway gateway;
 
     public WSEPShipping() {
-        this.restTemplate = new RestTemplate();
+        this.gateway = null;
     }
 
     // Constructor for testing with dependency injection
     public WSEPShipping(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+        this.gateway = WSEPGateway.over(restTemplate);
+    }
+
+    public WSEPShipping(WSEPGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    private WSEPGateway gateway() {
+        return gateway != null ? gateway : WSEPGateway.shared();
     }
 
     @Override
     public boolean isShippingServiceAvailable() {
-        Map<String, String> postContent = Map.of(
-            "action_type", "handshake"
-        );
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-        MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
-        formData.setAll(postContent);
-        HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(formData, headers);
-        String body = restTemplate.postForObject(PAYMENT_URL, request, String.class);
+        Boolean cached = gateway().cachedAvailability();
+        if (cached != null) {
+            return cached;
+        }
+        String body = gateway().handshake();
 
         if (body == null) {
             throw new RuntimeException("Shipping service is not available");
@@ -50,20 +49,14 @@ public class WSEPShipping implements ShippingMethod {
             throw new IllegalArgumentException("All shipping details must be provided");
         }
         // Shipping
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         Map<String, String> postContentShipping = Map.of(
-            "action_type", "supply",
             "name", name,
             "address", address,
             "city", city,
             "country", country,
             "zip", zipCode
         );
-        MultiValueMap<String, String> formDataShipping = new LinkedMultiValueMap<>();
-        formDataShipping.setAll(postContentShipping);
-        HttpEntity<MultiValueMap<String, String>> requestShipping = new HttpEntity<>(formDataShipping, headers);
-        String responseBody = restTemplate.postForObject(PAYMENT_URL, requestShipping, String.class);
+        String responseBody = gateway().call(WSEPGateway.Operation.SUPPLY, postContentShipping);
 
         if (responseBody == null) {
             throw new RuntimeException("Failed to process shipping");
@@ -82,16 +75,10 @@ public class WSEPShipping implements ShippingMethod {
             throw new IllegalArgumentException("Invalid shipping ID");
         }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         Map<String, String> postContentCancel = Map.of(
-            "action_type", "cancel_supply",
             "transaction_id", String.valueOf(shippingId)
         );
-        MultiValueMap<String, String> formDataCancel = new LinkedMultiValueMap<>();
-        formDataCancel.setAll(postContentCancel);
-        HttpEntity<MultiValueMap<String, String>> requestCancel = new HttpEntity<>(formDataCancel, headers);
-        String responseBody = restTemplate.postForObject(PAYMENT_URL, requestCancel, String.class);
+        String responseBody = gateway().call(WSEPGateway.Operation.CANCEL_SUPPLY, postContentCancel);
 
         return "1".equals(responseBody);
     }
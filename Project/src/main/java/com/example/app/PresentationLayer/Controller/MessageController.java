@@ -23,6 +23,7 @@ import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Message.MessageService;
 import com.example.app.ApplicationLayer.User.UserService;
 import com.example.app.DomainLayer.Message;
+import com.example.app.PresentationLayer.DTO.KeysetPageDTO;
 import com.example.app.PresentationLayer.DTO.Message.MessageDTO;
 
 import jakarta.validation.constraints.Min;
@@ -41,6 +42,13 @@ import jakarta.validation.constraints.NotBlank;
  * 7. GET /receiver/{receiverId} params: authToken
  * 8. GET /{messageId} params: authToken
  * 9. GET /{messageId}/previous params: authToken
+ * 10. GET /inbox params: authToken, before?, limit?
+ * 11. GET /shops/{shopId}/inbox params: authToken, before?, limit?
+ * 12. GET /users/{userId}/thread params: authToken, before?, limit?
+ * 13. GET /shops/{shopId}/thread params: authToken, userId?, before?, limit?
+ *
+ * The paged endpoints return newest first; pass nextBeforeId as before for the
+ * next page.
  *
  * Note: service returns status messages or error strings prefixed with "Error".
  */
@@ -172,4 +180,68 @@ public class MessageController {
         return ResponseEntity.ok(result);
     }
 
+    @GetMapping("/inbox")
+    public ResponseEntity<?> getInbox(
+            @RequestParam @NotBlank String authToken,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(KeysetPageDTO.fromDomain(messageService.getInbox(authToken, before, limit),
+                    MessageDTO::fromDomain));
+        } catch (OurArg e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OurRuntime e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/shops/{shopId}/inbox")
+    public ResponseEntity<?> getShopInbox(
+            @RequestParam @NotBlank String authToken,
+            @PathVariable @Min(1) int shopId,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(KeysetPageDTO.fromDomain(
+                    messageService.getShopInbox(authToken, shopId, before, limit), MessageDTO::fromDomain));
+        } catch (OurArg e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OurRuntime e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/users/{userId}/thread")
+    public ResponseEntity<?> getUserThread(
+            @RequestParam @NotBlank String authToken,
+            @PathVariable @Min(1) int userId,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(KeysetPageDTO.fromDomain(
+                    messageService.getConversationWithUser(authToken, userId, before, limit), MessageDTO::fromDomain));
+        } catch (OurArg e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OurRuntime e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/shops/{shopId}/thread")
+    public ResponseEntity<?> getShopThread(
+            @RequestParam @NotBlank String authToken,
+            @PathVariable @Min(1) int shopId,
+            @RequestParam(required = false) Integer userId,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(KeysetPageDTO.fromDomain(
+                    messageService.getConversationWithShop(authToken, shopId, userId, before, limit), MessageDTO::fromDomain));
+        } catch (OurArg e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (OurRuntime e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
 }
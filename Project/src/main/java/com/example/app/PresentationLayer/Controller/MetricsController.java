@@ -0,0 +1,51 @@
+package com.example.app.PresentationLayer.Controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.app.ApplicationLayer.MetricsRegistry;
+
+/**
+ * Base path: /api/metrics
+ *
+ * 1. GET /
+ * Params : token (app.metrics.scrape-token)
+ * Success : 200 → Prometheus text format
+ * Errors : 403 wrong token, 404 metrics disabled or no scrape token configured
+ */
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    private static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain;version=0.0.4;charset=utf-8");
+
+    private final MetricsRegistry metrics;
+    private final String scrapeToken;
+
+    public MetricsController(MetricsRegistry metrics, @Value("${app.metrics.scrape-token:}") String scrapeToken) {
+        this.metrics = metrics;
+        this.scrapeToken = scrapeToken;
+    }
+
+    @GetMapping
+    public ResponseEntity<String> scrape(@RequestParam(required = false) String token) {
+        // without a token to check the scraper against, the endpoint is not served at all
+        if (!metrics.isEnabled() || scrapeToken.isEmpty()) {
+            return ResponseEntity.notFound().build(); // 404
+        }
+        if (token == null || !MessageDigest.isEqual(
+                scrapeToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // 403
+        }
+        return ResponseEntity.ok().contentType(PROMETHEUS_TEXT).body(metrics.scrape()); // 200
+    }
+}
@@ -22,9 +22,11 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.format.annotation.DateTimeFormat.ISO;
 
 import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.ApplicationLayer.Purchase.AuctionBidBook;
 import com.example.app.ApplicationLayer.Purchase.PurchaseService;
 import com.example.app.PresentationLayer.DTO.Purchase.PaymentDetailsDTO;
 import com.example.app.DomainLayer.Purchase.BidReciept;
+import com.example.app.PresentationLayer.DTO.KeysetPageDTO;
 import com.example.app.PresentationLayer.DTO.Purchase.BidRecieptDTO;
 import com.example.app.PresentationLayer.DTO.Purchase.RecieptDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -64,6 +66,16 @@ import jakarta.validation.constraints.Min;
  * Params : authToken
  * Success: 200 → BidRecieptDTO
  *
+ * 8. GET /users/{userId}/page and /shops/{shopId}/page
+ * Params : authToken, [before], [limit = 20, at most 100]
+ * Success: 200 → { "reciepts": [ RecieptDTO, … ], "nextBeforeId": 117 }
+ * Newest first; pass nextBeforeId as before for the next page (null on the last)
+ *
+ * 9. GET /bids/page and /auctions/page
+ * Params : authToken, [before], [limit = 20, at most 100]
+ * Success: 200 → { "bids": [ BidRecieptDTO, … ], "nextBeforeId": 42 }
+ * Same bids as GET /bids and GET /auctions, paged like 8.
+ *
  * Error mapping (all endpoints)
  * 400 – Bad data / validation failure
  * 404 – Entity not found (store, bid, cart…)
@@ -129,6 +141,40 @@ public class PurchaseController {
     }
 
     
+    @GetMapping("/checkout/metrics")
+    public ResponseEntity<?> getCheckoutMetrics(@RequestParam String authToken) {
+        try {
+            return ResponseEntity.ok(purchaseService.getCheckoutMetrics(authToken)); // 200
+
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage()); // 400
+
+        } catch (RuntimeException ex) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage()); // 403
+
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Internal server error"); // 500
+        }
+    }
+
+    @GetMapping("/auctions/scheduler")
+    public ResponseEntity<?> getAuctionSchedulerStats(@RequestParam String authToken) {
+        try {
+            return ResponseEntity.ok(purchaseService.getAuctionSchedulerStats(authToken)); // 200
+
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage()); // 400
+
+        } catch (RuntimeException ex) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ex.getMessage()); // 403
+
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Internal server error"); // 500
+        }
+    }
+
     @PostMapping("/partial-checkout")
     public ResponseEntity<?> partialheckout(
             @RequestParam String authToken,
@@ -295,6 +341,31 @@ public class PurchaseController {
         }
     }
 
+    @GetMapping("/bids/page")
+    public ResponseEntity<?> getBidsPage(
+            @RequestParam String authToken,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        try {
+            return ResponseEntity.ok(KeysetPageDTO.fromDomain(
+                    purchaseService.getBidsPage(authToken, true, before, limit), BidRecieptDTO::fromDomain)); // 200
+
+        } catch (ConstraintViolationException | IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage()); // 400
+
+        } catch (NoSuchElementException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage()); // 404
+
+        } catch (RuntimeException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage()); // 409
+
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Internal server error"); // 500
+        }
+    }
+
     @GetMapping("/bids/finished")
     public ResponseEntity<List<BidRecieptDTO>> getFinishedBidsSection(
             @RequestParam String authToken) {
@@ -407,6 +478,33 @@ public class PurchaseController {
         }
     }
 
+    @GetMapping("/users/{userId}/page")
+    public ResponseEntity<?> getUserPurchasesPage(
+            @PathVariable @Min(1) int userId,
+            @RequestParam String authToken,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        try {
+            KeysetPageDTO<RecieptDTO> page = KeysetPageDTO.fromDomain(
+                    purchaseService.getUserPurchasesPage(authToken, userId, before, limit), RecieptDTO::fromDomain);
+            return ResponseEntity.ok(page); // 200
+
+        } catch (ConstraintViolationException | IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage()); // 400
+
+        } catch (NoSuchElementException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage()); // 404
+
+        } catch (RuntimeException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage()); // 409
+
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Internal server error"); // 500
+        }
+    }
+
     @GetMapping("/{purchaseId}")
     public ResponseEntity<?> getReciept(
             @PathVariable @Min(1) int purchaseId,
@@ -458,6 +556,30 @@ public class PurchaseController {
         }
     }
 
+    /** 6b. GET a page of the purchases made in a specific store, newest first */
+    @GetMapping("/shops/{shopId}/page")
+    public ResponseEntity<?> getStorePurchasesPage(
+            @PathVariable @Min(1) int shopId,
+            @RequestParam String authToken,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            KeysetPageDTO<RecieptDTO> page = KeysetPageDTO.fromDomain(
+                    purchaseService.getStorePurchasesPage(authToken, shopId, before, limit), RecieptDTO::fromDomain);
+            return ResponseEntity.ok(page);         // 200
+
+        } catch (ConstraintViolationException|IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());            // 400
+        } catch (NoSuchElementException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage()); // 404
+        } catch (RuntimeException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());  // 409
+        } catch (Exception ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                .body("Internal server error");                 // 500
+        }
+    }
+
     /* ─────────────────────────── AUCTIONS ────────────────────────── */
 
     @PostMapping("/auctions")
@@ -485,14 +607,15 @@ public class PurchaseController {
     }
 
     @PostMapping("/auctions/{auctionId}/offers")
-    public ResponseEntity<Void> placeAuctionBid(
+    public ResponseEntity<AuctionBidBook.Ack> placeAuctionBid(
             @PathVariable @Min(1) int auctionId,
             @RequestParam String authToken,
             @RequestParam @Min(1) int bidAmount
     ) {
         try {
-            purchaseService.postBiddingAuction(authToken, auctionId, bidAmount);
-            return ResponseEntity.accepted().build();
+            // the ack tells whether the bid beat the highest one, with its sequence number in the auction
+            return ResponseEntity.accepted().body(
+                    purchaseService.postBiddingAuction(authToken, auctionId, bidAmount));
         } catch (IllegalArgumentException | ConstraintViolationException ex) {
             //System.out.println("Invalid parameters (400): " + ex.getMessage());
             return ResponseEntity.badRequest().body(null); // 400
@@ -557,6 +680,23 @@ public class PurchaseController {
         }
     }
 
+    @GetMapping("/auctions/page")
+    public ResponseEntity<?> listAuctionsPage(
+            @RequestParam String authToken,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(KeysetPageDTO.fromDomain(
+                    purchaseService.getBidsPage(authToken, false, before, limit), BidRecieptDTO::fromDomain));
+        } catch (IllegalArgumentException | NoSuchElementException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        } catch (Exception ex) {
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .build();
+        }
+    }
+
     @GetMapping("/auctions/{auctionId}")
     public ResponseEntity<BidRecieptDTO> getAuctionDetails(
             @PathVariable @Min(1) int auctionId,
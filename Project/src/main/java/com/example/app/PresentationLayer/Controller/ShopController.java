@@ -552,11 +552,18 @@ public class ShopController {
             @RequestParam(required = false) Integer maxPrice,
             @RequestParam(required = false) Double minProductRating,
             @RequestParam(required = false) Double minShopRating,
-            @RequestParam String token) {
-        try {
-            List<Item> items = shopService.searchItems(
-                    name, category, keywords, minPrice, maxPrice,
-                    minProductRating, minShopRating, token);
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam String token) {
+        try {
+            List<Item> items = (page == null && size == null)
+                    ? shopService.searchItems(
+                            name, category, keywords, minPrice, maxPrice,
+                            minProductRating, minShopRating, token)
+                    : shopService.searchItems(
+                            name, category, keywords, minPrice, maxPrice,
+                            minProductRating, minShopRating,
+                            page == null ? 0 : page, size == null ? 20 : size, token);
             List<ItemDTO> itemDTOs = items.stream()
                     .map(ItemDTO::fromDomain)
                     .toList();
@@ -0,0 +1,25 @@
+package com.example.app.PresentationLayer.DTO;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.example.app.DomainLayer.KeysetPage;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * One page returned by the paged GET endpoints (threads, inboxes, purchase
+ * history, bids and auctions); {@code nextBeforeId} is passed as
+ * {@code before} for the next page and is null on the last one.
+ */
+public record KeysetPageDTO<T>(
+        @NotNull List<T> items,
+        Integer nextBeforeId) {
+
+    /** Domain → DTO */
+    public static <D, T> KeysetPageDTO<T> fromDomain(KeysetPage<D> page, Function<? super D, T> toDTO) {
+        return new KeysetPageDTO<>(
+                page.items().stream().map(toDTO).toList(),
+                page.nextBeforeId());
+    }
+}
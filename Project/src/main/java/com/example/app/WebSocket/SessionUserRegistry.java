@@ -36,6 +36,14 @@ public class SessionUserRegistry {
         return userIdToSessions.getOrDefault(userId, Collections.emptyList());
     }
 
+    public int getSessionCount() {
+        return sessionIdToUserId.size();
+    }
+
+    public int getConnectedUserCount() {
+        return userIdToSessions.size();
+    }
+
     @EventListener
     public void handleDisconnect(SessionDisconnectEvent event) {
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -1,6 +1,7 @@
 -- ================================================================
 -- SHOPPING SYSTEM DATABASE INITIALIZATION SCRIPT
 -- This script initializes the database with test data.
+-- Ids are given explicitly; the id allocator continues after the highest one.
 -- If errors occur, the application will continue running.
 -- ================================================================
 
@@ -8,37 +9,37 @@
 -- 1) Six users (u1…u6), with u2 initially connected / $2a$10$BQcgCRrZBJZBBzrfoAOxvuBrmSmbfZfUAUgUQr./HbZRzRgqbWPWm = 123
 -- ----------------------------------------------------------------
 INSERT INTO MEMBERS (
-    username, is_admin, is_connected,
+    member_id, username, is_admin, is_connected,
     email, password, phone_number,
     suspended, apartment_number, city, country,
     house_number, street, zip_code, payment_method_string
 ) VALUES
-  ('u1', TRUE,  FALSE,
+  (1, 'u1', TRUE,  FALSE,
    'u1@example.com', '$2a$10$BQcgCRrZBJZBBzrfoAOxvuBrmSmbfZfUAUgUQr./HbZRzRgqbWPWm', '050-000-0001',
    '2000-01-01 00:00:00', '1A', 'Tel Aviv', 'Israel',
    '10', 'Herzl St', '61000', NULL
   ),
-  ('u2', FALSE, TRUE,
+  (2, 'u2', FALSE, TRUE,
    'u2@example.com', '$2a$10$BQcgCRrZBJZBBzrfoAOxvuBrmSmbfZfUAUgUQr./HbZRzRgqbWPWm', '050-000-0002',
    '2000-01-01 00:00:00', '2B', 'Jerusalem', 'Israel',
    '20', 'Ben Yehuda', '91000', NULL
   ),
-  ('u3', FALSE, FALSE,
+  (3, 'u3', FALSE, FALSE,
    'u3@example.com', '$2a$10$BQcgCRrZBJZBBzrfoAOxvuBrmSmbfZfUAUgUQr./HbZRzRgqbWPWm', '050-000-0003',
    '2000-01-01 00:00:00', '3C','Haifa', 'Israel',
    '30','HaNassi','33000',NULL
   ),
-  ('u4', FALSE, FALSE,
+  (4, 'u4', FALSE, FALSE,
    'u4@example.com', '$2a$10$BQcgCRrZBJZBBzrfoAOxvuBrmSmbfZfUAUgUQr./HbZRzRgqbWPWm', '050-000-0004',
    '2005-05-05 05:05:05', '4D','Beer Sheva','Israel',
    '40','Rothschild','84000',NULL
   ),
-  ('u5', FALSE, FALSE,
+  (5, 'u5', FALSE, FALSE,
    'u5@example.com', '$2a$10$BQcgCRrZBJZBBzrfoAOxvuBrmSmbfZfUAUgUQr./HbZRzRgqbWPWm', '050-000-0005',
    '2010-10-10 10:10:10', '5E','Netanya','Israel',
    '50','Allenby','42500',NULL
   ),
-  ('u6', FALSE, FALSE,
+  (6, 'u6', FALSE, FALSE,
    'u6@example.com', '$2a$10$BQcgCRrZBJZBBzrfoAOxvuBrmSmbfZfUAUgUQr./HbZRzRgqbWPWm', '050-000-0006',
    '1995-12-31 23:59:59', '6F','Beersheba','Israel',
    '60','Dizengoff','84000',NULL
@@ -48,8 +49,8 @@ INSERT INTO MEMBERS (
 -- ----------------------------------------------------------------
 -- 3) Shop “s1”
 -- ----------------------------------------------------------------
-INSERT INTO SHOPS (name, is_closed, shipping_method_name)
-VALUES ('s1', FALSE, 'WSEPShipping');
+INSERT INTO SHOPS (id, name, is_closed, shipping_method_name)
+VALUES (1, 's1', FALSE, 'WSEPShipping');
 
 -- 1) Look up u2’s member_id and s1’s shop_id, then insert one MEMBER_ROLES row
 INSERT INTO MEMBER_ROLES (member_id, assignee_id, permissions, shop_id)
@@ -66,8 +67,8 @@ WHERE auth.username = 'u2';
 -- ----------------------------------------------------------------
 -- 4) Item “Bamba” in s1, qty=20, price=30
 -- ----------------------------------------------------------------
-INSERT INTO ITEMS (name, category, description)
-VALUES ('Bamba', 1, 'Crunchy peanut snack');
+INSERT INTO ITEMS (id, name, category, description)
+VALUES (1, 'Bamba', 1, 'Crunchy peanut snack');
 
 INSERT INTO SHOP_ITEMS (shop_id, item_id, quantity)
 SELECT
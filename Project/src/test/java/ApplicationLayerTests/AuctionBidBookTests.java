@@ -0,0 +1,205 @@
+package ApplicationLayerTests;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.ApplicationLayer.Purchase.AuctionBidBook;
+import com.example.app.DomainLayer.Purchase.Bid;
+import com.example.app.InfrastructureLayer.IdAllocator;
+import com.example.app.InfrastructureLayer.PurchaseRepository;
+
+class AuctionBidBookTests {
+
+    // counts the batches written and makes each one take a while, as a database write does
+    private static class SlowRepository extends PurchaseRepository {
+        final AtomicInteger writes = new AtomicInteger();
+        volatile boolean failNext;
+
+        SlowRepository() {
+            super(new IdAllocator());
+        }
+
+        @Override
+        public boolean saveAuctionBids(int auctionId, int highestBid, int highestBidderId, long bidSeq,
+                Collection<Integer> newBidders) {
+            writes.incrementAndGet();
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failNext) {
+                failNext = false;
+                return false;
+            }
+            return super.saveAuctionBids(auctionId, highestBid, highestBidderId, bidSeq, newBidders);
+        }
+    }
+
+    private SlowRepository repo;
+    private AuctionBidBook book;
+    private int auctionId;
+
+    @BeforeEach
+    void setUp() {
+        repo = new SlowRepository();
+        book = new AuctionBidBook(repo);
+        auctionId = repo.addBid(1, 3, Map.of(1, 1), 50,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1));
+    }
+
+    @Test
+    void acceptedBids_areNumberedInOrder() {
+        AuctionBidBook.Ack first = book.submit(auctionId, 2, 60);
+        AuctionBidBook.Ack second = book.submit(auctionId, 4, 70);
+        AuctionBidBook.Ack low = book.submit(auctionId, 2, 65);
+
+        assertTrue(first.accepted());
+        assertEquals(1, first.seq());
+        assertEquals(2, second.seq());
+        assertFalse(low.accepted());
+        assertEquals(2, low.seq());
+        assertEquals(70, low.highestBid());
+        assertEquals(4, low.highestBidderId());
+        assertEquals(Set.of(2, 4), Set.copyOf(((Bid) repo.getPurchaseById(auctionId)).getBiddersIds()));
+    }
+
+    @Test
+    void ownerAndClosedAuction_areRejected() {
+        assertThrows(OurRuntime.class, () -> book.submit(auctionId, 1, 60));
+        book.submit(auctionId, 2, 60);
+
+        book.close(auctionId);
+        assertThrows(OurRuntime.class, () -> book.submit(auctionId, 4, 70));
+        assertEquals(60, ((Bid) repo.getPurchaseById(auctionId)).getHighestBid());
+    }
+
+    @Test
+    void closeBeforeTheFirstBid_rejectsLaterBids() {
+        book.close(auctionId);
+        assertThrows(OurRuntime.class, () -> book.submit(auctionId, 2, 60));
+        assertEquals(-1, ((Bid) repo.getPurchaseById(auctionId)).getHighestBidderId());
+    }
+
+    @Test
+    void finalizedAuction_dropsItsLane_andLaterBidsFail() {
+        int other = repo.addBid(1, 3, Map.of(1, 1), 50,
+                LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1));
+        book.submit(auctionId, 2, 60);
+        book.close(other);
+        assertEquals(2, book.getStats().lanes());
+
+        // as PurchaseService.finalizeAuction does it
+        for (int id : List.of(auctionId, other)) {
+            book.close(id);
+            assertTrue(repo.completeAuction(id));
+            book.forget(id);
+        }
+
+        assertEquals(0, book.getStats().lanes());
+        assertThrows(OurRuntime.class, () -> book.submit(auctionId, 4, 70));
+        assertThrows(OurRuntime.class, () -> book.submit(other, 4, 70));
+        assertEquals(0, book.getStats().lanes());
+        assertEquals(60, ((Bid) repo.getPurchaseById(auctionId)).getHighestBid());
+    }
+
+    @Test
+    void concurrentBids_areWrittenInBatchesWithoutGaps() throws Exception {
+        AtomicInteger price = new AtomicInteger(50);
+        Set<Long> seqs = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int bidder = 10 + t;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    AuctionBidBook.Ack ack = book.submit(auctionId, bidder, price.incrementAndGet());
+                    if (ack.accepted()) {
+                        assertTrue(seqs.add(ack.seq()));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        AuctionBidBook.Stats stats = book.getStats();
+        assertEquals(stats.accepted(), seqs.size());
+        assertEquals(seqs.size(), seqs.stream().mapToLong(Long::longValue).max().orElse(0));
+        assertTrue(repo.writes.get() < seqs.size());
+        Bid stored = (Bid) repo.getPurchaseById(auctionId);
+        assertEquals(seqs.size(), stored.getBidSeq());
+        assertEquals(stats.accepted() + stats.rejected(), 400);
+    }
+
+    @Test
+    void bidRacingTheFinalizationOfAnAuctionWithoutLane_isEitherTheWinnerOrRejected() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 200; round++) {
+                AuctionBidBook fresh = new AuctionBidBook(repo);
+                int id = repo.addBid(1, 3, Map.of(1, 1), 50,
+                        LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusHours(1));
+                CountDownLatch start = new CountDownLatch(1);
+                Future<AuctionBidBook.Ack> bid = pool.submit(() -> {
+                    start.await();
+                    return fresh.submit(id, 2, 60);
+                });
+                // as PurchaseService.finalizeAuction does it, on a thread that is preempted after closing
+                Future<Integer> winner = pool.submit(() -> {
+                    start.await();
+                    fresh.close(id);
+                    Thread.sleep(1);
+                    assertTrue(repo.completeAuction(id));
+                    fresh.forget(id);
+                    return ((Bid) repo.getPurchaseById(id)).getHighestBidderId();
+                });
+                start.countDown();
+
+                int winnerId = winner.get();
+                try {
+                    assertTrue(bid.get().accepted());
+                    assertEquals(2, winnerId);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(OurRuntime.class, e.getCause());
+                    assertEquals(-1, winnerId);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void failedBatch_failsTheBid_andNextBidContinuesFromStoredSeq() {
+        book.submit(auctionId, 2, 60);
+        repo.failNext = true;
+        assertThrows(OurRuntime.class, () -> book.submit(auctionId, 4, 70));
+
+        // a new book, as after a restart, continues from the stored number
+        AuctionBidBook restarted = new AuctionBidBook(repo);
+        assertEquals(3, restarted.submit(auctionId, 4, 80).seq());
+    }
+}
@@ -0,0 +1,118 @@
+package ApplicationLayerTests;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.example.app.ApplicationLayer.Purchase.AuctionBidBook;
+import com.example.app.ApplicationLayer.Purchase.AuctionPriceFeed;
+import com.example.app.InfrastructureLayer.IdAllocator;
+import com.example.app.InfrastructureLayer.PurchaseRepository;
+
+class AuctionPriceFeedTests {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private AuctionBidBook book;
+    private AuctionPriceFeed feed;
+    private int auctionA;
+    private int auctionB;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        PurchaseRepository repo = new PurchaseRepository(new IdAllocator());
+        book = new AuctionBidBook(repo);
+        // long interval: the tests flush by hand
+        feed = new AuctionPriceFeed(messagingTemplate, book, 60_000);
+        LocalDateTime end = LocalDateTime.now().plusHours(1);
+        auctionA = repo.addBid(1, 3, Map.of(1, 1), 50, LocalDateTime.now().minusMinutes(1), end);
+        auctionB = repo.addBid(1, 3, Map.of(2, 1), 50, LocalDateTime.now().minusMinutes(1), end);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    private AuctionPriceFeed.PriceUpdate lastUpdateOf(int auctionId, int frames) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(frames)).convertAndSend(eq(AuctionPriceFeed.TOPIC_PREFIX + auctionId),
+                captor.capture());
+        return (AuctionPriceFeed.PriceUpdate) captor.getValue();
+    }
+
+    @Test
+    void bidsWithinAnInterval_areConflatedToTheLatestPrice() {
+        feed.start();
+        book.submit(auctionA, 2, 60);
+        book.submit(auctionA, 4, 70);
+        book.submit(auctionA, 2, 80);
+        book.submit(auctionB, 2, 55);
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+
+        feed.flush();
+        AuctionPriceFeed.PriceUpdate a = lastUpdateOf(auctionA, 1);
+        assertEquals(3, a.seq());
+        assertEquals(80, a.highestBid());
+        assertEquals(2, a.highestBidderId());
+        assertFalse(a.ended());
+        assertTrue(a.millisLeft() > 0);
+        assertEquals(55, lastUpdateOf(auctionB, 1).highestBid());
+
+        AuctionPriceFeed.Stats stats = feed.getStats();
+        assertEquals(4, stats.published());
+        assertEquals(2, stats.conflated());
+        assertEquals(2, stats.framesSent());
+
+        // nothing changed since: nothing to send
+        feed.flush();
+        assertEquals(2, feed.getStats().framesSent());
+    }
+
+    @Test
+    void closedAuction_sendsAnEndedFrame() {
+        feed.start();
+        book.submit(auctionA, 2, 60);
+        book.close(auctionA);
+        feed.flush();
+
+        AuctionPriceFeed.PriceUpdate last = lastUpdateOf(auctionA, 1);
+        assertTrue(last.ended());
+        assertEquals(60, last.highestBid());
+        assertEquals(1, last.seq());
+    }
+
+    @Test
+    void auctionClosedWithoutBids_sendsAnEndedFrame() {
+        feed.start();
+        book.close(auctionA);
+        feed.flush();
+
+        AuctionPriceFeed.PriceUpdate last = lastUpdateOf(auctionA, 1);
+        assertTrue(last.ended());
+        assertEquals(0, last.seq());
+        assertEquals(-1, last.highestBidderId());
+        assertTrue(last.millisLeft() > 0);
+    }
+
+    @Test
+    void notStarted_sendsInline() {
+        book.submit(auctionA, 2, 60);
+        assertEquals(60, lastUpdateOf(auctionA, 1).highestBid());
+    }
+}
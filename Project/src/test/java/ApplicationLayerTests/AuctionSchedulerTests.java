@@ -0,0 +1,98 @@
+package ApplicationLayerTests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.app.ApplicationLayer.Purchase.AuctionScheduler;
+
+class AuctionSchedulerTests {
+
+    private static final long TICK = 1000;
+
+    private AuctionScheduler scheduler;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new AuctionScheduler(TICK);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void auctionsEndingInTheSameTick_expireAsOneBatch() {
+        long end = (now / TICK + 5) * TICK;
+        scheduler.schedule(1, end + 100);
+        scheduler.schedule(2, end + 900);
+        scheduler.schedule(3, end + 2 * TICK);
+
+        assertTrue(scheduler.advance(end).isEmpty());
+        assertEquals(List.of(1, 2), scheduler.advance(end + TICK));
+        assertEquals(List.of(3), scheduler.advance(end + 2 * TICK));
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    void neverExpiresBeforeTheEndTime() {
+        long end = now + 10 * TICK + 1;
+        scheduler.schedule(1, end);
+        assertTrue(scheduler.advance(end - 1).isEmpty());
+        assertEquals(List.of(1), scheduler.advance(end + TICK));
+    }
+
+    @Test
+    void farDeadlines_cascadeDownThroughTheWheels() {
+        long[] ends = { now + 70 * TICK, now + 5_000 * TICK, now + 300_000 * TICK, now + 20_000_000L * TICK };
+        for (int i = 0; i < ends.length; i++) {
+            scheduler.schedule(i, ends[i]);
+        }
+        List<Integer> fired = new ArrayList<>();
+        for (int i = 0; i < ends.length; i++) {
+            assertTrue(scheduler.advance(ends[i] - TICK).isEmpty());
+            List<Integer> batch = scheduler.advance(ends[i] + TICK);
+            assertEquals(List.of(i), batch);
+            fired.addAll(batch);
+        }
+        assertEquals(List.of(0, 1, 2, 3), fired);
+    }
+
+    @Test
+    void pastDeadline_expiresImmediately() {
+        scheduler.schedule(7, now - 60_000);
+        assertEquals(List.of(7), scheduler.advance(now));
+    }
+
+    @Test
+    void cancelAndReschedule() {
+        scheduler.schedule(1, now + 3 * TICK);
+        scheduler.schedule(2, now + 3 * TICK);
+        assertTrue(scheduler.cancel(1));
+        assertFalse(scheduler.cancel(1));
+        scheduler.schedule(2, now + 10 * TICK);
+        assertEquals(1, scheduler.getQueueDepth());
+
+        assertTrue(scheduler.advance(now + 5 * TICK).isEmpty());
+        assertEquals(List.of(2), scheduler.advance(now + 11 * TICK));
+    }
+
+    @Test
+    void stats_reportQueueDepthAndLag() {
+        long end = (now / TICK + 2) * TICK;
+        scheduler.schedule(1, end);
+        scheduler.schedule(2, end);
+        scheduler.schedule(3, end + 100 * TICK);
+        scheduler.advance(end + 250);
+
+        AuctionScheduler.Stats stats = scheduler.getStats();
+        assertEquals(1, stats.queueDepth());
+        assertEquals(2, stats.expired());
+        assertEquals(1, stats.batches());
+        assertEquals(250, stats.maxLagMillis());
+        assertEquals(250.0, stats.avgLagMillis());
+    }
+}
@@ -12,6 +12,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -26,6 +27,7 @@ import org.mockito.MockitoAnnotations;
 
 import com.example.app.ApplicationLayer.AuthTokenService;
 import com.example.app.ApplicationLayer.OurArg;
+import com.example.app.ApplicationLayer.RequestPrincipal;
 import com.example.app.DomainLayer.AuthToken;
 import com.example.app.DomainLayer.IAuthTokenRepository;
 import com.example.app.InfrastructureLayer.AuthTokenRepository;
@@ -288,4 +290,62 @@ public class AuthServiceTests {
         String t = "x";
         assertThrows(Exception.class, () -> authTokenService.Logout(t));
     }
-}
\ No newline at end of file
+
+    // ----- AuthTokenService: verified claims cache -----
+
+    @Test
+    void testValidateToken_RepeatCallsHitClaimsCache() throws Exception {
+        String token = authTokenService.generateAuthToken("joe");
+        when(authTokenRepository.getUserIdByToken(token)).thenReturn(5);
+
+        assertEquals(5, authTokenService.ValidateToken(token));
+        assertEquals(5, authTokenService.ValidateToken(token));
+        assertEquals("joe", authTokenService.extractUsername(token));
+
+        assertEquals(1, authTokenService.getClaimsCacheMisses());
+        assertEquals(2, authTokenService.getClaimsCacheHits());
+        assertEquals(1, authTokenService.getClaimsCacheSize());
+    }
+
+    @Test
+    void testValidateToken_InvalidTokenIsNotCached() {
+        assertThrows(Exception.class, () -> authTokenService.ValidateToken("bad.token"));
+        assertEquals(0, authTokenService.getClaimsCacheSize());
+    }
+
+    // ----- AuthTokenService: request-scoped principal -----
+
+    @Test
+    void testValidateToken_OncePerRequest() throws Exception {
+        String token = authTokenService.generateAuthToken("joe");
+        when(authTokenRepository.getUserIdByToken(token)).thenReturn(5);
+
+        RequestPrincipal.open();
+        try {
+            assertEquals(5, authTokenService.ValidateToken(token));
+            assertEquals(5, authTokenService.ValidateToken(token));
+            assertEquals(5, authTokenService.ValidateToken(token));
+        } finally {
+            RequestPrincipal.close();
+        }
+        verify(authTokenRepository, times(1)).getUserIdByToken(token);
+
+        // a new request validates again
+        assertEquals(5, authTokenService.ValidateToken(token));
+        verify(authTokenRepository, times(2)).getUserIdByToken(token);
+    }
+
+    @Test
+    void testLogout_ForgetsTheRequestPrincipal() throws Exception {
+        String token = authTokenService.generateAuthToken("joe");
+        when(authTokenRepository.getUserIdByToken(token)).thenReturn(5, 5, -1);
+
+        RequestPrincipal.open();
+        try {
+            authTokenService.Logout(token);
+            assertThrows(Exception.class, () -> authTokenService.ValidateToken(token));
+        } finally {
+            RequestPrincipal.close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ApplicationLayerTests;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.app.ApplicationLayer.Purchase.BidReadModel;
+import com.example.app.DomainLayer.KeysetPage;
+import com.example.app.DomainLayer.Purchase.BidReciept;
+
+class BidReadModelTests {
+
+    private BidReadModel model;
+
+    @BeforeEach
+    void setUp() {
+        model = new BidReadModel();
+    }
+
+    private static BidReciept bid(int id, int userId, int shopId, int itemId, boolean completed, LocalDateTime end) {
+        return new BidReciept(id, userId, shopId, Map.of(itemId, 1), null, 10, -1, 10, 10, -1, completed, end);
+    }
+
+    private static List<Integer> ids(KeysetPage<BidReciept> page) {
+        return page.items().stream().map(BidReciept::getPurchaseId).toList();
+    }
+
+    @Test
+    void bidsOf_coverOpenedBidsAndBidsInOwnedShops() {
+        model.put(bid(1, 7, 100, 1, false, null));
+        model.put(bid(2, 8, 100, 1, false, null));
+        model.put(bid(3, 8, 200, 2, false, null));
+        model.put(bid(4, 8, 100, 1, false, LocalDateTime.now()));
+        assertEquals(Set.of(100, 200), model.getUnresolvedShops());
+        model.putShop(100, 9, false, List.of(1));
+        model.putShop(200, 5, false, List.of(2));
+
+        assertEquals(List.of(1), ids(model.getBidsOf(7, null, 10)));
+        assertEquals(List.of(2, 1), ids(model.getBidsOf(9, null, 10)));
+        assertEquals(List.of(3, 2), ids(model.getBidsOf(8, null, 10)));
+        assertEquals(List.of(4), ids(model.getAuctions(null, 10)));
+    }
+
+    @Test
+    void pages_walkNewestFirst() {
+        for (int id = 1; id <= 5; id++) {
+            model.put(bid(id, 7, 100, 1, false, null));
+        }
+        model.putShop(100, 9, false, List.of(1));
+
+        KeysetPage<BidReciept> page = model.getBidsOf(7, null, 2);
+        assertEquals(List.of(5, 4), ids(page));
+        page = model.getBidsOf(7, page.nextBeforeId(), 2);
+        assertEquals(List.of(3, 2), ids(page));
+        page = model.getBidsOf(7, page.nextBeforeId(), 2);
+        assertEquals(List.of(1), ids(page));
+        assertNull(page.nextBeforeId());
+    }
+
+    @Test
+    void closedShopsAndRemovedItems_hideTheirBids() {
+        model.put(bid(1, 7, 100, 1, false, null));
+        model.put(bid(2, 7, 100, 2, false, null));
+        model.put(bid(3, 7, 200, 3, false, null));
+        model.putShop(100, 9, false, List.of(1, 2));
+        model.putShop(200, 9, false, List.of(3));
+
+        model.removeItem(100, 2);
+        model.closeShop(200);
+        assertEquals(List.of(1), ids(model.getBidsOf(7, null, 10)));
+
+        model.reOpenShop(200);
+        assertEquals(Set.of(200), model.getUnresolvedShops());
+        model.putShop(200, 9, false, List.of(3));
+        assertEquals(List.of(3, 1), ids(model.getBidsOf(7, null, 10)));
+    }
+
+    @Test
+    void itemsAddedAfterTheShopWasResolved_showTheirBids() {
+        model.putShop(100, 9, false, List.of(1));
+        model.put(bid(1, 7, 100, 1, false, LocalDateTime.now().plusDays(1)));
+        assertEquals(List.of(1), ids(model.getAuctions(null, 10)));
+
+        // item 2 is listed after the first page was read, then auctioned
+        model.put(bid(2, 7, 100, 2, false, LocalDateTime.now().plusDays(1)));
+        model.addItem(100, 2);
+        assertEquals(List.of(2, 1), ids(model.getAuctions(null, 10)));
+    }
+
+    @Test
+    void put_replacesTheBidsReceipt() {
+        model.put(bid(1, 7, 100, 1, false, null));
+        model.putShop(100, 9, false, List.of(1));
+        assertTrue(model.getFinishedBidsOf(7).isEmpty());
+
+        model.put(bid(1, 7, 100, 1, true, null));
+        assertEquals(1, model.size());
+        assertEquals(1, model.getFinishedBidsOf(7).get(0).getPurchaseId());
+    }
+}
@@ -22,6 +22,7 @@ import static org.mockito.Mockito.when;
 
 import com.example.app.ApplicationLayer.AuthTokenService;
 import com.example.app.ApplicationLayer.Item.ItemService;
+import com.example.app.ApplicationLayer.Shop.ItemSearchIndex;
 import com.example.app.ApplicationLayer.OurArg;
 import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.User.UserService;
@@ -49,7 +50,7 @@ public class ItemServiceAcceptanceTests {
         authTokenService  = mock(AuthTokenService.class);
         userService       = mock(UserService.class);
 
-        itemService = new ItemService(itemRepository,authTokenService, userService);
+        itemService = new ItemService(itemRepository, authTokenService, userService, new ItemSearchIndex());
 
         // common stub: token validation returns USER_ID
         doReturn(USER_ID).when(authTokenService).ValidateToken(TOKEN);
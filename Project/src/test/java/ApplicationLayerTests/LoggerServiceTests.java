@@ -0,0 +1,174 @@
+package ApplicationLayerTests;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.app.ApplicationLayer.LoggerService;
+import com.example.app.Config.LoggingConfig;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+class LoggerServiceTests {
+
+    private Logger logger;
+    private Level previousLevel;
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        logger = (Logger) LoggerFactory.getLogger(LoggerService.class);
+        previousLevel = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        LoggerService.clearSampleRates();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(previousLevel);
+        LoggerService.clearSampleRates();
+    }
+
+    private long count(String prefix) {
+        return appender.list.stream().filter(e -> e.getFormattedMessage().startsWith(prefix)).count();
+    }
+
+    // runs the start and end records of n calls, the way every service method logs them
+    private void calls(String methodName, int n) {
+        for (int i = 0; i < n; i++) {
+            LoggerService.logMethodExecution(methodName, i);
+            if (i % 2 == 0) {
+                LoggerService.logMethodExecutionEnd(methodName, i);
+            } else {
+                LoggerService.logMethodExecutionEndVoid(methodName);
+            }
+        }
+    }
+
+    @Test
+    void unsampledMethod_logsEveryStartAndEnd() {
+        calls("getItem", 5);
+
+        assertEquals(5, count("Executing method: getItem"));
+        assertEquals(5, count("Method: getItem executed successfully"));
+    }
+
+    @Test
+    void evenSampleRate_logsEveryNthStartAndEnd() {
+        LoggerService.setSampleRate("searchItems", 10);
+
+        calls("searchItems", 100);
+
+        assertEquals(10, count("Executing method: searchItems"));
+        assertEquals(10, count("Method: searchItems executed successfully"));
+    }
+
+    @Test
+    void oddSampleRate_logsEveryNthStartAndEnd() {
+        LoggerService.setSampleRate("checkoutCart", 3);
+
+        calls("checkoutCart", 9);
+
+        assertEquals(3, count("Executing method: checkoutCart"));
+        assertEquals(3, count("Method: checkoutCart executed successfully"));
+    }
+
+    @Test
+    void sampleRateOfOne_removesTheSampling() {
+        LoggerService.setSampleRate("searchItems", 4);
+        LoggerService.setSampleRate("searchItems", 1);
+
+        calls("searchItems", 4);
+
+        assertEquals(4, count("Executing method: searchItems"));
+        assertEquals(4, count("Method: searchItems executed successfully"));
+    }
+
+    @Test
+    void errors_areNeverSampled() {
+        LoggerService.setSampleRate("checkoutCart", 10);
+
+        for (int i = 0; i < 3; i++) {
+            LoggerService.logError("checkoutCart", new RuntimeException("boom"), i);
+        }
+
+        assertEquals(3, count("Error in method: checkoutCart"));
+    }
+
+    @Test
+    void infoDisabled_rendersNoArguments() {
+        logger.setLevel(Level.WARN);
+        AtomicInteger rendered = new AtomicInteger();
+        Object arg = new Object() {
+            @Override
+            public String toString() {
+                rendered.incrementAndGet();
+                return "arg";
+            }
+        };
+
+        LoggerService.logMethodExecution("m", arg);
+        LoggerService.logMethodExecution("m", arg, arg);
+        LoggerService.logMethodExecution("m", arg, arg, arg);
+        LoggerService.logMethodExecution("m", arg, arg, arg, arg);
+        LoggerService.logMethodExecutionEnd("m", arg);
+        LoggerService.logMethodExecutionEndVoid("m");
+
+        assertEquals(0, rendered.get());
+        assertTrue(appender.list.isEmpty());
+    }
+
+    @Test
+    void loggingConfig_appliesTheConfiguredSampleRates() {
+        LoggingConfig config = new LoggingConfig();
+        ReflectionTestUtils.setField(config, "sampleRates", " searchItems:2 , checkoutCart : 3");
+        config.applySampleRates();
+
+        calls("searchItems", 4);
+        calls("checkoutCart", 3);
+        calls("getItem", 2);
+
+        assertEquals(2, count("Executing method: searchItems"));
+        assertEquals(2, count("Method: searchItems executed successfully"));
+        assertEquals(1, count("Executing method: checkoutCart"));
+        assertEquals(1, count("Method: checkoutCart executed successfully"));
+        assertEquals(2, count("Executing method: getItem"));
+    }
+
+    @Test
+    void loggingConfig_blankSampleRates_logsEverything() {
+        LoggingConfig config = new LoggingConfig();
+        ReflectionTestUtils.setField(config, "sampleRates", "");
+        config.applySampleRates();
+
+        calls("searchItems", 3);
+
+        assertEquals(3, count("Executing method: searchItems"));
+    }
+
+    @Test
+    void loggingConfig_malformedEntry_isRejected() {
+        LoggingConfig config = new LoggingConfig();
+        ReflectionTestUtils.setField(config, "sampleRates", "searchItems");
+
+        assertThrows(IllegalArgumentException.class, config::applySampleRates);
+        ReflectionTestUtils.setField(config, "sampleRates", "searchItems:often");
+        assertThrows(NumberFormatException.class, config::applySampleRates);
+        assertEquals(List.of(), appender.list);
+    }
+}
@@ -20,13 +20,16 @@ import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Item.ItemService;
 import com.example.app.ApplicationLayer.Message.MessageService;
 import com.example.app.ApplicationLayer.NotificationService;
+import com.example.app.ApplicationLayer.Purchase.BidReadModel;
 import com.example.app.ApplicationLayer.Purchase.ShippingMethod;
+import com.example.app.ApplicationLayer.Shop.ItemSearchIndex;
 import com.example.app.ApplicationLayer.Shop.ShopService;
 import com.example.app.ApplicationLayer.User.UserService;
 import com.example.app.DomainLayer.IMessageRepository;
 import com.example.app.DomainLayer.Message;
 import com.example.app.DomainLayer.Notification;
 import com.example.app.DomainLayer.Shop.PurchasePolicy;
+import com.example.app.InfrastructureLayer.IdAllocator;
 import com.example.app.InfrastructureLayer.AuthTokenRepository;
 import com.example.app.InfrastructureLayer.ItemRepository;
 import com.example.app.InfrastructureLayer.MessageRepository;
@@ -62,10 +65,14 @@ public class MessageServiceTests {
         NotificationService notificationMock = mock(NotificationService.class);
         authTokenRepository = new AuthTokenRepository();
         authTokenService = new AuthTokenService(authTokenRepository);
-        userRepository = new UserRepository(adminUsername, adminPlainPassword, adminEmail, adminPhoneNumber, adminAddress);
+        userRepository = new UserRepository(adminUsername, adminPlainPassword, adminEmail, adminPhoneNumber, adminAddress,
+                new IdAllocator());
         userService = new UserService(userRepository, authTokenService, notificationMock);
-        shopRepository = new ShopRepository();
-        shopService = new ShopService(shopRepository, authTokenService, userService, new ItemService(new ItemRepository(),authTokenService,userService));
+        shopRepository = new ShopRepository(new IdAllocator());
+        ItemSearchIndex searchIndex = new ItemSearchIndex();
+        shopService = new ShopService(shopRepository, authTokenService, userService,
+                new ItemService(new ItemRepository(new IdAllocator()), authTokenService, userService, searchIndex),
+                searchIndex, new BidReadModel());
         messageService = new MessageService(new MessageRepository(),authTokenService, userService, shopService);
 
         // Add a test user and shop to the repositories
@@ -362,4 +369,24 @@ public class MessageServiceTests {
             () -> svc.getPreviousMessage("any", 1));
         assertTrue(ex.getMessage().contains("Error getting previous message"));
     }
+
+    @Test
+    void testShopThreadAndInboxPages() throws Exception {
+        String token2 = authTokenService.Login("testUser2", "password", 2);
+        int user2 = authTokenService.ValidateToken(token2);
+        messageService.sendMessageToShop(token2, 1, "first", -1);
+        messageService.sendMessageToShop(token2, 1, "second", -1);
+
+        assertEquals(List.of("second", "first"), messageService.getConversationWithShop(token2, 1, null, null, 10)
+                .items().stream().map(Message::getContent).toList());
+        // the shop owner reads the customer's thread and the shop's inbox
+        assertEquals(2, messageService.getConversationWithShop(token1, 1, user2, null, 10).items().size());
+        assertEquals(List.of("second"), messageService.getShopInbox(token1, 1, null, 10)
+                .items().stream().map(Message::getContent).toList());
+        assertEquals(List.of("second"), messageService.getInbox(token2, null, 10)
+                .items().stream().map(Message::getContent).toList());
+
+        assertThrows(OurRuntime.class, () -> messageService.getShopInbox(token2, 1, null, 10));
+        assertThrows(OurArg.class, () -> messageService.getInbox(token2, null, 0));
+    }
 }
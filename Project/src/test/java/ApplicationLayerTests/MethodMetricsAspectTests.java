@@ -0,0 +1,55 @@
+package ApplicationLayerTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.ApplicationLayer.MetricsRegistry;
+import com.example.app.ApplicationLayer.OurArg;
+import com.example.app.Config.MethodMetricsAspect;
+import com.example.app.DomainLayer.IAuthTokenRepository;
+
+class MethodMetricsAspectTests {
+
+    private MetricsRegistry metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new MetricsRegistry(true);
+    }
+
+    // the service as the application context proxies it
+    private AuthTokenService timed(MetricsRegistry registry) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new AuthTokenService(mock(IAuthTokenRepository.class)));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MethodMetricsAspect(registry));
+        return factory.getProxy();
+    }
+
+    @Test
+    void serviceCalls_areTimedAndFailuresCounted() {
+        AuthTokenService service = timed(metrics);
+
+        service.AuthenticateGuest(1);
+        assertThrows(OurArg.class, () -> service.AuthenticateGuest(0));
+
+        MetricsRegistry.TimerStats stats = metrics.timer("app_method", "layer", "service", "class",
+                "AuthTokenService", "method", "AuthenticateGuest").snapshot();
+        assertEquals(2, stats.count());
+        assertEquals(1, stats.errors());
+        assertTrue(stats.maxMillis() > 0);
+    }
+
+    @Test
+    void disabledMetrics_leaveCallsUntimed() {
+        MetricsRegistry disabled = new MetricsRegistry(false);
+        timed(disabled).AuthenticateGuest(1);
+
+        assertTrue(disabled.timerSnapshot().isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package ApplicationLayerTests;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.app.ApplicationLayer.MetricsRegistry;
+
+class MetricsRegistryTests {
+
+    private MetricsRegistry metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new MetricsRegistry(true);
+    }
+
+    private record CacheStats(int size, double hitRate, boolean open, String name) {
+    }
+
+    @Test
+    void timer_countsCallsAndErrorsAndEstimatesPercentiles() {
+        MetricsRegistry.Timer timer = metrics.timer("app_method", "layer", "service", "method", "pay");
+        for (int i = 0; i < 90; i++) {
+            timer.record(TimeUnit.MICROSECONDS.toNanos(700), false);
+        }
+        for (int i = 0; i < 10; i++) {
+            timer.record(TimeUnit.MILLISECONDS.toNanos(40), true);
+        }
+
+        MetricsRegistry.TimerStats stats = timer.snapshot();
+        assertEquals(100, stats.count());
+        assertEquals(10, stats.errors());
+        assertEquals(40, stats.maxMillis(), 0.001);
+        // 700µs lies in (0.5ms, 1ms], 40ms in (25ms, 50ms]
+        assertTrue(stats.p50Millis() > 0.5 && stats.p50Millis() <= 1, "p50 " + stats.p50Millis());
+        assertTrue(stats.p99Millis() > 25 && stats.p99Millis() <= 40, "p99 " + stats.p99Millis());
+        assertEquals(4.63, stats.avgMillis(), 0.001);
+    }
+
+    @Test
+    void timer_isSharedBySameFamilyAndLabels() {
+        assertSame(metrics.timer("app_method", "method", "pay"), metrics.timer("app_method", "method", "pay"));
+        assertFalse(metrics.timer("app_method", "method", "pay") == metrics.timer("app_method", "method", "ship"));
+    }
+
+    @Test
+    void scrape_rendersHistogramsAndErrorCounters() {
+        metrics.timer("app_http_server_requests", "method", "GET", "uri", "/api/shops/{id}", "status", "200")
+                .record(TimeUnit.MILLISECONDS.toNanos(3), false);
+        metrics.timer("app_http_server_requests", "method", "GET", "uri", "/api/shops/{id}", "status", "500")
+                .record(TimeUnit.SECONDS.toNanos(20), true);
+
+        String text = metrics.scrape();
+        String ok = "method=\"GET\",uri=\"/api/shops/{id}\",status=\"200\"";
+        String failed = "method=\"GET\",uri=\"/api/shops/{id}\",status=\"500\"";
+        assertTrue(text.contains("# TYPE app_http_server_requests_seconds histogram\n"));
+        assertTrue(text.contains("app_http_server_requests_seconds_bucket{" + ok + ",le=\"0.0025\"} 0\n"));
+        assertTrue(text.contains("app_http_server_requests_seconds_bucket{" + ok + ",le=\"0.005\"} 1\n"));
+        assertTrue(text.contains("app_http_server_requests_seconds_bucket{" + failed + ",le=\"10\"} 0\n"));
+        assertTrue(text.contains("app_http_server_requests_seconds_bucket{" + failed + ",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("app_http_server_requests_seconds_count{" + ok + "} 1\n"));
+        assertTrue(text.contains("app_http_server_requests_seconds_max{" + failed + "} 20\n"));
+        assertTrue(text.contains("app_http_server_requests_errors_total{" + ok + "} 0\n"));
+        assertTrue(text.contains("app_http_server_requests_errors_total{" + failed + "} 1\n"));
+    }
+
+    @Test
+    void scrape_readsGaugesAndStatsRecordsWhenScraped() {
+        int[] size = { 3 };
+        metrics.registerStats("shop_cache", () -> new CacheStats(size[0], 0.75, true, "shops"));
+        metrics.registerGauge("websocket_sessions", () -> 2);
+        metrics.registerGauge("missing", () -> Double.NaN);
+        metrics.registerStats("absent", () -> null);
+        size[0] = 5;
+
+        String text = metrics.scrape();
+        assertTrue(text.contains("# TYPE app_shop_cache_size gauge\napp_shop_cache_size 5\n"));
+        assertTrue(text.contains("app_shop_cache_hit_rate 0.75\n"));
+        assertTrue(text.contains("app_shop_cache_open 1\n"));
+        assertTrue(text.contains("app_websocket_sessions 2\n"));
+        assertFalse(text.contains("shop_cache_name"));
+        assertFalse(text.contains("missing"));
+        assertFalse(text.contains("absent"));
+    }
+
+    @Test
+    void scrape_exportsCountersWithTotalSuffix() {
+        metrics.registerCounter("checkout_failures", () -> 4);
+        metrics.registerStats("shop_cache", () -> new CacheStats(3, 0.75, true, "shops"), "size");
+
+        String text = metrics.scrape();
+        assertTrue(text.contains("# TYPE app_checkout_failures_total counter\napp_checkout_failures_total 4\n"));
+        assertTrue(text.contains("# TYPE app_shop_cache_size_total counter\napp_shop_cache_size_total 3\n"));
+        assertTrue(text.contains("# TYPE app_shop_cache_hit_rate gauge\n"));
+        assertFalse(text.contains("app_shop_cache_size "));
+        assertFalse(text.contains("app_checkout_failures "));
+    }
+
+    @Test
+    void labelValues_areEscaped() {
+        metrics.timer("app_method", "method", "a\"b\\c").record(1, false);
+        assertTrue(metrics.scrape().contains("method=\"a\\\"b\\\\c\""));
+    }
+}
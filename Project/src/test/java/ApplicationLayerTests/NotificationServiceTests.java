@@ -1,5 +1,6 @@
 package ApplicationLayerTests;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 import java.lang.reflect.Field;
@@ -74,4 +75,42 @@ public class NotificationServiceTests {
         verify(messagingTemplate, times(sessions.size()))
             .convertAndSendToUser(eq(userId.toString()), eq("/notifications"), eq(payload), Mockito.<java.util.Map<String, Object>>any());
     }
+
+    @Test
+    void sendToUser_whenStarted_coalescesMessagesOfOneUserIntoOneFrame() {
+        when(registry.getSessionsForUser(userId)).thenReturn(List.of("sessA"));
+        when(userService.getUserById(userId)).thenReturn(member);
+        when(member.isConnected()).thenReturn(true);
+
+        notificationService.start();
+        try {
+            notificationService.sendToUser(userId, "first", "one");
+            notificationService.sendToUser(userId, "second", "two");
+
+            verify(messagingTemplate, timeout(2000)).convertAndSendToUser(eq(userId.toString()),
+                    eq("/notifications"), eq("2 new notifications\n\nfirst\none\n\nsecond\ntwo"),
+                    Mockito.<java.util.Map<String, Object>>any());
+        } finally {
+            notificationService.stop();
+        }
+        verify(userService, times(1)).getUserById(userId);
+        assertEquals(1, notificationService.getStats().framesSent());
+        assertEquals(1, notificationService.getStats().coalesced());
+    }
+
+    @Test
+    void sendToUser_whenStartedAndUserOffline_storesTheBatchAtOnce() {
+        when(registry.getSessionsForUser(userId)).thenReturn(List.of());
+        when(userService.getUserById(userId)).thenReturn(member);
+        when(member.isConnected()).thenReturn(false);
+
+        notificationService.start();
+        notificationService.sendToUser(userId, "first", "one");
+        notificationService.sendToUser(userId, "second", "two");
+        notificationService.stop();
+
+        verify(userService).addNotifications(eq(userId), argThat(list -> list.size() == 2));
+        verify(userService, never()).addNotification(anyInt(), anyString(), anyString());
+        assertEquals(2, notificationService.getStats().storedOffline());
+    }
 }
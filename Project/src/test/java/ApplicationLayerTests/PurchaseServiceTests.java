@@ -3,7 +3,6 @@ package ApplicationLayerTests;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -15,10 +14,12 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -32,6 +33,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
@@ -55,14 +57,17 @@ import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.scheduling.TaskScheduler;
 
 import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.ApplicationLayer.AuthenticatedPrincipal;
 import com.example.app.ApplicationLayer.NotificationService;
 import com.example.app.ApplicationLayer.Item.ItemService;
 import com.example.app.ApplicationLayer.Message.MessageService;
 import com.example.app.ApplicationLayer.OurArg;
 import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.ApplicationLayer.Purchase.AuctionBidBook;
+import com.example.app.ApplicationLayer.Purchase.AuctionScheduler;
+import com.example.app.ApplicationLayer.Purchase.BidReadModel;
 import com.example.app.ApplicationLayer.Purchase.PurchaseService;
 import com.example.app.ApplicationLayer.Shop.ShopService;
 import com.example.app.ApplicationLayer.User.UserService;
@@ -76,6 +81,7 @@ import com.example.app.DomainLayer.Purchase.Purchase;
 import com.example.app.DomainLayer.Purchase.Reciept;
 import com.example.app.DomainLayer.Roles.PermissionsEnum;
 import com.example.app.DomainLayer.Shop.Shop;
+import com.example.app.InfrastructureLayer.IdAllocator;
 import com.example.app.InfrastructureLayer.PurchaseRepository;
 import com.example.app.InfrastructureLayer.WSEPShipping;
 
@@ -104,8 +110,11 @@ class PurchaseServiceTests {
     @Mock
     NotificationService nots;
     @Mock 
-    TaskScheduler taskscheduler;
+    AuctionScheduler auctionScheduler;
 
+    // shared with the ShopService of a running application
+    BidReadModel bidReadModel;
+    AuctionBidBook auctionBidBook;
     PurchaseService service;
 
     Address addr = new Address().withCountry("IL").withCity("TLV")
@@ -116,7 +125,17 @@ class PurchaseServiceTests {
 
     @BeforeEach
     void setUp() {
-        service = new PurchaseService(repo, auth, users, shops, items, msg, nots, taskscheduler);
+        bidReadModel = new BidReadModel();
+        auctionBidBook = new AuctionBidBook(repo);
+        service = new PurchaseService(repo, auth, users, shops, items, msg, nots, auctionScheduler, bidReadModel,
+                auctionBidBook);
+    }
+
+    // checkout resolves the buyer's token once, into this principal
+    private AuthenticatedPrincipal buyer(String token, int uid) {
+        AuthenticatedPrincipal principal = new AuthenticatedPrincipal(token, uid, false, false, false);
+        when(users.authenticate(token)).thenReturn(principal);
+        return principal;
     }
     /*
      * ══════════════════════════════════════════════════════════════
@@ -136,10 +155,10 @@ class PurchaseServiceTests {
         cart.put(shopA, new HashMap<>(cartShopA));
         cart.put(shopB, new HashMap<>(cartShopB));
 
-        when(auth.ValidateToken(token)).thenReturn(uid);
+        AuthenticatedPrincipal principal = buyer(token, uid);
         when(users.getUserShoppingCartItems(uid)).thenReturn(new HashMap<Integer, HashMap<Integer, Integer>>(cart));
-        when(shops.purchaseItems(cartShopA, shopA, token)).thenReturn(100.0);
-        when(shops.purchaseItems(cartShopB, shopB, token)).thenReturn(50.0);
+        when(shops.purchaseItems(cartShopA, shopA, principal)).thenReturn(100.0);
+        when(shops.purchaseItems(cartShopB, shopB, principal)).thenReturn(50.0);
         when(repo.addPurchase(eq(uid), eq(shopA), eq(cartShopA), eq(100.0), any())).thenReturn(1);
         when(repo.addPurchase(eq(uid), eq(shopB), eq(cartShopB), eq(50.0), any())).thenReturn(2);
 
@@ -148,12 +167,12 @@ class PurchaseServiceTests {
 
         assertEquals(Set.of(1, 2), new HashSet<>(ids));
         verify(users).clearUserShoppingCart(uid);
-        verify(users).pay(token, shopA, 100.0, "1234567890123456", "12/25", "123", "John Doe", "123456789",
+        verify(users).pay(principal, shopA, 100.0, "1234567890123456", "12/25", "123", "John Doe", "123456789",
                 "john@example.com", "1234567890");
-        verify(users).pay(token, shopB, 50.0, "1234567890123456", "12/25", "123", "John Doe", "123456789",
+        verify(users).pay(principal, shopB, 50.0, "1234567890123456", "12/25", "123", "John Doe", "123456789",
                 "john@example.com", "1234567890");
-        verify(shops).shipPurchase(token, 1, shopA, "IL", "TLV", "Rothschild", "6800000");
-        verify(shops).shipPurchase(token, 2, shopB, "IL", "TLV", "Rothschild", "6800000");
+        verify(shops).shipPurchase(principal, 1, shopA, "IL", "TLV", "Rothschild", "6800000");
+        verify(shops).shipPurchase(principal, 2, shopB, "IL", "TLV", "Rothschild", "6800000");
     }
 
     @Test
@@ -327,7 +346,7 @@ class PurchaseServiceTests {
     class Concurrency {
 
         @Autowired
-        PurchaseRepository purchaseRepo = new PurchaseRepository();
+        PurchaseRepository purchaseRepo = new PurchaseRepository(new IdAllocator());
 
         private static final int THREADS = 16;
         private ExecutorService pool;
@@ -518,15 +537,16 @@ class PurchaseServiceTests {
         Map<Integer, Integer> cartShop = Map.of(9, 1);
         Map<Integer, HashMap<Integer, Integer>> cart = Map.of(shop, new HashMap<>(cartShop));
 
-        when(auth.ValidateToken(token)).thenReturn(uid);
+        AuthenticatedPrincipal principal = buyer(token, uid);
         when(users.getUserShoppingCartItems(uid)).thenReturn(new HashMap<Integer, HashMap<Integer, Integer>>(cart));
-        when(shops.purchaseItems(cartShop, shop, token))
+        when(shops.purchaseItems(cartShop, shop, principal))
                 .thenThrow(new OurRuntime("purchase error"));
 
         OurRuntime ex = assertThrows(OurRuntime.class, () -> service.checkoutCart(token, addr, "1234567890123456",
                 "12/25", "123", "John Doe", "123456789", "john@example.com", "1234567890"));
         assertTrue(ex.getMessage().contains("checkoutCart:"));
-        verify(users, never()).pay(any(), anyInt(), anyDouble(), any(), any(), any(), any(), any(), any(), any());
+        verify(users, never()).pay(any(AuthenticatedPrincipal.class), anyInt(), anyDouble(), any(), any(), any(), any(),
+                any(), any(), any());
     }
 
     @Test
@@ -536,9 +556,9 @@ class PurchaseServiceTests {
         int uid = 4, shop = 6;
         Map<Integer, Integer> cartShop = Map.of(2, 2);
         Map<Integer, HashMap<Integer, Integer>> cart = Map.of(shop, new HashMap<>(cartShop));
-        when(auth.ValidateToken(token)).thenReturn(uid);
+        AuthenticatedPrincipal principal = buyer(token, uid);
         when(users.getUserShoppingCartItems(uid)).thenReturn(new HashMap<Integer, HashMap<Integer, Integer>>(cart));
-        when(shops.purchaseItems(cartShop, shop, token)).thenReturn(44.0);
+        when(shops.purchaseItems(cartShop, shop, principal)).thenReturn(44.0);
         when(repo.addPurchase(uid, shop, cartShop, 44.0, addr))
                 .thenThrow(new RuntimeException("db fail"));
 
@@ -547,7 +567,7 @@ class PurchaseServiceTests {
         assertTrue(ex.getMessage().contains("checkoutCart:"));
         verify(shops).rollBackPurchase(cartShop, shop);
         verify(users).restoreUserShoppingCart(eq(uid), any());
-        verify(users, never()).refundPaymentAuto(token, shop);
+        verify(users, never()).refundPaymentAuto(principal, shop);
     }
 
     // ─────────── createBid exception branches ───────────
@@ -743,7 +763,7 @@ class PurchaseServiceTests {
                 any(LocalDateTime.class),
                 eq(endTime)
             );
-            verify(taskscheduler).schedule(any(Runnable.class), any(Date.class));
+            verify(auctionScheduler).schedule(auctionId, endTime);
         }
 
         @Test
@@ -792,17 +812,29 @@ class PurchaseServiceTests {
             Bid bid = mock(Bid.class);
             when(auth.ValidateToken(token)).thenReturn(bidder);
             when(repo.getPurchaseById(auctionId)).thenReturn(bid);
+            when(repo.saveAuctionBids(eq(auctionId), anyInt(), anyInt(), eq(1L), eq(Set.of(bidder)))).thenReturn(true);
 
-            doAnswer(invocation -> {
-                Bid b     = invocation.getArgument(0);
-                int uid   = invocation.getArgument(1);
-                int price = invocation.getArgument(2);
-                b.addBidding(uid, price, false);
-                return null;
-            }).when(repo).postBiddingAuction(eq(bid), eq(bidder), eq(bidPrice));
-
-            service.postBiddingAuction(token, auctionId, bidPrice);
+            var ack = service.postBiddingAuction(token, auctionId, bidPrice);
             verify(bid).addBidding(bidder, bidPrice, false);
+            assertTrue(ack.accepted());
+            assertEquals(1L, ack.seq());
+        }
+
+        @Test
+        @DisplayName("whenBatchIsNotStored_failsAndReloadsAuction")
+        void notStored_failsAndReloads() throws Exception {
+            String token = "tok";
+            int bidder = 2, auctionId = 10;
+            Bid bid = new Bid(auctionId, 1, 3, Map.of(1, 1), 50, LocalDateTime.now().minusMinutes(1),
+                    LocalDateTime.now().plusHours(1));
+            when(auth.ValidateToken(token)).thenReturn(bidder);
+            when(repo.getPurchaseById(auctionId)).thenReturn(bid);
+            when(repo.saveAuctionBids(anyInt(), anyInt(), anyInt(), anyLong(), any())).thenReturn(false, true);
+
+            assertThrows(OurRuntime.class, () -> service.postBiddingAuction(token, auctionId, 60));
+            // the next bid reloads the auction from the repository
+            assertTrue(service.postBiddingAuction(token, auctionId, 70).accepted());
+            verify(repo, times(2)).getPurchaseById(auctionId);
         }
 
         @Test
@@ -895,10 +927,10 @@ class PurchaseServiceTests {
             shopB, new HashMap<>(Map.of(7,1))
         );
 
-        when(auth.ValidateToken(token)).thenReturn(uid);
+        AuthenticatedPrincipal principal = buyer(token, uid);
         when(users.getUserShoppingCartItems(uid))
             .thenReturn(new HashMap<>(cart));
-        when(shops.purchaseItems(cartA, shopA, token)).thenReturn(100.0);
+        when(shops.purchaseItems(cartA, shopA, principal)).thenReturn(100.0);
         when(repo.addPurchase(eq(uid), eq(shopA), eq(cartA), eq(100.0), any()))
             .thenReturn(42);
 
@@ -910,7 +942,7 @@ class PurchaseServiceTests {
 
         assertEquals(List.of(42), out);
         verify(users).clearUserShoppingCartByShopId(uid, shopA);
-        verify(shops).shipPurchase(eq(token), eq(42), eq(shopA),
+        verify(shops).shipPurchase(eq(principal), eq(42), eq(shopA),
             any(), any(), any(), any());
     }
 
@@ -920,10 +952,10 @@ class PurchaseServiceTests {
         String token = "tok";
         int uid = 2, shop = 5;
         Map<Integer,Integer> cartShop = Map.of(9,1);
-        when(auth.ValidateToken(token)).thenReturn(uid);
+        AuthenticatedPrincipal principal = buyer(token, uid);
         when(users.getUserShoppingCartItems(uid))
             .thenReturn(new HashMap<>(Map.of(shop, new HashMap<>(cartShop))));
-        when(shops.purchaseItems(cartShop, shop, token))
+        when(shops.purchaseItems(cartShop, shop, principal))
             .thenThrow(new OurRuntime("boom"));
 
         OurRuntime ex = assertThrows(
@@ -935,10 +967,28 @@ class PurchaseServiceTests {
             )
         );
         assertTrue(ex.getMessage().contains("partialCheckoutCart:"));
-        verify(shops).rollBackPurchase(cartShop, shop);
+        // the failed reservation gave its stock back itself
+        verify(shops, never()).rollBackPurchase(any(), anyInt());
         verify(users).restoreUserShoppingCartByShopId(eq(uid), any(), eq(shop));
     }
 
+    @Test
+    void partialCheckoutCart_whenPaymentFails_returnsTheReservedBasket() throws Exception {
+        String token = "tok";
+        int uid = 2, shop = 5;
+        HashMap<Integer, Integer> cartShop = new HashMap<>(Map.of(9, 1));
+        AuthenticatedPrincipal principal = buyer(token, uid);
+        when(users.getUserShoppingCartItems(uid)).thenReturn(new HashMap<>(Map.of(shop, cartShop)));
+        when(shops.purchaseItems(cartShop, shop, principal)).thenReturn(10.0);
+        when(users.pay(eq(principal), eq(shop), anyDouble(), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new OurRuntime("card declined"));
+
+        assertThrows(OurRuntime.class, () -> service.partialCheckoutCart(token, addr,
+                "USD", "4111", "12", "25", "Bob", "123", "ID", shop));
+
+        verify(shops).rollBackPurchase(cartShop, shop);
+    }
+
     // ─────────── getReciept tests ───────────
 
     @Test @DisplayName("getReciept_happyPath_returnsListOfOne")
@@ -997,6 +1047,8 @@ class PurchaseServiceTests {
         // 1) two receipts: done (completed), open (not yet)
         BidReciept done = mock(BidReciept.class),
                 open = mock(BidReciept.class);
+        when(done.getPurchaseId()).thenReturn(1);
+        when(open.getPurchaseId()).thenReturn(2);
         when(done.getEndTime()).thenReturn(LocalDateTime.now().minusDays(1));
         when(done.getShopId()  ).thenReturn(1);
         when(done.getItems()   ).thenReturn(Map.of(100, 1));
@@ -1037,6 +1089,8 @@ class PurchaseServiceTests {
         BidReciept done = mock(BidReciept.class);
         BidReciept open = mock(BidReciept.class);
 
+        when(done.getPurchaseId()).thenReturn(1);
+        when(open.getPurchaseId()).thenReturn(2);
         when(done.isCompleted()).thenReturn(true);
         when(done.getUserId()).thenReturn(uid);
         
@@ -1068,31 +1122,47 @@ class PurchaseServiceTests {
                         any(LocalDateTime.class), eq(end)))
             .thenReturn(auctionId);
 
-        // capture the Runnable that Spring will schedule
-        ArgumentCaptor<Runnable> runCap = ArgumentCaptor.forClass(Runnable.class);
+        // capture the finalizer the timer wheel will call
+        ArgumentCaptor<Consumer<List<Integer>>> runCap = ArgumentCaptor.forClass(Consumer.class);
 
         service.startAuction(token, shopId, items, 10, end);
 
-        verify(taskscheduler)
-        .schedule(runCap.capture(), any(Date.class));
+        verify(auctionScheduler).schedule(auctionId, end);
+        verify(auctionScheduler).setFinalizer(runCap.capture());
 
         // now prepare that Bid so finalizeAuction will run
         Bid bid = mock(Bid.class);
+        when(repo.completeAuction(auctionId)).thenReturn(true);
         when(repo.getPurchaseById(auctionId)).thenReturn(bid);
-        when(bid.completePurchase()).thenReturn(mock(BidReciept.class));
         when(bid.getHighestBidderId()).thenReturn(77);
         when(bid.getMaxBidding()).thenReturn(123);
         when(bid.getStoreId()).thenReturn(shopId);
         when(bid.getBiddersIds()).thenReturn(List.of(77,88));
 
         // run the callback
-        runCap.getValue().run();
+        runCap.getValue().accept(List.of(auctionId));
 
-        // verify notifications & cart addition
+        // verify completion is persisted, notifications & cart addition
+        verify(repo).completeAuction(auctionId);
         verify(nots).sendToUser(eq(77), eq("Auction ended"), contains("won"));
         verify(users).addAuctionWinBidToUserShoppingCart(77, bid);
     }
 
+    @Test
+    @DisplayName("recoverAuctions_reschedulesOpenAuctionsFromRepository")
+    void recoverAuctions_reschedulesOpenAuctions() {
+        LocalDateTime end1 = LocalDateTime.now().minusMinutes(5);
+        LocalDateTime end2 = LocalDateTime.now().plusHours(3);
+        Bid ended = new Bid(11, 1, 2, Map.of(1, 1), 10, LocalDateTime.now().minusHours(1), end1);
+        Bid running = new Bid(12, 1, 2, Map.of(1, 1), 10, LocalDateTime.now().minusHours(1), end2);
+        when(repo.getOpenAuctions()).thenReturn(List.of(ended, running));
+
+        service.recoverAuctions();
+
+        verify(auctionScheduler).schedule(11, end1);
+        verify(auctionScheduler).schedule(12, end2);
+    }
+
     // ─────────────────────────── getAllBids true‐branch for owner vs non‐owner ───────────────────────────
     @Test
     @DisplayName("getAllBids_trueBranch_filtersCorrectly_forOwnerAndOthers")
@@ -1101,6 +1171,8 @@ class PurchaseServiceTests {
         BidReciept ownerBid = mock(BidReciept.class),
                 otherBid = mock(BidReciept.class);
 
+        when(ownerBid.getPurchaseId()).thenReturn(1);
+        when(otherBid.getPurchaseId()).thenReturn(2);
         when(ownerBid.getShopId()).thenReturn(5);
         when(ownerBid.getUserId()).thenReturn(uid);
         when(ownerBid.getEndTime()).thenReturn(null);
@@ -1124,6 +1196,31 @@ class PurchaseServiceTests {
         assertSame(ownerBid, out.get(0));
     }
 
+    @Test
+    @DisplayName("getBidsPage_loadsReadModelOnce_andPagesNewestFirst")
+    void getBidsPage_loadsReadModelOnce_andPagesNewestFirst() throws Exception {
+        String token = "tok"; int uid = 1;
+        BidReciept older = new BidReciept(1, uid, 5, Map.of(1, 1), null, 10, -1, 10, 10, -1, false, null);
+        BidReciept newer = new BidReciept(2, uid, 5, Map.of(1, 1), null, 10, -1, 10, 10, -1, false, null);
+
+        when(auth.ValidateToken(token)).thenReturn(uid);
+        when(repo.getAllBids()).thenReturn(List.of(older, newer));
+        when(shops.getclosedShops(token)).thenReturn(List.of());
+        when(shops.searchItemsInShop(eq(5), any(), any(), any(), any(), any(), any(), eq(token)))
+            .thenReturn(List.of(new Item(1, "", "", 0)));
+        when(users.getShopOwner(5)).thenReturn(3);
+
+        var first = service.getBidsPage(token, true, null, 1);
+        assertEquals(List.of(newer), first.items());
+        var second = service.getBidsPage(token, true, first.nextBeforeId(), 1);
+        assertEquals(List.of(older), second.items());
+        assertEquals(null, second.nextBeforeId());
+
+        verify(repo, times(1)).getAllBids();
+        verify(users, times(1)).getShopOwner(5);
+        assertThrows(OurArg.class, () -> service.getBidsPage(token, true, null, 0));
+    }
+
     // ─────────────────────────────── setServices actually overrides deps ───────────────────────────────
     @Test
     @DisplayName("setServices_overridesAuthTokenService")
@@ -1162,15 +1259,15 @@ class PurchaseServiceTests {
             purchaseId = 55;
         Map<Integer,Integer> cartShop = Map.of(9,1);
 
-        when(auth.ValidateToken(token)).thenReturn(uid);
+        AuthenticatedPrincipal principal = buyer(token, uid);
         when(users.getUserShoppingCartItems(uid))
             .thenReturn(new HashMap<>(Map.of(shop, new HashMap<>(cartShop))));
-        when(shops.purchaseItems(cartShop, shop, token)).thenReturn(10.0);
+        when(shops.purchaseItems(cartShop, shop, principal)).thenReturn(10.0);
         when(repo.addPurchase(uid, shop, cartShop, 10.0, addr))
             .thenReturn(purchaseId);
 
         when(users.pay(
-            eq(token), eq(shop), eq(10.0),
+            eq(principal), eq(shop), eq(10.0),
             eq("USD"), eq("4111"), eq("12"), eq("25"),
             eq("Name"), eq("CVV"), eq("ID")
         )).thenReturn(purchaseId);
@@ -1179,7 +1276,7 @@ class PurchaseServiceTests {
         doThrow(new OurRuntime("ship error"))
             .when(shops)
             .shipPurchase(
-                eq(token), eq(purchaseId), eq(shop),
+                eq(principal), eq(purchaseId), eq(shop),
                 any(), any(), any(), any()
             );
 
@@ -1195,7 +1292,7 @@ class PurchaseServiceTests {
         // verify rollback + restore + refund
         verify(shops).rollBackPurchase(cartShop, shop);
         verify(users).restoreUserShoppingCart(eq(uid), any());
-        verify(users).refundPaymentAuto(token, purchaseId);
+        verify(users).refundPaymentAuto(principal, purchaseId);
     }
 
     // ─────────── getBid exception branches ───────────
@@ -1319,7 +1416,7 @@ class PurchaseServiceTests {
     // ─────────── finalizeAuction exception paths ───────────
 
     @Test
-    @DisplayName("startAuction_callback_noBids_throwsOurRuntime")
+    @DisplayName("startAuction_callback_noBids_completesWithoutWinner")
     void finalizeAuction_noBids() throws Exception {
         String tok = "t"; int user = 1, shopId = 2, aId = 77;
         when(auth.ValidateToken(tok)).thenReturn(user);
@@ -1327,24 +1424,24 @@ class PurchaseServiceTests {
         when(repo.addBid(eq(user), eq(shopId), anyMap(), anyInt(), any(), any()))
         .thenReturn(aId);
 
-        ArgumentCaptor<Runnable> cap = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Consumer<List<Integer>>> cap = ArgumentCaptor.forClass(Consumer.class);
         service.startAuction(tok, shopId, Map.of(1,1), 10, LocalDateTime.now().plusHours(1));
-        verify(taskscheduler).schedule(cap.capture(), any(Date.class));
+        verify(auctionScheduler).setFinalizer(cap.capture());
 
         Bid b = mock(Bid.class);
+        when(repo.completeAuction(aId)).thenReturn(true);
         when(repo.getPurchaseById(aId)).thenReturn(b);
         // no bidders at all:
         when(b.getHighestBidderId()).thenReturn(-1);
 
-        OurRuntime ex = assertThrows(
-        OurRuntime.class,
-        () -> cap.getValue().run()
-        );
-        assertTrue(ex.getMessage().contains("No bids were placed"));
+        // the batch finalizer logs the failure and moves on
+        assertDoesNotThrow(() -> cap.getValue().accept(List.of(aId)));
+        verify(repo).completeAuction(aId);
+        verify(users, never()).addAuctionWinBidToUserShoppingCart(anyInt(), any());
     }
 
     @Test
-    @DisplayName("startAuction_callback_noFinalPrice_throwsOurRuntime")
+    @DisplayName("startAuction_callback_noFinalPrice_skipsAndFinalizesRestOfBatch")
     void finalizeAuction_noFinalPrice() throws Exception {
         String tok = "t"; int user = 1, shopId = 2, aId = 78;
         when(auth.ValidateToken(tok)).thenReturn(user);
@@ -1352,20 +1449,27 @@ class PurchaseServiceTests {
         when(repo.addBid(eq(user), eq(shopId), anyMap(), anyInt(), any(), any()))
         .thenReturn(aId);
 
-        ArgumentCaptor<Runnable> cap = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Consumer<List<Integer>>> cap = ArgumentCaptor.forClass(Consumer.class);
         service.startAuction(tok, shopId, Map.of(1,1), 10, LocalDateTime.now().plusHours(1));
-        verify(taskscheduler).schedule(cap.capture(), any(Date.class));
+        verify(auctionScheduler).setFinalizer(cap.capture());
 
         Bid b = mock(Bid.class);
+        when(repo.completeAuction(anyInt())).thenReturn(true);
         when(repo.getPurchaseById(aId)).thenReturn(b);
         when(b.getHighestBidderId()).thenReturn(5);
         when(b.getMaxBidding()).thenReturn(-1);
 
-        OurRuntime ex = assertThrows(
-        OurRuntime.class,
-        () -> cap.getValue().run()
-        );
-        assertTrue(ex.getMessage().contains("No final price"));
+        // a second auction that ended in the same tick
+        Bid other = mock(Bid.class);
+        when(repo.getPurchaseById(aId + 1)).thenReturn(other);
+        when(other.getHighestBidderId()).thenReturn(6);
+        when(other.getMaxBidding()).thenReturn(40);
+        when(other.getStoreId()).thenReturn(shopId);
+        when(other.getBiddersIds()).thenReturn(List.of(6));
+
+        assertDoesNotThrow(() -> cap.getValue().accept(List.of(aId, aId + 1)));
+        verify(users, never()).addAuctionWinBidToUserShoppingCart(5, b);
+        verify(users).addAuctionWinBidToUserShoppingCart(6, other);
     }
 
     // ─────────── getStorePurchases permission branch ───────────
@@ -1437,7 +1541,7 @@ class PurchaseServiceTests {
         // buyer user with WSEPPay
         final String buyerTok = "tok-buyer";
         final int    buyerId  = 2;
-        when(auth.ValidateToken(buyerTok)).thenReturn(buyerId);
+        AuthenticatedPrincipal principal = buyer(buyerTok, buyerId);
 
         // buyer’s cart
         HashMap<Integer, HashMap<Integer, Integer>> cart = new HashMap<>();
@@ -1446,11 +1550,11 @@ class PurchaseServiceTests {
 
         // shop quotes price & buyer pays
         double totalPrice = 30 * 1 + 20 * 2;                 // 70.0
-        when(shops.purchaseItems(cart.get(shopId), shopId, buyerTok))
+        when(shops.purchaseItems(cart.get(shopId), shopId, principal))
                 .thenReturn(totalPrice);
 
         when(users.pay(
-                eq(buyerTok), eq(shopId), eq(totalPrice),       // <-- precise price
+                eq(principal), eq(shopId), eq(totalPrice),       // <-- precise price
                 eq("ILS"), eq("4580458045804580"),              // card number
                 eq("05"), eq("28"),                             // exp-month / exp-year
                 eq("King Buyer"), eq("123"), eq("AB12")))       // cardholder / cvv / id
@@ -1465,7 +1569,7 @@ class PurchaseServiceTests {
 
         // side-effects
         doNothing().when(users).clearUserShoppingCart(buyerId);
-        doNothing().when(shops).shipPurchase(buyerTok, 999, shopId,
+        doNothing().when(shops).shipPurchase(principal, 999, shopId,
                                             "Israel", "Tel-Aviv", "Rothschild 1", "61000");
         doNothing().when(users).purchaseNotification(cart);
 
@@ -1502,14 +1606,14 @@ class PurchaseServiceTests {
         // buyer & cart
         final String buyerTok = "tok-buyer";
         final int    buyerId  = 2;
-        when(auth.ValidateToken(buyerTok)).thenReturn(buyerId);
+        AuthenticatedPrincipal principal = buyer(buyerTok, buyerId);
 
         HashMap<Integer, HashMap<Integer, Integer>> cart = new HashMap<>();
         cart.put(shopId, new HashMap<>(Map.of(itemId1, 1, itemId2, 2)));
         when(users.getUserShoppingCartItems(buyerId)).thenReturn(cart);
 
         // shop refuses to price items because shipping method is missing
-        when(shops.purchaseItems(cart.get(shopId), shopId, buyerTok))
+        when(shops.purchaseItems(cart.get(shopId), shopId, principal))
                 .thenThrow(new RuntimeException("Shop missing shipping method"));
 
         Address addr = new Address()
@@ -1524,7 +1628,7 @@ class PurchaseServiceTests {
         );
 
         // ensure no payment/purchase occurred
-        verify(users, never()).pay(any(), anyInt(), anyDouble(),
+        verify(users, never()).pay(any(AuthenticatedPrincipal.class), anyInt(), anyDouble(),
                                 any(), any(), any(), any(), any(), any(), any());
         verify(repo,  never()).addPurchase(anyInt(), anyInt(), any(), anyDouble(), any());
     }
@@ -1552,7 +1656,7 @@ class PurchaseServiceTests {
         // buyer & cart
         final String buyerTok = "tok-buyer";
         final int    buyerId  = 2;
-        when(auth.ValidateToken(buyerTok)).thenReturn(buyerId);
+        AuthenticatedPrincipal principal = buyer(buyerTok, buyerId);
 
         HashMap<Integer, HashMap<Integer, Integer>> cart = new HashMap<>();
         cart.put(shopId, new HashMap<>(Map.of(itemId1, 1, itemId2, 2)));
@@ -1560,12 +1664,12 @@ class PurchaseServiceTests {
 
         // shop successfully prices items
         double totalPrice = 30 * 1 + 20 * 2;                      // 70.0
-        when(shops.purchaseItems(cart.get(shopId), shopId, buyerTok))
+        when(shops.purchaseItems(cart.get(shopId), shopId, principal))
                 .thenReturn(totalPrice);
 
         // pay fails because buyer lacks WSEPPay method
         when(users.pay(
-                eq(buyerTok), eq(shopId), eq(totalPrice),
+                eq(principal), eq(shopId), eq(totalPrice),
                 any(), any(), any(), any(), any(), any(), any()))
             .thenThrow(new RuntimeException("Buyer missing payment method"));
 
@@ -1585,4 +1689,120 @@ class PurchaseServiceTests {
     }
 
 
+    // ─────────── checkout pipeline ───────────
+
+    @Test
+    void checkoutCart_paysShopsConcurrently_andRecordsStageMetrics() throws Exception {
+        String token = "tok";
+        int uid = 1, shopA = 10, shopB = 20;
+        HashMap<Integer, HashMap<Integer, Integer>> cart = new HashMap<>();
+        cart.put(shopA, new HashMap<>(Map.of(5, 1)));
+        cart.put(shopB, new HashMap<>(Map.of(7, 1)));
+        AuthenticatedPrincipal principal = buyer(token, uid);
+        when(users.getUserShoppingCartItems(uid)).thenReturn(cart);
+        when(shops.purchaseItems(any(), anyInt(), eq(principal))).thenReturn(10.0);
+        when(repo.addPurchase(eq(uid), eq(shopA), any(), anyDouble(), any())).thenReturn(1);
+        when(repo.addPurchase(eq(uid), eq(shopB), any(), anyDouble(), any())).thenReturn(2);
+
+        // each payment only completes once both are in flight
+        CountDownLatch bothPaying = new CountDownLatch(2);
+        when(users.pay(eq(principal), anyInt(), anyDouble(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    bothPaying.countDown();
+                    if (!bothPaying.await(5, TimeUnit.SECONDS)) {
+                        throw new OurRuntime("payments ran sequentially");
+                    }
+                    return inv.getArgument(1, Integer.class) + 100;
+                });
+
+        List<Integer> ids = service.checkoutCart(token, addr, "ILS", "4580", "05", "28", "Name", "123", "ID");
+
+        assertEquals(Set.of(1, 2), new HashSet<>(ids));
+        verify(shops).shipPurchase(principal, 1, shopA, "IL", "TLV", "Rothschild", "6800000");
+        verify(shops).shipPurchase(principal, 2, shopB, "IL", "TLV", "Rothschild", "6800000");
+        assertEquals(1, service.getCheckoutMetrics().snapshot().get(
+                com.example.app.ApplicationLayer.Purchase.CheckoutMetrics.Stage.TOTAL).count());
+        assertEquals(1, service.getCheckoutMetrics().snapshot().get(
+                com.example.app.ApplicationLayer.Purchase.CheckoutMetrics.Stage.PAY).count());
+    }
+
+    @Test
+    void checkoutCart_whenOnePaymentFails_refundsTheOthersAndPersistsNothing() throws Exception {
+        String token = "tok";
+        int uid = 1, shopA = 10, shopB = 20;
+        HashMap<Integer, HashMap<Integer, Integer>> cart = new HashMap<>();
+        cart.put(shopA, new HashMap<>(Map.of(5, 1)));
+        cart.put(shopB, new HashMap<>(Map.of(7, 1)));
+        AuthenticatedPrincipal principal = buyer(token, uid);
+        when(users.getUserShoppingCartItems(uid)).thenReturn(cart);
+        when(shops.purchaseItems(any(), anyInt(), eq(principal))).thenReturn(10.0);
+        when(users.pay(eq(principal), eq(shopA), anyDouble(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(111);
+        when(users.pay(eq(principal), eq(shopB), anyDouble(), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new OurRuntime("card declined"));
+
+        OurRuntime ex = assertThrows(OurRuntime.class,
+                () -> service.checkoutCart(token, addr, "ILS", "4580", "05", "28", "Name", "123", "ID"));
+
+        assertTrue(ex.getMessage().contains("card declined"));
+        verify(users).refundPaymentAuto(principal, 111);
+        verify(shops).rollBackPurchase(cart.get(shopA), shopA);
+        verify(shops).rollBackPurchase(cart.get(shopB), shopB);
+        verify(users).restoreUserShoppingCart(eq(uid), any());
+        verify(repo, never()).addPurchase(anyInt(), anyInt(), any(), anyDouble(), any());
+        assertEquals(1, service.getCheckoutMetrics().getFailures());
+    }
+
+    @Test
+    void checkoutCart_interruptedWhilePaying_waitsForThePaymentsThenRefundsThem() throws Exception {
+        String token = "tok";
+        int uid = 1, shopA = 10, shopB = 20;
+        HashMap<Integer, HashMap<Integer, Integer>> cart = new HashMap<>();
+        cart.put(shopA, new HashMap<>(Map.of(5, 1)));
+        cart.put(shopB, new HashMap<>(Map.of(7, 1)));
+        AuthenticatedPrincipal principal = buyer(token, uid);
+        when(users.getUserShoppingCartItems(uid)).thenReturn(cart);
+        when(shops.purchaseItems(any(), anyInt(), eq(principal))).thenReturn(10.0);
+
+        CountDownLatch bothPaying = new CountDownLatch(2);
+        CountDownLatch gatewayAnswers = new CountDownLatch(1);
+        when(users.pay(eq(principal), anyInt(), anyDouble(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    bothPaying.countDown();
+                    gatewayAnswers.await(5, TimeUnit.SECONDS);
+                    return inv.getArgument(1, Integer.class) + 100;
+                });
+        List<Boolean> refundedWhileInterrupted = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(inv -> refundedWhileInterrupted.add(Thread.currentThread().isInterrupted()))
+                .when(users).refundPaymentAuto(eq(principal), anyInt());
+
+        List<Object> outcome = Collections.synchronizedList(new ArrayList<>());
+        Thread checkout = new Thread(() -> {
+            try {
+                service.checkoutCart(token, addr, "ILS", "4580", "05", "28", "Name", "123", "ID");
+            } catch (OurRuntime e) {
+                outcome.add(e);
+            }
+            outcome.add(Thread.currentThread().isInterrupted());
+        });
+        checkout.start();
+        assertTrue(bothPaying.await(5, TimeUnit.SECONDS));
+        checkout.interrupt();
+
+        // the payments are still running, so the checkout keeps waiting for them
+        checkout.join(200);
+        assertTrue(checkout.isAlive());
+        verify(users, never()).refundPaymentAuto(any(AuthenticatedPrincipal.class), anyInt());
+
+        gatewayAnswers.countDown();
+        checkout.join(5000);
+        assertFalse(checkout.isAlive());
+        assertTrue(outcome.get(0) instanceof OurRuntime);
+        assertEquals(Boolean.TRUE, outcome.get(1));
+        verify(users).refundPaymentAuto(principal, shopA + 100);
+        verify(users).refundPaymentAuto(principal, shopB + 100);
+        assertEquals(List.of(false, false), refundedWhileInterrupted);
+        verify(repo, never()).addPurchase(anyInt(), anyInt(), any(), anyDouble(), any());
+    }
+
 }
@@ -0,0 +1,84 @@
+package ApplicationLayerTests.Shop;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.app.ApplicationLayer.Shop.ItemSearchIndex;
+import com.example.app.ApplicationLayer.Shop.ItemSearchIndex.Query;
+import com.example.app.DomainLayer.Item.Item;
+import com.example.app.DomainLayer.Item.ItemCategory;
+import com.example.app.DomainLayer.Item.ItemReview;
+
+class ItemSearchIndexTests {
+
+    private ItemSearchIndex index;
+    private Item phone;
+    private Item case_;
+    private Item book;
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemSearchIndex();
+        phone = new Item(1, "Smartphone X", "A fast phone", ItemCategory.ELECTRONICS.ordinal());
+        case_ = new Item(2, "Leather Case", "Fits every smartphone", ItemCategory.ELECTRONICS.ordinal());
+        book = new Item(3, "Cookbook", "Recipes", ItemCategory.BOOKS.ordinal());
+        index.putShop(1, 4.0);
+        index.putShop(2, 2.0);
+        index.putListing(1, phone, 1000);
+        index.putListing(1, case_, 50);
+        index.putListing(2, book, 30);
+    }
+
+    private static Query byName(String name) {
+        return new Query(name, null, null, null, null, null, null);
+    }
+
+    @Test
+    void testSubstringNameMatch() {
+        assertEquals(List.of(phone), index.search(byName("PHONE")));
+        assertEquals(List.of(book), index.search(byName("ok")));
+        assertTrue(index.search(byName("tablet")).isEmpty());
+    }
+
+    @Test
+    void testKeywordsMatchNameOrDescriptionAndRankNameFirst() {
+        List<Item> res = index.search(new Query(null, null, List.of("smartphone"), null, null, null, null));
+        assertEquals(List.of(phone, case_), res);
+    }
+
+    @Test
+    void testCategoryPriceAndShopRatingFilters() {
+        assertEquals(List.of(book), index.search(new Query(null, ItemCategory.BOOKS, null, null, null, null, null)));
+        assertEquals(List.of(case_, book), index.search(new Query(null, null, null, 20, 100, null, null)).stream()
+                .sorted((a, b) -> a.getId() - b.getId()).toList());
+        assertEquals(2, index.search(new Query(null, null, null, null, null, null, 3.0)).size());
+    }
+
+    @Test
+    void testIncrementalUpdates() {
+        index.updatePrice(1, 1, 10);
+        assertEquals(List.of(phone), index.search(new Query(null, null, null, 5, 15, null, null)));
+
+        phone.addReview(new ItemReview(5, "great"));
+        index.updateItem(phone);
+        assertEquals(List.of(phone), index.search(new Query(null, null, null, null, null, 4.5, null)));
+
+        index.removeListing(1, 1);
+        assertTrue(index.search(byName("smartphone")).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testPagination() {
+        Query all = new Query(null, null, null, null, null, null, null);
+        List<Item> ranked = index.search(all);
+        assertEquals(3, ranked.size());
+        assertEquals(ranked.subList(0, 2), index.search(all, 0, 2));
+        assertEquals(ranked.subList(2, 3), index.search(all, 1, 2));
+        assertTrue(index.search(all, 2, 2).isEmpty());
+    }
+}
@@ -1,5 +1,6 @@
 package ApplicationLayerTests.Shop;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -44,12 +45,15 @@ import com.example.app.ApplicationLayer.AuthTokenService;
 import com.example.app.ApplicationLayer.Item.ItemService;
 import com.example.app.ApplicationLayer.OurArg;
 import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.ApplicationLayer.Purchase.BidReadModel;
 import com.example.app.ApplicationLayer.Purchase.ShippingMethod;
+import com.example.app.ApplicationLayer.Shop.ItemSearchIndex;
 import com.example.app.ApplicationLayer.Shop.ShopService;
 import com.example.app.ApplicationLayer.User.UserService;
 import com.example.app.DomainLayer.Item.Item;
 import com.example.app.DomainLayer.Item.ItemCategory;
 import com.example.app.DomainLayer.Item.ItemReview;
+import com.example.app.DomainLayer.Purchase.BidReciept;
 import com.example.app.DomainLayer.Roles.PermissionsEnum;
 import com.example.app.DomainLayer.Shop.Discount.Discount;
 import com.example.app.DomainLayer.Shop.Discount.Policy;
@@ -57,6 +61,7 @@ import com.example.app.DomainLayer.Shop.IShopRepository;
 import com.example.app.DomainLayer.Shop.PurchasePolicy;
 import com.example.app.DomainLayer.Shop.Shop;
 import com.example.app.DomainLayer.Shop.ShopReview;
+import com.example.app.InfrastructureLayer.IdAllocator;
 import com.example.app.InfrastructureLayer.ShopRepository;
 import com.example.app.PresentationLayer.DTO.Shop.CompositePolicyDTO;
 
@@ -82,6 +87,7 @@ class ShopServiceAcceptanceTests {
 
     @InjectMocks
     private ShopService shopService;
+    private BidReadModel bidReadModel;
 
     private AutoCloseable mocks;
 
@@ -92,7 +98,9 @@ class ShopServiceAcceptanceTests {
         mocks = MockitoAnnotations.openMocks(this);
 
         // manually construct with your two-arg constructor
-        shopService = new ShopService(shopRepository, authTokenService, userService, itemService);
+        bidReadModel = new BidReadModel();
+        shopService = new ShopService(shopRepository, authTokenService, userService, itemService,
+                new ItemSearchIndex(), bidReadModel);
     }
 
     @AfterEach
@@ -236,6 +244,25 @@ class ShopServiceAcceptanceTests {
         verify(shopRepository).addItemToShop(shopId, itemId, qty, price);
     }
 
+    @Test
+    void testAddItemToShop_ShowsAuctionsOfTheNewItem() throws Exception {
+        String token = "tok";
+        int shopId = 3, itemId = 12;
+        when(authTokenService.ValidateToken(token)).thenReturn(8);
+        when(userService.hasPermission(8, PermissionsEnum.manageItems, shopId)).thenReturn(true);
+        when(itemService.createItem(shopId, "item1", "no description", ItemCategory.ELECTRONICS, token))
+                .thenReturn(itemId);
+        // the shop was resolved for the auctions screen before the item existed
+        bidReadModel.putShop(shopId, 8, false, List.of());
+        bidReadModel.put(new BidReciept(1, 9, shopId, Map.of(itemId, 1), null, 10, -1, 10, 10, -1, false,
+                LocalDateTime.now().plusDays(1)));
+        assertTrue(bidReadModel.getAuctions(null, 10).items().isEmpty());
+
+        shopService.addItemToShop(shopId, "item1", "no description", 5, ItemCategory.ELECTRONICS, 100, token);
+
+        assertEquals(1, bidReadModel.getAuctions(null, 10).items().size());
+    }
+
     // UC16 – Add Product to Shop (invalid quantity)
     @Test
     void testAddItemToShop_InvalidQuantity_Failure() throws Exception {
@@ -647,7 +674,7 @@ class ShopServiceAcceptanceTests {
     // another.
     @Test
     void testClosingAndReopeningShopsInRepo_Success() {
-        ShopRepository repo = new ShopRepository();
+        ShopRepository repo = new ShopRepository(new IdAllocator());
         PurchasePolicy pp = mock(PurchasePolicy.class);
         ShippingMethod sm = mock(ShippingMethod.class);
 
@@ -669,7 +696,7 @@ class ShopServiceAcceptanceTests {
     // Spawns multiple threads creating shops to ensure unique IDs.
     @Test
     void testConcurrentShopCreationInRepo_Success() throws Exception {
-        ShopRepository repo = new ShopRepository();
+        ShopRepository repo = new ShopRepository(new IdAllocator());
         PurchasePolicy pp = mock(PurchasePolicy.class);
         ShippingMethod sm = mock(ShippingMethod.class);
 
@@ -1091,6 +1118,55 @@ class ShopServiceAcceptanceTests {
         assertEquals(1, res.size());
     }
 
+    // searchItems answers from the index after the first call and follows price updates
+    @Test
+    void testSearchItems_IndexFollowsPriceUpdate() throws Exception {
+        String tok = "t";
+        when(authTokenService.ValidateToken(tok)).thenReturn(1);
+        Shop s = new Shop(1, "S", shippingMethod);
+        s.addItem(1, 5);
+        s.updateItemPrice(1, 10);
+        when(shopRepository.getAllShops()).thenReturn(List.of(s));
+        when(shopRepository.getItemsByShop(1)).thenReturn(List.of(1));
+        Item it = new Item(1, "Lamp", "desc", 3);
+        when(itemService.getItemsByIds(List.of(1), tok)).thenReturn(List.of(it));
+        when(userService.hasPermission(1, PermissionsEnum.manageItems, 1)).thenReturn(true);
+
+        assertEquals(1, shopService.searchItems(null, null, null, 5, 15, null, null, tok).size());
+        shopService.updateItemPriceInShop(1, 1, 100, tok);
+        assertTrue(shopService.searchItems(null, null, null, 5, 15, null, null, tok).isEmpty());
+        assertEquals(1, shopService.searchItems(null, null, null, 90, 110, null, null, tok).size());
+        verify(shopRepository, times(1)).getAllShops();
+    }
+
+    // closing a shop drops its items from the index and reopening it brings them back
+    @Test
+    void testSearchItems_IndexFollowsCloseAndReopen() throws Exception {
+        String tok = "t";
+        when(authTokenService.ValidateToken(tok)).thenReturn(1);
+        Shop s = new Shop(1, "S", shippingMethod);
+        s.addItem(1, 5);
+        s.updateItemPrice(1, 10);
+        when(shopRepository.getAllShops()).thenReturn(List.of(s));
+        when(shopRepository.getShop(1)).thenReturn(s);
+        when(shopRepository.getItemsByShop(1)).thenReturn(List.of(1));
+        Item it = new Item(1, "Lamp", "desc", 3);
+        when(itemService.getItemsByIds(List.of(1), tok)).thenReturn(List.of(it));
+        when(userService.hasPermission(1, PermissionsEnum.closeShop, 1)).thenReturn(true);
+
+        ShopService spySvc = spy(shopService);
+        // the in-memory repository forgets a closed shop, so there is nothing left to remove
+        doReturn(Collections.emptyList()).when(spySvc).searchItemsInShop(eq(1), isNull(), isNull(),
+                eq(Collections.emptyList()), isNull(), isNull(), isNull(), eq(tok));
+
+        assertEquals(List.of(it), spySvc.searchItems("lamp", null, null, null, null, null, null, tok));
+        spySvc.closeShop(1, tok);
+        assertTrue(spySvc.searchItems("lamp", null, null, null, null, null, null, tok).isEmpty());
+        spySvc.reOpenShop(1, tok);
+        assertEquals(List.of(it), spySvc.searchItems("lamp", null, null, null, null, null, null, tok));
+        verify(shopRepository, times(1)).getAllShops();
+    }
+
     // searchItems global category filter
     @Test
     void testSearchItems_CategoryFilter() throws Exception {
@@ -0,0 +1,88 @@
+package ApplicationLayerTests.User;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.ApplicationLayer.NotificationService;
+import com.example.app.ApplicationLayer.User.PermissionCache;
+import com.example.app.ApplicationLayer.User.UserService;
+import com.example.app.DomainLayer.Roles.PermissionsEnum;
+import com.example.app.DomainLayer.Roles.Role;
+import com.example.app.InfrastructureLayer.IdAllocator;
+import com.example.app.InfrastructureLayer.AuthTokenRepository;
+import com.example.app.InfrastructureLayer.UserRepository;
+
+class PermissionCacheTests {
+
+    @Test
+    void masksAreLoadedOncePerMemberAndShop() {
+        PermissionCache cache = new PermissionCache(100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        long mask = PermissionCache.maskOf(PermissionsEnum.manageItems, PermissionsEnum.getHistory);
+
+        assertTrue(cache.has(1, 7, PermissionsEnum.manageItems, () -> {
+            loads.incrementAndGet();
+            return mask;
+        }));
+        assertTrue(cache.has(1, 7, PermissionsEnum.getHistory, () -> loads.incrementAndGet()));
+        assertFalse(cache.has(1, 7, PermissionsEnum.closeShop, () -> loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+
+        // another shop of the same member is its own entry
+        assertFalse(cache.has(1, 8, PermissionsEnum.manageItems, () -> 0L));
+        cache.invalidate(1, 8);
+        assertTrue(cache.has(1, 7, PermissionsEnum.manageItems, () -> 0L));
+
+        cache.invalidateMember(1);
+        assertFalse(cache.has(1, 7, PermissionsEnum.manageItems, () -> 0L));
+        assertEquals(3, cache.getStats().hits());
+    }
+
+    @Test
+    void loadOverlappingAnInvalidation_isNotCached() {
+        PermissionCache cache = new PermissionCache(100, 60_000);
+        long all = PermissionCache.maskOf(PermissionsEnum.values());
+
+        assertTrue(cache.has(2, 3, PermissionsEnum.setPolicy, () -> {
+            cache.invalidate(2, 3); // the role changed while it was being read
+            return all;
+        }));
+        assertFalse(cache.has(2, 3, PermissionsEnum.setPolicy, () -> 0L));
+    }
+
+    @Test
+    void userService_dropsTheMaskWhenRolesChange() {
+        UserRepository repo = spy(new UserRepository("admin", "admin", "admin@mail.com", "0", "admin st.",
+                new IdAllocator()));
+        UserService service = new UserService(repo, new AuthTokenService(new AuthTokenRepository()),
+                mock(NotificationService.class));
+        int memberId = repo.addMember("owner", "password", "a@a", "b", "c");
+        int shopId = 5;
+        Role founder = new Role(memberId, shopId, null);
+        founder.setFoundersPermissions();
+
+        assertFalse(service.hasPermission(memberId, PermissionsEnum.manageItems, shopId));
+        service.addFounderRole(memberId, founder, shopId);
+        assertTrue(service.hasPermission(memberId, PermissionsEnum.manageItems, shopId));
+
+        clearInvocations(repo);
+        assertTrue(service.hasPermission(memberId, PermissionsEnum.setPolicy, shopId));
+        verify(repo, never()).getUserById(anyInt());
+
+        service.removeRole(memberId, founder);
+        assertFalse(service.hasPermission(memberId, PermissionsEnum.manageItems, shopId));
+        verify(repo, atLeastOnce()).getUserById(memberId);
+    }
+}
@@ -47,10 +47,12 @@ import org.mockito.quality.Strictness;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.ApplicationLayer.AuthenticatedPrincipal;
 import com.example.app.ApplicationLayer.NotificationService;
 import com.example.app.ApplicationLayer.OurArg;
 import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Purchase.PaymentMethod;
+import com.example.app.ApplicationLayer.RequestPrincipal;
 import com.example.app.ApplicationLayer.User.UserService;
 import com.example.app.DomainLayer.IUserRepository;
 import com.example.app.DomainLayer.Member;
@@ -61,6 +63,7 @@ import com.example.app.DomainLayer.Roles.PermissionsEnum;
 import com.example.app.DomainLayer.Roles.Role;
 import com.example.app.DomainLayer.ShoppingCart;
 import com.example.app.DomainLayer.User;
+import com.example.app.InfrastructureLayer.IdAllocator;
 import com.example.app.InfrastructureLayer.AuthTokenRepository;
 import com.example.app.InfrastructureLayer.UserRepository;
 
@@ -91,7 +94,7 @@ public class UserServiceTest {
         authTokenRepository = new AuthTokenRepository(); // Your real repo
         authTokenService = new AuthTokenService(authTokenRepository); // Real service
         userRepository = new UserRepository(adminUsername, adminPlainPassword, adminEmail, adminPhoneNumber,
-                adminAddress);
+                adminAddress, new IdAllocator());
         messagingTemplate = Mockito.mock(SimpMessagingTemplate.class);
         doNothing().when(messagingTemplate).convertAndSend(anyString(), any(Object.class));
         notificationService = mock(NotificationService.class);
@@ -101,6 +104,29 @@ public class UserServiceTest {
         userRepository.setEncoderToTest(true);
     }
 
+    @Test
+    void authenticate_resolvesThePrincipalOncePerRequest() throws Exception {
+        userService.addMember("john", "pass123", "john@example.com", "0123456789", "123 Main St");
+        String token = userService.loginAsMember("john", "pass123", "");
+        int memberId = authTokenService.ValidateToken(token);
+
+        RequestPrincipal.open();
+        try {
+            AuthenticatedPrincipal principal = userService.authenticate(token);
+            assertEquals(memberId, principal.userId());
+            assertTrue(principal.isMember());
+            assertFalse(principal.suspended());
+            assertFalse(principal.admin());
+            assertSame(principal, userService.authenticate(token));
+
+            // suspending the user drops what the request knew about them
+            userService.setSuspended(memberId, LocalDateTime.now().plusDays(1));
+            assertTrue(userService.authenticate(token).suspended());
+        } finally {
+            RequestPrincipal.close();
+        }
+    }
+
     @Test
     void getFirstAdminId() {
         int firstAdminId = userRepository.isUsernameAndPasswordValid("admin", "admin");
@@ -16,6 +16,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.app.DBLayer.Message.MessageRepositoryDBImpl;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Message;
 import com.example.app.SimpleHttpServerApplication;
 
@@ -134,4 +135,48 @@ public class MessageRepositoryDBImplTests {
         repo.deleteMessage(md.getMessageId(), 9);
         assertNull(repo.getMessageById(md.getMessageId()));
     }
+
+    @Test
+    void testConversationAndInboxPages() {
+        repo.addMessage(1, 2, "a", "t1", true, -1);
+        repo.addMessage(2, 1, "b", "t2", true, -1);
+        repo.addMessage(1, 3, "c", "t3", true, -1);
+        repo.addMessage(1, 2, "d", "t4", true, -1);
+        repo.addMessage(1, 7, "to shop", "t5", false, -1);
+        List<Integer> ids = repo.getAllMessages().stream().map(Message::getMessageId).sorted().toList();
+
+        KeysetPage<Message> first = repo.getConversation(Message.userConversationId(2, 1), null, 2);
+        assertEquals(List.of(ids.get(3), ids.get(1)), first.items().stream().map(Message::getMessageId).toList());
+        KeysetPage<Message> second = repo.getConversation(Message.userConversationId(1, 2), first.nextBeforeId(), 2);
+        assertEquals(List.of(ids.get(0)), second.items().stream().map(Message::getMessageId).toList());
+        assertNull(second.nextBeforeId());
+
+        assertEquals(List.of(ids.get(4), ids.get(3), ids.get(2)),
+                repo.getUserInbox(1, null, 10).items().stream().map(Message::getMessageId).toList());
+        assertEquals(List.of(ids.get(4)),
+                repo.getShopInbox(7, null, 10).items().stream().map(Message::getMessageId).toList());
+        KeysetPage<Message> inboxPage = repo.getUserInbox(1, null, 2);
+        assertEquals(List.of(ids.get(2)),
+                repo.getUserInbox(1, inboxPage.nextBeforeId(), 2).items().stream().map(Message::getMessageId)
+                        .toList());
+
+        // deleting the latest message brings the one before it back to the inbox
+        repo.deleteMessage(ids.get(3), 1);
+        assertEquals(List.of(ids.get(4), ids.get(2), ids.get(1)),
+                repo.getUserInbox(1, null, 10).items().stream().map(Message::getMessageId).toList());
+        repo.deleteMessage(ids.get(4), 1);
+        assertTrue(repo.getShopInbox(7, null, 10).items().isEmpty());
+    }
+
+    @Test
+    void testFullConversationFollowsChainWithinConversation() {
+        repo.addMessage(1, 2, "M1", "t1", true, -1);
+        int m1 = repo.getAllMessages().get(0).getMessageId();
+        repo.addMessage(1, 3, "other", "t2", true, -1);
+        repo.addMessage(2, 1, "M2", "t3", true, m1);
+        int m2 = repo.getConversation(Message.userConversationId(1, 2), null, 1).items().get(0).getMessageId();
+
+        List<Message> chain = repo.getFullConversation(m2);
+        assertEquals(List.of("M1", "M2"), chain.stream().map(Message::getContent).toList());
+    }
 }
@@ -1,9 +1,18 @@
 package DBLayerTests;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,9 +24,15 @@ import org.springframework.test.context.ActiveProfiles;
 import com.example.app.SimpleHttpServerApplication;
 import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.DBLayer.Purchase.PurchaseRepositoryDBImpl;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Purchase.Address;
+import com.example.app.DomainLayer.Purchase.Bid;
+import com.example.app.DomainLayer.Purchase.BidReciept;
 import com.example.app.DomainLayer.Purchase.Purchase;
+import com.example.app.DomainLayer.Purchase.Reciept;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 
 @SpringBootTest(classes = SimpleHttpServerApplication.class)
@@ -28,6 +43,10 @@ public class PurchaseRepositoryDBImplTests {
 
     @Autowired
     private PurchaseRepositoryDBImpl repo;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     int id;
 
     @BeforeEach
@@ -122,4 +141,85 @@ public class PurchaseRepositoryDBImplTests {
         assert repo.getShopBids(0).size() == 1;
     }
 
+    @Test
+    void testGetUserPurchasesPage_WalksHistoryNewestFirst() {
+        int first = repo.addPurchase(5, 1, Map.of(1, 2), 10, new Address());
+        int second = repo.addPurchase(5, 2, Map.of(2, 1, 3, 4), 20, new Address());
+        repo.addPurchase(6, 1, Map.of(3, 1), 30, new Address());
+        int third = repo.addPurchase(5, 1, Map.of(4, 1), 40, new Address());
+
+        KeysetPage<Reciept> page = repo.getUserPurchases(5, null, 2);
+        assertEquals(List.of(third, second), page.items().stream().map(Reciept::getPurchaseId).toList());
+        assertEquals(second, page.nextBeforeId());
+        assertEquals(Map.of(2, 1, 3, 4), page.items().get(1).getItems());
+        assertEquals(20, page.items().get(1).getPrice(), 0.001);
+
+        page = repo.getUserPurchases(5, page.nextBeforeId(), 2);
+        assertEquals(List.of(first), page.items().stream().map(Reciept::getPurchaseId).toList());
+        assertNull(page.nextBeforeId());
+
+        KeysetPage<Reciept> storePage = repo.getStorePurchases(2, null, 10);
+        assertEquals(List.of(second), storePage.items().stream().map(Reciept::getPurchaseId).toList());
+        assertNull(storePage.nextBeforeId());
+    }
+
+    @Test
+    void testHistoryReciepts_BuiltFromColumns() {
+        int bidId = repo.addBid(7, 3, Map.of(5, 1), 50);
+        int purchaseId = repo.addPurchase(7, 3, Map.of(6, 2), 60, new Address());
+
+        List<Reciept> history = repo.getUserPurchases(7);
+        assertEquals(List.of(purchaseId, bidId), history.stream().map(Reciept::getPurchaseId).toList());
+        assertFalse(history.get(0) instanceof BidReciept);
+        assertEquals(Map.of(6, 2), history.get(0).getItems());
+
+        BidReciept bid = assertInstanceOf(BidReciept.class, history.get(1));
+        assertEquals(50, bid.getInitialPrice());
+        assertEquals(50, bid.getHighestBid());
+        assertEquals(-1, bid.getHighestBidderId());
+        assertEquals(Map.of(5, 1), bid.getItems());
+
+        assertEquals(List.of(bidId), repo.getShopBids(3).stream().map(Reciept::getPurchaseId).toList());
+    }
+
+    @Test
+    void testSaveAuctionBids_GuardedBySeqAndCompletion() {
+        int auctionId = repo.addBid(1, 3, Map.of(5, 1), 50, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        entityManager.flush();
+
+        assertTrue(repo.saveAuctionBids(auctionId, 70, 2, 2, List.of(2)));
+        assertTrue(repo.saveAuctionBids(auctionId, 90, 4, 3, List.of(2, 4)));
+        // a batch older than the stored one changes nothing
+        assertFalse(repo.saveAuctionBids(auctionId, 60, 8, 1, List.of(8)));
+
+        entityManager.clear();
+        Bid stored = (Bid) repo.getPurchaseById(auctionId);
+        assertEquals(90, stored.getHighestBid());
+        assertEquals(4, stored.getHighestBidderId());
+        assertEquals(3, stored.getBidSeq());
+        assertEquals(Set.of(2, 4), Set.copyOf(stored.getBiddersIds()));
+
+        assertTrue(repo.completeAuction(auctionId));
+        assertFalse(repo.saveAuctionBids(auctionId, 100, 2, 4, List.of()));
+    }
+
+    @Test
+    void testCompleteAuction_KeepsTheStoredBids() {
+        int auctionId = repo.addBid(1, 3, Map.of(5, 1), 50, LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        entityManager.flush();
+        // an entity read before the last batch was stored
+        Bid stale = (Bid) repo.getPurchaseById(auctionId);
+        assertTrue(repo.saveAuctionBids(auctionId, 70, 2, 1, List.of(2)));
+
+        assertTrue(repo.completeAuction(auctionId));
+        // a second completion, e.g. after a restart, changes nothing
+        assertFalse(repo.completeAuction(auctionId));
+
+        entityManager.clear();
+        Bid stored = (Bid) repo.getPurchaseById(auctionId);
+        assertTrue(stored.isCompleted());
+        assertEquals(70, stored.getHighestBid());
+        assertEquals(2, stored.getHighestBidderId());
+        assertEquals(-1, stale.getHighestBidderId());
+    }
 }
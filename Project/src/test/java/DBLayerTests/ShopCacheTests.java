@@ -0,0 +1,120 @@
+package DBLayerTests;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.DBLayer.Shop.ShopCache;
+import com.example.app.DomainLayer.Shop.Shop;
+
+public class ShopCacheTests {
+
+    private ShopCache cache;
+    private AtomicInteger loads;
+    private IntFunction<Shop> loader;
+
+    @BeforeEach
+    public void setup() {
+        cache = new ShopCache(3, 60_000);
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            Shop shop = new Shop(id, "shop-" + id, null);
+            shop.addItem(1, 10);
+            return shop;
+        };
+    }
+
+    @Test
+    void testGet_LoadsOnceThenHits() {
+        Shop first = cache.get(1, loader);
+        assertSame(first, cache.get(1, loader));
+        assertSame(first, cache.get(1, loader));
+        assertEquals(1, loads.get());
+
+        ShopCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+        assertEquals(1, stats.loads());
+    }
+
+    @Test
+    void testInvalidate_ReloadsOnNextGet() {
+        Shop first = cache.get(1, loader);
+        cache.invalidate(1);
+        assertNotSame(first, cache.get(1, loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testWriteDuringLoad_ResultIsNotCached() {
+        cache.get(2, id -> {
+            // a write commits while this load is reading
+            cache.invalidate(2);
+            return loader.apply(id);
+        });
+        cache.get(2, loader);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testUpdate_ChangesCachedShopInPlace() {
+        Shop shop = cache.get(1, loader);
+        cache.update(1, s -> s.adjustItemQuantities(Map.of(1, -4)));
+        assertSame(shop, cache.get(1, loader));
+        assertEquals(6, shop.getItemQuantity(1));
+        assertEquals(1, loads.get());
+
+        // nothing cached: nothing to change, and the shop is loaded fresh
+        cache.update(2, s -> s.adjustItemQuantities(Map.of(1, -4)));
+        assertEquals(10, cache.get(2, loader).getItemQuantity(1));
+    }
+
+    @Test
+    void testFull_EvictsLeastFrequentlyUsed() {
+        cache.get(1, loader);
+        cache.get(2, loader);
+        cache.get(3, loader);
+        cache.get(1, loader);
+        cache.get(1, loader);
+        cache.get(3, loader);
+
+        cache.get(4, loader);
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getStats().evictions());
+
+        int before = loads.get();
+        cache.get(1, loader);
+        cache.get(3, loader);
+        cache.get(4, loader);
+        assertEquals(before, loads.get());
+        cache.get(2, loader);
+        assertEquals(before + 1, loads.get());
+    }
+
+    @Test
+    void testExpiredEntry_IsReloaded() {
+        ShopCache shortLived = new ShopCache(10, 0);
+        shortLived.get(1, loader);
+        shortLived.get(1, loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testLoaderFailure_PropagatesAndCachesNothing() {
+        assertThrows(OurRuntime.class, () -> cache.get(9, id -> {
+            throw new OurRuntime("Shop not found: " + id);
+        }));
+        assertEquals(0, cache.size());
+    }
+}
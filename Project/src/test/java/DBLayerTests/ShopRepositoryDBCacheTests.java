@@ -0,0 +1,72 @@
+package DBLayerTests;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.app.DBLayer.Shop.ShopRepositoryDBImpl;
+import com.example.app.DomainLayer.Shop.Shop;
+import com.example.app.InfrastructureLayer.WSEPShipping;
+import com.example.app.SimpleHttpServerApplication;
+
+/**
+ * Reads outside a transaction, as the services make them, which the shop
+ * cache serves. Each call commits, so the shops are removed after each test.
+ */
+@SpringBootTest(classes = SimpleHttpServerApplication.class)
+@ActiveProfiles({ "db-test" })
+public class ShopRepositoryDBCacheTests {
+
+    @Autowired
+    private ShopRepositoryDBImpl repo;
+
+    private int shopId;
+
+    @BeforeEach
+    public void setup() {
+        shopId = repo.createShop("Cached Shop", null, new WSEPShipping()).getId();
+        repo.addItemToShop(shopId, 1, 10, 50);
+        repo.setGlobalDiscount(shopId, 10, false);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        repo.deleteAll();
+    }
+
+    @Test
+    void testGetShop_ServedFromCacheUntilChanged() {
+        long hits = repo.getCacheStats().hits();
+        Shop cached = repo.getShop(shopId);
+        assertSame(cached, repo.getShop(shopId));
+        assertEquals(hits + 1, repo.getCacheStats().hits());
+        // discounts were loaded before the copy left the session
+        assertEquals(90.0, repo.applyDiscount(Map.of(1, 2), new HashMap<>(), shopId), 0.001);
+
+        repo.updateItemPriceInShop(shopId, 1, 100);
+        Shop reloaded = repo.getShop(shopId);
+        assertNotSame(cached, reloaded);
+        assertEquals(100.0, reloaded.getItemPrices().get(1), 0.001);
+    }
+
+    @Test
+    void testPurchaseAndRollBack_UpdateCachedStockInPlace() {
+        Shop cached = repo.getShop(shopId);
+        repo.purchaseItems(Map.of(1, 3), new HashMap<>(), shopId);
+        assertSame(cached, repo.getShop(shopId));
+        assertEquals(7, repo.getItemQuantityFromShop(shopId, 1));
+
+        repo.rollBackPurchase(Map.of(1, 3), shopId);
+        assertEquals(10, repo.getItemQuantityFromShop(shopId, 1));
+        assertSame(cached, repo.getShop(shopId));
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.example.app.ApplicationLayer.OurRuntime;
@@ -25,6 +26,8 @@ import com.example.app.DomainLayer.Shop.Shop;
 import com.example.app.InfrastructureLayer.WSEPShipping;
 import com.example.app.SimpleHttpServerApplication;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 
 @SpringBootTest(classes = SimpleHttpServerApplication.class)
@@ -36,6 +39,12 @@ public class ShopRepositoryDBImplTests {
     @Autowired
     private ShopRepositoryDBImpl repo;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private Shop shop;
 
     @BeforeEach
@@ -379,6 +388,54 @@ public class ShopRepositoryDBImplTests {
         OurRuntime ex22 = assertThrows(OurRuntime.class, () -> repo.rollBackPurchase(purchaseList, 999));
     }
 
+    private int storedQuantity(int itemId) {
+        entityManager.flush();
+        return jdbcTemplate.queryForObject("SELECT quantity FROM shop_items WHERE shop_id = ? AND item_id = ?",
+                Integer.class, shop.getId(), itemId);
+    }
+
+    @Test
+    void testPurchaseItems_UpdatesOnlyBasketRows() {
+        repo.addItemToShop(shop.getId(), 1, 5, 10);
+        repo.addItemToShop(shop.getId(), 2, 5, 20);
+        repo.addItemToShop(shop.getId(), 3, 5, 30);
+
+        double total = repo.purchaseItems(Map.of(1, 2, 3, 5), new HashMap<>(), shop.getId());
+        assertEquals(170.0, total, 0.001);
+        assertEquals(3, storedQuantity(1));
+        assertEquals(5, storedQuantity(2));
+        assertEquals(0, storedQuantity(3));
+        assertEquals(3, (int) repo.getShop(shop.getId()).getItemQuantities().get(1));
+
+        // a later save of the shop keeps the decremented stock
+        repo.addSupply(shop.getId(), 1, 2);
+        assertEquals(5, storedQuantity(1));
+        assertEquals(0, storedQuantity(3));
+    }
+
+    @Test
+    void testPurchaseItems_InsufficientStock_TakesNothing() {
+        repo.addItemToShop(shop.getId(), 1, 5, 10);
+        repo.addItemToShop(shop.getId(), 2, 1, 20);
+
+        assertThrows(RuntimeException.class,
+                () -> repo.purchaseItems(Map.of(1, 2, 2, 3), new HashMap<>(), shop.getId()));
+        assertThrows(RuntimeException.class,
+                () -> repo.purchaseItems(Map.of(1, 1, 42, 1), new HashMap<>(), shop.getId()));
+        assertEquals(5, storedQuantity(1));
+        assertEquals(1, storedQuantity(2));
+        assertEquals(5, (int) repo.getShop(shop.getId()).getItemQuantities().get(1));
+    }
+
+    @Test
+    void testRollBackPurchase_ReturnsStockToRows() {
+        repo.addItemToShop(shop.getId(), 1, 5, 10);
+        repo.purchaseItems(Map.of(1, 4), new HashMap<>(), shop.getId());
+        assertEquals(1, storedQuantity(1));
+        repo.rollBackPurchase(Map.of(1, 4), shop.getId());
+        assertEquals(5, storedQuantity(1));
+    }
+
     @Test
     void testGetDiscounts_Success() {
         repo.setGlobalDiscount(shop.getId(), 10, false);
@@ -1016,35 +1016,35 @@ public class UserRepositoryDBImplTests {
     void testUserRepositoryDBImpl_ConstructorValidation() {
         // Test invalid admin username
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl(null, "pass", "admin@test.com", "123", "addr", null));
+            new UserRepositoryDBImpl(null, "pass", "admin@test.com", "123", "addr", null, null));
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("", "pass", "admin@test.com", "123", "addr", null));
+            new UserRepositoryDBImpl("", "pass", "admin@test.com", "123", "addr", null, null));
         
         // Test invalid admin password
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("admin", null, "admin@test.com", "123", "addr", null));
+            new UserRepositoryDBImpl("admin", null, "admin@test.com", "123", "addr", null, null));
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("admin", "", "admin@test.com", "123", "addr", null));
+            new UserRepositoryDBImpl("admin", "", "admin@test.com", "123", "addr", null, null));
         
         // Test invalid admin email
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("admin", "pass", null, "123", "addr", null));
+            new UserRepositoryDBImpl("admin", "pass", null, "123", "addr", null, null));
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("admin", "pass", "", "123", "addr", null));
+            new UserRepositoryDBImpl("admin", "pass", "", "123", "addr", null, null));
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("admin", "pass", "invalidemail", "123", "addr", null));
+            new UserRepositoryDBImpl("admin", "pass", "invalidemail", "123", "addr", null, null));
         
         // Test invalid admin phone
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("admin", "pass", "admin@test.com", null, "addr", null));
+            new UserRepositoryDBImpl("admin", "pass", "admin@test.com", null, "addr", null, null));
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("admin", "pass", "admin@test.com", "", "addr", null));
+            new UserRepositoryDBImpl("admin", "pass", "admin@test.com", "", "addr", null, null));
         
         // Test invalid admin address
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("admin", "pass", "admin@test.com", "123", null, null));
+            new UserRepositoryDBImpl("admin", "pass", "admin@test.com", "123", null, null, null));
         assertThrows(IllegalArgumentException.class, () -> 
-            new UserRepositoryDBImpl("admin", "pass", "admin@test.com", "123", "", null));
+            new UserRepositoryDBImpl("admin", "pass", "admin@test.com", "123", "", null, null));
     }
 
     
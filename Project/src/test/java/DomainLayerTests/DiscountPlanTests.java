@@ -0,0 +1,169 @@
+package DomainLayerTests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.app.DomainLayer.Item.ItemCategory;
+import com.example.app.DomainLayer.Shop.Operator;
+import com.example.app.DomainLayer.Shop.Shop;
+import com.example.app.DomainLayer.Shop.Discount.CategoryDiscount;
+import com.example.app.DomainLayer.Shop.Discount.Discount;
+import com.example.app.DomainLayer.Shop.Discount.DiscountPlan;
+import com.example.app.DomainLayer.Shop.Discount.GlobalDiscount;
+import com.example.app.DomainLayer.Shop.Discount.Policy;
+import com.example.app.DomainLayer.Shop.Discount.PolicyComposite;
+import com.example.app.DomainLayer.Shop.Discount.PolicyLeaf;
+import com.example.app.DomainLayer.Shop.Discount.SingleDiscount;
+
+public class DiscountPlanTests {
+
+    private static final ItemCategory[] CATEGORIES = ItemCategory.values();
+
+    private Map<Integer, AtomicInteger> prices;
+    private Map<Integer, ItemCategory> categories;
+
+    @BeforeEach
+    public void setup() {
+        prices = new HashMap<>();
+        categories = new HashMap<>();
+        for (int itemId = 1; itemId <= 8; itemId++) {
+            prices.put(itemId, new AtomicInteger(itemId * 15));
+            categories.put(itemId, CATEGORIES[itemId % 3]);
+        }
+    }
+
+    // what Shop.applyDiscount did before the plan: walk the list, stacking discounts first
+    private double evaluateList(List<Discount> discounts, Map<Integer, Integer> items) {
+        Map<Integer, Double> discounted = new HashMap<>();
+        for (Integer itemId : items.keySet()) {
+            discounted.put(itemId, (double) prices.get(itemId).get());
+        }
+        for (Discount d : discounts) {
+            if (d.isDouble()) {
+                discounted = d.applyDiscounts(items, prices, discounted, categories);
+            }
+        }
+        for (Discount d : discounts) {
+            if (!d.isDouble()) {
+                discounted = d.applyDiscounts(items, prices, discounted, categories);
+            }
+        }
+        double total = 0;
+        for (Map.Entry<Integer, Integer> e : items.entrySet()) {
+            total += discounted.get(e.getKey()) * e.getValue();
+        }
+        return total;
+    }
+
+    private Policy randomPolicy(Random random, int depth) {
+        int pick = random.nextInt(depth == 0 ? 4 : 6);
+        switch (pick) {
+            case 0:
+                return null;
+            case 1:
+                return new PolicyLeaf(random.nextInt(4), 1 + random.nextInt(8), null, null);
+            case 2:
+                return new PolicyLeaf(random.nextInt(6), null, CATEGORIES[random.nextInt(3)], null);
+            case 3:
+                return new PolicyLeaf(null, null, null, (double) random.nextInt(400));
+            default:
+                Operator op = Operator.values()[random.nextInt(3)];
+                return new PolicyComposite(randomPolicy(random, depth - 1), randomPolicy(random, depth - 1), op);
+        }
+    }
+
+    private Discount randomDiscount(Random random) {
+        Policy policy = randomPolicy(random, 3);
+        int percentage = random.nextInt(101);
+        boolean isDouble = random.nextBoolean();
+        switch (random.nextInt(3)) {
+            case 0:
+                return new GlobalDiscount(percentage, policy, isDouble);
+            case 1:
+                return new SingleDiscount(1 + random.nextInt(8), percentage, policy, isDouble);
+            default:
+                return new CategoryDiscount(CATEGORIES[random.nextInt(3)], percentage, policy, isDouble);
+        }
+    }
+
+    @Test
+    public void testPlanMatchesListEvaluation_RandomDiscountsAndBaskets() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2_000; round++) {
+            List<Discount> discounts = new ArrayList<>();
+            int count = random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                discounts.add(randomDiscount(random));
+            }
+            Map<Integer, Integer> basket = new LinkedHashMap<>();
+            int size = 1 + random.nextInt(6);
+            for (int i = 0; i < size; i++) {
+                basket.put(1 + random.nextInt(8), random.nextInt(5));
+            }
+
+            DiscountPlan plan = DiscountPlan.compile(discounts, 0);
+            assertTrue(plan.isCompiled());
+            assertEquals(evaluateList(discounts, basket), plan.apply(basket, prices, categories),
+                    "round " + round);
+        }
+    }
+
+    @Test
+    public void testBasketValueOnTheThreshold_IsSummedAsTheListEvaluationSumsIt() {
+        // after 12% off these lines come to 343.2, but to 343.19999999999993
+        // when summed left to right, which would miss the half-price discount
+        Map<Integer, Integer> basket = new LinkedHashMap<>();
+        basket.put(1, 4);
+        basket.put(2, 4);
+        basket.put(3, 2);
+        basket.put(4, 2);
+        List<Discount> discounts = List.of(new GlobalDiscount(12, null, true),
+                new GlobalDiscount(50, new PolicyLeaf(null, null, null, 343.2), false));
+
+        double total = DiscountPlan.compile(discounts, 0).apply(basket, prices, categories);
+        assertEquals(evaluateList(discounts, basket), total);
+        assertEquals(195.0, total);
+    }
+
+    @Test
+    public void testPlanWithUnknownPolicyType_IsNotCompiled() {
+        Policy custom = new Policy() {
+            @Override
+            public boolean test(Map<Integer, Integer> items, Map<Integer, Double> prices,
+                    Map<Integer, ItemCategory> itemsCategory) {
+                return true;
+            }
+        };
+        DiscountPlan plan = DiscountPlan.compile(List.of(new GlobalDiscount(10, custom, false)), 0);
+        assertFalse(plan.isCompiled());
+    }
+
+    @Test
+    public void testShopRecompilesPlanWhenDiscountsChange() {
+        Shop shop = new Shop(1, "s", null);
+        shop.addItem(1, 10);
+        shop.updateItemPrice(1, 100);
+        Map<Integer, Integer> basket = Map.of(1, 1);
+
+        assertEquals(100.0, shop.applyDiscount(basket, categories));
+        shop.setGlobalDiscount(10, false);
+        assertEquals(90.0, shop.applyDiscount(basket, categories));
+        shop.setDiscountPolicy(new PolicyLeaf(2, 1, null, null));
+        shop.setDiscountForItem(1, 50, false);
+        // the item discount needs two of item 1
+        assertEquals(90.0, shop.applyDiscount(basket, categories));
+        assertEquals(100.0, shop.applyDiscount(Map.of(1, 2), categories));
+        shop.removeGlobalDiscount();
+        assertEquals(100.0, shop.applyDiscount(basket, categories));
+    }
+}
@@ -33,7 +33,9 @@ import org.mockito.MockitoAnnotations;
 
 import com.example.app.ApplicationLayer.AuthTokenService;
 import com.example.app.ApplicationLayer.Item.ItemService;
+import com.example.app.ApplicationLayer.Purchase.BidReadModel;
 import com.example.app.ApplicationLayer.Purchase.ShippingMethod;
+import com.example.app.ApplicationLayer.Shop.ItemSearchIndex;
 import com.example.app.ApplicationLayer.Shop.ShopService;
 import com.example.app.ApplicationLayer.User.UserService;
 import com.example.app.DomainLayer.Item.ItemCategory;
@@ -739,7 +741,7 @@ public class ShopTests {
         AuthTokenService ats = mock(AuthTokenService.class);
         ItemService is = mock(ItemService.class);
         UserService us = mock(UserService.class);
-        ShopService ss = new ShopService(repo, ats, us, is);
+        ShopService ss = new ShopService(repo, ats, us, is, new ItemSearchIndex(), new BidReadModel());
 
         // invalid token should be rejected
         when(ats.ValidateToken("bad")).thenThrow(new RuntimeException("Invalid token"));
@@ -886,4 +888,72 @@ public class ShopTests {
         shop.rollBackPurchase(Map.of(300, 3));
         assertEquals(8, shop.getItemQuantity(300));
     }
+
+    @Test
+    void testPurchaseItems_PartialFailure_GivesBackOnlyReservedItems() {
+        shop.addItem(1, 10);
+        shop.addItem(2, 1);
+        shop.addItem(3, 4);
+        // items are reserved in id order: 1 succeeds, 2 fails, 3 is never touched
+        assertThrows(IllegalArgumentException.class,
+                () -> shop.purchaseItems(Map.of(3, 4, 2, 5, 1, 2), Collections.emptyMap()));
+        assertEquals(10, shop.getItemQuantity(1));
+        assertEquals(1, shop.getItemQuantity(2));
+        assertEquals(4, shop.getItemQuantity(3));
+    }
+
+    /**
+     * Hot items under contention: half of the baskets ask for an item that runs
+     * out, so their reservations of the other item are given back while other
+     * buyers keep taking it. No unit may be lost or sold twice.
+     */
+    @Test
+    void testPurchaseItems_ConcurrentFailuresNeverLoseStock() throws Exception {
+        shop.addItem(1, 5_000);
+        shop.addItem(2, 500);
+        shop.updateItemPrice(1, 1);
+        shop.updateItemPrice(2, 1);
+
+        int threads = 8, perThread = 500;
+        AtomicInteger soldOne = new AtomicInteger();
+        AtomicInteger soldTwo = new AtomicInteger();
+        ExecutorService exec = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            exec.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    boolean both = ThreadLocalRandom.current().nextBoolean();
+                    Map<Integer, Integer> basket = both ? Map.of(1, 1, 2, 1) : Map.of(1, 1);
+                    try {
+                        shop.purchaseItems(basket, Collections.emptyMap());
+                        soldOne.incrementAndGet();
+                        if (both) {
+                            soldTwo.incrementAndGet();
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // item 2 ran out
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        exec.shutdown();
+        assertTrue(exec.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(5_000 - soldOne.get(), shop.getItemQuantity(1));
+        assertEquals(500 - soldTwo.get(), shop.getItemQuantity(2));
+        assertTrue(shop.getItemQuantity(2) >= 0);
+    }
+
+    @Test
+    void testRemoveItemQuantity_RemovesItemWhenExhausted() {
+        shop.addItem(400, 3);
+        shop.removeItemQuantity(400, 2);
+        assertEquals(1, shop.getItemQuantity(400));
+        shop.removeItemQuantity(400, 5);
+        assertEquals(0, shop.getItemQuantity(400));
+        assertThrows(IllegalArgumentException.class, () -> shop.removeItemQuantity(400, 1));
+    }
 }
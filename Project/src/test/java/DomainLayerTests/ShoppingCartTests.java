@@ -9,10 +9,14 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Set;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.DomainLayer.CartKey;
 import com.example.app.DomainLayer.ShoppingCart;
 
 public class ShoppingCartTests {
@@ -243,6 +247,57 @@ public class ShoppingCartTests {
         assertTrue(cart.getItems().containsKey(1), "Items should contain basket 1");
     }
 
+    @SuppressWarnings("unchecked")
+    private static Map<CartKey, Integer> persistentItems(ShoppingCart cart) {
+        return (Map<CartKey, Integer>) ReflectionTestUtils.getField(cart, "persistentItems");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<CartKey> persistentBids(ShoppingCart cart) {
+        return (Set<CartKey>) ReflectionTestUtils.getField(cart, "persistentBids");
+    }
+
+    @Test
+    public void testPersistentLines_FollowEachChange() {
+        for (int productId = 1; productId <= 200; productId++) {
+            shoppingCart.addItem(1, productId, 1);
+        }
+        Map<CartKey, Integer> lines = persistentItems(shoppingCart);
+        assertEquals(200, lines.size());
+
+        shoppingCart.addItem(2, 7, 3);
+        shoppingCart.updateProduct(1, 5, 4);
+        shoppingCart.removeItem(1, 6);
+        assertEquals(200, lines.size());
+        assertEquals(3, lines.get(new CartKey(2, 7)));
+        assertEquals(4, lines.get(new CartKey(1, 5)));
+        assertFalse(lines.containsKey(new CartKey(1, 6)));
+        assertEquals(1, lines.get(new CartKey(1, 4)));
+
+        shoppingCart.addBid(3, Map.of(9, 1));
+        assertEquals(Set.of(new CartKey(3, 9)), persistentBids(shoppingCart));
 
+        shoppingCart.removeBasket(1);
+        assertEquals(Map.of(new CartKey(2, 7), 3, new CartKey(3, 9), 1), lines);
+        shoppingCart.clearCart();
+        assertTrue(lines.isEmpty());
+        assertTrue(persistentBids(shoppingCart).isEmpty());
+    }
 
+    @Test
+    public void testLoadFromPersistentCollections_RestoresCart() {
+        ShoppingCart loaded = new ShoppingCart();
+        persistentItems(loaded).put(new CartKey(1, 100), 2);
+        persistentItems(loaded).put(new CartKey(2, 200), 5);
+        persistentBids(loaded).add(new CartKey(3, 300));
+        loaded.loadFromPersistentCollections();
+
+        assertEquals(2, loaded.getBasket(1).get(100));
+        assertEquals(5, loaded.getBasket(2).get(200));
+
+        loaded.addItem(1, 100, 1);
+        assertEquals(3, persistentItems(loaded).get(new CartKey(1, 100)));
+        loaded.removeBid(300);
+        assertTrue(persistentBids(loaded).isEmpty());
+    }
 }
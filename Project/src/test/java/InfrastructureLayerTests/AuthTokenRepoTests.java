@@ -173,4 +173,28 @@ public class AuthTokenRepoTests {
         assertThrows(OurArg.class, () -> authTokenRepo.getUserIdByToken(null));
         assertThrows(OurArg.class, () -> authTokenRepo.getUserIdByToken(""));
     }
+
+    @Test
+    void testPurgeExpiredTokens_RemovesOnlyExpired() throws InterruptedException {
+        AuthToken shortLived = new AuthToken("short", new Date(System.currentTimeMillis() + 50), 10);
+        AuthToken longLived = new AuthToken("long", new Date(System.currentTimeMillis() + 10_000), 10);
+        authTokenRepo.setAuthToken(1, shortLived);
+        authTokenRepo.setAuthToken(2, longLived);
+        Thread.sleep(100);
+
+        assertEquals(1, ((AuthTokenRepository) authTokenRepo).purgeExpiredTokens());
+        assertEquals(-1, authTokenRepo.getUserIdByToken("short"));
+        assertEquals(2, authTokenRepo.getUserIdByToken("long"));
+        assertEquals(0, ((AuthTokenRepository) authTokenRepo).purgeExpiredTokens());
+    }
+
+    @Test
+    void testSetAuthToken_ReplacingTokenUnlinksOldOne() {
+        authTokenRepo.setAuthToken(1, authToken1);
+        authTokenRepo.setAuthToken(1, authToken2);
+        assertEquals(-1, authTokenRepo.getUserIdByToken("token1"));
+        assertEquals(1, authTokenRepo.getUserIdByToken("token2"));
+        authTokenRepo.removeAuthToken(1);
+        assertEquals(-1, authTokenRepo.getUserIdByToken("token2"));
+    }
 }
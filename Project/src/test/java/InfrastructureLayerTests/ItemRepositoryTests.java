@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import com.example.app.DomainLayer.Item.Item;
 import com.example.app.DomainLayer.Item.ItemCategory;
 import com.example.app.DomainLayer.Item.ItemReview;
+import com.example.app.InfrastructureLayer.IdAllocator;
 import com.example.app.InfrastructureLayer.ItemRepository;
 
 public class ItemRepositoryTests {
@@ -18,7 +19,7 @@ public class ItemRepositoryTests {
 
     @BeforeEach
     public void setup() {
-        repo = new ItemRepository();
+        repo = new ItemRepository(new IdAllocator());
     }
 
     @Test
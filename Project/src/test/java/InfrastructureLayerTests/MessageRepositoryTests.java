@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Message;
 import com.example.app.InfrastructureLayer.MessageRepository;
 
@@ -411,4 +412,34 @@ public class MessageRepositoryTests {
         List<Message> normalConvo = repo.getFullConversation(2);
         assertEquals(2, normalConvo.size(), "Should handle normal conversation without infinite loop");
     }
+
+    @Test
+    void testConversationAndInboxPages() {
+        repo.addMessage(1, 2, "a", "t1", true, -1); // 1
+        repo.addMessage(2, 1, "b", "t2", true, 1); // 2
+        repo.addMessage(1, 3, "c", "t3", true, -1); // 3
+        repo.addMessage(1, 2, "d", "t4", true, 2); // 4
+        repo.addMessage(1, 7, "to shop", "t5", false, -1); // 5, shop 7
+
+        KeysetPage<Message> first = repo.getConversation(Message.userConversationId(2, 1), null, 2);
+        assertEquals(List.of(4, 2), first.items().stream().map(Message::getMessageId).toList());
+        assertEquals(2, first.nextBeforeId());
+        KeysetPage<Message> second = repo.getConversation(Message.userConversationId(1, 2), first.nextBeforeId(), 2);
+        assertEquals(List.of(1), second.items().stream().map(Message::getMessageId).toList());
+        assertNull(second.nextBeforeId());
+
+        // one entry per conversation, latest first
+        assertEquals(List.of(5, 4, 3),
+                repo.getUserInbox(1, null, 10).items().stream().map(Message::getMessageId).toList());
+        assertEquals(List.of(4), repo.getUserInbox(2, null, 10).items().stream().map(Message::getMessageId).toList());
+        assertEquals(List.of(5), repo.getShopInbox(7, null, 10).items().stream().map(Message::getMessageId).toList());
+        assertTrue(repo.getUserInbox(7, null, 10).items().isEmpty());
+
+        // deleting the latest message brings the one before it back to the inbox
+        repo.deleteMessage(4, 1);
+        assertEquals(List.of(5, 3, 2),
+                repo.getUserInbox(1, null, 10).items().stream().map(Message::getMessageId).toList());
+        repo.deleteMessage(5, 1);
+        assertTrue(repo.getShopInbox(7, null, 10).items().isEmpty());
+    }
 }
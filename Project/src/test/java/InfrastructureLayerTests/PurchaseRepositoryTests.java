@@ -25,11 +25,13 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Purchase.Address;
 import com.example.app.DomainLayer.Purchase.Bid;
 import com.example.app.DomainLayer.Purchase.BidReciept;
 import com.example.app.DomainLayer.Purchase.Purchase;
 import com.example.app.DomainLayer.Purchase.Reciept;
+import com.example.app.InfrastructureLayer.IdAllocator;
 import com.example.app.InfrastructureLayer.PurchaseRepository;
 
 /**
@@ -45,7 +47,7 @@ class PurchaseRepositoryTests {
     /** Reset the singleton between tests to keep them isolated. */
     @BeforeEach
     void resetSingletonViaReflection() throws Exception {
-        repo = new PurchaseRepository();
+        repo = new PurchaseRepository(new IdAllocator());
     }
 
     private Address anyAddress() {
@@ -666,4 +668,23 @@ class PurchaseRepositoryTests {
         assertTrue(!finalBids.isEmpty(), "should have some bids for the target shop");
         assertTrue(finalBids.stream().allMatch(b -> b.getShopId() == targetShopId));
     }
+
+    @Test
+    void getUserPurchasesPage_walksHistoryNewestFirst() {
+        int first = repo.addPurchase(4, 1, Map.of(1, 1), 10, new Address());
+        int second = repo.addPurchase(4, 2, Map.of(2, 1), 20, new Address());
+        repo.addPurchase(5, 1, Map.of(3, 1), 30, new Address());
+        int third = repo.addPurchase(4, 1, Map.of(4, 1), 40, new Address());
+
+        KeysetPage<Reciept> page = repo.getUserPurchases(4, null, 2);
+        assertEquals(List.of(third, second), page.items().stream().map(Reciept::getPurchaseId).toList());
+        assertEquals(second, page.nextBeforeId());
+
+        page = repo.getUserPurchases(4, page.nextBeforeId(), 2);
+        assertEquals(List.of(first), page.items().stream().map(Reciept::getPurchaseId).toList());
+        assertEquals(null, page.nextBeforeId());
+
+        assertEquals(List.of(third, first), repo.getStorePurchases(1, null, 5).items().stream()
+                .filter(r -> r.getUserId() == 4).map(Reciept::getPurchaseId).toList());
+    }
 }
@@ -17,6 +17,7 @@ import com.example.app.DomainLayer.Item.ItemCategory;
 import com.example.app.DomainLayer.Shop.Operator;
 import com.example.app.DomainLayer.Shop.PurchasePolicy;
 import com.example.app.DomainLayer.Shop.Shop;
+import com.example.app.InfrastructureLayer.IdAllocator;
 import com.example.app.InfrastructureLayer.ShopRepository;
 
 public class ShopRepositoryTests {
@@ -32,7 +33,7 @@ public class ShopRepositoryTests {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        repo = new ShopRepository();
+        repo = new ShopRepository(new IdAllocator());
     }
 
     // UC1 – Create & Get Shop (success)
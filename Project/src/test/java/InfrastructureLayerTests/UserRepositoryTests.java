@@ -32,6 +32,7 @@ import com.example.app.DomainLayer.Purchase.Bid;
 import com.example.app.DomainLayer.Purchase.BidReciept;
 import com.example.app.DomainLayer.Roles.PermissionsEnum;
 import com.example.app.DomainLayer.Roles.Role;
+import com.example.app.InfrastructureLayer.IdAllocator;
 import com.example.app.InfrastructureLayer.UserRepository;
 import com.example.app.DomainLayer.ShoppingCart;
 import com.example.app.InfrastructureLayer.WSEPPay;
@@ -52,7 +53,8 @@ public class UserRepositoryTests {
         String adminPhoneNumber = "0";
         String adminAddress = "admin st.";
 
-        repo = new UserRepository(adminUsername, adminPlainPassword, adminEmail, adminPhoneNumber, adminAddress);
+        repo = new UserRepository(adminUsername, adminPlainPassword, adminEmail, adminPhoneNumber, adminAddress,
+                new IdAllocator());
         repo.setEncoderToTest(true); // Set the encoder to test mode
         guestId = repo.addGuest();
         guest = repo.getUserById(guestId);
@@ -1293,4 +1295,17 @@ public class UserRepositoryTests {
                 () -> assertDoesNotThrow(() -> repo.addNotification(memberId, "title", ""))
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLogin_FollowsUsernameIndex() {
+        repo.updateMemberUsername(memberId, "renamed");
+        assertEquals(-1, repo.isUsernameAndPasswordValid("username", "password"));
+        assertFalse(repo.isUsernameTaken("username"));
+        assertEquals(memberId, repo.isUsernameAndPasswordValid("renamed", "password"));
+        assertEquals(-1, repo.isUsernameAndPasswordValid("renamed", "wrong"));
+
+        repo.removeUserById(memberId);
+        assertFalse(repo.isUsernameTaken("renamed"));
+        assertEquals(-1, repo.isUsernameAndPasswordValid("renamed", "password"));
+    }
+}
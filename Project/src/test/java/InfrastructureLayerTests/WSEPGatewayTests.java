@@ -0,0 +1,183 @@
+package InfrastructureLayerTests;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.app.ApplicationLayer.OurRuntime;
+import com.example.app.InfrastructureLayer.WSEPGateway;
+import com.example.app.InfrastructureLayer.WSEPPay;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the gateway against a local stub that answers every form with
+ * {@code body} and {@code status} after {@code delayMs}.
+ */
+class WSEPGatewayTests {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String url;
+
+    private volatile long delayMs;
+    private volatile int status = 200;
+    private volatile String body = "OK";
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private WSEPGateway gateway;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] answer = body.getBytes(StandardCharsets.UTF_8);
+            try {
+                exchange.sendResponseHeaders(status, answer.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(answer);
+                }
+            } catch (IOException e) {
+                // the client gave up waiting
+            }
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (gateway != null) {
+            gateway.stopHealthProbe();
+        }
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    // timeouts 200ms, 3 attempts without backoff, opens after 3 failures for 300ms
+    private WSEPGateway gateway(int maxConcurrent, long acquireTimeoutMs, long healthIntervalMs) {
+        gateway = new WSEPGateway(new WSEPGateway.Settings(url, 200, 200, 200, 200, 200, maxConcurrent,
+                acquireTimeoutMs, 3, 0, 3, 300, healthIntervalMs));
+        return gateway;
+    }
+
+    @Test
+    void paymentThroughTheStub_returnsTheGatewaysAnswer() {
+        body = "12345";
+        WSEPPay pay = new WSEPPay(gateway(2, 100, 0));
+
+        assertEquals(12345, pay.processPayment(10, "USD", "4111111111111111", "12", "2030", "John", "123", "1"));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void slowHandshake_timesOutAndIsRetried() {
+        delayMs = 500;
+        gateway(2, 100, 0);
+
+        assertThrows(OurRuntime.class, () -> gateway.call(WSEPGateway.Operation.HANDSHAKE, Map.of()));
+        WSEPGateway.Stats stats = gateway.getStats();
+        assertEquals(3, stats.calls());
+        assertEquals(2, stats.retries());
+        assertEquals(3, stats.timeouts());
+    }
+
+    @Test
+    void failedPayment_isNotRetried() {
+        status = 503;
+        body = "down";
+        gateway(2, 100, 0);
+
+        assertThrows(OurRuntime.class, () -> gateway.call(WSEPGateway.Operation.PAY, Map.of("amount", "1")));
+        assertEquals(1, requests.get());
+        assertEquals(0, gateway.getStats().retries());
+    }
+
+    @Test
+    void repeatedFailures_openTheCircuitUntilATrialSucceeds() throws InterruptedException {
+        status = 503;
+        gateway(2, 100, 0);
+
+        // three failed attempts of one cancellation open it
+        assertThrows(OurRuntime.class, () -> gateway.call(WSEPGateway.Operation.CANCEL_PAY, Map.of()));
+        assertTrue(gateway.getStats().circuitOpen());
+        int sent = requests.get();
+
+        assertThrows(OurRuntime.class, () -> gateway.call(WSEPGateway.Operation.PAY, Map.of()));
+        assertEquals(sent, requests.get());
+        assertEquals(1, gateway.getStats().rejectedOpen());
+
+        Thread.sleep(400);
+        status = 200;
+        body = "1";
+        assertEquals("1", gateway.call(WSEPGateway.Operation.CANCEL_PAY, Map.of()));
+        assertFalse(gateway.getStats().circuitOpen());
+        assertEquals(1, gateway.getStats().circuitOpened());
+    }
+
+    @Test
+    void fullBulkhead_rejectsInsteadOfQueueing() throws Exception {
+        delayMs = 150;
+        gateway(1, 0, 0);
+        CountDownLatch inFlight = new CountDownLatch(1);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = caller.submit(() -> {
+                inFlight.countDown();
+                return gateway.call(WSEPGateway.Operation.PAY, Map.of());
+            });
+            inFlight.await();
+            Thread.sleep(50);
+
+            assertThrows(OurRuntime.class, () -> gateway.call(WSEPGateway.Operation.PAY, Map.of()));
+            assertEquals("OK", first.get(1, TimeUnit.SECONDS));
+            assertEquals(1, gateway.getStats().rejectedBusy());
+            assertEquals(1, requests.get());
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    void availability_isAnsweredFromTheLastHandshake() throws InterruptedException {
+        WSEPPay pay = new WSEPPay(gateway(2, 100, 60_000));
+        gateway.startHealthProbe();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (gateway.getStats().available() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(pay.isPaymentServiceAvailable());
+        int sent = requests.get();
+
+        // the gateway went down, but the next probe is a minute away
+        status = 503;
+        assertTrue(pay.isPaymentServiceAvailable());
+        assertEquals(sent, requests.get());
+        assertEquals(Boolean.TRUE, gateway.getStats().available());
+    }
+}
@@ -1,6 +1,7 @@
 package PresentationLayerTests;
 
 import java.util.Arrays;
+import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 
@@ -17,8 +18,11 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.example.app.ApplicationLayer.OurArg;
+import com.example.app.ApplicationLayer.OurRuntime;
 import com.example.app.ApplicationLayer.Message.MessageService;
 import com.example.app.ApplicationLayer.User.UserService;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Message;
 import com.example.app.PresentationLayer.Controller.MessageController;
 
@@ -280,4 +284,45 @@ public class MessageControllerTests {
                .andExpect(content().string("No previous message found!"));
         }
     }
+
+    @Nested
+    @DisplayName("10. INBOX AND THREADS")
+    class PagedTests {
+        @Test
+        void thread_returnsPageWithCursor() throws Exception {
+            Message m = new Message(9, 1, 5, "hi", "t", true, -1);
+            when(messageService.getConversationWithUser("tok", 5, 10, 1))
+                .thenReturn(new KeysetPage<>(List.of(m), 9));
+
+            mvc.perform(get("/api/messages/users/5/thread")
+                    .param("authToken", "tok")
+                    .param("before", "10")
+                    .param("limit", "1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.items", hasSize(1)))
+               .andExpect(jsonPath("$.items[0].content", is("hi")))
+               .andExpect(jsonPath("$.nextBeforeId", is(9)));
+        }
+
+        @Test
+        void shopInbox_withoutPermission_returns409() throws Exception {
+            when(messageService.getShopInbox("tok", 7, null, 20))
+                .thenThrow(new OurRuntime("no permission"));
+
+            mvc.perform(get("/api/messages/shops/7/inbox")
+                    .param("authToken", "tok"))
+               .andExpect(status().isConflict());
+        }
+
+        @Test
+        void inbox_badLimit_returns400() throws Exception {
+            when(messageService.getInbox("tok", null, 500))
+                .thenThrow(new OurArg("Page limit must be between 1 and 100."));
+
+            mvc.perform(get("/api/messages/inbox")
+                    .param("authToken", "tok")
+                    .param("limit", "500"))
+               .andExpect(status().isBadRequest());
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package PresentationLayerTests;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.app.ApplicationLayer.MetricsRegistry;
+import com.example.app.ApplicationLayer.Item.ItemService;
+import com.example.app.Config.MetricsConfig;
+import com.example.app.DomainLayer.Item.Item;
+import com.example.app.PresentationLayer.Controller.ItemController;
+import com.example.app.PresentationLayer.Controller.MetricsController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Slice tests for MetricsController and the request timing of MetricsConfig.
+ */
+@WebMvcTest(controllers = { MetricsController.class, ItemController.class })
+@ContextConfiguration(classes = MetricsControllerTests.TestBootApp.class)
+@Import({ MetricsRegistry.class, MetricsConfig.class })
+@TestPropertySource(properties = "app.metrics.scrape-token=secret")
+@AutoConfigureMockMvc(addFilters = false)
+public class MetricsControllerTests {
+
+    @SpringBootApplication(scanBasePackages = "com.example.app.PresentationLayer")
+    static class TestBootApp {
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private ItemService itemService;
+
+    @Nested
+    @DisplayName("1. SCRAPE")
+    class Scrape {
+        @Test
+        void rightToken_returns200AndPrometheusText() throws Exception {
+            mvc.perform(get("/api/metrics").param("token", "secret"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("text/plain"));
+        }
+
+        @Test
+        void wrongToken_returns403() throws Exception {
+            mvc.perform(get("/api/metrics").param("token", "guess"))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        void missingToken_returns403() throws Exception {
+            mvc.perform(get("/api/metrics"))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        void noScrapeTokenConfigured_returns404() {
+            MetricsController controller = new MetricsController(new MetricsRegistry(true), "");
+            assertEquals(HttpStatus.NOT_FOUND, controller.scrape(null).getStatusCode());
+            assertEquals(HttpStatus.NOT_FOUND, controller.scrape("").getStatusCode());
+        }
+    }
+
+    @Nested
+    @DisplayName("2. REQUEST TIMING")
+    class RequestTiming {
+        @Test
+        void requests_areTimedUnderTheMatchedPattern() throws Exception {
+            when(itemService.getItem(5, "tok")).thenReturn(new Item(5, "Name", "Desc", 1));
+            when(itemService.getItem(6, "tok")).thenReturn(new Item(6, "Name", "Desc", 1));
+
+            mvc.perform(get("/api/items/5").param("token", "tok")).andExpect(status().isOk());
+            mvc.perform(get("/api/items/6").param("token", "tok")).andExpect(status().isOk());
+
+            mvc.perform(get("/api/metrics").param("token", "secret"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("app_http_server_requests_seconds_count"
+                            + "{method=\"GET\",uri=\"/api/items/{itemId}\",status=\"200\"} 2\n")))
+                    .andExpect(content().string(not(containsString("uri=\"/api/items/5\""))));
+        }
+    }
+}
@@ -32,7 +32,10 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.app.ApplicationLayer.OurArg;
+import com.example.app.ApplicationLayer.Purchase.AuctionBidBook;
 import com.example.app.ApplicationLayer.Purchase.PurchaseService;
+import com.example.app.DomainLayer.KeysetPage;
 import com.example.app.DomainLayer.Purchase.Address;
 import com.example.app.DomainLayer.Purchase.BidReciept;
 import com.example.app.DomainLayer.Purchase.Reciept;
@@ -768,6 +771,64 @@ class PurchaseControllerTests {
         }
     }
 
+    @Nested
+    @DisplayName("10b. GET PAGED PURCHASE HISTORY")
+    class GetPurchaseHistoryPageTests {
+        @Test
+        void userPage_returns200WithCursor() throws Exception {
+            when(purchaseService.getUserPurchasesPage("tok", 7, 40, 2))
+                .thenReturn(new KeysetPage<>(List.of(), 12));
+            mvc.perform(get("/api/purchases/users/7/page")
+                    .param("authToken", "tok")
+                    .param("before", "40")
+                    .param("limit", "2"))
+               .andExpect(status().isOk())
+               .andExpect(content().json("{\"items\":[],\"nextBeforeId\":12}"));
+        }
+
+        @Test
+        void storePage_defaultsToFirstPage() throws Exception {
+            when(purchaseService.getStorePurchasesPage("tok", 3, null, 20))
+                .thenReturn(new KeysetPage<>(List.of(), null));
+            mvc.perform(get("/api/purchases/shops/3/page")
+                    .param("authToken", "tok"))
+               .andExpect(status().isOk())
+               .andExpect(content().json("{\"items\":[]}"));
+        }
+
+        @Test
+        void invalidLimit_returns400() throws Exception {
+            when(purchaseService.getStorePurchasesPage(anyString(), anyInt(), any(), anyInt()))
+                .thenThrow(new OurArg("Page limit must be between 1 and 100."));
+            mvc.perform(get("/api/purchases/shops/3/page")
+                    .param("authToken", "tok")
+                    .param("limit", "500"))
+               .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void bidsPage_returns200WithCursor() throws Exception {
+            when(purchaseService.getBidsPage("tok", true, 30, 5))
+                .thenReturn(new KeysetPage<>(List.of(), 9));
+            mvc.perform(get("/api/purchases/bids/page")
+                    .param("authToken", "tok")
+                    .param("before", "30")
+                    .param("limit", "5"))
+               .andExpect(status().isOk())
+               .andExpect(content().json("{\"items\":[],\"nextBeforeId\":9}"));
+        }
+
+        @Test
+        void auctionsPage_defaultsToFirstPage() throws Exception {
+            when(purchaseService.getBidsPage("tok", false, null, 20))
+                .thenReturn(new KeysetPage<>(List.of(), null));
+            mvc.perform(get("/api/purchases/auctions/page")
+                    .param("authToken", "tok"))
+               .andExpect(status().isOk())
+               .andExpect(content().json("{\"items\":[]}"));
+        }
+    }
+
     /* ─────────────────────────── GET SINGLE BID ────────────────────────── */
     @Nested
     @DisplayName("11. GET BID BY ID")
@@ -856,11 +917,13 @@ class PurchaseControllerTests {
     class PlaceAuctionBidTests {
         @Test
         void success_returns202() throws Exception {
-            doNothing().when(purchaseService).postBiddingAuction("tok", 6, 150);
+            when(purchaseService.postBiddingAuction("tok", 6, 150))
+                .thenReturn(new AuctionBidBook.Ack(6, 4, true, 150, 2));
             mvc.perform(post("/api/purchases/auctions/6/offers")
                     .param("authToken","tok")
                     .param("bidAmount","150"))
-               .andExpect(status().isAccepted());
+               .andExpect(status().isAccepted())
+               .andExpect(content().json("{\"seq\":4,\"accepted\":true,\"highestBid\":150}"));
         }
 
         @Test
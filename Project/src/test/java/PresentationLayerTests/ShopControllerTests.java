@@ -456,7 +456,7 @@ class ShopControllerTests {
                 void serverError_500() throws Exception {
                         doThrow(new RuntimeException())
                                         .when(shopService)
-                                        .shipPurchase(any(), anyInt(), anyInt(), any(), any(), any(), any());
+                                        .shipPurchase(anyString(), anyInt(), anyInt(), any(), any(), any(), any());
                         mvc.perform(post("/api/shops/1/purchase/2/ship")
                                         .param("country", "IL").param("city", "H")
                                         .param("street", "S").param("postalCode", "1")
@@ -0,0 +1,79 @@
+package com.example.app.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.ApplicationLayer.Purchase.AuctionBidBook;
+import com.example.app.InfrastructureLayer.IdAllocator;
+import com.example.app.InfrastructureLayer.PurchaseRepository;
+
+/**
+ * {@link AuctionBidBook#submit} on one running auction, so the score is bids
+ * per second per auction. Every call outbids the last; storing a batch takes
+ * {@code writeMicros}, standing in for the database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuctionBidBookBenchmark {
+
+    @Param({ "0", "500" })
+    public long writeMicros;
+
+    private AuctionBidBook book;
+    private int auctionId;
+    private final AtomicInteger price = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        PurchaseRepository repository = new PurchaseRepository(new IdAllocator()) {
+            @Override
+            public boolean saveAuctionBids(int auctionId, int highestBid, int highestBidderId, long bidSeq,
+                    Collection<Integer> newBidders) {
+                if (writeMicros > 0) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(writeMicros));
+                }
+                return super.saveAuctionBids(auctionId, highestBid, highestBidderId, bidSeq, newBidders);
+            }
+        };
+        auctionId = repository.addBid(1, 1, Map.of(1, 1), 10, LocalDateTime.now().minusMinutes(1),
+                LocalDateTime.now().plusDays(1));
+        book = new AuctionBidBook(repository);
+        price.set(10);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public AuctionBidBook.Ack outbidSingleThread() {
+        int bid = price.incrementAndGet();
+        return book.submit(auctionId, 2 + bid % 1_000, bid);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public AuctionBidBook.Ack outbidAllCores() {
+        int bid = price.incrementAndGet();
+        return book.submit(auctionId, 2 + bid % 1_000, bid);
+    }
+}
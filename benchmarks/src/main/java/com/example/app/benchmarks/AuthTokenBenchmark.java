@@ -0,0 +1,61 @@
+package com.example.app.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.InfrastructureLayer.AuthTokenRepository;
+
+/**
+ * {@link AuthTokenService#ValidateToken}, which every service call starts
+ * with, for a population of logged-in users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenBenchmark {
+
+    @Param({ "10", "10000" })
+    public int users;
+
+    private AuthTokenService auth;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        auth = new AuthTokenService(new AuthTokenRepository());
+        tokens = new String[users];
+        for (int i = 0; i < users; i++) {
+            tokens[i] = auth.Login("user" + i, "pw", i + 1);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Integer validateSingleThread() throws Exception {
+        return auth.ValidateToken(tokens[ThreadLocalRandom.current().nextInt(users)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Integer validateAllCores() throws Exception {
+        return auth.ValidateToken(tokens[ThreadLocalRandom.current().nextInt(users)]);
+    }
+}
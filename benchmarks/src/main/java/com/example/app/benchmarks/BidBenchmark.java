@@ -0,0 +1,60 @@
+package com.example.app.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.DomainLayer.Purchase.Bid;
+
+/**
+ * {@link Bid#addBidding} on one running auction, with every call outbidding
+ * the last so each one updates the highest bid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BidBenchmark {
+
+    private Bid auction;
+    private final AtomicInteger price = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        auction = new Bid(1, 1, 1, Map.of(1, 1), 10, LocalDateTime.now().minusMinutes(1),
+                LocalDateTime.now().plusDays(1));
+        price.set(10);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Bid outbidSingleThread() {
+        int bid = price.incrementAndGet();
+        auction.addBidding(2 + bid % 1_000, bid, false);
+        return auction;
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Bid outbidAllCores() {
+        int bid = price.incrementAndGet();
+        auction.addBidding(2 + bid % 1_000, bid, false);
+        return auction;
+    }
+}
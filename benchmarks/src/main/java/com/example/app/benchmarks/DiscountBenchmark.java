@@ -0,0 +1,76 @@
+package com.example.app.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.DomainLayer.Item.ItemCategory;
+import com.example.app.DomainLayer.Shop.Shop;
+
+/**
+ * {@link Shop#applyDiscount} for shops whose discounts carry full
+ * {@code PolicyComposite} trees of the given depth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountBenchmark {
+
+    private static final int CATALOG = 500;
+
+    @Param({ "1", "4", "8" })
+    public int depth;
+
+    @Param({ "3", "30" })
+    public int discounts;
+
+    @Param({ "5", "50" })
+    public int basketSize;
+
+    private Shop shop;
+    private Map<Integer, Integer> basket;
+    private Map<Integer, ItemCategory> categories;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticData data = new SyntheticData(11);
+        shop = data.shop(1, CATALOG, 1_000);
+        ItemCategory[] all = ItemCategory.values();
+        for (int i = 0; i < discounts; i++) {
+            shop.setDiscountPolicy(data.policyTree(depth, CATALOG));
+            switch (i % 3) {
+                case 0:
+                    shop.setDiscountForItem(1 + data.nextInt(CATALOG), 5 + data.nextInt(40), data.nextInt(2) == 0);
+                    break;
+                case 1:
+                    shop.setCategoryDiscount(all[data.nextInt(all.length)], 5 + data.nextInt(40),
+                            data.nextInt(2) == 0);
+                    break;
+                default:
+                    shop.setGlobalDiscount(5 + data.nextInt(20), data.nextInt(2) == 0);
+            }
+        }
+        basket = data.basket(basketSize, CATALOG);
+        categories = data.categories(CATALOG);
+    }
+
+    @Benchmark
+    public double applyDiscount() {
+        return shop.applyDiscount(basket, categories);
+    }
+}
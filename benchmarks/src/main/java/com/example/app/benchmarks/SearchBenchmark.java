@@ -0,0 +1,81 @@
+package com.example.app.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.ApplicationLayer.AuthTokenService;
+import com.example.app.ApplicationLayer.Purchase.BidReadModel;
+import com.example.app.ApplicationLayer.Shop.ItemSearchIndex;
+import com.example.app.ApplicationLayer.Shop.ShopService;
+import com.example.app.DomainLayer.Item.Item;
+import com.example.app.DomainLayer.Item.ItemCategory;
+import com.example.app.InfrastructureLayer.AuthTokenRepository;
+
+/**
+ * {@link ShopService#searchItems} over a synthetic catalog listed in many
+ * shops. The search index is filled up front, as it is after the first search
+ * of a running server, so only the query path is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int listings;
+
+    @Param({ "20" })
+    public int shops;
+
+    private ShopService shopService;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticData data = new SyntheticData(13);
+        AuthTokenService auth = new AuthTokenService(new AuthTokenRepository());
+        token = auth.Login("bench", "bench", 1);
+
+        ItemSearchIndex index = new ItemSearchIndex();
+        List<Item> items = data.items(listings / shops);
+        for (int shopId = 1; shopId <= shops; shopId++) {
+            index.putShop(shopId, 1 + data.nextInt(5));
+            for (Item item : items) {
+                index.putListing(shopId, item, 1 + data.nextInt(1_000));
+            }
+        }
+        index.markLoaded();
+        shopService = new ShopService(null, auth, null, null, index, new BidReadModel());
+    }
+
+    @Benchmark
+    public List<Item> byName() throws Exception {
+        return shopService.searchItems("phone", null, null, null, null, null, null, token);
+    }
+
+    @Benchmark
+    public List<Item> byKeywordsAndPrice() throws Exception {
+        return shopService.searchItems(null, null, List.of("wireless", "coffee"), 100, 400, null, null, token);
+    }
+
+    @Benchmark
+    public List<Item> byCategoryFirstPage() throws Exception {
+        return shopService.searchItems(null, ItemCategory.ELECTRONICS, null, null, null, 2.0, 2.0, 0, 20, token);
+    }
+}
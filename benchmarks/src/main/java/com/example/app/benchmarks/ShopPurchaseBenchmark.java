@@ -0,0 +1,78 @@
+package com.example.app.benchmarks;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.DomainLayer.Shop.Shop;
+
+/**
+ * {@link Shop#purchaseItems} with every thread buying from the same shop:
+ * "hot" baskets all hit item 1 (a flash sale), "spread" baskets pick items
+ * across the catalog. Compare the single-thread and all-cores scores for
+ * scaling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShopPurchaseBenchmark {
+
+    @Param({ "100", "10000" })
+    public int catalogSize;
+
+    @Param({ "hot", "spread" })
+    public String contention;
+
+    @Param({ "1", "4" })
+    public int basketSize;
+
+    private Shop shop;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // enough stock that no iteration runs out
+        shop = new SyntheticData(7).shop(1, catalogSize, Integer.MAX_VALUE / 2);
+    }
+
+    private Map<Integer, Integer> nextBasket() {
+        if (contention.equals("hot")) {
+            return basketSize == 1 ? Map.of(1, 1) : Map.of(1, 1, 2, 1, 3, 1, 4, 1);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (basketSize == 1) {
+            return Map.of(1 + random.nextInt(catalogSize), 1);
+        }
+        int first = 1 + random.nextInt(catalogSize - 3);
+        return Map.of(first, 1, first + 1, 1, first + 2, 1, first + 3, 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public double purchaseSingleThread() {
+        return shop.purchaseItems(nextBasket(), Collections.emptyMap());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public double purchaseAllCores() {
+        return shop.purchaseItems(nextBasket(), Collections.emptyMap());
+    }
+}
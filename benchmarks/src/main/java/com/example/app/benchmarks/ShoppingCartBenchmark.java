@@ -0,0 +1,71 @@
+package com.example.app.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.DomainLayer.ShoppingCart;
+
+/**
+ * Single mutations of a {@link ShoppingCart} that already holds the given
+ * number of baskets and items, including the copy into the persistent
+ * collections each mutation makes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingCartBenchmark {
+
+    @Param({ "1", "10" })
+    public int shops;
+
+    @Param({ "5", "50" })
+    public int itemsPerShop;
+
+    private ShoppingCart cart;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        cart = new ShoppingCart();
+        for (int shopId = 1; shopId <= shops; shopId++) {
+            for (int itemId = 1; itemId <= itemsPerShop; itemId++) {
+                cart.addItem(shopId, itemId, 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public ShoppingCart addItem() {
+        int n = next++;
+        cart.addItem(1 + n % shops, 1 + n % itemsPerShop, 1);
+        return cart;
+    }
+
+    @Benchmark
+    public ShoppingCart updateProduct() {
+        int n = next++;
+        cart.updateProduct(1 + n % shops, 1 + n % itemsPerShop, 1 + n % 5);
+        return cart;
+    }
+
+    @Benchmark
+    public ShoppingCart syncToPersistentCollections() {
+        cart.syncToPersistentCollections();
+        return cart;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.app.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.example.app.DomainLayer.Item.Item;
+import com.example.app.DomainLayer.Item.ItemCategory;
+import com.example.app.DomainLayer.Shop.Operator;
+import com.example.app.DomainLayer.Shop.Shop;
+import com.example.app.DomainLayer.Shop.Discount.Policy;
+import com.example.app.DomainLayer.Shop.Discount.PolicyComposite;
+import com.example.app.DomainLayer.Shop.Discount.PolicyLeaf;
+
+/**
+ * Seeded generators for the benchmark fixtures, so every run and every release
+ * measures the same catalogs, baskets and policy trees.
+ */
+public final class SyntheticData {
+
+    private static final String[] WORDS = { "smart", "phone", "leather", "case", "organic", "coffee", "running",
+            "shoe", "wireless", "speaker", "cotton", "shirt", "steel", "bottle", "gaming", "mouse", "travel",
+            "backpack", "desk", "lamp", "yoga", "mat", "kitchen", "knife", "garden", "hose", "baby", "stroller" };
+
+    private static final ItemCategory[] CATEGORIES = ItemCategory.values();
+
+    private final Random random;
+
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static ItemCategory categoryOf(int itemId) {
+        return CATEGORIES[itemId % CATEGORIES.length];
+    }
+
+    public String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    public List<Item> items(int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            String name = word() + " " + word() + " " + id;
+            String description = word() + " " + word() + " " + word();
+            Item item = new Item(id, name, description, categoryOf(id).ordinal());
+            for (int r = random.nextInt(4); r > 0; r--) {
+                item.addReview(1 + random.nextInt(5), "review");
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * A shop holding items 1..catalogSize with the given stock each.
+     */
+    public Shop shop(int shopId, int catalogSize, int stock) {
+        Shop shop = new Shop(shopId, "shop-" + shopId, null);
+        for (int itemId = 1; itemId <= catalogSize; itemId++) {
+            shop.addItem(itemId, stock);
+            shop.updateItemPrice(itemId, 1 + random.nextInt(500));
+        }
+        return shop;
+    }
+
+    /**
+     * A basket of distinct items drawn from 1..catalogSize.
+     */
+    public Map<Integer, Integer> basket(int size, int catalogSize) {
+        Map<Integer, Integer> basket = new LinkedHashMap<>();
+        while (basket.size() < Math.min(size, catalogSize)) {
+            basket.put(1 + random.nextInt(catalogSize), 1 + random.nextInt(3));
+        }
+        return basket;
+    }
+
+    public Map<Integer, ItemCategory> categories(int catalogSize) {
+        Map<Integer, ItemCategory> categories = new LinkedHashMap<>();
+        for (int itemId = 1; itemId <= catalogSize; itemId++) {
+            categories.put(itemId, categoryOf(itemId));
+        }
+        return categories;
+    }
+
+    /**
+     * A full binary policy tree of the given depth over random leaves.
+     */
+    public Policy policyTree(int depth, int catalogSize) {
+        if (depth == 0) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    return new PolicyLeaf(1 + random.nextInt(2), 1 + random.nextInt(catalogSize), null, null);
+                case 1:
+                    return new PolicyLeaf(1 + random.nextInt(3), null, CATEGORIES[random.nextInt(CATEGORIES.length)],
+                            null);
+                default:
+                    return new PolicyLeaf(null, null, null, (double) random.nextInt(1_000));
+            }
+        }
+        Operator operator = Operator.values()[random.nextInt(Operator.values().length)];
+        return new PolicyComposite(policyTree(depth - 1, catalogSize), policyTree(depth - 1, catalogSize), operator);
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+}